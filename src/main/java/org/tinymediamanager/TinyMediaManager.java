@@ -380,6 +380,10 @@ public class TinyMediaManager {
               TmmThreadPool task = new TvShowUpdateDatasourceTask();
               TmmTaskManager.getInstance().addMainTask(task);
             }
+
+            // watch the data sources for changes (if enabled)
+            MovieModuleManager.getInstance().startDatasourceWatcher();
+            TvShowModuleManager.getInstance().startDatasourceWatcher();
           }
           else {
             TinyMediaManagerCLI.start(args);
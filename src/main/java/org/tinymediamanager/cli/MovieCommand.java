@@ -73,6 +73,9 @@ class MovieCommand implements Runnable {
   @CommandLine.ArgGroup
   Datasource                  datasource;
 
+  @CommandLine.Option(names = { "--fullRescan" }, description = "Force a full rescan of the data sources (do not skip unchanged directories)")
+  boolean                     fullRescan;
+
   @CommandLine.ArgGroup
   Scrape                      scrape;
 
@@ -129,12 +132,16 @@ class MovieCommand implements Runnable {
     if (rewriteNFO) {
       rewriteNfoFiles();
     }
+
+    // make sure all changes are in the database
+    MovieModuleManager.getInstance().flush();
   }
 
   private void updateDataSources() {
     LOGGER.info("updating movie data sources...");
     if (datasource.updateAll) {
-      Runnable task = new MovieUpdateDatasourceTask();
+      MovieUpdateDatasourceTask task = new MovieUpdateDatasourceTask();
+      task.setForceFullRescan(fullRescan);
       task.run(); // blocking
     }
     else {
@@ -142,7 +149,8 @@ class MovieCommand implements Runnable {
       if (ListUtils.isNotEmpty(dataSources)) {
         for (Integer i : datasource.indices) {
           if (dataSources.size() >= i - 1) {
-            Runnable task = new MovieUpdateDatasourceTask(dataSources.get(i - 1));
+            MovieUpdateDatasourceTask task = new MovieUpdateDatasourceTask(dataSources.get(i - 1));
+            task.setForceFullRescan(fullRescan);
             task.run(); // blocking
           }
         }
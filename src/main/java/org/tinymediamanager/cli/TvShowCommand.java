@@ -82,6 +82,9 @@ class TvShowCommand implements Runnable {
   @CommandLine.ArgGroup
   Datasource                  datasource;
 
+  @CommandLine.Option(names = { "--fullRescan" }, description = "Force a full rescan of the data sources (do not skip unchanged directories)")
+  boolean                     fullRescan;
+
   @CommandLine.ArgGroup
   Scrape                      scrape;
 
@@ -139,12 +142,16 @@ class TvShowCommand implements Runnable {
     if (rewriteNFO) {
       rewriteNfoFiles();
     }
+
+    // make sure all changes are in the database
+    TvShowModuleManager.getInstance().flush();
   }
 
   private void updateDataSources() {
     LOGGER.info("updating TV show data sources...");
     if (datasource.updateAll) {
-      Runnable task = new TvShowUpdateDatasourceTask();
+      TvShowUpdateDatasourceTask task = new TvShowUpdateDatasourceTask();
+      task.setForceFullRescan(fullRescan);
       task.run(); // blocking
     }
     else {
@@ -152,7 +159,8 @@ class TvShowCommand implements Runnable {
       if (ListUtils.isNotEmpty(dataSources)) {
         for (Integer i : datasource.indices) {
           if (dataSources.size() >= i - 1) {
-            Runnable task = new TvShowUpdateDatasourceTask(dataSources.get(i - 1));
+            TvShowUpdateDatasourceTask task = new TvShowUpdateDatasourceTask(dataSources.get(i - 1));
+            task.setForceFullRescan(fullRescan);
             task.run(); // blocking
           }
         }
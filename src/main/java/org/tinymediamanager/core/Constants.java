@@ -125,6 +125,7 @@ public final class Constants {
   public static final String VIDEO_IN_3D            = "videoIn3D";
   public static final String VOTES                  = "votes";
   public static final String WATCHED                = "watched";
+  public static final String WATCH_DATASOURCES      = "watchDatasources";
   public static final String WRITERS                = "writers";
   public static final String WRITERS_AS_STRING      = "writersAsString";
   public static final String YEAR                   = "year";
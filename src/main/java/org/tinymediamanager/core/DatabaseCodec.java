@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.util.TimeZone;
+
+import com.fasterxml.jackson.annotation.JsonEnumDefaultValue;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * The enum DatabaseCodec. Used to choose the format in which the entities are stored in the database (as byte[] values of the
+ * {@link MediaEntityMap}s)
+ *
+ * @author Manuel Laggner
+ */
+public enum DatabaseCodec {
+  /**
+   * plain JSON, stored as strings - the layout of older versions, so they can still read the database
+   */
+  @JsonEnumDefaultValue
+  JSON,
+  /**
+   * the binary JSON format Smile - more compact and faster to decode. The migration is one-way: older versions cannot read these values and drop
+   * them as corrupt, so switch back to {@link #JSON} (and start this version once) before downgrading
+   */
+  SMILE;
+
+  // every Smile document starts with the header ":)\n"
+  private static final byte[] SMILE_HEADER = { ':', ')', '\n' };
+
+  /**
+   * detect the codec of the given encoded value by looking at its header
+   *
+   * @param value
+   *          the encoded value
+   * @return the {@link DatabaseCodec} the value has been encoded with
+   */
+  public static DatabaseCodec detect(byte[] value) {
+    if (value != null && value.length >= SMILE_HEADER.length && value[0] == SMILE_HEADER[0] && value[1] == SMILE_HEADER[1]
+        && value[2] == SMILE_HEADER[2]) {
+      return SMILE;
+    }
+    return JSON;
+  }
+
+  /**
+   * create a {@link JsonFactory} for this codec
+   *
+   * @return the {@link JsonFactory}
+   */
+  public JsonFactory createJsonFactory() {
+    switch (this) {
+      case SMILE:
+        SmileFactory smileFactory = new SmileFactory();
+        // most string values (codecs, languages, types, ..) are repeated within one entity
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        return smileFactory;
+
+      case JSON:
+      default:
+        return new JsonFactory();
+    }
+  }
+
+  /**
+   * create an {@link ObjectMapper} with the configuration needed to (de)serialize our entities
+   *
+   * @return the {@link ObjectMapper}
+   */
+  public ObjectMapper createObjectMapper() {
+    ObjectMapper objectMapper = new ObjectMapper(createJsonFactory());
+    objectMapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
+    objectMapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
+    objectMapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
+    objectMapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
+    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    objectMapper.setTimeZone(TimeZone.getDefault());
+    objectMapper.setSerializationInclusion(Include.NON_DEFAULT);
+    objectMapper.setSerializerProvider(new CustomNullStringSerializerProvider());
+    objectMapper.getSerializerProvider().setNullKeySerializer(new NullKeySerializer());
+    return objectMapper;
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.entities.MediaEntity;
+
+/**
+ * The class DatabaseLoader. Used to load all entities from a {@link MediaEntityMap} at startup. The key space is split into chunks which are read
+ * and decoded on a bounded fork/join pool; the results are merged in the original key order
+ *
+ * @author Manuel Laggner
+ */
+public class DatabaseLoader<T extends MediaEntity> {
+  private static final Logger     LOGGER         = LoggerFactory.getLogger(DatabaseLoader.class);
+  private static final int        CHUNK_SIZE     = 500;
+
+  private final String            name;
+  private final MediaEntityMap<T> map;
+  private final List<UUID>        corruptEntries = Collections.synchronizedList(new ArrayList<>());
+  private final LongAdder         readTime       = new LongAdder();
+  private final LongAdder         decodeTime     = new LongAdder();
+
+  private long                    wallTime       = 0;
+
+  /**
+   * create a new loader for the given entity type
+   *
+   * @param name
+   *          the name of the entities (for logging)
+   * @param map
+   *          the {@link MediaEntityMap} to load the entities from
+   */
+  public DatabaseLoader(String name, MediaEntityMap<T> map) {
+    this.name = name;
+    this.map = map;
+  }
+
+  /**
+   * is the parallel loading enabled? Can be disabled with the system property tmm.parallelload=false
+   *
+   * @return true/false
+   */
+  public static boolean isParallelLoadingEnabled() {
+    return Boolean.parseBoolean(System.getProperty("tmm.parallelload", "true"));
+  }
+
+  /**
+   * get the amount of threads to be used for loading
+   *
+   * @return the amount of threads
+   */
+  public static int getThreadCount() {
+    if (!isParallelLoadingEnabled()) {
+      return 1;
+    }
+    return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+  }
+
+  /**
+   * load all entities from the {@link MediaEntityMap}. Entries which could not be decoded are not part of the result, but can be obtained via
+   * {@link #getCorruptEntries()}
+   *
+   * @return a list of all decoded entities in the key order of the map
+   */
+  public List<T> load() {
+    long start = System.nanoTime();
+
+    List<UUID> keys = map.keyList();
+    readTime.add(System.nanoTime() - start);
+
+    List<T> entities = new ArrayList<>(keys.size());
+
+    int threads = getThreadCount();
+    if (threads == 1 || keys.size() <= CHUNK_SIZE) {
+      // no need to spin up a pool
+      entities.addAll(loadChunk(keys));
+    }
+    else {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        List<ForkJoinTask<List<T>>> chunks = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += CHUNK_SIZE) {
+          List<UUID> chunk = keys.subList(i, Math.min(i + CHUNK_SIZE, keys.size()));
+          chunks.add(pool.submit(() -> loadChunk(chunk)));
+        }
+
+        // merge in the original order
+        for (ForkJoinTask<List<T>> chunk : chunks) {
+          entities.addAll(chunk.join());
+        }
+      }
+      finally {
+        pool.shutdown();
+      }
+    }
+
+    wallTime = System.nanoTime() - start;
+    LOGGER.debug("loaded {} {} in {} ms (read: {} ms, decode: {} ms, threads: {})", entities.size(), name, getWallTime(), getReadTime(),
+        getDecodeTime(), threads);
+
+    return entities;
+  }
+
+  private List<T> loadChunk(List<UUID> keys) {
+    List<T> entities = new ArrayList<>(keys.size());
+
+    for (UUID uuid : keys) {
+      long start = System.nanoTime();
+      byte[] value = map.getValue(uuid);
+      long read = System.nanoTime();
+      readTime.add(read - start);
+
+      try {
+        entities.add(map.decode(uuid, value));
+      }
+      catch (Exception e) {
+        LOGGER.warn("problem decoding {}: {}", name, e.getMessage());
+        LOGGER.info("dropping corrupt {}: {}", name, uuid);
+        corruptEntries.add(uuid);
+      }
+
+      decodeTime.add(System.nanoTime() - read);
+    }
+
+    return entities;
+  }
+
+  /**
+   * get all keys of the entries which could not be decoded
+   *
+   * @return a list of all corrupt keys
+   */
+  public List<UUID> getCorruptEntries() {
+    return corruptEntries;
+  }
+
+  /**
+   * get the cumulated time spent for reading from the database (over all threads)
+   *
+   * @return the time in ms
+   */
+  public long getReadTime() {
+    return TimeUnit.NANOSECONDS.toMillis(readTime.sum());
+  }
+
+  /**
+   * get the cumulated time spent for decoding the values (over all threads)
+   *
+   * @return the time in ms
+   */
+  public long getDecodeTime() {
+    return TimeUnit.NANOSECONDS.toMillis(decodeTime.sum());
+  }
+
+  /**
+   * get the elapsed wall clock time of the last load
+   *
+   * @return the time in ms
+   */
+  public long getWallTime() {
+    return TimeUnit.NANOSECONDS.toMillis(wallTime);
+  }
+
+  /**
+   * run the given action for every element of the list on a bounded fork/join pool (or in the calling thread if parallel loading is disabled)
+   *
+   * @param elements
+   *          the elements to process
+   * @param action
+   *          the action to run for each element
+   */
+  public static <E> void forEachParallel(List<E> elements, Consumer<E> action) {
+    int threads = getThreadCount();
+    if (threads == 1 || elements.size() <= CHUNK_SIZE) {
+      elements.forEach(action);
+      return;
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      pool.submit(() -> elements.parallelStream().forEach(action)).join();
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,676 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.threading.TmmTaskHandle;
+import org.tinymediamanager.core.threading.TmmTaskManager;
+import org.tinymediamanager.core.threading.TmmThreadPool;
+
+/**
+ * The class DatasourceWatcher. Watches the data sources of one module for changes and feeds the changed directories into (small, targeted) update
+ * tasks.<br />
+ * The directories are watched with the {@link WatchService} of the file system; data sources on network mounts (which usually do not deliver any
+ * events) or data sources which could not be registered are polled periodically instead. Polling only reads the last modified time of every
+ * directory - the entries of a directory are only listed if it has been changed (the initial state is taken from the {@link DirectoryJournal} of
+ * the last update where possible).<br />
+ * Changes made by tmm itself (NFO, artwork, renaming, ..) are announced via {@link #ignoreChanges(Path...)} (the file helpers in {@link Utils} do
+ * this) and do not trigger any update: an event is only ignored for the announced path itself (or a path below an announced directory) within a
+ * short time window; a polled directory is only ignored if its new last modified time matches the announcement of one of its entries. The
+ * temporary files of downloads (*.part) are always ignored.<br />
+ * Bursts of events are debounced per directory: a changed
+ * directory is only passed to the update task after it has been quiet for some seconds. While an update task of a data source is still queued or
+ * running, all further changes are collected and passed to the next task (so copying a whole season results in one update rather than one per
+ * file)
+ *
+ * @author Manuel Laggner
+ */
+public class DatasourceWatcher {
+  private static final Logger                        LOGGER                  = LoggerFactory.getLogger(DatasourceWatcher.class);
+  private static final long                          QUIET_PERIOD_MS         = 10000;
+  private static final long                          POLL_INTERVAL_MS        = 60000;
+  private static final long                          TICK_MS                 = 500;
+  // the events of an own change are ignored for this time after the announcement (and kept for the next poll)
+  private static final long                          OWN_CHANGE_WINDOW_MS    = 10000;
+  private static final long                          OWN_CHANGE_RETENTION_MS = 2 * POLL_INTERVAL_MS;
+
+  // changes made by tmm itself: path -> time of the last announcement
+  private static final Map<Path, Long>               OWN_CHANGES             = new ConcurrentHashMap<>();
+
+  // the temporary files of downloads (see DownloadTask and SegmentedDownload)
+  private static final List<String>                  TEMP_FILE_SUFFIXES      = Arrays.asList(".part", ".part.segments", ".part.segments.tmp");
+
+  // file systems which do not deliver (reliable) events for changes from other machines
+  private static final List<String>                  POLLED_FILE_STORES      = Arrays.asList("nfs", "nfs4", "cifs", "smbfs", "smb2", "smb3",
+      "afpfs", "9p", "fuse.sshfs", "sshfs", "davfs", "fuse.rclone");
+
+  private final String                               name;
+  private final UpdateTaskFactory                    taskFactory;
+  private final DirectoryJournal                     journal;
+  private final long                                 quietPeriod;
+  private final long                                 pollInterval;
+  private final boolean                              forcePolling;
+
+  private final AtomicBoolean                        reconfigure             = new AtomicBoolean(false);
+  private final Map<Path, WatchKey>                  watchKeys               = new ConcurrentHashMap<>();
+  private final Map<Path, Long>                      pendingDirectories      = new HashMap<>();
+  private final Map<Path, Map<Path, DirectoryState>> pollingSnapshots        = new HashMap<>();
+  private final Map<Path, TmmTaskHandle>             runningTasks            = new HashMap<>();
+
+  private volatile List<Path>                        datasources             = new ArrayList<>();
+  private volatile boolean                           running                 = false;
+  private Thread                                     thread;
+  private WatchService                               watchService;
+  private long                                       nextPoll                = 0;
+  private long                                       lastPoll                = 0;
+
+  /**
+   * create a new watcher
+   *
+   * @param name
+   *          the name of the module (for logging)
+   * @param taskFactory
+   *          the factory to create the update tasks for the changed directories
+   * @param journal
+   *          the {@link DirectoryJournal} of the module to take the initial state of polled data sources from (may be null)
+   */
+  public DatasourceWatcher(String name, UpdateTaskFactory taskFactory, DirectoryJournal journal) {
+    this(name, taskFactory, journal, QUIET_PERIOD_MS, POLL_INTERVAL_MS, false);
+  }
+
+  DatasourceWatcher(String name, UpdateTaskFactory taskFactory, DirectoryJournal journal, long quietPeriod, long pollInterval,
+      boolean forcePolling) {
+    this.name = name;
+    this.taskFactory = taskFactory;
+    this.journal = journal;
+    this.quietPeriod = quietPeriod;
+    this.pollInterval = pollInterval;
+    this.forcePolling = forcePolling;
+  }
+
+  /**
+   * announce changes of the given files/directories made by tmm itself (writing NFO files or artwork, renaming, ..). All watchers ignore the changes
+   * of these paths (and of everything below them) for a short while, so tmm does not update its own output
+   *
+   * @param paths
+   *          the changed files/directories
+   */
+  public static void ignoreChanges(Path... paths) {
+    long now = System.currentTimeMillis();
+    for (Path path : paths) {
+      if (path == null) {
+        continue;
+      }
+      OWN_CHANGES.put(path.toAbsolutePath().normalize(), now);
+    }
+  }
+
+  /**
+   * check whether the given path (or one of its parents) has been changed by tmm itself since the given time
+   */
+  static boolean isOwnChange(Path path, long since) {
+    for (Path p = path.toAbsolutePath().normalize(); p != null; p = p.getParent()) {
+      Long time = OWN_CHANGES.get(p);
+      if (time != null && time >= since) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * check whether the given directory has been changed by tmm itself at the given last modified time: the directory (or one of its parents) or one
+   * of its entries has been announced close to this time
+   */
+  static boolean isOwnChangeOfDirectory(Path dir, long modified) {
+    Path normalized = dir.toAbsolutePath().normalize();
+    for (Map.Entry<Path, Long> entry : OWN_CHANGES.entrySet()) {
+      Path path = entry.getKey();
+      if ((normalized.startsWith(path) || normalized.equals(path.getParent())) && Math.abs(entry.getValue() - modified) <= OWN_CHANGE_WINDOW_MS) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * check whether the given file is a temporary file of a download
+   */
+  static boolean isTempFile(Path path) {
+    Path filename = path.getFileName();
+    if (filename == null) {
+      return false;
+    }
+    String name = filename.toString().toLowerCase(Locale.ROOT);
+    for (String suffix : TEMP_FILE_SUFFIXES) {
+      if (name.endsWith(suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void purgeOwnChanges(long now) {
+    long oldest = now - OWN_CHANGE_RETENTION_MS;
+    OWN_CHANGES.values().removeIf(time -> time < oldest);
+  }
+
+  /**
+   * set the data sources to watch
+   *
+   * @param datasources
+   *          the data sources
+   */
+  public void setDatasources(Collection<String> datasources) {
+    List<Path> paths = new ArrayList<>();
+    for (String datasource : datasources) {
+      paths.add(Paths.get(datasource).toAbsolutePath());
+    }
+    this.datasources = paths;
+    reconfigure.set(true);
+  }
+
+  /**
+   * start watching the data sources (if not already running)
+   */
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+
+    try {
+      watchService = FileSystems.getDefault().newWatchService();
+    }
+    catch (Exception e) {
+      LOGGER.warn("could not create a watch service - polling all {} data sources: {}", name, e.getMessage());
+      watchService = null;
+    }
+
+    running = true;
+    reconfigure.set(true);
+    thread = new Thread(this::watch, "datasource-watcher-" + name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * stop watching the data sources
+   */
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+
+    running = false;
+    thread.interrupt();
+    try {
+      thread.join(5000);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    thread = null;
+  }
+
+  /**
+   * is the watcher running?
+   *
+   * @return true/false
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void watch() {
+    LOGGER.info("start watching the {} data sources", name);
+
+    while (running) {
+      try {
+        if (reconfigure.getAndSet(false)) {
+          registerDatasources();
+        }
+
+        WatchKey key = watchService != null ? watchService.poll(TICK_MS, TimeUnit.MILLISECONDS) : null;
+        if (key == null && watchService == null) {
+          Thread.sleep(TICK_MS);
+        }
+        while (key != null) {
+          processEvents(key);
+          key = watchService.poll();
+        }
+
+        long now = System.currentTimeMillis();
+        if (!pollingSnapshots.isEmpty() && now >= nextPoll) {
+          pollDatasources();
+          lastPoll = now;
+          nextPoll = now + pollInterval;
+          purgeOwnChanges(now);
+        }
+
+        dispatchQuietDirectories(System.currentTimeMillis());
+      }
+      catch (InterruptedException e) {
+        // stop requested
+        break;
+      }
+      catch (Exception e) {
+        LOGGER.warn("problem watching the {} data sources: {}", name, e.getMessage());
+      }
+    }
+
+    cancelWatchKeys();
+    if (watchService != null) {
+      try {
+        watchService.close();
+      }
+      catch (IOException e) {
+        LOGGER.debug("could not close the watch service: {}", e.getMessage());
+      }
+    }
+    pendingDirectories.clear();
+    pollingSnapshots.clear();
+    runningTasks.clear();
+
+    LOGGER.info("stopped watching the {} data sources", name);
+  }
+
+  private void registerDatasources() {
+    cancelWatchKeys();
+    pollingSnapshots.clear();
+
+    for (Path datasource : datasources) {
+      if (!Files.isDirectory(datasource)) {
+        LOGGER.debug("data source '{}' is not available - not watching it", datasource);
+        continue;
+      }
+
+      boolean polling = forcePolling || watchService == null || isPolledFileStore(datasource);
+      if (!polling) {
+        try {
+          registerTree(datasource);
+          LOGGER.debug("watching data source '{}' ({} directories)", datasource, watchKeys.size());
+        }
+        catch (Exception e) {
+          // e.g. the limit of watches is reached
+          LOGGER.warn("could not watch data source '{}' - falling back to polling: {}", datasource, e.getMessage());
+          cancelWatchKeys(datasource);
+          polling = true;
+        }
+      }
+
+      if (polling) {
+        LOGGER.debug("polling data source '{}' every {} s", datasource, TimeUnit.MILLISECONDS.toSeconds(pollInterval));
+        pollingSnapshots.put(datasource, snapshot(datasource, Collections.emptyMap()));
+      }
+    }
+
+    lastPoll = System.currentTimeMillis();
+    nextPoll = lastPoll + pollInterval;
+  }
+
+  private boolean isPolledFileStore(Path datasource) {
+    try {
+      String type = Files.getFileStore(datasource).type().toLowerCase(Locale.ROOT);
+      return POLLED_FILE_STORES.contains(type);
+    }
+    catch (Exception e) {
+      return true;
+    }
+  }
+
+  private void registerTree(Path root) throws IOException {
+    Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new AbstractFileVisitor() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        watchKeys.put(dir, dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void cancelWatchKeys() {
+    for (WatchKey key : watchKeys.values()) {
+      key.cancel();
+    }
+    watchKeys.clear();
+  }
+
+  private void cancelWatchKeys(Path datasource) {
+    Iterator<Map.Entry<Path, WatchKey>> iterator = watchKeys.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Path, WatchKey> entry = iterator.next();
+      if (entry.getKey().startsWith(datasource)) {
+        entry.getValue().cancel();
+        iterator.remove();
+      }
+    }
+  }
+
+  private void processEvents(WatchKey key) {
+    Path dir = (Path) key.watchable();
+    if (watchKeys.get(dir) != key) {
+      key.cancel();
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+    long deadline = now + quietPeriod;
+
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        // events have been lost - the whole directory is dirty
+        markChanged(dir, deadline);
+        continue;
+      }
+
+      Path child = dir.resolve((Path) event.context());
+      boolean directory = Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS);
+      boolean ownChange = isOwnChange(child, now - OWN_CHANGE_WINDOW_MS) || (!directory && isTempFile(child));
+
+      if (event.kind() == ENTRY_CREATE && directory) {
+        // new directories have to be watched too
+        try {
+          registerTree(child);
+        }
+        catch (Exception e) {
+          LOGGER.debug("could not watch '{}': {}", child, e.getMessage());
+        }
+        if (!ownChange) {
+          markChanged(child, deadline);
+        }
+      }
+      else if (ownChange) {
+        // written by tmm itself
+        continue;
+      }
+      else if (event.kind() == ENTRY_DELETE && watchKeys.containsKey(child)) {
+        // a watched directory has been removed
+        markChanged(child, deadline);
+      }
+      else if (event.kind() == ENTRY_MODIFY && directory) {
+        // changes inside of sub directories are reported by their own keys
+        continue;
+      }
+      else {
+        markChanged(dir, deadline);
+      }
+    }
+
+    if (!key.reset()) {
+      // the directory is gone
+      watchKeys.remove(dir, key);
+    }
+  }
+
+  /**
+   * take a snapshot of the last modified times and sub directories of all directories of the data source. Only the last modified time of every
+   * directory is read; the entries of a directory are only listed if it is not known in the given previous snapshot (or the journal) with the same
+   * last modified time
+   */
+  private Map<Path, DirectoryState> snapshot(Path datasource, Map<Path, DirectoryState> previous) {
+    Map<Path, DirectoryState> snapshot = new HashMap<>();
+    Set<Object> visitedKeys = new HashSet<>();
+    Deque<Path> toVisit = new ArrayDeque<>();
+    toVisit.push(datasource);
+
+    while (!toVisit.isEmpty() && running) {
+      Path dir = toVisit.pop();
+
+      BasicFileAttributes attrs;
+      try {
+        attrs = Files.readAttributes(dir, BasicFileAttributes.class);
+      }
+      catch (IOException e) {
+        // removed in the meantime (or the data source is offline)
+        continue;
+      }
+      // do not run into loops of symbolic links
+      if (!attrs.isDirectory() || (attrs.fileKey() != null && !visitedKeys.add(attrs.fileKey()))) {
+        continue;
+      }
+
+      long modified = attrs.lastModifiedTime().toMillis();
+      List<String> subDirs = getKnownSubDirs(dir, modified, previous);
+      if (subDirs == null) {
+        subDirs = listSubDirs(dir);
+      }
+
+      snapshot.put(dir, new DirectoryState(modified, subDirs));
+      for (String subDir : subDirs) {
+        toVisit.push(dir.resolve(subDir));
+      }
+    }
+
+    return snapshot;
+  }
+
+  private List<String> getKnownSubDirs(Path dir, long modified, Map<Path, DirectoryState> previous) {
+    DirectoryState state = previous.get(dir);
+    if (state != null) {
+      return state.modified == modified ? state.subDirs : null;
+    }
+
+    if (journal != null) {
+      DirectoryJournal.RecordedDirectory recorded = journal.getRecordedDirectory(dir);
+      if (recorded != null && recorded.getModified() == modified) {
+        return recorded.getSubDirs();
+      }
+    }
+
+    return null;
+  }
+
+  private List<String> listSubDirs(Path dir) {
+    List<String> subDirs = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, entry -> Files.isDirectory(entry))) {
+      for (Path subDir : stream) {
+        subDirs.add(subDir.getFileName().toString());
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not poll '{}': {}", dir, e.getMessage());
+    }
+    return subDirs;
+  }
+
+  private void pollDatasources() {
+    // a polled directory must survive one more poll without changes before it is quiet
+    long deadline = System.currentTimeMillis() + pollInterval + quietPeriod;
+
+    for (Map.Entry<Path, Map<Path, DirectoryState>> entry : pollingSnapshots.entrySet()) {
+      if (!running) {
+        return;
+      }
+
+      Map<Path, DirectoryState> oldSnapshot = entry.getValue();
+      Map<Path, DirectoryState> newSnapshot = snapshot(entry.getKey(), oldSnapshot);
+      if (newSnapshot.isEmpty() && !oldSnapshot.isEmpty()) {
+        // the data source is offline - do not report it as removed
+        continue;
+      }
+
+      for (Map.Entry<Path, DirectoryState> dir : newSnapshot.entrySet()) {
+        DirectoryState oldState = oldSnapshot.get(dir.getKey());
+        long modified = dir.getValue().modified;
+        if ((oldState == null || oldState.modified != modified) && !isOwnChangeOfDirectory(dir.getKey(), modified)) {
+          markChanged(dir.getKey(), deadline);
+        }
+      }
+      for (Path dir : oldSnapshot.keySet()) {
+        if (!newSnapshot.containsKey(dir) && !isOwnChange(dir, lastPoll - OWN_CHANGE_WINDOW_MS)) {
+          markChanged(dir, deadline);
+        }
+      }
+
+      entry.setValue(newSnapshot);
+    }
+  }
+
+  private void markChanged(Path dir, long deadline) {
+    pendingDirectories.merge(dir, deadline, Math::max);
+  }
+
+  private void dispatchQuietDirectories(long now) {
+    if (pendingDirectories.isEmpty()) {
+      return;
+    }
+
+    // group the changed directories by data source
+    Map<Path, Set<Path>> changedDirectories = new HashMap<>();
+    Set<Path> dirtyDatasources = new HashSet<>();
+    for (Map.Entry<Path, Long> entry : pendingDirectories.entrySet()) {
+      Path datasource = getDatasource(entry.getKey());
+      if (datasource == null) {
+        continue;
+      }
+      if (entry.getValue() > now) {
+        // still busy
+        dirtyDatasources.add(datasource);
+        continue;
+      }
+      changedDirectories.computeIfAbsent(datasource, k -> new LinkedHashSet<>()).add(entry.getKey());
+    }
+    // forget about directories outside of the data sources
+    pendingDirectories.keySet().removeIf(dir -> getDatasource(dir) == null);
+
+    for (Map.Entry<Path, Set<Path>> entry : changedDirectories.entrySet()) {
+      Path datasource = entry.getKey();
+
+      // back-pressure: wait until the last update of this data source is finished; the changes are collected in the meantime
+      if (dirtyDatasources.contains(datasource) || isTaskActive(runningTasks.get(datasource))) {
+        continue;
+      }
+
+      Set<Path> directories = entry.getValue();
+      pendingDirectories.keySet().removeAll(directories);
+
+      LOGGER.info("{} data source '{}' changed - updating {} directories", name, datasource, directories.size());
+      TmmThreadPool task = taskFactory.createTask(datasource.toString(), directories);
+      if (task != null) {
+        runningTasks.put(datasource, task);
+        submit(task);
+      }
+    }
+  }
+
+  private boolean isTaskActive(TmmTaskHandle task) {
+    if (task == null) {
+      return false;
+    }
+
+    switch (task.getState()) {
+      case CREATED:
+      case QUEUED:
+      case STARTED:
+        return true;
+
+      default:
+        return false;
+    }
+  }
+
+  private Path getDatasource(Path dir) {
+    for (Path datasource : datasources) {
+      if (dir.startsWith(datasource)) {
+        return datasource;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * submit the given update task
+   *
+   * @param task
+   *          the task to submit
+   */
+  protected void submit(TmmThreadPool task) {
+    TmmTaskManager.getInstance().addMainTask(task);
+  }
+
+  /*
+   * the last modified time and the sub directories of a polled directory
+   */
+  private static class DirectoryState {
+    private final long         modified;
+    private final List<String> subDirs;
+
+    private DirectoryState(long modified, List<String> subDirs) {
+      this.modified = modified;
+      this.subDirs = subDirs;
+    }
+  }
+
+  /**
+   * The interface UpdateTaskFactory. Used to create the update task for the changed directories of a data source
+   */
+  @FunctionalInterface
+  public interface UpdateTaskFactory {
+    /**
+     * create a task to update the given directories
+     *
+     * @param datasource
+     *          the data source
+     * @param changedDirectories
+     *          all directories of the data source which have been changed, created or removed
+     * @return the task or null
+     */
+    TmmThreadPool createTask(String datasource, Set<Path> changedDirectories);
+  }
+}
@@ -0,0 +1,507 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.MurmurHash3;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class DirectoryJournal. A persisted journal of directory fingerprints (modification time, amount of entries and a hash of all entry names),
+ * which is used to skip unchanged directory trees when updating a data source.<br />
+ * Since the modification time of a directory changes whenever an entry is created, deleted or renamed, a directory tree is unchanged if the
+ * fingerprint of every directory in the tree is unchanged. This can be checked with one stat and one directory listing per directory - without
+ * reading the attributes of every single file
+ *
+ * @author Manuel Laggner
+ */
+public class DirectoryJournal {
+  private static final Logger         LOGGER     = LoggerFactory.getLogger(DirectoryJournal.class);
+  private static final String         CONFIG_KEY = "#config";
+  private static final int            VERSION    = 1;
+
+  private final MVMap<String, byte[]> map;
+
+  public DirectoryJournal(MVStore mvStore, String mapName) {
+    this.map = mvStore.openMap(mapName);
+  }
+
+  /**
+   * start a new scan of the given data source
+   *
+   * @param root
+   *          the root of the scan (the data source)
+   * @param config
+   *          a string representation of all settings which influence the scan (skip folders, file types, ..). If the config changes, the whole
+   *          journal is invalidated
+   * @param force
+   *          force a full rescan - nothing will be skipped, but the journal will be updated
+   * @return the {@link Scan}
+   */
+  public Scan startScan(Path root, String config, boolean force) {
+    byte[] configBytes = config.getBytes(StandardCharsets.UTF_8);
+    byte[] storedConfig = map.get(CONFIG_KEY);
+    if (storedConfig != null && !Arrays.equals(storedConfig, configBytes)) {
+      LOGGER.info("scan settings have been changed - invalidating the directory journal");
+      map.clear();
+    }
+    map.put(CONFIG_KEY, configBytes);
+
+    return new Scan(root, force);
+  }
+
+  /**
+   * get the amount of directories in the journal
+   *
+   * @return the amount of directories
+   */
+  public int size() {
+    return map.containsKey(CONFIG_KEY) ? map.size() - 1 : map.size();
+  }
+
+  /**
+   * remove all entries from the journal
+   */
+  public void clear() {
+    map.clear();
+  }
+
+  /**
+   * get the last modified time and the sub directories of the given directory as recorded by the last scan
+   *
+   * @param dir
+   *          the directory
+   * @return the recorded directory or null if the directory is not in the journal
+   */
+  public RecordedDirectory getRecordedDirectory(Path dir) {
+    Fingerprint fingerprint = load(dir);
+    if (fingerprint == null) {
+      return null;
+    }
+    return new RecordedDirectory(fingerprint.modified, fingerprint.subDirs);
+  }
+
+  private Fingerprint load(Path dir) {
+    byte[] value = map.get(dir.toString());
+    if (value == null) {
+      return null;
+    }
+
+    try {
+      return Fingerprint.decode(value);
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not decode fingerprint of '{}' - {}", dir, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * read the current name fingerprint (amount of entries and name hash) of the given directory
+   */
+  private static long[] readEntries(Path dir) throws IOException {
+    long count = 0;
+    long hash = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path entry : stream) {
+        count++;
+        // order independent hash, since the order of the directory listing is not guaranteed
+        hash += MurmurHash3.hash128x64(entry.getFileName().toString().getBytes(StandardCharsets.UTF_8))[0];
+      }
+    }
+    return new long[] { count, hash };
+  }
+
+  /**
+   * The class Scan. One scan of a data source: checks directory trees against the journal and records the fingerprints of all visited directories.
+   * The recorded fingerprints are only written to the journal on {@link #commit()} (e.g. not if the scan has been cancelled). Not thread safe - meant
+   * to be used from the thread walking the file tree
+   */
+  public class Scan {
+    private final Path                     root;
+    private final boolean                  force;
+    private final Map<Path, Fingerprint>   fingerprints = new HashMap<>();
+    private final Map<Path, Boolean>       unchanged    = new HashMap<>();
+    private final Map<Path, Fingerprint>   pending      = new HashMap<>();
+    private final Map<Path, OpenDirectory> open         = new HashMap<>();
+    private final Set<Path>                seen         = new HashSet<>();
+
+    private int                            visited      = 0;
+    private int                            skipped      = 0;
+
+    private Scan(Path root, boolean force) {
+      this.root = root.toAbsolutePath();
+      this.force = force;
+    }
+
+    /**
+     * checks whether the given directory tree is unchanged since the last recorded scan
+     *
+     * @param dir
+     *          the root of the directory tree
+     * @return true if all directories of the tree are unchanged; false otherwise (or if a full rescan has been forced)
+     */
+    public boolean isUnchanged(Path dir) {
+      if (force) {
+        return false;
+      }
+
+      Path path = dir.toAbsolutePath();
+      Boolean result = unchanged.get(path);
+      if (result == null) {
+        result = checkUnchanged(path);
+        unchanged.put(path, result);
+      }
+      return result;
+    }
+
+    private boolean checkUnchanged(Path dir) {
+      Fingerprint fingerprint = getFingerprint(dir);
+      if (fingerprint == null) {
+        return false;
+      }
+
+      try {
+        BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class);
+        if (!attrs.isDirectory() || attrs.lastModifiedTime().toMillis() != fingerprint.modified) {
+          return false;
+        }
+
+        long[] entries = readEntries(dir);
+        if (entries[0] != fingerprint.entryCount || entries[1] != fingerprint.nameHash) {
+          return false;
+        }
+      }
+      catch (Exception e) {
+        return false;
+      }
+
+      // the entries did not change - so the sub directories are still the same
+      for (String subDir : fingerprint.subDirs) {
+        if (!isUnchanged(dir.resolve(subDir))) {
+          return false;
+        }
+      }
+
+      return true;
+    }
+
+    private Fingerprint getFingerprint(Path dir) {
+      return fingerprints.computeIfAbsent(dir, DirectoryJournal.this::load);
+    }
+
+    /**
+     * get all directories of the recorded tree which contain video files
+     *
+     * @param dir
+     *          the root of the directory tree
+     * @return all recorded video folders
+     */
+    public Set<Path> getVideoFolders(Path dir) {
+      Set<Path> videoFolders = new LinkedHashSet<>();
+      for (Path path : getRecordedTree(dir.toAbsolutePath())) {
+        Fingerprint fingerprint = getFingerprint(path);
+        if (fingerprint != null && fingerprint.videoFolder) {
+          videoFolders.add(path);
+        }
+      }
+      return videoFolders;
+    }
+
+    private List<Path> getRecordedTree(Path dir) {
+      List<Path> tree = new ArrayList<>();
+      List<Path> toProcess = new ArrayList<>();
+      toProcess.add(dir);
+
+      while (!toProcess.isEmpty()) {
+        Path path = toProcess.remove(toProcess.size() - 1);
+        Fingerprint fingerprint = getFingerprint(path);
+        if (fingerprint == null) {
+          continue;
+        }
+        tree.add(path);
+        for (String subDir : fingerprint.subDirs) {
+          toProcess.add(path.resolve(subDir));
+        }
+      }
+
+      return tree;
+    }
+
+    /**
+     * skip the given (unchanged) directory tree - the recorded fingerprints are kept
+     *
+     * @param dir
+     *          the root of the directory tree
+     * @return the amount of skipped directories
+     */
+    public int skip(Path dir) {
+      Path path = dir.toAbsolutePath();
+      addToParent(path);
+
+      List<Path> tree = getRecordedTree(path);
+      seen.addAll(tree);
+      skipped += tree.size();
+      return tree.size();
+    }
+
+    /**
+     * a directory has been entered by the file walker
+     *
+     * @param dir
+     *          the directory
+     * @param attrs
+     *          the attributes of the directory (read before the entries have been read)
+     */
+    public void directoryEntered(Path dir, BasicFileAttributes attrs) {
+      Path path = dir.toAbsolutePath();
+      addToParent(path);
+      open.put(path, new OpenDirectory(attrs.lastModifiedTime().toMillis()));
+      visited++;
+    }
+
+    /**
+     * a directory has been left by the file walker - record its fingerprint
+     *
+     * @param dir
+     *          the directory
+     * @param videoFolder
+     *          does the directory contain video files
+     */
+    public void directoryLeft(Path dir, boolean videoFolder) {
+      Path path = dir.toAbsolutePath();
+      OpenDirectory openDirectory = open.remove(path);
+      if (openDirectory == null) {
+        return;
+      }
+
+      try {
+        long[] entries = readEntries(path);
+        pending.put(path, new Fingerprint(openDirectory.modified, (int) entries[0], entries[1], videoFolder, openDirectory.subDirs));
+        seen.add(path);
+      }
+      catch (Exception e) {
+        LOGGER.debug("could not read the entries of '{}' - {}", path, e.getMessage());
+      }
+    }
+
+    private void addToParent(Path dir) {
+      Path parent = dir.getParent();
+      if (parent != null && dir.getFileName() != null) {
+        OpenDirectory openParent = open.get(parent);
+        if (openParent != null) {
+          openParent.subDirs.add(dir.getFileName().toString());
+        }
+      }
+    }
+
+    /**
+     * walk the given directory tree and record the fingerprints of all directories in it
+     *
+     * @param dir
+     *          the root of the directory tree
+     */
+    public void record(Path dir) {
+      try {
+        Files.walkFileTree(dir.toAbsolutePath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new AbstractFileVisitor() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+            directoryEntered(path, attrs);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult postVisitDirectory(Path path, IOException exc) {
+            directoryLeft(path, false);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+      }
+      catch (IOException e) {
+        LOGGER.debug("could not record '{}' - {}", dir, e.getMessage());
+      }
+    }
+
+    /**
+     * write all recorded fingerprints to the journal and remove all entries of this data source which have not been seen in this scan
+     */
+    public void commit() {
+      for (Map.Entry<Path, Fingerprint> entry : pending.entrySet()) {
+        map.put(entry.getKey().toString(), entry.getValue().encode());
+      }
+
+      // remove vanished directories (the keys are sorted, so all directories of this data source are in a row)
+      String prefix = root.toString();
+      List<String> toRemove = new ArrayList<>();
+      Iterator<String> iterator = map.keyIterator(prefix);
+      while (iterator.hasNext()) {
+        String key = iterator.next();
+        if (!key.startsWith(prefix)) {
+          break;
+        }
+        Path path = root.getFileSystem().getPath(key);
+        if (path.startsWith(root) && !seen.contains(path)) {
+          toRemove.add(key);
+        }
+      }
+      for (String key : toRemove) {
+        map.remove(key);
+      }
+
+      pending.clear();
+    }
+
+    /**
+     * get the amount of directories which have been visited in this scan
+     *
+     * @return the amount of visited directories
+     */
+    public int getVisited() {
+      return visited;
+    }
+
+    /**
+     * get the amount of directories which have been skipped in this scan (since they were unchanged)
+     *
+     * @return the amount of skipped directories
+     */
+    public int getSkipped() {
+      return skipped;
+    }
+  }
+
+  /**
+   * The class RecordedDirectory. The last modified time and the sub directories of a directory as recorded in the journal
+   */
+  public static class RecordedDirectory {
+    private final long         modified;
+    private final List<String> subDirs;
+
+    private RecordedDirectory(long modified, List<String> subDirs) {
+      this.modified = modified;
+      this.subDirs = subDirs;
+    }
+
+    public long getModified() {
+      return modified;
+    }
+
+    public List<String> getSubDirs() {
+      return Collections.unmodifiableList(subDirs);
+    }
+  }
+
+  /*
+   * helper class for a directory which is currently walked
+   */
+  private static class OpenDirectory {
+    private final long         modified;
+    private final List<String> subDirs = new ArrayList<>();
+
+    private OpenDirectory(long modified) {
+      this.modified = modified;
+    }
+  }
+
+  /*
+   * the fingerprint of one directory
+   */
+  private static class Fingerprint {
+    private final long         modified;
+    private final int          entryCount;
+    private final long         nameHash;
+    private final boolean      videoFolder;
+    private final List<String> subDirs;
+
+    private Fingerprint(long modified, int entryCount, long nameHash, boolean videoFolder, List<String> subDirs) {
+      this.modified = modified;
+      this.entryCount = entryCount;
+      this.nameHash = nameHash;
+      this.videoFolder = videoFolder;
+      this.subDirs = subDirs;
+    }
+
+    private byte[] encode() {
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeLong(modified);
+        out.writeInt(entryCount);
+        out.writeLong(nameHash);
+        out.writeBoolean(videoFolder);
+        out.writeInt(subDirs.size());
+        for (String subDir : subDirs) {
+          out.writeUTF(subDir);
+        }
+        out.flush();
+        return bytes.toByteArray();
+      }
+      catch (IOException e) {
+        // cannot happen on a byte array
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static Fingerprint decode(byte[] value) throws IOException {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+      if (in.readByte() != VERSION) {
+        throw new IOException("unknown version");
+      }
+      long modified = in.readLong();
+      int entryCount = in.readInt();
+      long nameHash = in.readLong();
+      boolean videoFolder = in.readBoolean();
+      int size = in.readInt();
+      List<String> subDirs = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        subDirs.add(in.readUTF());
+      }
+      return new Fingerprint(modified, entryCount, nameHash, videoFolder, subDirs);
+    }
+  }
+}
@@ -15,15 +15,18 @@
  */
 package org.tinymediamanager.core;
 
+import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorConvertOp;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
@@ -35,6 +38,7 @@ import javax.imageio.ImageWriter;
 import javax.imageio.stream.FileImageOutputStream;
 
 import org.apache.commons.lang3.StringUtils;
+import org.h2.mvstore.MVStore;
 import org.imgscalr.Scalr;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +60,12 @@ public class ImageCache {
   private static final Logger LOGGER     = LoggerFactory.getLogger(ImageCache.class);
   private static final Path   CACHE_DIR  = Paths.get(Globals.CACHE_FOLDER + "/image");
   private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+  private static final String INDEX_MAP  = "imageCache";
+  private static final Object INDEX_LOCK = new Object();
+  private static final Object QUOTA_LOCK = new Object();
+
+  private static MVStore                  indexStore = null;
+  private static volatile ImageCacheIndex index      = null;
 
   public enum CacheSize {
     SMALL,
@@ -103,6 +113,74 @@ public class ImageCache {
     }
   }
 
+  /**
+   * get the index of the image cache; the index is opened on the first access (and all files which are already in the cache are added to a new
+   * index)
+   *
+   * @return the {@link ImageCacheIndex}
+   */
+  static ImageCacheIndex getIndex() {
+    ImageCacheIndex cacheIndex = index;
+    if (cacheIndex != null) {
+      return cacheIndex;
+    }
+
+    synchronized (INDEX_LOCK) {
+      if (index != null) {
+        return index;
+      }
+
+      Path indexFile = Paths.get(Globals.CACHE_FOLDER, "imagecache.db");
+      try {
+        indexStore = new MVStore.Builder().fileName(indexFile.toString()).autoCommitBufferSize(512).open();
+      }
+      catch (Exception e) {
+        // e.g. locked by another instance - take an in memory index for this session
+        LOGGER.warn("could not open the image cache index '{}' - {}", indexFile, e.getMessage());
+        indexStore = new MVStore.Builder().open();
+      }
+
+      boolean newIndex = !indexStore.hasMap(INDEX_MAP);
+      cacheIndex = new ImageCacheIndex(indexStore, INDEX_MAP);
+      if (newIndex) {
+        int count = cacheIndex.importFiles(CACHE_DIR);
+        LOGGER.info("created the image cache index with {} images", count);
+      }
+      index = cacheIndex;
+      return cacheIndex;
+    }
+  }
+
+  /**
+   * close the index of the image cache
+   */
+  public static void shutdown() {
+    synchronized (INDEX_LOCK) {
+      if (indexStore != null) {
+        try {
+          indexStore.close();
+        }
+        catch (Exception e) {
+          LOGGER.warn("could not close the image cache index - {}", e.getMessage());
+        }
+        indexStore = null;
+        index = null;
+      }
+    }
+  }
+
+  /**
+   * remove all images from the image cache
+   *
+   * @throws IOException
+   *           any exception occurred while deleting the cached images
+   */
+  public static void clearImageCache() throws IOException {
+    getIndex().clear();
+    Utils.deleteDirectoryRecursive(CACHE_DIR);
+    createSubdirs();
+  }
+
   /**
    * Gets the cache dir. If it is not on the disk - it will also create it
    * 
@@ -145,6 +223,117 @@ public class ImageCache {
     return Paths.get(md5.substring(0, 1), md5).toString();
   }
 
+  private static String getCacheKey(String original, String extension) {
+    return getMD5WithSubfolder(original) + "." + extension;
+  }
+
+  private static String getUrlCacheKey(String url) {
+    String ext = UrlUtil.getExtension(url);
+    if (ext.isEmpty()) {
+      ext = "jpg"; // just assume
+    }
+    return getCacheKey(url, ext);
+  }
+
+  /**
+   * check whether the cached image of the given original is up to date. The original is only checked if the size/modification time of the
+   * {@link MediaFile} differ from the index - or if they are unknown at most once in 10 minutes
+   */
+  private static boolean isUpToDate(String key, ImageCacheIndex.Entry entry, MediaFile mediaFile) {
+    long modified = mediaFile.getDateLastModified() != null ? mediaFile.getDateLastModified().getTime() : -1;
+    if (entry.isOriginal(mediaFile.getFilesize(), modified)) {
+      return true;
+    }
+
+    ImageCacheIndex cacheIndex = getIndex();
+    boolean unknown = mediaFile.getFilesize() <= 0 || modified < 0;
+    if (unknown && !cacheIndex.isVerificationDue(key)) {
+      return true;
+    }
+
+    Path originalFile = mediaFile.getFileAsPath();
+    try {
+      BasicFileAttributes attrs = Files.readAttributes(originalFile, BasicFileAttributes.class);
+      if (entry.getOriginal() == null) {
+        // cached before the index existed - take the original as it is now
+        cacheIndex.put(key, new ImageCacheIndex.Entry(originalFile.toString(), attrs.size(), attrs.lastModifiedTime().toMillis(),
+            entry.getCachedSize(), entry.getLastAccess()));
+        return true;
+      }
+      if (entry.isOriginal(attrs.size(), attrs.lastModifiedTime().toMillis())) {
+        cacheIndex.verified(key);
+        return true;
+      }
+    }
+    catch (Exception e) {
+      // the original is not reachable (e.g. an offline share) - serve the cached image
+      cacheIndex.verified(key);
+      return true;
+    }
+
+    LOGGER.debug("the original image has been changed: {}", originalFile);
+    return false;
+  }
+
+  /**
+   * remove the least recently used images if the cache is bigger than the quota
+   */
+  private static void enforceQuota() {
+    long quota = Settings.getInstance().getImageCacheQuota() * 1024L * 1024L;
+    ImageCacheIndex cacheIndex = getIndex();
+    if (quota <= 0 || cacheIndex.getTotalSize() <= quota) {
+      return;
+    }
+
+    // only one eviction at a time; lookups in the index are not blocked by this
+    synchronized (QUOTA_LOCK) {
+      for (String key : cacheIndex.evict(quota)) {
+        Utils.deleteFileSafely(CACHE_DIR.resolve(key));
+      }
+    }
+  }
+
+  /**
+   * drop the given cached file from the index, because it could not be opened/read (e.g. it has been deleted outside of tmm). The image will be
+   * cached again on the next access. The index entries are not checked against the disk on every lookup; callers report unreadable cached files
+   * with this method instead
+   *
+   * @param cachedFile
+   *          the cached file which could not be opened/read
+   * @return true if the file has been dropped from the index (so it is worth to get the cached file again)
+   */
+  public static boolean invalidateCachedFile(Path cachedFile) {
+    if (cachedFile == null) {
+      return false;
+    }
+
+    Path cacheDir = CACHE_DIR.toAbsolutePath();
+    Path file = cachedFile.toAbsolutePath();
+    if (!file.startsWith(cacheDir)) {
+      // not a cached file
+      return false;
+    }
+
+    String key = cacheDir.relativize(file).toString();
+    if (getIndex().remove(key) == null) {
+      return false;
+    }
+
+    LOGGER.debug("cached file could not be read - dropping it from the index: {}", key);
+    return true;
+  }
+
+  private static void addToIndex(String key, String original, long originalSize, long originalModified) {
+    try {
+      long cachedSize = Files.size(CACHE_DIR.resolve(key));
+      getIndex().put(key, new ImageCacheIndex.Entry(original, originalSize, originalModified, cachedSize, System.currentTimeMillis()));
+      enforceQuota();
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not add '{}' to the image cache index - {}", original, e.getMessage());
+    }
+  }
+
   /**
    * Cache image without overwriting an existing one
    * 
@@ -175,129 +364,236 @@ public class ImageCache {
     }
 
     Path originalFile = mediaFile.getFileAsPath();
-    Path cachedFile = ImageCache.getCacheDir().resolve(getMD5WithSubfolder(originalFile.toString()) + "." + Utils.getExtension(originalFile));
-    if (overwrite || !Files.exists(cachedFile)) {
+    String key = getCacheKey(originalFile.toString(), Utils.getExtension(originalFile));
+    Path cachedFile = ImageCache.getCacheDir().resolve(key);
+    ImageCacheIndex.Entry entry = overwrite ? null : getIndex().get(key);
+    if (entry == null || !isUpToDate(key, entry, mediaFile)) {
       // check if the original file exists && size > 0
-      if (!Files.exists(originalFile)) {
+      BasicFileAttributes attrs;
+      try {
+        attrs = Files.readAttributes(originalFile, BasicFileAttributes.class);
+      }
+      catch (NoSuchFileException e) {
         throw new FileNotFoundException("unable to cache file: " + originalFile + "; file does not exist");
       }
-      if (Files.size(originalFile) == 0) {
+      if (attrs.size() == 0) {
         throw new EmptyFileException(originalFile);
       }
 
-      // recreate cache dir if needed
-      // rescale & cache
-      BufferedImage originalImage = null;
+      // read the size from the header to decode only as many pixels as needed for the cached image
+      Dimension originalSize = null;
+      try {
+        originalSize = ImageUtils.readImageSize(originalFile);
+      }
+      catch (Exception e) {
+        LOGGER.debug("could not read the image header of '{}' - {}", originalFile, e.getMessage());
+      }
 
-      // try to cache the image file
-      // we have up to 5 retries here if we hit the memory cap since we are hitting the machine hard due to multi CPU image caching
-      int retries = 5;
-      do {
-        try {
-          originalImage = ImageUtils.createImage(originalFile);
-          break;
+      int subsampling = 1;
+      if (originalSize != null) {
+        subsampling = calculateSubsampling(originalSize.width, calculateCacheImageWidth(originalSize.width, originalSize.height));
+      }
+
+      // wait until there is enough memory for this image (instead of running into the memory cap with many threads)
+      try {
+        boolean written = false;
+        if (isOversized(originalSize, subsampling)) {
+          written = cacheOversizedImage(originalFile, cachedFile, originalSize, subsampling);
         }
-        catch (OutOfMemoryError e) {
-          // memory limit hit; give it another 500ms time to recover
-          LOGGER.warn("hit memory cap: {}", e.getMessage());
-          Thread.sleep(500);
+
+        if (!written && subsampling > 1) {
+          try (ImageMemoryBudget.Reservation ignored = ImageMemoryBudget.getInstance().reserve(estimateMemory(originalSize, subsampling))) {
+            BufferedImage originalImage = ImageUtils.createSubsampledImage(originalFile, subsampling);
+            if (originalImage != null) {
+              writeCachedImage(originalImage, cachedFile, originalSize, subsampling);
+              written = true;
+            }
+          }
         }
-        retries--;
-      } while (retries > 0);
 
-      if (originalImage == null) {
-        throw new IOException("could not open original image to scale; probably due to memory limits");
+        if (!written) {
+          // the whole image has to be decoded - reserve the memory for the full size
+          try (ImageMemoryBudget.Reservation ignored = ImageMemoryBudget.getInstance().reserve(estimateMemory(originalSize, 1))) {
+            BufferedImage originalImage = ImageUtils.createImage(originalFile);
+            if (originalImage == null) {
+              throw new IOException("could not open original image to scale");
+            }
+            writeCachedImage(originalImage, cachedFile, originalSize, 1);
+          }
+        }
+      }
+      catch (OutOfMemoryError e) {
+        throw new IOException("could not scale image; probably due to memory limits", e);
       }
 
-      // calculate width based on MF type
-      int desiredWidth = calculateCacheImageWidth(originalImage);
+      if (!Files.exists(cachedFile)) {
+        throw new IOException("unable to cache file: " + originalFile);
+      }
 
-      Point size = ImageUtils.calculateSize(desiredWidth, originalImage.getHeight(), originalImage.getWidth(), originalImage.getHeight(), true);
-      BufferedImage scaledImage = null;
+      addToIndex(key, originalFile.toString(), attrs.size(), attrs.lastModifiedTime().toMillis());
+    }
 
-      // we have up to 5 retries here if we hit the memory cap since we are hitting the machine hard due to multi CPU image caching
-      retries = 5;
-      do {
-        try {
-          switch (Globals.settings.getImageCacheType()) {
-            case BALANCED:
-              // scale fast
-              scaledImage = Scalr.resize(originalImage, Scalr.Method.BALANCED, Scalr.Mode.FIT_EXACT, size.x, size.y);
-              break;
-
-            case QUALITY:
-              // scale with good quality
-              scaledImage = Scalr.resize(originalImage, Scalr.Method.QUALITY, Scalr.Mode.FIT_EXACT, size.x, size.y);
-              break;
-
-            case ULTRA_QUALITY:
-              // scale with good quality
-              scaledImage = Scalr.resize(originalImage, Scalr.Method.ULTRA_QUALITY, Scalr.Mode.FIT_EXACT, size.x, size.y);
-              break;
-          }
-          break;
-        }
-        catch (OutOfMemoryError e) {
-          // memory limit hit; give it another 500ms time to recover
-          LOGGER.debug("hit memory cap: {}", e.getMessage());
-          Thread.sleep(500);
-        }
-        retries--;
-      } while (retries > 0);
+    return cachedFile;
+  }
 
-      originalImage.flush();
+  /**
+   * is the decoded (subsampled) image too big to be held in memory at once (more than a quarter of the memory budget) while the cached image is
+   * small?
+   */
+  private static boolean isOversized(Dimension originalSize, int subsampling) {
+    if (originalSize == null) {
+      return false;
+    }
+
+    long quarter = ImageMemoryBudget.getInstance().getMaxBytes() / 4;
+    Point desiredSize = calculateCacheImageSize(originalSize);
+    int decodedWidth = (originalSize.width + subsampling - 1) / subsampling;
+    int decodedHeight = (originalSize.height + subsampling - 1) / subsampling;
+
+    return ImageMemoryBudget.estimate(decodedWidth, decodedHeight) > quarter
+        && 3 * ImageMemoryBudget.estimate(desiredSize.x, desiredSize.y) < quarter;
+  }
 
+  /**
+   * cache an oversized image by decoding it in bands (see {@link ImageUtils#createScaledImageInBands(Path, int, int, int, int)}); every band takes
+   * an eighth of the memory budget at most
+   *
+   * @return true if the cached image has been written
+   */
+  private static boolean cacheOversizedImage(Path originalFile, Path cachedFile, Dimension originalSize, int subsampling)
+      throws IOException, InterruptedException {
+    Point desiredSize = calculateCacheImageSize(originalSize);
+    int decodedWidth = (originalSize.width + subsampling - 1) / subsampling;
+    long bandBytes = ImageMemoryBudget.getInstance().getMaxBytes() / 8;
+    long bandRows = bandBytes / Math.max(1, ImageMemoryBudget.estimate(decodedWidth, 1)) * subsampling;
+    int bandHeight = (int) Math.max(subsampling, Math.min(originalSize.height, bandRows));
+
+    long memory = ImageMemoryBudget.estimate(decodedWidth, bandHeight / subsampling + 1)
+        + 3 * ImageMemoryBudget.estimate(desiredSize.x, desiredSize.y);
+    try (ImageMemoryBudget.Reservation ignored = ImageMemoryBudget.getInstance().reserve(memory)) {
+      LOGGER.debug("decoding oversized image '{}' ({}x{}) in bands of {} rows", originalFile, originalSize.width, originalSize.height, bandHeight);
+      BufferedImage scaledImage = ImageUtils.createScaledImageInBands(originalFile, subsampling, desiredSize.x, desiredSize.y, bandHeight);
       if (scaledImage == null) {
-        throw new IOException("could not scale image; probably due to memory limits");
+        return false;
       }
+      // the image is already scaled to the size of the cached image
+      writeCachedImage(scaledImage, cachedFile, originalSize, subsampling);
+      return true;
+    }
+  }
 
-      ImageWriter imgWrtr = null;
-      ImageWriteParam imgWrtrPrm = null;
+  /**
+   * calculate the size of the cached image for an image of the given size
+   */
+  private static Point calculateCacheImageSize(Dimension originalSize) {
+    int desiredWidth = Math.max(1, calculateCacheImageWidth(originalSize.width, originalSize.height));
+    int desiredHeight = (int) Math.max(1, (long) originalSize.height * desiredWidth / Math.max(1, originalSize.width));
+    return new Point(desiredWidth, desiredHeight);
+  }
 
-      // here we have two different ways to create our thumb
-      // a) a scaled down jpg/png (without transparency) which we have to modify since OpenJDK cannot call native jpg encoders
-      // b) a scaled down png (with transparency) which we can store without any more modifying as png
-      if (ImageUtils.hasTransparentPixels(scaledImage)) {
-        // transparent image -> png
-        imgWrtr = ImageIO.getImageWritersByFormatName("png").next();
-        imgWrtrPrm = imgWrtr.getDefaultWriteParam();
+  /**
+   * estimate the memory needed to cache an image: the decoded image + the scaled image + the rgb copy of the scaled image
+   */
+  private static long estimateMemory(Dimension originalSize, int subsampling) {
+    if (originalSize == null) {
+      return Long.MAX_VALUE;
+    }
 
-      }
-      else {
-        // non transparent image -> jpg
-        // convert to rgb
-        BufferedImage rgb = new BufferedImage(scaledImage.getWidth(), scaledImage.getHeight(), BufferedImage.TYPE_INT_RGB);
-        ColorConvertOp xformOp = new ColorConvertOp(null);
-        xformOp.filter(scaledImage, rgb);
-        imgWrtr = ImageIO.getImageWritersByFormatName("jpg").next();
-        imgWrtrPrm = imgWrtr.getDefaultWriteParam();
-        imgWrtrPrm.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-        imgWrtrPrm.setCompressionQuality(0.80f);
-
-        scaledImage = rgb;
-      }
+    int desiredWidth = calculateCacheImageWidth(originalSize.width, originalSize.height);
+    int desiredHeight = (int) ((long) originalSize.height * desiredWidth / Math.max(1, originalSize.width));
+    int decodedWidth = (originalSize.width + subsampling - 1) / subsampling;
+    int decodedHeight = (originalSize.height + subsampling - 1) / subsampling;
+
+    return ImageMemoryBudget.estimate(decodedWidth, decodedHeight) + 2 * ImageMemoryBudget.estimate(desiredWidth, desiredHeight);
+  }
+
+  private static void writeCachedImage(BufferedImage originalImage, Path cachedFile, Dimension originalSize, int subsampling) throws IOException {
+    // calculate width based on MF type (from the original size; the decoded image may be subsampled)
+    int desiredWidth;
+    if (originalSize != null && subsampling > 1) {
+      desiredWidth = Math.min(originalImage.getWidth(), calculateCacheImageWidth(originalSize.width, originalSize.height));
+    }
+    else {
+      desiredWidth = calculateCacheImageWidth(originalImage.getWidth(), originalImage.getHeight());
+    }
+
+    Point size = ImageUtils.calculateSize(desiredWidth, originalImage.getHeight(), originalImage.getWidth(), originalImage.getHeight(), true);
+    BufferedImage scaledImage;
+
+    switch (Globals.settings.getImageCacheType()) {
+      case BALANCED:
+        // scale fast
+        scaledImage = Scalr.resize(originalImage, Scalr.Method.BALANCED, Scalr.Mode.FIT_EXACT, size.x, size.y);
+        break;
+
+      case ULTRA_QUALITY:
+        // scale with good quality
+        scaledImage = Scalr.resize(originalImage, Scalr.Method.ULTRA_QUALITY, Scalr.Mode.FIT_EXACT, size.x, size.y);
+        break;
 
-      FileImageOutputStream output = new FileImageOutputStream(cachedFile.toFile());
+      case QUALITY:
+      default:
+        // scale with good quality
+        scaledImage = Scalr.resize(originalImage, Scalr.Method.QUALITY, Scalr.Mode.FIT_EXACT, size.x, size.y);
+        break;
+    }
+
+    originalImage.flush();
+
+    ImageWriter imgWrtr = null;
+    ImageWriteParam imgWrtrPrm = null;
+
+    // here we have two different ways to create our thumb
+    // a) a scaled down jpg/png (without transparency) which we have to modify since OpenJDK cannot call native jpg encoders
+    // b) a scaled down png (with transparency) which we can store without any more modifying as png
+    if (ImageUtils.hasTransparentPixels(scaledImage)) {
+      // transparent image -> png
+      imgWrtr = ImageIO.getImageWritersByFormatName("png").next();
+      imgWrtrPrm = imgWrtr.getDefaultWriteParam();
+
+    }
+    else {
+      // non transparent image -> jpg
+      // convert to rgb
+      BufferedImage rgb = new BufferedImage(scaledImage.getWidth(), scaledImage.getHeight(), BufferedImage.TYPE_INT_RGB);
+      ColorConvertOp xformOp = new ColorConvertOp(null);
+      xformOp.filter(scaledImage, rgb);
+      imgWrtr = ImageIO.getImageWritersByFormatName("jpg").next();
+      imgWrtrPrm = imgWrtr.getDefaultWriteParam();
+      imgWrtrPrm.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      imgWrtrPrm.setCompressionQuality(0.80f);
+
+      scaledImage = rgb;
+    }
+
+    try (FileImageOutputStream output = new FileImageOutputStream(cachedFile.toFile())) {
       imgWrtr.setOutput(output);
       IIOImage image = new IIOImage(scaledImage, null, null);
       imgWrtr.write(null, image, imgWrtrPrm);
-      imgWrtr.dispose();
       output.flush();
-      output.close();
-
+    }
+    finally {
+      imgWrtr.dispose();
       scaledImage.flush();
+    }
+  }
 
-      if (!Files.exists(cachedFile)) {
-        throw new IOException("unable to cache file: " + originalFile);
-      }
+  /**
+   * calculate the source subsampling for decoding: the decoded image should be at least twice as wide as the cached image (to have enough pixels
+   * for a good quality scaling); only the fast scaling takes the pixels as they are
+   */
+  static int calculateSubsampling(int originalWidth, int desiredWidth) {
+    if (desiredWidth <= 0 || desiredWidth >= originalWidth) {
+      return 1;
     }
 
-    return cachedFile;
+    int minDecodedWidth = Globals.settings.getImageCacheType() == CacheType.BALANCED ? desiredWidth : 2 * desiredWidth;
+    return Math.max(1, originalWidth / minDecodedWidth);
   }
 
-  private static int calculateCacheImageWidth(BufferedImage originalImage) {
+  private static int calculateCacheImageWidth(int originalWidth, int originalHeight) {
     // initialize with the original width
-    int desiredWidth = originalImage.getWidth();
+    int desiredWidth = originalWidth;
 
     switch (Settings.getInstance().getImageCacheSize()) {
       case ORIGINAL:
@@ -306,32 +602,32 @@ public class ImageCache {
 
       case BIG:
         // decide the scale-side depending on the aspect ratio
-        if (((float) originalImage.getWidth()) / ((float) originalImage.getHeight()) > 1) {
+        if (((float) originalWidth) / ((float) originalHeight) > 1) {
           // landscape
-          if (originalImage.getWidth() > 1000) {
+          if (originalWidth > 1000) {
             desiredWidth = 1000;
           }
         }
         else {
           // portrait
-          if (originalImage.getHeight() > 1000) {
-            desiredWidth = 1000 * originalImage.getWidth() / originalImage.getHeight();
+          if (originalHeight > 1000) {
+            desiredWidth = 1000 * originalWidth / originalHeight;
           }
         }
         break;
 
       case SMALL:
         // decide the scale-side depending on the aspect ratio
-        if (((float) originalImage.getWidth()) / ((float) originalImage.getHeight()) > 1) {
+        if (((float) originalWidth) / ((float) originalHeight) > 1) {
           // landscape
-          if (originalImage.getWidth() > 400) {
+          if (originalWidth > 400) {
             desiredWidth = 400;
           }
         }
         else {
           // portrait
-          if (originalImage.getHeight() > 400) {
-            desiredWidth = 400 * originalImage.getWidth() / originalImage.getHeight();
+          if (originalHeight > 400) {
+            desiredWidth = 400 * originalWidth / originalHeight;
           }
         }
         break;
@@ -396,12 +692,35 @@ public class ImageCache {
     }
 
     Path path = mediaFile.getFileAsPath();
-    Path cachedFile = getCacheDir().resolve(ImageCache.getMD5WithSubfolder(path.toAbsolutePath().toString()) + "." + Utils.getExtension(path));
+    String key = getCacheKey(path.toAbsolutePath().toString(), Utils.getExtension(path));
+    getIndex().remove(key);
+
+    Path cachedFile = getCacheDir().resolve(key);
     if (Files.exists(cachedFile)) {
       Utils.deleteFileSafely(cachedFile);
     }
   }
 
+  /**
+   * Put the already downloaded image of the given url into the image cache (the image is indexed and counted against the quota)
+   *
+   * @param url
+   *          the url of the image
+   * @param bytes
+   *          the image data
+   * @return the cached file
+   * @throws IOException
+   *           any {@link IOException} occurred while writing the cached file
+   */
+  public static Path cacheImage(String url, byte[] bytes) throws IOException {
+    String key = getUrlCacheKey(url);
+    Path cachedFile = getCacheDir().resolve(key);
+    Files.createDirectories(cachedFile.getParent());
+    Files.write(cachedFile, bytes);
+    addToIndex(key, url, -1, -1);
+    return cachedFile;
+  }
+
   /**
    * Gets the cached image for "string" location (mostly an url).<br>
    * If not found AND it is a valid url, download and cache first.<br>
@@ -415,12 +734,9 @@ public class ImageCache {
       return null;
     }
 
-    String ext = UrlUtil.getExtension(url);
-    if (ext.isEmpty()) {
-      ext = "jpg"; // just assume
-    }
-    Path cachedFile = ImageCache.getCacheDir().resolve(getMD5WithSubfolder(url) + "." + ext);
-    if (Files.exists(cachedFile)) {
+    String key = getUrlCacheKey(url);
+    Path cachedFile = ImageCache.getCacheDir().resolve(key);
+    if (getIndex().get(key) != null) {
       LOGGER.trace("found cached url :) {}", url);
       return cachedFile;
     }
@@ -436,6 +752,7 @@ public class ImageCache {
       boolean ok = u.download(cachedFile);
       if (ok) {
         LOGGER.trace("cached url successfully :) {}", url);
+        addToIndex(key, url, -1, -1);
         return cachedFile;
       }
     }
@@ -476,17 +793,18 @@ public class ImageCache {
 
     Path path = mediaFile.getFileAsPath().toAbsolutePath();
 
-    Path cachedFile = ImageCache.getCacheDir().resolve(getMD5WithSubfolder(path.toString()) + "." + Utils.getExtension(path));
-    if (Files.exists(cachedFile)) {
-      LOGGER.trace("found cached file :) {}", path);
-      return cachedFile;
-    }
-
     // is the path already inside the cache dir? serve direct
     if (path.startsWith(CACHE_DIR.toAbsolutePath())) {
       return path;
     }
 
+    String key = getCacheKey(path.toString(), Utils.getExtension(path));
+    ImageCacheIndex.Entry entry = getIndex().get(key);
+    if (entry != null && isUpToDate(key, entry, mediaFile)) {
+      LOGGER.trace("found cached file :) {}", path);
+      return ImageCache.getCacheDir().resolve(key);
+    }
+
     // is the image cache activated?
     if (!Globals.settings.isImageCache()) {
       LOGGER.trace("ImageCache not activated!");
@@ -495,7 +813,8 @@ public class ImageCache {
     }
 
     try {
-      Path p = cacheImage(mediaFile);
+      // an outdated cached image has to be overwritten
+      Path p = cacheImage(mediaFile, entry != null);
       LOGGER.trace("cached file successfully :) {}", p);
       return p;
     }
@@ -525,9 +844,7 @@ public class ImageCache {
       return false;
     }
 
-    Path cachedFile = CACHE_DIR.resolve(ImageCache.getMD5WithSubfolder(path.toString()) + "." + Utils.getExtension(path));
-
-    return Files.exists(cachedFile);
+    return getIndex().get(getCacheKey(path.toString(), Utils.getExtension(path))) != null;
   }
 
   /**
@@ -540,10 +857,7 @@ public class ImageCache {
     List<MediaFile> mediaFiles = new ArrayList<>(entity.getMediaFiles());
     for (MediaFile mediaFile : mediaFiles) {
       if (mediaFile.isGraphic()) {
-        Path file = ImageCache.getCachedFile(mediaFile);
-        if (file != null) {
-          Utils.deleteFileSafely(file);
-        }
+        invalidateCachedImage(mediaFile);
       }
     }
   }
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class ImageCacheIndex. A persisted index of all images in the image cache: the original (path or url), its size and modification time at the
+ * time of caching, the size of the cached image and the time of the last access.<br />
+ * The index answers whether an image is cached without looking at the disk, detects replaced originals (by comparing the size and modification
+ * time) and is used to remove the least recently used images if the cache exceeds its quota.
+ *
+ * @author Manuel Laggner
+ */
+public class ImageCacheIndex {
+  private static final Logger         LOGGER            = LoggerFactory.getLogger(ImageCacheIndex.class);
+  private static final int            VERSION           = 1;
+
+  // the access time is only written if it is older than this (no write on every lookup)
+  private static final long           ACCESS_RESOLUTION = 60_000;
+  // check the original of an entry at most once in this interval
+  private static final long           VERIFY_INTERVAL   = 10 * 60_000;
+  // evict to a bit below the quota; so not every new image causes another eviction
+  private static final double         EVICTION_TARGET   = 0.9;
+
+  private final MVMap<String, byte[]> map;
+  private final Map<String, Long>     verified          = new ConcurrentHashMap<>();
+  private final AtomicLong            totalSize         = new AtomicLong();
+
+  public ImageCacheIndex(MVStore mvStore, String mapName) {
+    this.map = mvStore.openMap(mapName);
+
+    long size = 0;
+    for (byte[] value : map.values()) {
+      Entry entry = decode(value);
+      if (entry != null) {
+        size += entry.cachedSize;
+      }
+    }
+    totalSize.set(size);
+  }
+
+  /**
+   * get the entry for the given cached file and mark it as accessed
+   *
+   * @param key
+   *          the path of the cached file (relative to the cache dir)
+   * @return the entry or null if the image is not cached
+   */
+  public Entry get(String key) {
+    Entry entry = decode(map.get(key));
+    if (entry == null) {
+      return null;
+    }
+
+    long now = System.currentTimeMillis();
+    if (now - entry.lastAccess > ACCESS_RESOLUTION) {
+      entry.lastAccess = now;
+      map.put(key, entry.encode());
+    }
+    return entry;
+  }
+
+  /**
+   * add/replace the entry for the given cached file
+   *
+   * @param key
+   *          the path of the cached file (relative to the cache dir)
+   * @param entry
+   *          the entry
+   */
+  public void put(String key, Entry entry) {
+    Entry old = decode(map.put(key, entry.encode()));
+    totalSize.addAndGet(entry.cachedSize - (old != null ? old.cachedSize : 0));
+    verified.put(key, System.currentTimeMillis());
+  }
+
+  /**
+   * remove the entry for the given cached file
+   *
+   * @param key
+   *          the path of the cached file (relative to the cache dir)
+   * @return the removed entry or null
+   */
+  public Entry remove(String key) {
+    verified.remove(key);
+    Entry old = decode(map.remove(key));
+    if (old != null) {
+      totalSize.addAndGet(-old.cachedSize);
+    }
+    return old;
+  }
+
+  /**
+   * remove all entries
+   */
+  public void clear() {
+    map.clear();
+    verified.clear();
+    totalSize.set(0);
+  }
+
+  /**
+   * get the amount of cached images
+   *
+   * @return the amount of entries
+   */
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * get the size of all cached images
+   *
+   * @return the size in bytes
+   */
+  public long getTotalSize() {
+    return totalSize.get();
+  }
+
+  /**
+   * check whether the original of the given entry should be checked for changes again. The original is checked at most once in 10 minutes - so
+   * scrolling through the lists does not cause a file access for every image
+   *
+   * @param key
+   *          the path of the cached file (relative to the cache dir)
+   * @return true if the original should be checked
+   */
+  public boolean isVerificationDue(String key) {
+    Long lastVerification = verified.get(key);
+    return lastVerification == null || System.currentTimeMillis() - lastVerification > VERIFY_INTERVAL;
+  }
+
+  /**
+   * the original of the given entry has been checked and is unchanged
+   *
+   * @param key
+   *          the path of the cached file (relative to the cache dir)
+   */
+  public void verified(String key) {
+    verified.put(key, System.currentTimeMillis());
+  }
+
+  /**
+   * remove the least recently used entries until the cache is (a bit) below the given size
+   *
+   * @param maxSize
+   *          the maximum size of all cached images in bytes
+   * @return the keys of the removed entries (the cached files have to be deleted by the caller)
+   */
+  public List<String> evict(long maxSize) {
+    List<String> evicted = new ArrayList<>();
+    if (maxSize <= 0 || totalSize.get() <= maxSize) {
+      return evicted;
+    }
+
+    List<Map.Entry<String, Long>> accesses = new ArrayList<>(map.size());
+    for (Map.Entry<String, byte[]> mapEntry : map.entrySet()) {
+      Entry entry = decode(mapEntry.getValue());
+      accesses.add(new AbstractMap.SimpleImmutableEntry<>(mapEntry.getKey(), entry != null ? entry.lastAccess : 0));
+    }
+    accesses.sort(Map.Entry.comparingByValue());
+
+    long target = (long) (maxSize * EVICTION_TARGET);
+    for (Map.Entry<String, Long> access : accesses) {
+      if (totalSize.get() <= target) {
+        break;
+      }
+      if (remove(access.getKey()) != null) {
+        evicted.add(access.getKey());
+      }
+    }
+
+    LOGGER.debug("evicted {} images from the image cache", evicted.size());
+    return evicted;
+  }
+
+  /**
+   * add all files of the given cache dir which are not in the index yet (e.g. from a version without the index). The originals of these entries are
+   * unknown, so they are checked on the first access
+   *
+   * @param cacheDir
+   *          the cache dir
+   * @return the amount of added files
+   */
+  public int importFiles(Path cacheDir) {
+    int count = 0;
+    long now = System.currentTimeMillis();
+
+    try (Stream<Path> files = Files.walk(cacheDir, 2)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        String key = cacheDir.relativize(file).toString();
+        if (attrs.isRegularFile() && !map.containsKey(key)) {
+          put(key, new Entry(null, -1, -1, attrs.size(), now));
+          verified.remove(key);
+          count++;
+        }
+      }
+    }
+    catch (Exception e) {
+      LOGGER.warn("could not import the image cache - {}", e.getMessage());
+    }
+
+    return count;
+  }
+
+  private static Entry decode(byte[] value) {
+    if (value == null) {
+      return null;
+    }
+
+    try {
+      return Entry.decode(value);
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not decode image cache entry - {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * The class Entry. One image in the image cache
+   */
+  public static class Entry {
+    private final String original;
+    private final long   originalSize;
+    private final long   originalModified;
+    private final long   cachedSize;
+    private long         lastAccess;
+
+    /**
+     * create a new entry
+     *
+     * @param original
+     *          the path/url of the original image (null if unknown)
+     * @param originalSize
+     *          the size of the original image (-1 if unknown)
+     * @param originalModified
+     *          the modification time of the original image (-1 if unknown)
+     * @param cachedSize
+     *          the size of the cached image
+     * @param lastAccess
+     *          the time of the last access
+     */
+    public Entry(String original, long originalSize, long originalModified, long cachedSize, long lastAccess) {
+      this.original = original;
+      this.originalSize = originalSize;
+      this.originalModified = originalModified;
+      this.cachedSize = cachedSize;
+      this.lastAccess = lastAccess;
+    }
+
+    public String getOriginal() {
+      return original;
+    }
+
+    public long getCachedSize() {
+      return cachedSize;
+    }
+
+    public long getLastAccess() {
+      return lastAccess;
+    }
+
+    /**
+     * check whether the original (still) has the given size and modification time
+     *
+     * @param size
+     *          the size of the original
+     * @param modified
+     *          the modification time of the original
+     * @return true if the original is unchanged; false if it has been changed or the size/modification time of the original is unknown
+     */
+    public boolean isOriginal(long size, long modified) {
+      return originalSize >= 0 && originalSize == size && originalModified == modified;
+    }
+
+    private byte[] encode() {
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeUTF(original != null ? original : "");
+        out.writeLong(originalSize);
+        out.writeLong(originalModified);
+        out.writeLong(cachedSize);
+        out.writeLong(lastAccess);
+        out.flush();
+        return bytes.toByteArray();
+      }
+      catch (IOException e) {
+        // cannot happen on a byte array
+        throw new IllegalStateException(e);
+      }
+    }
+
+    private static Entry decode(byte[] value) throws IOException {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+      if (in.readByte() != VERSION) {
+        throw new IOException("unknown version");
+      }
+      String original = in.readUTF();
+      return new Entry(original.isEmpty() ? null : original, in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+  }
+}
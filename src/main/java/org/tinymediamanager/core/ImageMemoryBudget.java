@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * The class ImageMemoryBudget. Limits the memory which is used by decoded images at the same time. Every decoding reserves the estimated size of the
+ * decoded pixels before it starts and releases it afterwards - so many small images can be processed in parallel while big images have to wait until
+ * enough memory is available (instead of running into an {@link OutOfMemoryError}).
+ *
+ * @author Manuel Laggner
+ */
+public class ImageMemoryBudget {
+  private static final int               KIB      = 1024;
+  private static final ImageMemoryBudget INSTANCE = new ImageMemoryBudget(Runtime.getRuntime().maxMemory() / 4);
+
+  private final Semaphore                semaphore;
+  private final int                      maxPermits;
+
+  /**
+   * create a new budget
+   *
+   * @param maxBytes
+   *          the maximum amount of bytes which can be reserved at the same time
+   */
+  public ImageMemoryBudget(long maxBytes) {
+    this.maxPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / KIB));
+    // fair: a big image must not starve behind a stream of small ones
+    this.semaphore = new Semaphore(maxPermits, true);
+  }
+
+  /**
+   * get the shared budget for all image decodings (a quarter of the maximum heap size)
+   *
+   * @return the shared budget
+   */
+  public static ImageMemoryBudget getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * estimate the memory of a decoded image (4 bytes per pixel)
+   *
+   * @param width
+   *          the width of the image
+   * @param height
+   *          the height of the image
+   * @return the estimated amount of bytes
+   */
+  public static long estimate(int width, int height) {
+    return 4L * Math.max(0, width) * Math.max(0, height);
+  }
+
+  /**
+   * reserve memory; blocks until enough memory is available. A reservation bigger than the whole budget waits until all other reservations have been
+   * released
+   *
+   * @param bytes
+   *          the amount of bytes to reserve
+   * @return the reservation which must be closed after the decoded image is not needed any more
+   * @throws InterruptedException
+   *           if the thread has been interrupted while waiting
+   */
+  public Reservation reserve(long bytes) throws InterruptedException {
+    int permits = toPermits(bytes);
+    semaphore.acquire(permits);
+    return new Reservation(permits);
+  }
+
+  /**
+   * get the amount of bytes which can be reserved at the moment
+   *
+   * @return the available bytes
+   */
+  public long getAvailableBytes() {
+    return (long) semaphore.availablePermits() * KIB;
+  }
+
+  /**
+   * get the size of the whole budget
+   *
+   * @return the amount of bytes
+   */
+  public long getMaxBytes() {
+    return (long) maxPermits * KIB;
+  }
+
+  private int toPermits(long bytes) {
+    long permits = (Math.max(0, bytes) + KIB - 1) / KIB;
+    return (int) Math.max(1, Math.min(maxPermits, permits));
+  }
+
+  /**
+   * a reservation of memory in the budget
+   */
+  public class Reservation implements AutoCloseable {
+    private final int permits;
+    private boolean   released = false;
+
+    private Reservation(int permits) {
+      this.permits = permits;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (!released) {
+        released = true;
+        semaphore.release(permits);
+      }
+    }
+  }
+}
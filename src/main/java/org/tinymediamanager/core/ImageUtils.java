@@ -16,8 +16,12 @@
 
 package org.tinymediamanager.core;
 
+import java.awt.Dimension;
+import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Toolkit;
 import java.awt.image.BaseMultiResolutionImage;
 import java.awt.image.BufferedImage;
@@ -30,12 +34,16 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Iterator;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
 import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageInputStream;
 import javax.imageio.stream.ImageOutputStream;
 import javax.swing.ImageIcon;
 
@@ -268,6 +276,164 @@ public class ImageUtils {
     }
   }
 
+  /**
+   * read the size of the image from the header of the file (without decoding the pixels)
+   *
+   * @param file
+   *          the image file
+   * @return the size of the image or null if there is no reader for this file
+   * @throws IOException
+   *           any exception while reading the header
+   */
+  public static Dimension readImageSize(Path file) throws IOException {
+    try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+      ImageReader reader = getImageReader(iis);
+      if (reader == null) {
+        return null;
+      }
+
+      try {
+        reader.setInput(iis, true, true);
+        return new Dimension(reader.getWidth(0), reader.getHeight(0));
+      }
+      finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * create an image with only every n-th pixel in both directions (source subsampling). Only the subsampled pixels are held in memory, so this is
+   * much cheaper than decoding the whole image and scaling it down afterwards. If the image cannot be read with subsampling, the whole image is
+   * decoded
+   *
+   * @param file
+   *          the image file
+   * @param subsampling
+   *          take every n-th pixel (1 = the whole image)
+   * @return the (subsampled) image
+   * @throws IOException
+   *           any exception while reading the image
+   */
+  public static BufferedImage createImage(Path file, int subsampling) throws IOException {
+    if (subsampling <= 1) {
+      return createImage(file);
+    }
+
+    BufferedImage image = createSubsampledImage(file, subsampling);
+    if (image != null) {
+      return image;
+    }
+
+    // fallback: read the whole image
+    return createImage(file);
+  }
+
+  /**
+   * create an image with only every n-th pixel in both directions (source subsampling) without falling back to decoding the whole image
+   *
+   * @param file
+   *          the image file
+   * @param subsampling
+   *          take every n-th pixel
+   * @return the subsampled image or null if the image cannot be read with subsampling
+   */
+  public static BufferedImage createSubsampledImage(Path file, int subsampling) {
+    try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+      ImageReader reader = getImageReader(iis);
+      if (reader != null) {
+        try {
+          reader.setInput(iis, true, true);
+          ImageReadParam param = reader.getDefaultReadParam();
+          param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+          return reader.read(0, param);
+        }
+        finally {
+          reader.dispose();
+        }
+      }
+    }
+    catch (Exception e) {
+      // e.g. CMYK jpegs are not supported by ImageIO
+      LOGGER.debug("could not read subsampled image '{}' - {}", file, e.getMessage());
+    }
+    return null;
+  }
+
+  /**
+   * create a scaled image by decoding the image in horizontal bands (source region and source subsampling). Only one band of the decoded image is
+   * held in memory at once, so images which are too big to be decoded at once (e.g. very long banners) can be scaled down too. Most readers decode
+   * the file from the start for every band - so the bands should be as big as the memory allows
+   *
+   * @param file
+   *          the image file
+   * @param subsampling
+   *          take every n-th pixel
+   * @param width
+   *          the width of the scaled image
+   * @param height
+   *          the height of the scaled image
+   * @param bandHeight
+   *          the amount of rows of the original image to decode at once
+   * @return the scaled image or null if the image cannot be read in bands
+   */
+  public static BufferedImage createScaledImageInBands(Path file, int subsampling, int width, int height, int bandHeight) {
+    try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+      ImageReader reader = getImageReader(iis);
+      if (reader != null) {
+        try {
+          // every band is read from the start of the stream
+          reader.setInput(iis, false, true);
+          int sourceWidth = reader.getWidth(0);
+          int sourceHeight = reader.getHeight(0);
+
+          // whole multiples of the subsampling, so the subsampling grid is the same in every band
+          int rows = Math.max(subsampling, bandHeight / subsampling * subsampling);
+
+          BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+          Graphics2D g2 = scaledImage.createGraphics();
+          try {
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int y = 0; y < sourceHeight; y += rows) {
+              int bandRows = Math.min(rows, sourceHeight - y);
+              ImageReadParam param = reader.getDefaultReadParam();
+              param.setSourceRegion(new Rectangle(0, y, sourceWidth, bandRows));
+              param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+              BufferedImage band = reader.read(0, param);
+
+              // the rows of the scaled image covered by this band (adjacent bands share their borders, so there are no gaps)
+              int top = (int) ((long) y * height / sourceHeight);
+              int bottom = (int) ((long) (y + bandRows) * height / sourceHeight);
+              if (bottom > top) {
+                g2.drawImage(band, 0, top, width, bottom, 0, 0, band.getWidth(), band.getHeight(), null);
+              }
+              band.flush();
+            }
+          }
+          finally {
+            g2.dispose();
+          }
+          return scaledImage;
+        }
+        finally {
+          reader.dispose();
+        }
+      }
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not read image '{}' in bands - {}", file, e.getMessage());
+    }
+    return null;
+  }
+
+  private static ImageReader getImageReader(ImageInputStream iis) {
+    if (iis == null) {
+      return null;
+    }
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+    return readers.hasNext() ? readers.next() : null;
+  }
+
   public static BufferedImage createImage(Image img) {
     return ImageLoader.createImage(img);
   }
@@ -18,39 +18,63 @@ package org.tinymediamanager.core;
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
-
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.entities.MediaEntity;
+import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.jmte.HtmlEncoder;
+import org.tinymediamanager.core.jmte.WriterOutputAppender;
 
 import com.floreysoft.jmte.Engine;
 import com.floreysoft.jmte.NamedRenderer;
 import com.floreysoft.jmte.RenderFormatInfo;
 import com.floreysoft.jmte.encoder.XMLEncoder;
+import com.floreysoft.jmte.template.Template;
 
 public abstract class MediaEntityExporter {
-  private static final Logger   LOGGER             = LoggerFactory.getLogger(MediaEntityExporter.class);
-  protected static final String TEMPLATE_DIRECTORY = "templates";
-
-  protected Engine              engine;
-  protected Properties          properties;
-  protected String              fileExtension;
-  protected String              listTemplate       = "";
-  protected String              detailTemplate     = "";
-  protected Path                templateDir;
-  protected boolean             cancel             = false;
+  private static final Logger       LOGGER             = LoggerFactory.getLogger(MediaEntityExporter.class);
+  protected static final String     TEMPLATE_DIRECTORY = "templates";
+  // the time, template and template version of the last export run (for the incremental export)
+  private static final String       EXPORT_STATE_FILE  = ".tmm-export";
+
+  protected Engine                  engine;
+  protected Properties              properties;
+  protected String                  fileExtension;
+  protected String                  listTemplate       = "";
+  protected String                  detailTemplate     = "";
+  protected Path                    templateDir;
+  protected boolean                 cancel             = false;
+
+  private ThreadPoolExecutor        exportPool;
+  private ThreadLocal<ExportEngine> exportEngines;
+  private final Set<Path>           exportedFiles      = ConcurrentHashMap.newKeySet();
+  private Path                      exportDir;
+  private long                      exportStart        = 0;
+  private long                      lastExport         = 0;
 
   public enum TemplateType {
     MOVIE,
@@ -92,14 +116,7 @@ public abstract class MediaEntityExporter {
     fileExtension = StringUtils.isBlank(properties.getProperty("extension")) ? "html" : properties.getProperty("extension").toLowerCase();
 
     // set up engine
-    engine = Engine.createEngine();
-
-    if ("html".equals(fileExtension)) {
-      engine.setEncoder(new HtmlEncoder()); // special char replacement
-    }
-    if ("xml".equals(fileExtension)) {
-      engine.setEncoder(new XMLEncoder()); // special char replacement
-    }
+    engine = createEngine();
 
     // load list template from File
     listTemplate = Utils.readFileToString(templateDir.resolve(listTemplateFile));
@@ -110,6 +127,304 @@ public abstract class MediaEntityExporter {
 
   public abstract <T extends MediaEntity> void export(List<T> entitiesToExport, Path pathToExport) throws Exception;
 
+  /**
+   * register all needed renderers in the given engine. Every thread of the export uses an own engine (JMTE engines are not thread safe)
+   *
+   * @param engine
+   *          the engine to register the renderers in
+   * @param exportDir
+   *          the path to export
+   */
+  protected abstract void registerRenderers(Engine engine, Path exportDir);
+
+  private Engine createEngine() {
+    Engine newEngine = Engine.createEngine();
+
+    if ("html".equals(fileExtension)) {
+      newEngine.setEncoder(new HtmlEncoder()); // special char replacement
+    }
+    if ("xml".equals(fileExtension)) {
+      newEngine.setEncoder(new XMLEncoder()); // special char replacement
+    }
+
+    // stream the output into the files rather than collecting it in memory
+    newEngine.setOutputAppender(new WriterOutputAppender());
+
+    return newEngine;
+  }
+
+  /**
+   * prepare the export: create the export dir, the renderers and the pool for the detail pages/artwork and read the state of the last export into
+   * the same dir (for the incremental export)
+   *
+   * @param exportDir
+   *          the path to export
+   * @throws IOException
+   *           any {@link IOException} occurred while preparing the export dir
+   */
+  protected void startExport(Path exportDir) throws IOException {
+    this.exportDir = exportDir;
+    this.exportStart = System.currentTimeMillis();
+    this.lastExport = 0;
+    this.exportedFiles.clear();
+
+    // prepare export destination
+    if (!Files.exists(exportDir)) {
+      Files.createDirectories(exportDir);
+    }
+
+    // only export changed entities if the same template has been exported into this dir before
+    Path stateFile = exportDir.resolve(EXPORT_STATE_FILE);
+    if (Files.exists(stateFile)) {
+      try (InputStream is = Files.newInputStream(stateFile)) {
+        Properties state = new Properties();
+        state.load(is);
+        // a changed template invalidates all exported pages
+        if (templateDir.toAbsolutePath().toString().equals(state.getProperty("template"))
+            && getTemplateFingerprint().equals(state.getProperty("templateFingerprint"))) {
+          lastExport = Long.parseLong(state.getProperty("exported", "0"));
+        }
+      }
+      catch (Exception e) {
+        LOGGER.debug("could not read the export state - {}", e.getMessage());
+      }
+    }
+
+    registerRenderers(engine, exportDir);
+
+    exportEngines = ThreadLocal.withInitial(() -> {
+      Engine exportEngine = createEngine();
+      registerRenderers(exportEngine, exportDir);
+      return new ExportEngine(exportEngine);
+    });
+
+    // a bounded queue: if the pool cannot keep up, the submitting thread does the work itself
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    exportPool = new ThreadPoolExecutor(threads, threads, 2, TimeUnit.SECONDS, new ArrayBlockingQueue<>(threads * 16),
+        runnable -> new Thread(runnable, "tmmpool-export-T" + threadNumber.getAndIncrement()), new ThreadPoolExecutor.CallerRunsPolicy());
+    // the threads die if the export does not finish regularly (exception)
+    exportPool.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * wait until all detail pages and artwork have been exported, copy the resources of the template and remember the time of this export (if the
+   * export has not been cancelled)
+   */
+  protected void finishExport() {
+    exportPool.shutdown();
+    try {
+      while (!exportPool.awaitTermination(500, TimeUnit.MILLISECONDS)) {
+        if (cancel) {
+          exportPool.shutdownNow();
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      exportPool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      exportEngines = null;
+    }
+
+    if (cancel) {
+      return;
+    }
+
+    // copy all non .jtme/template.conf files to destination dir
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(templateDir)) {
+      for (Path path : directoryStream) {
+        if (Utils.isRegularFile(path)) {
+          if (path.getFileName().toString().endsWith(".jmte") || path.getFileName().toString().endsWith("template.conf")) {
+            continue;
+          }
+          Files.copy(path, exportDir.resolve(path.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        else if (Files.isDirectory(path)) {
+          Utils.copyDirectoryRecursive(path, exportDir.resolve(path.getFileName()));
+        }
+      }
+    }
+    catch (IOException ex) {
+      LOGGER.error("could not copy resources: ", ex);
+    }
+
+    Properties state = new Properties();
+    state.setProperty("template", templateDir.toAbsolutePath().toString());
+    state.setProperty("templateFingerprint", getTemplateFingerprint());
+    state.setProperty("exported", Long.toString(exportStart));
+    try (Writer writer = Files.newBufferedWriter(exportDir.resolve(EXPORT_STATE_FILE), StandardCharsets.UTF_8)) {
+      state.store(writer, null);
+    }
+    catch (IOException e) {
+      LOGGER.warn("could not write the export state - {}", e.getMessage());
+    }
+  }
+
+  /**
+   * check if the given entity needs to be exported into the given file (the file does not exist or the entity has been changed since the last
+   * export into the same dir)
+   *
+   * @param entity
+   *          the entity to check
+   * @param file
+   *          the file to export the entity into
+   * @return true if the entity needs to be exported
+   */
+  protected boolean isExportNeeded(MediaEntity entity, Path file) {
+    return isExportNeeded(Collections.singletonList(entity), file);
+  }
+
+  /**
+   * check if the given entities need to be exported into the given file (the file does not exist or any of the entities has been changed since the
+   * last export into the same dir). Used for pages which contain data of several entities (e.g. a TV show along with its episodes)
+   *
+   * @param entities
+   *          the entities contained in the file
+   * @param file
+   *          the file to export the entities into
+   * @return true if the entities need to be exported
+   */
+  protected boolean isExportNeeded(List<? extends MediaEntity> entities, Path file) {
+    if (lastExport == 0 || !Files.exists(file)) {
+      return true;
+    }
+    for (MediaEntity entity : entities) {
+      if (entity.getLastModified() == null || entity.getLastModified().getTime() >= lastExport) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * create a fingerprint of the template files (names, sizes and last modified times) to detect changed templates
+   *
+   * @return the fingerprint
+   */
+  private String getTemplateFingerprint() {
+    List<String> files = new ArrayList<>();
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(templateDir)) {
+      for (Path path : directoryStream) {
+        if (Utils.isRegularFile(path)) {
+          files.add(path.getFileName() + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+        }
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not read the template files - {}", e.getMessage());
+    }
+    Collections.sort(files);
+    return DigestUtils.sha1Hex(String.join("|", files));
+  }
+
+  /**
+   * render the given template into the given file (streamed; in the calling thread)
+   *
+   * @param template
+   *          the template
+   * @param root
+   *          the model
+   * @param file
+   *          the file to write
+   * @throws IOException
+   *           any {@link IOException} occurred while writing
+   */
+  protected void transformToFile(String template, Map<String, Object> root, Path file) throws IOException {
+    transformToFile(engine, engine.getTemplate(template), root, file);
+  }
+
+  /**
+   * render the given template into the given file in the export pool (every thread of the pool uses its own engine)
+   *
+   * @param template
+   *          the template
+   * @param root
+   *          the model
+   * @param file
+   *          the file to write
+   */
+  protected void submitTransformToFile(String template, Map<String, Object> root, Path file) {
+    ThreadLocal<ExportEngine> engines = exportEngines;
+    submitExportTask(() -> {
+      try {
+        ExportEngine exportEngine = engines.get();
+        transformToFile(exportEngine.engine, exportEngine.getTemplate(template), root, file);
+      }
+      catch (Exception e) {
+        LOGGER.error("could not export '{}' - {}", file, e.getMessage());
+      }
+    });
+  }
+
+  private static void transformToFile(Engine engine, Template template, Map<String, Object> root, Path file) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      ((WriterOutputAppender) engine.getOutputAppender()).transform(engine, template, root, writer);
+    }
+  }
+
+  /**
+   * execute the given task in the export pool
+   *
+   * @param task
+   *          the task to execute
+   */
+  protected void submitExportTask(Runnable task) {
+    if (cancel) {
+      return;
+    }
+    if (exportPool == null || exportPool.isShutdown()) {
+      task.run();
+    }
+    else {
+      exportPool.execute(() -> {
+        // skip all queued tasks after cancelling
+        if (!cancel) {
+          task.run();
+        }
+      });
+    }
+  }
+
+  /**
+   * copy (and scale) the given artwork in the export pool. Artwork which is already up to date in the export dir is not copied again
+   *
+   * @param source
+   *          the artwork file
+   * @param destination
+   *          the destination in the export dir
+   * @param thumbWidth
+   *          the width to scale the image to (0 = do not scale)
+   */
+  protected void copyArtwork(Path source, Path destination, int thumbWidth) {
+    // the same artwork may be referenced in several templates
+    if (!exportedFiles.add(destination)) {
+      return;
+    }
+
+    submitExportTask(() -> {
+      try {
+        if (Files.exists(destination) && Files.getLastModifiedTime(destination).compareTo(Files.getLastModifiedTime(source)) >= 0) {
+          return;
+        }
+
+        Files.createDirectories(destination.getParent());
+        if (thumbWidth > 0) {
+          try (InputStream is = ImageUtils.scaleImage(source, thumbWidth)) {
+            Files.copy(is, destination, StandardCopyOption.REPLACE_EXISTING);
+          }
+        }
+        else {
+          Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      catch (Exception e) {
+        LOGGER.error("could not copy artwork file: {} - {}", source, e.getMessage());
+      }
+    });
+  }
+
   /**
    * cancel the export
    */
@@ -186,15 +501,33 @@ public abstract class MediaEntityExporter {
     return templatesFound;
   }
 
+  /**
+   * the engine of one export thread along with its parsed templates
+   */
+  private static class ExportEngine {
+    private final Engine                engine;
+    private final Map<String, Template> templates = new HashMap<>();
+
+    private ExportEngine(Engine engine) {
+      this.engine = engine;
+    }
+
+    private Template getTemplate(String template) {
+      return templates.computeIfAbsent(template, engine::getTemplate);
+    }
+  }
+
   /**
    * this renderer is used to copy artwork into the exported template
    *
    * @author Manuel Laggner
    */
   protected abstract static class ArtworkCopyRenderer implements NamedRenderer {
-    protected Path pathToExport;
+    private final MediaEntityExporter exporter;
+    protected Path                    pathToExport;
 
-    public ArtworkCopyRenderer(Path pathToExport) {
+    public ArtworkCopyRenderer(MediaEntityExporter exporter, Path pathToExport) {
+      this.exporter = exporter;
       this.pathToExport = pathToExport;
     }
 
@@ -208,6 +541,36 @@ public abstract class MediaEntityExporter {
       return "copyArtwork";
     }
 
+    /**
+     * check (synchronously) whether the given artwork can be copied. The copy itself runs asynchronously, so the template has to fall back to its
+     * default value right now if the artwork file is missing or not readable
+     *
+     * @param mf
+     *          the artwork file
+     * @return true if the artwork can be copied
+     */
+    protected boolean isCopyable(MediaFile mf) {
+      if (Files.isReadable(mf.getFileAsPath())) {
+        return true;
+      }
+      LOGGER.warn("could not read artwork file: {}", mf.getFileAsPath());
+      return false;
+    }
+
+    /**
+     * copy (and scale) the given artwork in the export pool of the exporter
+     *
+     * @param source
+     *          the artwork file
+     * @param destination
+     *          the destination in the export dir
+     * @param thumbWidth
+     *          the width to scale the image to (0 = do not scale)
+     */
+    protected void copyArtwork(Path source, Path destination, int thumbWidth) {
+      exporter.copyArtwork(source, destination, thumbWidth);
+    }
+
     /**
      * parse the parameters out of the parameters string
      *
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.tinymediamanager.core.Constants.DATA_SOURCE;
+import static org.tinymediamanager.core.Constants.MEDIA_FILES;
+import static org.tinymediamanager.core.Constants.PATH;
+
+import java.beans.PropertyChangeListener;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.tinymediamanager.core.entities.MediaEntity;
+
+/**
+ * The class MediaEntityIndex. Holds a lookup table of the entities by their database id and (optionally) by their paths. The path index is kept up
+ * to date by listening to the path/media file changes of every indexed entity. Since the property change events are delivered on the EDT, the owner
+ * should call {@link #reindex(MediaEntity)} synchronously whenever an entity is persisted
+ *
+ * @author Manuel Laggner
+ */
+public class MediaEntityIndex<T extends MediaEntity> {
+  private final Function<T, Collection<Path>> pathExtractor;
+  private final Map<UUID, T>                  entitiesById   = new ConcurrentHashMap<>();
+  private final Map<Path, List<T>>            entitiesByPath = new ConcurrentHashMap<>();
+  private final Map<UUID, Set<Path>>          indexedPaths   = new ConcurrentHashMap<>();
+  private final PropertyChangeListener        pathListener;
+
+  /**
+   * create an index by database id only
+   */
+  public MediaEntityIndex() {
+    this(null);
+  }
+
+  /**
+   * create an index by database id and path
+   *
+   * @param pathExtractor
+   *          a function to get all paths under which the entity should be found
+   */
+  @SuppressWarnings("unchecked")
+  public MediaEntityIndex(Function<T, Collection<Path>> pathExtractor) {
+    this.pathExtractor = pathExtractor;
+    this.pathListener = evt -> {
+      switch (evt.getPropertyName()) {
+        case PATH:
+        case DATA_SOURCE:
+        case MEDIA_FILES:
+          reindex((T) evt.getSource());
+          break;
+
+        default:
+          break;
+      }
+    };
+  }
+
+  /**
+   * normalize the given path for the lookup
+   *
+   * @param path
+   *          the path to normalize
+   * @return the absolute and normalized path
+   */
+  public static Path normalize(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  /**
+   * add the given entity to the index
+   *
+   * @param entity
+   *          the entity to add
+   */
+  public synchronized void add(T entity) {
+    if (entity == null || entity.getDbId() == null) {
+      return;
+    }
+
+    T oldEntity = entitiesById.put(entity.getDbId(), entity);
+    if (oldEntity != entity) {
+      if (oldEntity != null) {
+        removePaths(oldEntity);
+        oldEntity.removePropertyChangeListener(pathListener);
+      }
+      if (pathExtractor != null) {
+        entity.addPropertyChangeListener(pathListener);
+      }
+    }
+
+    reindex(entity);
+  }
+
+  /**
+   * add all given entities to the index
+   *
+   * @param entities
+   *          the entities to add
+   */
+  public synchronized void addAll(Collection<T> entities) {
+    for (T entity : entities) {
+      add(entity);
+    }
+  }
+
+  /**
+   * remove the given entity from the index
+   *
+   * @param entity
+   *          the entity to remove
+   */
+  public synchronized void remove(T entity) {
+    if (entity == null || entity.getDbId() == null) {
+      return;
+    }
+
+    // only remove it if it is really the indexed entity (and not an entity with the same id)
+    if (entitiesById.remove(entity.getDbId(), entity)) {
+      removePaths(entity);
+      entity.removePropertyChangeListener(pathListener);
+    }
+  }
+
+  /**
+   * re-read the paths of the given entity (e.g. after a rename)
+   *
+   * @param entity
+   *          the entity to re-index
+   */
+  public synchronized void reindex(T entity) {
+    if (pathExtractor == null || entity == null || entitiesById.get(entity.getDbId()) != entity) {
+      return;
+    }
+
+    Set<Path> paths = new HashSet<>();
+    for (Path path : pathExtractor.apply(entity)) {
+      if (path != null) {
+        paths.add(normalize(path));
+      }
+    }
+
+    if (paths.equals(indexedPaths.get(entity.getDbId()))) {
+      // nothing changed
+      return;
+    }
+
+    removePaths(entity);
+
+    for (Path path : paths) {
+      entitiesByPath.computeIfAbsent(path, k -> new CopyOnWriteArrayList<>()).add(entity);
+    }
+    indexedPaths.put(entity.getDbId(), paths);
+  }
+
+  private void removePaths(T entity) {
+    Set<Path> paths = indexedPaths.remove(entity.getDbId());
+    if (paths == null) {
+      return;
+    }
+
+    for (Path path : paths) {
+      List<T> entities = entitiesByPath.get(path);
+      if (entities != null) {
+        entities.remove(entity);
+        if (entities.isEmpty()) {
+          entitiesByPath.remove(path);
+        }
+      }
+    }
+  }
+
+  /**
+   * remove all entities from the index
+   */
+  public synchronized void clear() {
+    for (T entity : entitiesById.values()) {
+      entity.removePropertyChangeListener(pathListener);
+    }
+    entitiesById.clear();
+    entitiesByPath.clear();
+    indexedPaths.clear();
+  }
+
+  /**
+   * get the entity with the given database id
+   *
+   * @param uuid
+   *          the database id
+   * @return the entity or null
+   */
+  public T get(UUID uuid) {
+    if (uuid == null) {
+      return null;
+    }
+    return entitiesById.get(uuid);
+  }
+
+  /**
+   * get the first entity which is indexed under the given path
+   *
+   * @param path
+   *          the path
+   * @return the entity or null
+   */
+  public T getByPath(Path path) {
+    List<T> entities = getAllByPath(path);
+    if (entities.isEmpty()) {
+      return null;
+    }
+    return entities.get(0);
+  }
+
+  /**
+   * get all entities which are indexed under the given path
+   *
+   * @param path
+   *          the path
+   * @return a list of all found entities (never null)
+   */
+  public List<T> getAllByPath(Path path) {
+    if (path == null) {
+      return Collections.emptyList();
+    }
+
+    List<T> entities = entitiesByPath.get(normalize(path));
+    if (entities == null) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(entities);
+  }
+
+  /**
+   * get the amount of indexed entities
+   *
+   * @return the amount of indexed entities
+   */
+  public int size() {
+    return entitiesById.size();
+  }
+
+  /**
+   * check the index against the given (authoritative) list of entities
+   *
+   * @param entities
+   *          all entities which should be in the index
+   * @return a list of all found inconsistencies (empty if the index is consistent)
+   */
+  public synchronized List<String> checkConsistency(Collection<T> entities) {
+    List<String> problems = new ArrayList<>();
+
+    Set<UUID> ids = new HashSet<>();
+    for (T entity : entities) {
+      ids.add(entity.getDbId());
+
+      if (entitiesById.get(entity.getDbId()) != entity) {
+        problems.add("entity " + entity.getDbId() + " is not indexed");
+        continue;
+      }
+
+      if (pathExtractor != null) {
+        for (Path path : pathExtractor.apply(entity)) {
+          if (path != null && !getAllByPath(path).contains(entity)) {
+            problems.add("entity " + entity.getDbId() + " is not indexed by path " + path);
+          }
+        }
+      }
+    }
+
+    for (UUID uuid : entitiesById.keySet()) {
+      if (!ids.contains(uuid)) {
+        problems.add("stale entity " + uuid + " in the index");
+      }
+    }
+
+    for (Map.Entry<Path, List<T>> entry : entitiesByPath.entrySet()) {
+      for (T entity : entry.getValue()) {
+        Set<Path> paths = indexedPaths.get(entity.getDbId());
+        if (!ids.contains(entity.getDbId()) || paths == null || !paths.contains(entry.getKey())) {
+          problems.add("stale path " + entry.getKey() + " for entity " + entity.getDbId());
+        }
+      }
+    }
+
+    return problems;
+  }
+}
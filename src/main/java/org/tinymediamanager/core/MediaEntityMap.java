@@ -0,0 +1,292 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.MurmurHash3;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.entities.MediaEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The class MediaEntityMap. A wrapper around the {@link MVMap} holding our entities. The entities are stored encoded with the configured
+ * {@link DatabaseCodec}: JSON as strings (the layout of older versions), all other codecs as byte[].<br />
+ * To avoid needless writes, a hash of every stored value is held in memory - an entity is only written if the hash of the new value differs.<br />
+ * Values are decoded with the codec detected from their header, so values in another format (e.g. from an interrupted migration) can still be
+ * read; they are re-encoded with the configured codec on the next write
+ *
+ * @author Manuel Laggner
+ */
+public class MediaEntityMap<T extends MediaEntity> {
+  private static final Logger                    LOGGER        = LoggerFactory.getLogger(MediaEntityMap.class);
+  private static final String                    META_MAP      = "meta";
+  private static final String                    CODEC_KEY     = "codec";
+
+  private final MVMap<UUID, Object>              map;
+  private final Map<DatabaseCodec, ObjectMapper> objectMappers = new EnumMap<>(DatabaseCodec.class);
+  private final Map<DatabaseCodec, ObjectReader> objectReaders = new EnumMap<>(DatabaseCodec.class);
+  private final ObjectWriter                     objectWriter;
+  private final Map<UUID, long[]>                hashes        = new ConcurrentHashMap<>();
+  private final boolean                          legacyLayout;
+
+  public MediaEntityMap(MVStore mvStore, String mapName, Class<T> type, ObjectMapper objectMapper) {
+    this.map = mvStore.openMap(mapName);
+    this.objectWriter = objectMapper.writerFor(type);
+
+    DatabaseCodec configuredCodec = objectMapper.getFactory() instanceof SmileFactory ? DatabaseCodec.SMILE : DatabaseCodec.JSON;
+    this.legacyLayout = configuredCodec == DatabaseCodec.JSON;
+    for (DatabaseCodec codec : DatabaseCodec.values()) {
+      ObjectMapper mapper = codec == configuredCodec ? objectMapper : codec.createObjectMapper();
+      objectMappers.put(codec, mapper);
+      objectReaders.put(codec, mapper.readerFor(type));
+    }
+  }
+
+  /**
+   * get a copy of all keys in this map
+   *
+   * @return a list of all keys
+   */
+  public List<UUID> keyList() {
+    return new ArrayList<>(map.keyList());
+  }
+
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * get the raw (encoded) value for the given key
+   *
+   * @param uuid
+   *          the key
+   * @return the raw value or null
+   */
+  public byte[] getValue(UUID uuid) {
+    Object value = map.get(uuid);
+    if (value instanceof String) {
+      // legacy layout (JSON)
+      return ((String) value).getBytes(StandardCharsets.UTF_8);
+    }
+    return (byte[]) value;
+  }
+
+  /**
+   * decode the given raw value to an entity and remember its hash for further change detection
+   *
+   * @param uuid
+   *          the key
+   * @param value
+   *          the raw value
+   * @return the decoded entity
+   * @throws IOException
+   *           any exception occurred while decoding
+   */
+  public T decode(UUID uuid, byte[] value) throws IOException {
+    T entity = objectReaders.get(DatabaseCodec.detect(value)).readValue(value);
+    entity.setDbId(uuid);
+    hashes.put(uuid, hash(value));
+    return entity;
+  }
+
+  /**
+   * read the raw value as a tree (e.g. for dumping it)
+   *
+   * @param uuid
+   *          the key
+   * @return the value as {@link JsonNode}
+   * @throws IOException
+   *           any exception occurred while decoding
+   */
+  public JsonNode readTree(UUID uuid) throws IOException {
+    byte[] value = getValue(uuid);
+    return objectMappers.get(DatabaseCodec.detect(value)).readTree(value);
+  }
+
+  /**
+   * persist the given entity if it has been changed since the last write/read
+   *
+   * @param entity
+   *          the entity to persist
+   * @return true if the entity has been written to the database
+   * @throws IOException
+   *           any exception occurred while encoding
+   */
+  public boolean persist(T entity) throws IOException {
+    byte[] value = encode(entity);
+    if (value == null) {
+      return false;
+    }
+
+    write(entity.getDbId(), value);
+    return true;
+  }
+
+  /**
+   * encode the given entity if it has been changed since the last encode/read. The last modified date of the entity is only updated if something
+   * has really been changed (otherwise every save would invalidate e.g. the incremental export).<br />
+   * The returned value is taken as the new state of the entity for the further change detection, so it has to be written with
+   * {@link #write(UUID, byte[])}
+   *
+   * @param entity
+   *          the entity to encode
+   * @return the encoded entity or null if it has not been changed
+   * @throws IOException
+   *           any exception occurred while encoding
+   */
+  public byte[] encode(T entity) throws IOException {
+    byte[] value = objectWriter.writeValueAsBytes(entity);
+    long[] newHash = hash(value);
+    long[] oldHash = hashes.get(entity.getDbId());
+
+    if (oldHash != null && Arrays.equals(oldHash, newHash)) {
+      return null;
+    }
+
+    // the content has been changed - encode it again with the new modification time
+    entity.setLastModified(new Date());
+    value = objectWriter.writeValueAsBytes(entity);
+    hashes.put(entity.getDbId(), hash(value));
+
+    return value;
+  }
+
+  /**
+   * write the given (encoded) value to the map
+   *
+   * @param uuid
+   *          the key
+   * @param value
+   *          the value created by {@link #encode(MediaEntity)}
+   */
+  public void write(UUID uuid, byte[] value) {
+    if (legacyLayout) {
+      map.put(uuid, new String(value, StandardCharsets.UTF_8));
+    }
+    else {
+      map.put(uuid, value);
+    }
+  }
+
+  /**
+   * remove the entry with the given key
+   *
+   * @param uuid
+   *          the key
+   */
+  public void remove(UUID uuid) {
+    map.remove(uuid);
+    hashes.remove(uuid);
+  }
+
+  private static long[] hash(byte[] value) {
+    return MurmurHash3.hash128x64(value);
+  }
+
+  /**
+   * migrate the given maps to the given codec, if they have been stored with another codec (or in the legacy layout with JSON strings as values).
+   * The used codec is stored in the database, so this is only done once. The format of every value is detected from the value itself; thus an
+   * interrupted migration can simply be resumed. Values which cannot be read are kept untouched.<br />
+   * Migrating to {@link DatabaseCodec#JSON} restores the legacy layout, so older versions can read the database again
+   *
+   * @param mvStore
+   *          the {@link MVStore} holding the maps
+   * @param codec
+   *          the codec to migrate to
+   * @param mapNames
+   *          the names of all maps to migrate
+   */
+  public static void migrate(MVStore mvStore, DatabaseCodec codec, String... mapNames) {
+    MVMap<String, String> meta = mvStore.openMap(META_MAP);
+    String storedCodec = meta.get(CODEC_KEY);
+    if (codec.name().equals(storedCodec)) {
+      return;
+    }
+
+    long start = System.currentTimeMillis();
+
+    Map<DatabaseCodec, ObjectMapper> sourceMappers = new EnumMap<>(DatabaseCodec.class);
+    for (DatabaseCodec sourceCodec : DatabaseCodec.values()) {
+      sourceMappers.put(sourceCodec, new ObjectMapper(sourceCodec.createJsonFactory()));
+    }
+    ObjectMapper targetMapper = sourceMappers.get(codec);
+
+    int count = 0;
+    int failed = 0;
+    for (String mapName : mapNames) {
+      MVMap<UUID, Object> map = mvStore.openMap(mapName);
+      for (UUID uuid : new ArrayList<>(map.keyList())) {
+        Object value = map.get(uuid);
+        try {
+          JsonNode node;
+          if (value instanceof String) {
+            // legacy layout
+            if (codec == DatabaseCodec.JSON) {
+              continue;
+            }
+            node = sourceMappers.get(DatabaseCodec.JSON).readTree((String) value);
+          }
+          else {
+            byte[] bytes = (byte[]) value;
+            DatabaseCodec sourceCodec = DatabaseCodec.detect(bytes);
+            if (sourceCodec == codec && codec != DatabaseCodec.JSON) {
+              // already migrated (e.g. by an interrupted migration)
+              continue;
+            }
+            node = sourceMappers.get(sourceCodec).readTree(bytes);
+          }
+
+          if (codec == DatabaseCodec.JSON) {
+            map.put(uuid, targetMapper.writeValueAsString(node));
+          }
+          else {
+            map.put(uuid, targetMapper.writeValueAsBytes(node));
+          }
+          count++;
+        }
+        catch (Exception e) {
+          // never drop user data here - the entry is kept as it is
+          LOGGER.warn("could not migrate entry {} of {} - keeping it untouched: {}", uuid, mapName, e.getMessage());
+          failed++;
+        }
+      }
+    }
+
+    meta.put(CODEC_KEY, codec.name());
+    mvStore.commit();
+
+    LOGGER.info("migrated {} database entries from {} to {} in {} ms ({} not migratable)", count,
+        storedCodec == null ? "legacy JSON" : storedCodec, codec, System.currentTimeMillis() - start, failed);
+  }
+}
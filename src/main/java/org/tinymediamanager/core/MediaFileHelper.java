@@ -48,7 +48,9 @@ import org.tinymediamanager.Globals;
 import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.entities.MediaFileAudioStream;
 import org.tinymediamanager.core.entities.MediaFileSubtitle;
+import org.tinymediamanager.core.mediainfo.MediaInfoCache;
 import org.tinymediamanager.core.mediainfo.MediaInfoFile;
+import org.tinymediamanager.core.mediainfo.MediaInfoSnapshot;
 import org.tinymediamanager.core.mediainfo.MediaInfoUtils;
 import org.tinymediamanager.core.mediainfo.MediaInfoXMLParser;
 import org.tinymediamanager.core.mediainfo.MediaInfoXmlCreator;
@@ -795,14 +797,9 @@ public class MediaFileHelper {
       }
     }
 
-    // read mediainfo directly
+    // read mediainfo directly (or take the cached results of an identical file)
     if (mediaInfoFiles.isEmpty()) {
-      if (mediaFile.isISO()) {
-        mediaInfoFiles = getMediaInfoSnapshotFromISO(mediaFile);
-      }
-      else {
-        mediaInfoFiles = getMediaInfoFromSingleFile(mediaFile);
-      }
+      mediaInfoFiles = getMediaInfoSnapshot(mediaFile, force);
 
       if (!mediaInfoFiles.isEmpty()) {
         parseMediainfoSnapshot(mediaFile, mediaInfoFiles);
@@ -987,6 +984,59 @@ public class MediaFileHelper {
     return false;
   }
 
+  /**
+   * get the libmediainfo snapshot of all data for the given {@link MediaFile}. The results for single files and ISOs are cached by the identity of
+   * the file (see {@link MediaInfoCache}) - so an already known file (e.g. moved, renamed or after a database reset) is not probed again
+   *
+   * @param mediaFile
+   *          the media file
+   * @param force
+   *          do not take the cached results (but cache the new ones)
+   * @return a {@link List} of all associated files along with libmediainfo data
+   */
+  private static List<MediaInfoFile> getMediaInfoSnapshot(MediaFile mediaFile, boolean force) {
+    String identity = null;
+
+    // directories (disc structures) consist of many files - only cache files
+    if (Files.isRegularFile(mediaFile.getFileAsPath())) {
+      try {
+        identity = MediaInfoCache.createIdentity(mediaFile.getFileAsPath());
+        List<MediaInfoFile> cachedFiles = force ? null : MediaInfoCache.getInstance().get(identity);
+        if (cachedFiles != null && !cachedFiles.isEmpty()) {
+          LOGGER.trace("got cached mediainfo for {}", mediaFile.getFileAsPath());
+          if (!mediaFile.isISO()) {
+            // the cached results may be from the same file at another location
+            cachedFiles.get(0).setPath(mediaFile.getPath());
+            cachedFiles.get(0).setFilename(mediaFile.getFilename());
+          }
+          // the XML is only written when probing - write it for a known file too (e.g. after the XML has been deleted)
+          if (Settings.getInstance().isWriteMediaInfoXml() && (mediaFile.isISO() || mediaFile.getType() == MediaFileType.VIDEO)
+              && !Files.exists(mediaFile.getFileAsPath().resolveSibling(mediaFile.getBasename() + "-mediainfo.xml"))) {
+            writeMediaInfoXml(mediaFile, cachedFiles);
+          }
+          return cachedFiles;
+        }
+      }
+      catch (Exception e) {
+        LOGGER.debug("could not get the cached mediainfo of {} - {}", mediaFile.getFileAsPath(), e.getMessage());
+      }
+    }
+
+    List<MediaInfoFile> mediaInfoFiles;
+    if (mediaFile.isISO()) {
+      mediaInfoFiles = getMediaInfoSnapshotFromISO(mediaFile);
+    }
+    else {
+      mediaInfoFiles = getMediaInfoFromSingleFile(mediaFile);
+    }
+
+    if (identity != null && !mediaInfoFiles.isEmpty()) {
+      MediaInfoCache.getInstance().put(identity, mediaInfoFiles);
+    }
+
+    return mediaInfoFiles;
+  }
+
   /**
    * get the libmediainfo snapshot of all data for the given {@link MediaFile}
    *
@@ -1034,18 +1084,30 @@ public class MediaFileHelper {
 
     // at this point there is no valid XML file - write a new one if configured
     if (Settings.getInstance().isWriteMediaInfoXml() && mediaFile.getType().equals(MediaFileType.VIDEO)) {
-      try {
-        MediaInfoXmlCreator mediaInfoXmlCreator = new MediaInfoXmlCreator(mediaFile, mediaInfoFiles);
-        mediaInfoXmlCreator.write();
-      }
-      catch (Exception e) {
-        LOGGER.debug("could not write mediainfo xml - {}", e.getMessage());
-      }
+      writeMediaInfoXml(mediaFile, mediaInfoFiles);
     }
 
     return mediaInfoFiles;
   }
 
+  /**
+   * write the mediainfo XML for the given {@link MediaFile}
+   *
+   * @param mediaFile
+   *          the media file
+   * @param mediaInfoFiles
+   *          all associated files along with libmediainfo data
+   */
+  private static void writeMediaInfoXml(MediaFile mediaFile, List<MediaInfoFile> mediaInfoFiles) {
+    try {
+      MediaInfoXmlCreator mediaInfoXmlCreator = new MediaInfoXmlCreator(mediaFile, mediaInfoFiles);
+      mediaInfoXmlCreator.write();
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not write mediainfo xml - {}", e.getMessage());
+    }
+  }
+
   private static List<MediaInfoFile> parseMediaInfoXml(Path xmlFile) {
     List<MediaInfoFile> miFiles = null;
 
@@ -1073,7 +1135,7 @@ public class MediaFileHelper {
    *          the media file
    * @return a {@link List} of all associated files along with libmediainfo data
    */
-  private static synchronized List<MediaInfoFile> getMediaInfoSnapshotFromISO(MediaFile mediaFile) {
+  private static List<MediaInfoFile> getMediaInfoSnapshotFromISO(MediaFile mediaFile) {
     List<MediaInfoFile> miFiles;
 
     if (!MediaInfoUtils.USE_LIBMEDIAINFO) {
@@ -1090,13 +1152,7 @@ public class MediaFileHelper {
 
     // at this point there is no valid XML file - write a new one if configured
     if (Settings.getInstance().isWriteMediaInfoXml()) {
-      try {
-        MediaInfoXmlCreator mediaInfoXmlCreator = new MediaInfoXmlCreator(mediaFile, miFiles);
-        mediaInfoXmlCreator.write();
-      }
-      catch (Exception e) {
-        LOGGER.debug("could not write mediainfo xml - {}", e.getMessage());
-      }
+      writeMediaInfoXml(mediaFile, miFiles);
     }
 
     return miFiles;
@@ -1437,6 +1493,11 @@ public class MediaFileHelper {
       return "";
     }
 
+    // the keys of a MediaInfoSnapshot have already been normalized
+    if (miSnapshot instanceof MediaInfoSnapshot) {
+      return ((MediaInfoSnapshot) miSnapshot).get(streamKind, streamNumber, keys);
+    }
+
     List<Map<String, String>> stream = miSnapshot.get(streamKind);
     if (stream == null) {
       return "";
@@ -1484,19 +1545,30 @@ public class MediaFileHelper {
       return "";
     }
 
-    List<Map<String, String>> stream = miSnapshot.get(streamKind);
-    if (stream == null) {
-      return "";
-    }
+    Map<String, String> normalizedMap;
+    List<String> normalizedKeys = normalizeKeys(keys);
 
-    Map<String, String> info = stream.get(streamNumber);
-    if (info == null) {
-      return "";
+    if (miSnapshot instanceof MediaInfoSnapshot) {
+      // the keys of a MediaInfoSnapshot have already been normalized
+      normalizedMap = ((MediaInfoSnapshot) miSnapshot).getNormalizedStream(streamKind, streamNumber);
+      if (normalizedMap == null) {
+        return "";
+      }
     }
+    else {
+      List<Map<String, String>> stream = miSnapshot.get(streamKind);
+      if (stream == null) {
+        return "";
+      }
 
-    // normalize keys
-    Map<String, String> normalizedMap = normalizeKeys(info);
-    List<String> normalizedKeys = normalizeKeys(keys);
+      Map<String, String> info = stream.get(streamNumber);
+      if (info == null) {
+        return "";
+      }
+
+      // normalize keys
+      normalizedMap = normalizeKeys(info);
+    }
 
     for (String key : normalizedKeys) {
       String value = normalizedMap.get(key);
@@ -1519,10 +1591,10 @@ public class MediaFileHelper {
   }
 
   private static List<String> normalizeKeys(String... keys) {
-    List<String> normalizedKeys = new ArrayList<>();
+    List<String> normalizedKeys = new ArrayList<>(keys.length);
 
     for (String key : keys) {
-      normalizedKeys.add(normalizeKey(key));
+      normalizedKeys.add(MediaInfoSnapshot.normalizeKey(key));
     }
 
     return normalizedKeys;
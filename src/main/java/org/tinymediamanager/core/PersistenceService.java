@@ -0,0 +1,276 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.Message.MessageLevel;
+import org.tinymediamanager.core.entities.MediaEntity;
+
+/**
+ * The class PersistenceService. A write-behind queue for the entity saves of one {@link MVStore}.<br />
+ * Saves are serialized on the calling thread (so the writer never sees an entity which is modified in the meantime) and only queued if the entity
+ * has been changed; a single background writer collects all queued entities within a short window (so repeated saves of the same entity are
+ * written only once), writes them in batches and commits the {@link MVStore} once per batch.<br />
+ * If a batch cannot be written, its entities stay queued and the writer tries it again with an increasing delay. The user is informed if the
+ * entities still could not be written after several attempts (or at the shutdown)
+ *
+ * @author Manuel Laggner
+ */
+public class PersistenceService {
+  private static final Logger               LOGGER          = LoggerFactory.getLogger(PersistenceService.class);
+  private static final long                 WRITE_DELAY_MS  = 500;
+  private static final long                 MAX_DELAY_MS    = 30_000;
+  private static final int                  BATCH_SIZE      = 500;
+  private static final int                  MAX_ATTEMPTS    = 5;
+
+  private final String                      name;
+  private final MVStore                     mvStore;
+  private final ScheduledThreadPoolExecutor executor;
+  private final Map<UUID, PendingWrite>     pendingWrites   = new ConcurrentHashMap<>();
+  private final AtomicBoolean               writeScheduled  = new AtomicBoolean(false);
+
+  private final LongAdder                   savesRequested  = new LongAdder();
+  private final LongAdder                   savesSerialized = new LongAdder();
+  private final LongAdder                   savesWritten    = new LongAdder();
+
+  private int                               failedAttempts  = 0;
+
+  public PersistenceService(String name, MVStore mvStore) {
+    this.name = name;
+    this.mvStore = mvStore;
+    this.executor = new ScheduledThreadPoolExecutor(1, r -> {
+      Thread thread = new Thread(r, "persistence-" + name);
+      thread.setDaemon(true);
+      return thread;
+    });
+    // retries which are still scheduled at the shutdown are done by the shutdown itself
+    this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+  }
+
+  /**
+   * serialize the given entity and queue it for the background writer (if it has been changed)
+   *
+   * @param map
+   *          the {@link MediaEntityMap} to write the entity to
+   * @param entity
+   *          the entity to persist
+   */
+  public <T extends MediaEntity> void persist(MediaEntityMap<T> map, T entity) {
+    savesRequested.increment();
+
+    byte[] value;
+    try {
+      savesSerialized.increment();
+      value = map.encode(entity);
+    }
+    catch (Exception e) {
+      LOGGER.error("could not serialize {} - {}", entity.getDbId(), e.getMessage());
+      return;
+    }
+
+    if (value == null) {
+      // unchanged
+      return;
+    }
+
+    // a pending write of the same entity will be replaced (coalesced)
+    pendingWrites.put(entity.getDbId(), new PendingWrite(map, entity.getDbId(), value));
+
+    if (executor.isShutdown()) {
+      // no background writer available any more - write it directly
+      writePendingEntities();
+      return;
+    }
+
+    if (writeScheduled.compareAndSet(false, true)) {
+      executor.schedule(this::writePendingEntities, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * remove the entity with the given key from the given map (and drop any pending write of it)
+   *
+   * @param map
+   *          the {@link MediaEntityMap} to remove the entity from
+   * @param uuid
+   *          the key of the entity
+   */
+  public synchronized void remove(MediaEntityMap<?> map, UUID uuid) {
+    pendingWrites.remove(uuid);
+    map.remove(uuid);
+  }
+
+  /**
+   * a barrier which blocks until all pending writes have been written and committed (or could not be written at this time)
+   */
+  public void flush() {
+    if (executor.isShutdown()) {
+      writePendingEntities();
+      return;
+    }
+
+    try {
+      executor.submit(this::writePendingEntities).get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      LOGGER.error("could not flush the {} database - {}", name, e.getMessage());
+    }
+  }
+
+  /**
+   * flush all pending writes and stop the background writer. Entities which cannot be written are tried again a few times before giving up
+   */
+  public void shutdown() {
+    flush();
+    executor.shutdown();
+
+    for (int attempt = 1; !pendingWrites.isEmpty() && attempt < MAX_ATTEMPTS; attempt++) {
+      try {
+        Thread.sleep(getRetryDelay(attempt));
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      writePendingEntities();
+    }
+
+    if (!pendingWrites.isEmpty()) {
+      LOGGER.error("{} database - could not write {} changed entities", name, pendingWrites.size());
+      MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, name, "message.database.savefailed"));
+    }
+
+    LOGGER.info("{} database - saves requested: {}, serialized: {}, written: {}", name, getSavesRequested(), getSavesSerialized(),
+        getSavesWritten());
+  }
+
+  private synchronized void writePendingEntities() {
+    writeScheduled.set(false);
+
+    while (!pendingWrites.isEmpty()) {
+      List<PendingWrite> batch = new ArrayList<>();
+      for (Map.Entry<UUID, PendingWrite> entry : pendingWrites.entrySet()) {
+        // only remove it if it has not been replaced in the meantime
+        if (pendingWrites.remove(entry.getKey(), entry.getValue())) {
+          batch.add(entry.getValue());
+        }
+        if (batch.size() >= BATCH_SIZE) {
+          break;
+        }
+      }
+
+      try {
+        for (PendingWrite pendingWrite : batch) {
+          pendingWrite.write();
+        }
+        mvStore.commit();
+      }
+      catch (Exception e) {
+        // keep the entities dirty (a newer save of the same entity replaces the failed one) and try it again later
+        for (PendingWrite pendingWrite : batch) {
+          pendingWrites.putIfAbsent(pendingWrite.uuid, pendingWrite);
+        }
+        writeFailed(e);
+        return;
+      }
+
+      savesWritten.add(batch.size());
+      failedAttempts = 0;
+    }
+  }
+
+  private void writeFailed(Exception e) {
+    failedAttempts++;
+    LOGGER.warn("could not write {} entities to the {} database (attempt {}) - {}", pendingWrites.size(), name, failedAttempts, e.getMessage());
+
+    if (failedAttempts == MAX_ATTEMPTS) {
+      // inform the user once; the writer keeps on trying
+      LOGGER.error("could not write to the {} database - {}", name, e.getMessage());
+      MessageManager.instance
+          .pushMessage(new Message(MessageLevel.ERROR, name, "message.database.savefailed", new String[] { ":", e.getLocalizedMessage() }));
+    }
+
+    if (!executor.isShutdown() && writeScheduled.compareAndSet(false, true)) {
+      executor.schedule(this::writePendingEntities, getRetryDelay(failedAttempts), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static long getRetryDelay(int attempt) {
+    return Math.min(WRITE_DELAY_MS << Math.min(attempt, 10), MAX_DELAY_MS);
+  }
+
+  /**
+   * get the amount of requested saves
+   *
+   * @return the amount of requested saves
+   */
+  public long getSavesRequested() {
+    return savesRequested.sum();
+  }
+
+  /**
+   * get the amount of saves which were serialized
+   *
+   * @return the amount of serialized saves
+   */
+  public long getSavesSerialized() {
+    return savesSerialized.sum();
+  }
+
+  /**
+   * get the amount of saves which really changed the database (after coalescing)
+   *
+   * @return the amount of written saves
+   */
+  public long getSavesWritten() {
+    return savesWritten.sum();
+  }
+
+  /*
+   * helper class for one pending write: the already serialized entity
+   */
+  private static class PendingWrite {
+    private final MediaEntityMap<?> map;
+    private final UUID              uuid;
+    private final byte[]            value;
+
+    private PendingWrite(MediaEntityMap<?> map, UUID uuid, byte[] value) {
+      this.map = map;
+      this.uuid = uuid;
+      this.value = value;
+    }
+
+    private void write() {
+      map.write(uuid, value);
+    }
+  }
+}
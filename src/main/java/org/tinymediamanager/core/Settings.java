@@ -32,6 +32,7 @@ import org.tinymediamanager.ReleaseInfo;
 import org.tinymediamanager.core.ImageCache.CacheSize;
 import org.tinymediamanager.core.ImageCache.CacheType;
 import org.tinymediamanager.scraper.http.ProxySettings;
+import org.tinymediamanager.scraper.http.ResponseStore;
 import org.tinymediamanager.scraper.http.TmmHttpClient;
 import org.tinymediamanager.scraper.util.StrgUtils;
 
@@ -92,6 +93,7 @@ public class Settings extends AbstractSettings {
   private boolean               imageCache                  = true;
   private CacheSize             imageCacheSize              = CacheSize.BIG;
   private CacheType             imageCacheType              = CacheType.QUALITY;
+  private int                   imageCacheQuota             = 0;
 
   // language 2 char - saved to config
   private String                language;
@@ -116,6 +118,15 @@ public class Settings extends AbstractSettings {
   private boolean               ignoreSSLProblems           = true;
 
   private boolean               writeMediaInfoXml           = false;
+  private DatabaseCodec         databaseCodec               = DatabaseCodec.JSON;
+  private boolean               incrementalDatasourceScan   = true;
+  private int                   updateThreads               = 3;
+  private int                   mediainfoThreads            = 1;
+  private boolean               adaptiveThreads             = false;
+  private int                   renamerThreadsPerVolume     = 1;
+  private int                   downloadSegments            = 4;
+  private int                   scraperResponseStoreSize    = 100;
+  private boolean               scraperOfflineMode          = false;
 
   static {
     if (System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("windows")) {
@@ -1039,4 +1050,243 @@ public class Settings extends AbstractSettings {
     this.writeMediaInfoXml = newValue;
     firePropertyChange("writeMediaInfoXml", oldValue, newValue);
   }
+
+  /**
+   * get the codec which is used to store the entities in the database
+   *
+   * @return the database codec
+   */
+  public DatabaseCodec getDatabaseCodec() {
+    return databaseCodec;
+  }
+
+  /**
+   * set the codec which is used to store the entities in the database (the databases are migrated on the next start). JSON is the default until the
+   * next major release, since older versions cannot read a database migrated to {@link DatabaseCodec#SMILE}
+   *
+   * @param newValue
+   *          the database codec
+   */
+  public void setDatabaseCodec(DatabaseCodec newValue) {
+    DatabaseCodec oldValue = this.databaseCodec;
+    this.databaseCodec = newValue;
+    firePropertyChange("databaseCodec", oldValue, newValue);
+  }
+
+  /**
+   * is the incremental scan of the data sources enabled (skip unchanged directories)?
+   *
+   * @return true/false
+   */
+  public boolean isIncrementalDatasourceScan() {
+    return incrementalDatasourceScan;
+  }
+
+  /**
+   * enable/disable the incremental scan of the data sources
+   *
+   * @param newValue
+   *          true/false
+   */
+  public void setIncrementalDatasourceScan(boolean newValue) {
+    boolean oldValue = this.incrementalDatasourceScan;
+    this.incrementalDatasourceScan = newValue;
+    firePropertyChange("incrementalDatasourceScan", oldValue, newValue);
+  }
+
+  /**
+   * get the amount of threads for parsing the directories in the update of the data sources. This setting is global for all data sources: the data
+   * sources are stored as plain paths in the module settings and have no settings of their own. To cope with data sources on different storages,
+   * enable the adaptive mode ({@link #isAdaptiveThreads()}) - then this is only the start value and the pool of every data source is adapted on its
+   * own
+   *
+   * @return the amount of threads
+   */
+  public int getUpdateThreads() {
+    return updateThreads;
+  }
+
+  /**
+   * set the amount of threads for parsing the directories in the update of the data sources
+   *
+   * @param newValue
+   *          the amount of threads
+   */
+  public void setUpdateThreads(int newValue) {
+    int oldValue = this.updateThreads;
+    this.updateThreads = Math.max(1, newValue);
+    firePropertyChange("updateThreads", oldValue, this.updateThreads);
+  }
+
+  /**
+   * get the amount of threads for gathering the media information in the update of the data sources. This setting is global for all data sources (see
+   * {@link #getUpdateThreads()})
+   *
+   * @return the amount of threads
+   */
+  public int getMediainfoThreads() {
+    return mediainfoThreads;
+  }
+
+  /**
+   * set the amount of threads for gathering the media information in the update of the data sources
+   *
+   * @param newValue
+   *          the amount of threads
+   */
+  public void setMediainfoThreads(int newValue) {
+    int oldValue = this.mediainfoThreads;
+    this.mediainfoThreads = Math.max(1, newValue);
+    firePropertyChange("mediainfoThreads", oldValue, this.mediainfoThreads);
+  }
+
+  /**
+   * should the amount of threads (for parsing and media information) be adapted to the measured throughput of the storage of every data source? The
+   * configured amount of threads is taken as the start value. Disabled by default (there is no UI for it yet) - the configured amount of threads is
+   * used as is then
+   *
+   * @return true/false
+   */
+  public boolean isAdaptiveThreads() {
+    return adaptiveThreads;
+  }
+
+  /**
+   * enable/disable the adaptive amount of threads
+   *
+   * @param newValue
+   *          true/false
+   */
+  public void setAdaptiveThreads(boolean newValue) {
+    boolean oldValue = this.adaptiveThreads;
+    this.adaptiveThreads = newValue;
+    firePropertyChange("adaptiveThreads", oldValue, newValue);
+  }
+
+  /**
+   * get the amount of threads for renaming per volume (renaming on different volumes always runs in parallel)
+   *
+   * @return the amount of threads per volume
+   */
+  public int getRenamerThreadsPerVolume() {
+    return renamerThreadsPerVolume;
+  }
+
+  /**
+   * set the amount of threads for renaming per volume
+   *
+   * @param newValue
+   *          the amount of threads per volume
+   */
+  public void setRenamerThreadsPerVolume(int newValue) {
+    int oldValue = this.renamerThreadsPerVolume;
+    this.renamerThreadsPerVolume = Math.max(1, newValue);
+    firePropertyChange("renamerThreadsPerVolume", oldValue, this.renamerThreadsPerVolume);
+  }
+
+  /**
+   * get the maximum amount of concurrent connections per download (for servers supporting byte ranges)
+   *
+   * @return the maximum amount of connections per download
+   */
+  public int getDownloadSegments() {
+    return downloadSegments;
+  }
+
+  /**
+   * set the maximum amount of concurrent connections per download
+   *
+   * @param newValue
+   *          the maximum amount of connections per download
+   */
+  public void setDownloadSegments(int newValue) {
+    int oldValue = this.downloadSegments;
+    this.downloadSegments = Math.max(1, newValue);
+    firePropertyChange("downloadSegments", oldValue, this.downloadSegments);
+  }
+
+  /**
+   * get the maximum size of the image cache on the disk
+   *
+   * @return the maximum size in MB (0 = unlimited)
+   */
+  public int getImageCacheQuota() {
+    return imageCacheQuota;
+  }
+
+  /**
+   * set the maximum size of the image cache on the disk; the least recently used images are removed if the cache gets bigger
+   *
+   * @param newValue
+   *          the maximum size in MB (0 = unlimited)
+   */
+  public void setImageCacheQuota(int newValue) {
+    int oldValue = this.imageCacheQuota;
+    this.imageCacheQuota = Math.max(0, newValue);
+    firePropertyChange("imageCacheQuota", oldValue, this.imageCacheQuota);
+  }
+
+  /**
+   * get the maximum size of the scraper response store on the disk
+   *
+   * @return the maximum size in MB (0 = the responses are not stored)
+   */
+  public int getScraperResponseStoreSize() {
+    return scraperResponseStoreSize;
+  }
+
+  /**
+   * set the maximum size of the scraper response store on the disk; the least recently used responses are removed if the store gets bigger
+   *
+   * @param newValue
+   *          the maximum size in MB (0 = the responses are not stored)
+   */
+  public void setScraperResponseStoreSize(int newValue) {
+    int oldValue = this.scraperResponseStoreSize;
+    this.scraperResponseStoreSize = Math.max(0, newValue);
+    firePropertyChange("scraperResponseStoreSize", oldValue, this.scraperResponseStoreSize);
+    configureResponseStore();
+  }
+
+  /**
+   * should the scrapers only use the stored responses (no internet access)?
+   *
+   * @return true if the scrapers only use the stored responses
+   */
+  public boolean isScraperOfflineMode() {
+    return scraperOfflineMode;
+  }
+
+  /**
+   * set whether the scrapers should only use the stored responses (no internet access)
+   *
+   * @param newValue
+   *          true if the scrapers should only use the stored responses
+   */
+  public void setScraperOfflineMode(boolean newValue) {
+    boolean oldValue = this.scraperOfflineMode;
+    this.scraperOfflineMode = newValue;
+    firePropertyChange("scraperOfflineMode", oldValue, newValue);
+    configureResponseStore();
+  }
+
+  /**
+   * pass the response store settings to the {@link ResponseStore} (a mode forced via the system property tmm.responsestore.mode is kept)
+   */
+  private void configureResponseStore() {
+    ResponseStore responseStore = ResponseStore.getInstance();
+    responseStore.setMaxSize(scraperResponseStoreSize * 1024L * 1024L);
+
+    if (StringUtils.isBlank(System.getProperty("tmm.responsestore.mode"))) {
+      if (scraperOfflineMode) {
+        responseStore.setMode(ResponseStore.Mode.OFFLINE);
+      }
+      else if (scraperResponseStoreSize > 0) {
+        responseStore.setMode(ResponseStore.Mode.CACHE);
+      }
+      else {
+        responseStore.setMode(ResponseStore.Mode.OFF);
+      }
+    }
+  }
 }
@@ -21,7 +21,9 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
+import org.tinymediamanager.core.mediainfo.MediaInfoCache;
 import org.tinymediamanager.scraper.util.RatingUtil;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 
 /**
  * The class TmmModuleManager. Used to manage all modules inside tmm
@@ -94,6 +96,9 @@ public class TmmModuleManager {
 
     // do cleanup tasks
     RatingUtil.shutdown();
+    ScraperExecutor.shutdownInstance();
+    ImageCache.shutdown();
+    MediaInfoCache.shutdown();
     Utils.clearTempFolder();
   }
 
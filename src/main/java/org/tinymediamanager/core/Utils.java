@@ -625,6 +625,7 @@ public class Utils {
     }
     if (!srcDir.toAbsolutePath().toString().equals(destDir.toAbsolutePath().toString())) {
       LOGGER.debug("try to move folder {} to {}", srcDir, destDir);
+      DatasourceWatcher.ignoreChanges(srcDir, destDir);
       if (!Files.isDirectory(srcDir)) {
         throw new FileNotFoundException("Source '{}" + srcDir + "' does not exist, or is not a directory"); // NOSONAR
       }
@@ -751,6 +752,7 @@ public class Utils {
     }
     if (!srcFile.toAbsolutePath().toString().equals(destFile.toAbsolutePath().toString())) {
       LOGGER.debug("try to move file {} to {}", srcFile, destFile);
+      DatasourceWatcher.ignoreChanges(srcFile, destFile);
       if (!Files.exists(srcFile)) {
         // allow moving of symlinks
         // https://github.com/tinyMediaManager/tinyMediaManager/issues/410
@@ -868,6 +870,7 @@ public class Utils {
     }
     if (!srcFile.toAbsolutePath().toString().equals(destFile.toAbsolutePath().toString())) {
       LOGGER.debug("try to copy file {} to {}", srcFile, destFile);
+      DatasourceWatcher.ignoreChanges(destFile);
       if (!Files.exists(srcFile)) {
         throw new FileNotFoundException("Source '" + srcFile + "' does not exist");
       }
@@ -968,6 +971,7 @@ public class Utils {
     try {
       // create path
       Path backup = Paths.get(ds.toAbsolutePath().toString(), Constants.BACKUP_FOLDER, ds.relativize(file).toString());
+      DatasourceWatcher.ignoreChanges(ds.resolve(Constants.BACKUP_FOLDER));
       if (!Files.exists(backup.getParent())) {
         Files.createDirectories(backup.getParent());
       }
@@ -996,6 +1000,7 @@ public class Utils {
       return false;
     }
     try {
+      DatasourceWatcher.ignoreChanges(file);
       Files.deleteIfExists(file);
     }
     catch (Exception e) {
@@ -1035,6 +1040,7 @@ public class Utils {
       long timeStampSeconds = instant.getEpochSecond();
       // create path
       Path backup = Paths.get(ds.toAbsolutePath().toString(), Constants.BACKUP_FOLDER, ds.relativize(folder).toString() + timeStampSeconds);
+      DatasourceWatcher.ignoreChanges(ds.resolve(Constants.BACKUP_FOLDER));
       if (!Files.exists(backup.getParent())) {
         Files.createDirectories(backup.getParent());
       }
@@ -1294,6 +1300,7 @@ public class Utils {
     }
 
     LOGGER.info("Deleting complete directory: {}", dir);
+    DatasourceWatcher.ignoreChanges(dir);
     Files.walkFileTree(dir, new FileVisitor<>() {
 
       @Override
@@ -1335,6 +1342,7 @@ public class Utils {
     }
 
     LOGGER.info("Deleting complete directory: {}", dir);
+    DatasourceWatcher.ignoreChanges(dir);
     Files.walkFileTree(dir, new FileVisitor<>() {
 
       @Override
@@ -1496,8 +1504,62 @@ public class Utils {
    *           any {@link IOException} thrown
    */
   public static void writeStringToFile(Path file, String text) throws IOException {
-    byte[] buf = text.getBytes(StandardCharsets.UTF_8);
-    Files.write(file, buf);
+    writeBytesToFile(file, text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * write the given bytes to the given file (replacing an existing file). Like all file operations of this class, the change is announced to the
+   * {@link DatasourceWatcher}, so tmm does not update its own output
+   *
+   * @param file
+   *          the file to write the bytes to
+   * @param bytes
+   *          the bytes to be written into the file
+   * @throws IOException
+   *           any {@link IOException} thrown
+   */
+  public static void writeBytesToFile(Path file, byte[] bytes) throws IOException {
+    DatasourceWatcher.ignoreChanges(file);
+    Files.write(file, bytes);
+  }
+
+  /**
+   * create the given directory (the parent must exist) and announce it to the {@link DatasourceWatcher}
+   *
+   * @param dir
+   *          the directory to create
+   * @throws IOException
+   *           any {@link IOException} thrown (e.g. if the directory already exists)
+   */
+  public static void createDirectory(Path dir) throws IOException {
+    DatasourceWatcher.ignoreChanges(dir);
+    Files.createDirectory(dir);
+  }
+
+  /**
+   * create the given directory including all missing parents and announce it to the {@link DatasourceWatcher}
+   *
+   * @param dir
+   *          the directory to create
+   * @throws IOException
+   *           any {@link IOException} thrown
+   */
+  public static void createDirectories(Path dir) throws IOException {
+    DatasourceWatcher.ignoreChanges(dir);
+    Files.createDirectories(dir);
+  }
+
+  /**
+   * delete the given (empty) directory and announce it to the {@link DatasourceWatcher}
+   *
+   * @param dir
+   *          the directory to delete
+   * @throws IOException
+   *           any {@link IOException} thrown (e.g. if the directory is not empty)
+   */
+  public static void deleteEmptyDirectory(Path dir) throws IOException {
+    DatasourceWatcher.ignoreChanges(dir);
+    Files.delete(dir);
   }
 
   /**
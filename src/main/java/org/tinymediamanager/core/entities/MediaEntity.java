@@ -117,6 +117,8 @@ public abstract class MediaEntity extends AbstractModelObject {
   @JsonProperty
   protected Date                       dateAdded          = new Date();
   @JsonProperty
+  protected Date                       lastModified       = null;
+  @JsonProperty
   protected String                     productionCompany  = "";
   @JsonProperty
   protected boolean                    scraped            = false;
@@ -685,6 +687,25 @@ public abstract class MediaEntity extends AbstractModelObject {
     firePropertyChange(DATE_ADDED_AS_STRING, oldValue, newValue);
   }
 
+  /**
+   * get the time when this entity has been saved the last time
+   *
+   * @return the time of the last modification or null (not saved since this information is available)
+   */
+  public Date getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * set the time of the last modification; this is done when a changed entity is persisted
+   *
+   * @param newValue
+   *          the time of the last modification
+   */
+  public void setLastModified(Date newValue) {
+    this.lastModified = newValue;
+  }
+
   public String getProductionCompany() {
     return productionCompany;
   }
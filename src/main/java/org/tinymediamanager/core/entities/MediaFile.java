@@ -116,6 +116,12 @@ public class MediaFile extends AbstractModelObject implements Comparable<MediaFi
   private List<MediaFileAudioStream> audioStreams      = null;
   @JsonProperty
   private List<MediaFileSubtitle>    subtitles         = null;
+  @JsonProperty
+  private Map<String, String>        hashes            = null;
+  @JsonProperty
+  private long                       hashesFilesize    = 0;
+  @JsonProperty
+  private long                       hashesFiledate    = 0;
 
   private Path                       file              = null;
   // a map to temporarily preserve extra data from MI
@@ -157,6 +163,12 @@ public class MediaFile extends AbstractModelObject implements Comparable<MediaFi
     if (ListUtils.isNotEmpty(clone.subtitles)) {
       subtitles = new CopyOnWriteArrayList<>(clone.subtitles);
     }
+
+    if (clone.hashes != null && !clone.hashes.isEmpty()) {
+      hashes = new HashMap<>(clone.hashes);
+      hashesFilesize = clone.hashesFilesize;
+      hashesFiledate = clone.hashesFiledate;
+    }
   }
 
   /**
@@ -517,6 +529,46 @@ public class MediaFile extends AbstractModelObject implements Comparable<MediaFi
     return filedate;
   }
 
+  /**
+   * get the stored hash of the given algorithm - only if the hash has been computed for the given file identity (size and modification time)
+   *
+   * @param algorithm
+   *          the id of the hash algorithm
+   * @param filesize
+   *          the actual size of the file
+   * @param filedate
+   *          the actual modification time of the file
+   * @return the hash or null if there is no valid hash
+   */
+  public synchronized String getHash(String algorithm, long filesize, long filedate) {
+    if (hashes == null || hashesFilesize != filesize || hashesFiledate != filedate) {
+      return null;
+    }
+    return hashes.get(algorithm);
+  }
+
+  /**
+   * store the hash of the given algorithm for the given file identity (size and modification time). All hashes of another file identity are
+   * removed
+   *
+   * @param algorithm
+   *          the id of the hash algorithm
+   * @param hash
+   *          the hash
+   * @param filesize
+   *          the size of the file the hash has been computed for
+   * @param filedate
+   *          the modification time of the file the hash has been computed for
+   */
+  public synchronized void setHash(String algorithm, String hash, long filesize, long filedate) {
+    if (hashes == null || hashesFilesize != filesize || hashesFiledate != filedate) {
+      hashes = new HashMap<>();
+      hashesFilesize = filesize;
+      hashesFiledate = filedate;
+    }
+    hashes.put(algorithm, hash);
+  }
+
   public long getFilesize() {
     return filesize;
   }
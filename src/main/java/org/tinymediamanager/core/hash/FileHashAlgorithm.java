@@ -0,0 +1,47 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.hash;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * The interface FileHashAlgorithm. An algorithm to compute the hash of a file. See {@link StandardFileHashAlgorithm} for the built in algorithms.
+ *
+ * @author Manuel Laggner
+ */
+public interface FileHashAlgorithm {
+
+  /**
+   * the unique id of the algorithm (used to store the hashes)
+   *
+   * @return the id
+   */
+  String getId();
+
+  /**
+   * compute the hash of the file behind the given channel
+   *
+   * @param channel
+   *          the channel to read the file from (positional reads only)
+   * @param size
+   *          the size of the file
+   * @return the hash as a hex string
+   * @throws IOException
+   *           any {@link IOException} occurred while reading the file
+   */
+  String hash(FileChannel channel, long size) throws IOException;
+}
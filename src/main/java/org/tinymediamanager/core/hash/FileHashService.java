@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.hash;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.BiConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.threading.VolumeTaskScheduler;
+
+/**
+ * The class FileHashService. Computes the hashes of {@link MediaFile}s with any {@link FileHashAlgorithm}. The hashes are stored in the
+ * {@link MediaFile} (and thus in the database of the entity) along with the size and the modification time of the file - as long as the file has
+ * not been changed, a hash is read only once.<br />
+ * Bulk hashing runs in parallel on different volumes, with a bounded amount of concurrent reads per volume.
+ *
+ * @author Manuel Laggner
+ */
+public class FileHashService {
+  private static final Logger          LOGGER             = LoggerFactory.getLogger(FileHashService.class);
+  // concurrent reads per volume; more would only cause seeks on spinning disks
+  private static final int             THREADS_PER_VOLUME = 2;
+
+  private static final FileHashService INSTANCE           = new FileHashService();
+
+  private FileHashService() {
+    // use getInstance()
+  }
+
+  public static FileHashService getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * get the hash of the given {@link MediaFile}. The stored hash is used if the file has not been changed since the hash has been computed;
+   * otherwise the hash is computed and stored in the {@link MediaFile} (the caller is responsible for persisting the entity)
+   *
+   * @param mediaFile
+   *          the {@link MediaFile} to get the hash for
+   * @param algorithm
+   *          the hash algorithm
+   * @return the hash or an empty string if the hash could not be computed
+   */
+  public String getHash(MediaFile mediaFile, FileHashAlgorithm algorithm) {
+    Path file = mediaFile.getFileAsPath();
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      long size = attributes.size();
+      long modified = attributes.lastModifiedTime().toMillis();
+
+      String hash = mediaFile.getHash(algorithm.getId(), size, modified);
+      if (hash == null) {
+        hash = computeHash(file, size, algorithm);
+        mediaFile.setHash(algorithm.getId(), hash, size, modified);
+      }
+      return hash;
+    }
+    catch (Exception e) {
+      LOGGER.warn("could not compute the {} hash of '{}' - {}", algorithm.getId(), file, e.getMessage());
+    }
+    return "";
+  }
+
+  /**
+   * get the stored hash of the given {@link MediaFile} without reading the file content
+   *
+   * @param mediaFile
+   *          the {@link MediaFile} to get the hash for
+   * @param algorithm
+   *          the hash algorithm
+   * @return the hash or null if there is no valid stored hash
+   */
+  public String getStoredHash(MediaFile mediaFile, FileHashAlgorithm algorithm) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(mediaFile.getFileAsPath(), BasicFileAttributes.class);
+      return mediaFile.getHash(algorithm.getId(), attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+    catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * compute the hashes of all given {@link MediaFile}s which do not have a valid stored hash yet. Different volumes are hashed in parallel
+   *
+   * @param mediaFiles
+   *          the {@link MediaFile}s to hash
+   * @param algorithms
+   *          the hash algorithms
+   * @param callback
+   *          invoked (from the worker threads) for every processed {@link MediaFile} along with the info whether it got a new hash
+   * @param cancelled
+   *          a check whether the hashing has been cancelled
+   * @return the amount of {@link MediaFile}s which got a new hash
+   */
+  public int hashAll(Collection<MediaFile> mediaFiles, Collection<? extends FileHashAlgorithm> algorithms, BiConsumer<MediaFile, Boolean> callback,
+      BooleanSupplier cancelled) {
+    AtomicInteger hashed = new AtomicInteger();
+
+    VolumeTaskScheduler scheduler = new VolumeTaskScheduler("hash", THREADS_PER_VOLUME);
+    for (MediaFile mediaFile : mediaFiles) {
+      Callable<Object> task = () -> {
+        boolean changed = false;
+        for (FileHashAlgorithm algorithm : algorithms) {
+          if (getStoredHash(mediaFile, algorithm) == null) {
+            changed |= !getHash(mediaFile, algorithm).isEmpty();
+          }
+        }
+        if (changed) {
+          hashed.incrementAndGet();
+        }
+        callback.accept(mediaFile, changed);
+        return null;
+      };
+      scheduler.add(mediaFile.getFileAsPath().getParent(), task);
+    }
+
+    scheduler.run(new VolumeTaskScheduler.Listener() {
+      @Override
+      public void taskFinished(Object result) {
+        // nothing to do here
+      }
+
+      @Override
+      public void taskFailed(Callable<Object> task, Exception e) {
+        // getHash() does not throw
+      }
+    }, cancelled);
+
+    return hashed.get();
+  }
+
+  /**
+   * compute the hash of the given file
+   *
+   * @param file
+   *          the file to hash
+   * @param algorithm
+   *          the hash algorithm
+   * @return the hash
+   * @throws IOException
+   *           any {@link IOException} occurred while reading the file
+   */
+  public static String computeHash(Path file, FileHashAlgorithm algorithm) throws IOException {
+    return computeHash(file, Files.size(file), algorithm);
+  }
+
+  private static String computeHash(Path file, long size, FileHashAlgorithm algorithm) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return algorithm.hash(channel, size);
+    }
+  }
+}
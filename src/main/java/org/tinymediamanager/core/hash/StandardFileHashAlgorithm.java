@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.hash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * The enum StandardFileHashAlgorithm. The built in file hash algorithms.<br />
+ * All files are read with positional reads into a per thread direct buffer - the head/tail algorithms only read 128 KiB of every file, regardless
+ * of the file size.
+ *
+ * @author Manuel Laggner
+ */
+public enum StandardFileHashAlgorithm implements FileHashAlgorithm {
+  /**
+   * the hash used by OpenSubtitles: the file size plus the sums of the first and the last 64 KiB (as little endian longs)
+   */
+  OPENSUBTITLES("opensubtitles") {
+    @Override
+    public String hash(FileChannel channel, long size) throws IOException {
+      int chunkSize = (int) Math.min(HEAD_TAIL_SIZE, size);
+      ByteBuffer buffer = getBuffer();
+
+      buffer.limit(chunkSize);
+      readFully(channel, buffer, 0);
+      long head = sumOfLongs(buffer);
+
+      buffer.clear();
+      buffer.limit(chunkSize);
+      readFully(channel, buffer, Math.max(size - HEAD_TAIL_SIZE, 0));
+      long tail = sumOfLongs(buffer);
+
+      return String.format(Locale.ROOT, "%016x", size + head + tail);
+    }
+  },
+
+  /**
+   * xxHash64 of the first and the last 64 KiB, seeded with the file size. A very fast identity of the file (e.g. for duplicate/move detection)
+   */
+  XXHASH64_HEAD_TAIL("xxh64-headtail") {
+    @Override
+    public String hash(FileChannel channel, long size) throws IOException {
+      ByteBuffer buffer = getBuffer();
+
+      if (size <= 2 * HEAD_TAIL_SIZE) {
+        // small file: hash it completely
+        buffer.limit((int) size);
+        readFully(channel, buffer, 0);
+      }
+      else {
+        buffer.limit(HEAD_TAIL_SIZE);
+        readFully(channel, buffer, 0);
+        buffer.limit(2 * HEAD_TAIL_SIZE);
+        readFully(channel, buffer, size - HEAD_TAIL_SIZE);
+      }
+      buffer.flip();
+
+      return String.format(Locale.ROOT, "%016x", XxHash64.hash(buffer, size));
+    }
+  },
+
+  /**
+   * SHA-256 of the whole file
+   */
+  SHA256("sha256") {
+    @Override
+    public String hash(FileChannel channel, long size) throws IOException {
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new IOException(e);
+      }
+
+      ByteBuffer buffer = getBuffer();
+      long position = 0;
+      while (position < size) {
+        buffer.clear();
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          break;
+        }
+        position += read;
+        buffer.flip();
+        digest.update(buffer);
+      }
+
+      return Hex.encodeHexString(digest.digest());
+    }
+  };
+
+  private static final int                     HEAD_TAIL_SIZE = 64 * 1024;
+  private static final int                     BUFFER_SIZE    = 1024 * 1024;
+  private static final ThreadLocal<ByteBuffer> BUFFERS        = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+  private final String                         id;
+
+  StandardFileHashAlgorithm(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * get the (cleared) direct buffer of this thread
+   */
+  private static ByteBuffer getBuffer() {
+    ByteBuffer buffer = BUFFERS.get();
+    buffer.clear();
+    return buffer;
+  }
+
+  /**
+   * read from the given position until the buffer is full (or the end of the file has been reached)
+   */
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      position += read;
+    }
+  }
+
+  private static long sumOfLongs(ByteBuffer buffer) {
+    buffer.flip();
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    long sum = 0;
+    while (buffer.remaining() >= 8) {
+      sum += buffer.getLong();
+    }
+
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    return sum;
+  }
+}
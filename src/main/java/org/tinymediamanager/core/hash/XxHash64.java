@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The class XxHash64. An implementation of the 64 bit xxHash algorithm (https://github.com/Cyan4973/xxHash) - a very fast non-cryptographic hash
+ *
+ * @author Manuel Laggner
+ */
+final class XxHash64 {
+  private static final long PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME3 = 0x165667B19E3779F9L;
+  private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+  private XxHash64() {
+    throw new IllegalAccessError();
+  }
+
+  /**
+   * hash the remaining bytes of the given buffer (the position of the buffer is not changed)
+   *
+   * @param input
+   *          the buffer to hash
+   * @param seed
+   *          the seed
+   * @return the hash
+   */
+  static long hash(ByteBuffer input, long seed) {
+    ByteBuffer buffer = input.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int length = buffer.remaining();
+    long hash;
+
+    if (length >= 32) {
+      long v1 = seed + PRIME1 + PRIME2;
+      long v2 = seed + PRIME2;
+      long v3 = seed;
+      long v4 = seed - PRIME1;
+
+      while (buffer.remaining() >= 32) {
+        v1 = round(v1, buffer.getLong());
+        v2 = round(v2, buffer.getLong());
+        v3 = round(v3, buffer.getLong());
+        v4 = round(v4, buffer.getLong());
+      }
+
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      hash = mergeRound(hash, v1);
+      hash = mergeRound(hash, v2);
+      hash = mergeRound(hash, v3);
+      hash = mergeRound(hash, v4);
+    }
+    else {
+      hash = seed + PRIME5;
+    }
+
+    hash += length;
+
+    while (buffer.remaining() >= 8) {
+      hash ^= round(0, buffer.getLong());
+      hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+    }
+
+    if (buffer.remaining() >= 4) {
+      hash ^= (buffer.getInt() & 0xFFFFFFFFL) * PRIME1;
+      hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+    }
+
+    while (buffer.hasRemaining()) {
+      hash ^= (buffer.get() & 0xFFL) * PRIME5;
+      hash = Long.rotateLeft(hash, 11) * PRIME1;
+    }
+
+    // avalanche
+    hash ^= hash >>> 33;
+    hash *= PRIME2;
+    hash ^= hash >>> 29;
+    hash *= PRIME3;
+    hash ^= hash >>> 32;
+
+    return hash;
+  }
+
+  private static long round(long acc, long input) {
+    acc += input * PRIME2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME1;
+  }
+
+  private static long mergeRound(long acc, long value) {
+    acc ^= round(0, value);
+    return acc * PRIME1 + PRIME4;
+  }
+}
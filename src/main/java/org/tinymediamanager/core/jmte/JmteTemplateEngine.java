@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.jmte;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.tinymediamanager.scraper.util.CacheMap;
+
+import com.floreysoft.jmte.Engine;
+import com.floreysoft.jmte.template.Template;
+
+/**
+ * The class JmteTemplateEngine. A pre-configured JMTE {@link Engine} along with a cache of the morphed (see
+ * {@link JmteUtils#morphTemplate(String, Map)}) and parsed templates - so evaluating the same pattern for many entities does not morph and parse
+ * the pattern again and again.<br />
+ * The JMTE engine caches the resolved renderers in an unsynchronized map; so all templates are evaluated while holding the lock of the engine (the
+ * same as {@link Engine#transform(String, Map)} does).
+ *
+ * @author Manuel Laggner
+ */
+public class JmteTemplateEngine {
+  // the templates from the settings plus the ones typed in the settings panel
+  private static final int                 MAX_TEMPLATES = 500;
+
+  private final Engine                     engine;
+  private final Map<String, String>        tokenMap;
+  private final CacheMap<String, Template> templates     = new CacheMap<>(0, 0, MAX_TEMPLATES);
+
+  /**
+   * create a new template engine
+   *
+   * @param engine
+   *          the configured {@link Engine} (renderers, model adaptor, ...). The engine must not be changed afterwards
+   * @param tokenMap
+   *          the token map for morphing the templates
+   */
+  public JmteTemplateEngine(Engine engine, Map<String, String> tokenMap) {
+    this.engine = engine;
+    this.tokenMap = tokenMap;
+  }
+
+  /**
+   * get the underlying {@link Engine}
+   *
+   * @return the engine
+   */
+  public Engine getEngine() {
+    return engine;
+  }
+
+  /**
+   * evaluate the given template
+   *
+   * @param template
+   *          the template (not morphed)
+   * @param root
+   *          the model
+   * @return the evaluated template
+   */
+  public String transform(String template, Map<String, Object> root) {
+    Template compiledTemplate = getTemplate(template);
+    synchronized (engine) {
+      return compiledTemplate.transform(root, Locale.getDefault(), engine.getModelAdaptor(), null);
+    }
+  }
+
+  /**
+   * get the morphed and parsed template for the given pattern
+   *
+   * @param template
+   *          the template (not morphed)
+   * @return the parsed template
+   */
+  Template getTemplate(String template) {
+    Template compiledTemplate = templates.get(template);
+    if (compiledTemplate == null) {
+      compiledTemplate = engine.getTemplate(JmteUtils.morphTemplate(template, tokenMap));
+      templates.put(template, compiledTemplate);
+    }
+    return compiledTemplate;
+  }
+}
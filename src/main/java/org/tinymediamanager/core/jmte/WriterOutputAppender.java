@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.jmte;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+
+import com.floreysoft.jmte.Engine;
+import com.floreysoft.jmte.message.ErrorEntry;
+import com.floreysoft.jmte.template.OutputAppender;
+import com.floreysoft.jmte.template.Template;
+import com.floreysoft.jmte.token.InvalidToken;
+import com.floreysoft.jmte.token.Token;
+
+/**
+ * The class WriterOutputAppender. A JMTE {@link OutputAppender} which streams the rendered output directly into a {@link Writer} (rather than
+ * collecting the whole output in memory). Without a writer set, the output is collected like in the default appender.<br />
+ * The appender belongs to one {@link Engine} - so the engine must only be used by one thread at a time.
+ *
+ * @author Manuel Laggner
+ */
+public class WriterOutputAppender implements OutputAppender {
+  private Writer writer;
+
+  @Override
+  public void append(StringBuilder buffer, String text, Token token) {
+    // the same filter as in the default appender: do not output invalid tokens
+    if (token instanceof InvalidToken || (token != null && token.getAnnotation() instanceof ErrorEntry)) {
+      return;
+    }
+
+    if (writer == null) {
+      buffer.append(text);
+      return;
+    }
+
+    try {
+      writer.write(text);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * render the given template into the given writer
+   *
+   * @param engine
+   *          the engine which uses this appender
+   * @param template
+   *          the parsed template
+   * @param model
+   *          the model
+   * @param writer
+   *          the writer to write the output to
+   * @throws IOException
+   *           any {@link IOException} occurred while writing
+   */
+  public void transform(Engine engine, Template template, Map<String, Object> model, Writer writer) throws IOException {
+    this.writer = writer;
+    try {
+      template.transform(model, Locale.getDefault(), engine.getModelAdaptor(), null);
+    }
+    catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    finally {
+      this.writer = null;
+    }
+  }
+}
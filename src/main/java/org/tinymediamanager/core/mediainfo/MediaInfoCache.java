@@ -0,0 +1,406 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.mediainfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.Globals;
+import org.tinymediamanager.scraper.util.StrgUtils;
+import org.tinymediamanager.thirdparty.MediaInfo;
+import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
+
+/**
+ * The class MediaInfoCache. A persisted cache of the mediainfo results per file. The files are identified by their size, modification time and a
+ * hash of the first and last 64 KiB - not by their path. So a moved/renamed file, a changed datasource or a reset database does not cause another
+ * probe of the whole (maybe multi GB and remote) file by libmediainfo; the identity of a file is read with two small reads.<br />
+ * The cache is cleared if the version of libmediainfo changes (the new version may deliver better results).
+ *
+ * @author Manuel Laggner
+ */
+public class MediaInfoCache {
+  private static final Logger         LOGGER            = LoggerFactory.getLogger(MediaInfoCache.class);
+  private static final int            VERSION           = 1;
+  private static final String         CACHE_MAP         = "mediainfo";
+  private static final String         VERSION_KEY       = "!libmediainfo";
+
+  // the amount of bytes at the start and the end of the file which are used for the identity
+  static final int                    HASH_BLOCK_SIZE   = 64 * 1024;
+  // keep the cache small; remove the least recently used entries above this
+  private static final int            MAX_ENTRIES       = 50_000;
+  // the access time is only written if it is older than this (no write on every lookup)
+  private static final long           ACCESS_RESOLUTION = 24 * 60 * 60_000L;
+
+  private static MVStore              cacheStore        = null;
+  private static MediaInfoCache       instance          = null;
+
+  private final MVMap<String, byte[]> map;
+
+  public MediaInfoCache(MVStore mvStore, String mapName) {
+    this.map = mvStore.openMap(mapName);
+  }
+
+  /**
+   * get the cache; the cache is opened on the first access
+   *
+   * @return the {@link MediaInfoCache}
+   */
+  public static synchronized MediaInfoCache getInstance() {
+    if (instance == null) {
+      Path cacheFile = Paths.get(Globals.CACHE_FOLDER, "mediainfo.db");
+      try {
+        Files.createDirectories(cacheFile.getParent());
+        cacheStore = new MVStore.Builder().fileName(cacheFile.toString()).compress().autoCommitBufferSize(512).open();
+      }
+      catch (Exception e) {
+        // e.g. locked by another instance - take an in memory cache for this session
+        LOGGER.warn("could not open the mediainfo cache '{}' - {}", cacheFile, e.getMessage());
+        cacheStore = new MVStore.Builder().open();
+      }
+
+      instance = new MediaInfoCache(cacheStore, CACHE_MAP);
+      if (MediaInfoUtils.USE_LIBMEDIAINFO) {
+        instance.checkVersion(MediaInfo.version());
+      }
+      instance.evict(MAX_ENTRIES);
+    }
+    return instance;
+  }
+
+  /**
+   * close the cache
+   */
+  public static synchronized void shutdown() {
+    if (cacheStore != null) {
+      try {
+        cacheStore.close();
+      }
+      catch (Exception e) {
+        LOGGER.warn("could not close the mediainfo cache - {}", e.getMessage());
+      }
+      cacheStore = null;
+      instance = null;
+    }
+  }
+
+  /**
+   * create the identity of the given file: size, modification time and a hash of the first and last 64 KiB
+   *
+   * @param file
+   *          the file
+   * @return the identity of the file
+   * @throws IOException
+   *           any exception occurred while reading the file
+   */
+  public static String createIdentity(Path file) throws IOException {
+    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+    long size = attrs.size();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MessageDigest md = MessageDigest.getInstance("MD5");
+      ByteBuffer buffer = ByteBuffer.allocate(HASH_BLOCK_SIZE);
+
+      readFully(channel, buffer, 0);
+      md.update(buffer);
+
+      if (size > HASH_BLOCK_SIZE) {
+        buffer.clear();
+        readFully(channel, buffer, Math.max(HASH_BLOCK_SIZE, size - HASH_BLOCK_SIZE));
+        md.update(buffer);
+      }
+
+      return size + "-" + attrs.lastModifiedTime().toMillis() + "-" + StrgUtils.bytesToHex(md.digest());
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, pos);
+      if (read < 0) {
+        break;
+      }
+      pos += read;
+    }
+    buffer.flip();
+  }
+
+  /**
+   * get the cached mediainfo results for the given file identity
+   *
+   * @param identity
+   *          the identity of the file (see {@link #createIdentity(Path)})
+   * @return the cached results or null if there are none
+   */
+  public List<MediaInfoFile> get(String identity) {
+    byte[] value = map.get(identity);
+    if (value == null) {
+      return null;
+    }
+
+    try {
+      Entry entry = decode(value);
+      long now = System.currentTimeMillis();
+      if (now - entry.lastAccess > ACCESS_RESOLUTION) {
+        map.put(identity, encode(entry.files, now));
+      }
+      return entry.files;
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not decode the cached mediainfo - {}", e.getMessage());
+      map.remove(identity);
+      return null;
+    }
+  }
+
+  /**
+   * cache the mediainfo results for the given file identity
+   *
+   * @param identity
+   *          the identity of the file (see {@link #createIdentity(Path)})
+   * @param files
+   *          the mediainfo results
+   */
+  public void put(String identity, List<MediaInfoFile> files) {
+    try {
+      map.put(identity, encode(files, System.currentTimeMillis()));
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not cache the mediainfo - {}", e.getMessage());
+    }
+  }
+
+  /**
+   * remove the cached results for the given file identity
+   *
+   * @param identity
+   *          the identity of the file
+   */
+  public void remove(String identity) {
+    map.remove(identity);
+  }
+
+  /**
+   * remove all cached results
+   */
+  public void clear() {
+    map.clear();
+  }
+
+  /**
+   * get the amount of cached files
+   *
+   * @return the amount of entries
+   */
+  public int size() {
+    return map.containsKey(VERSION_KEY) ? map.size() - 1 : map.size();
+  }
+
+  /**
+   * clear the cache if the results have been created with another version of libmediainfo
+   *
+   * @param mediaInfoVersion
+   *          the version of the loaded libmediainfo
+   */
+  void checkVersion(String mediaInfoVersion) {
+    if (StringUtils.isBlank(mediaInfoVersion)) {
+      // no libmediainfo available; the cached results are still fine
+      return;
+    }
+
+    byte[] stored = map.get(VERSION_KEY);
+    String storedVersion = stored != null ? new String(stored, StandardCharsets.UTF_8) : "";
+    if (!mediaInfoVersion.equals(storedVersion)) {
+      if (!storedVersion.isEmpty()) {
+        LOGGER.info("libmediainfo changed from '{}' to '{}' - clearing the mediainfo cache", storedVersion, mediaInfoVersion);
+      }
+      map.clear();
+      map.put(VERSION_KEY, mediaInfoVersion.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * remove the least recently used entries if there are more than the given amount of entries
+   *
+   * @param maxEntries
+   *          the maximum amount of entries
+   * @return the amount of removed entries
+   */
+  int evict(int maxEntries) {
+    int toRemove = size() - maxEntries;
+    if (toRemove <= 0) {
+      return 0;
+    }
+
+    List<Map.Entry<String, Long>> accesses = new ArrayList<>(map.size());
+    for (Map.Entry<String, byte[]> mapEntry : map.entrySet()) {
+      if (VERSION_KEY.equals(mapEntry.getKey())) {
+        continue;
+      }
+      accesses.add(new AbstractMap.SimpleImmutableEntry<>(mapEntry.getKey(), decodeLastAccess(mapEntry.getValue())));
+    }
+    accesses.sort(Map.Entry.comparingByValue());
+
+    for (int i = 0; i < toRemove; i++) {
+      map.remove(accesses.get(i).getKey());
+    }
+
+    LOGGER.debug("evicted {} entries from the mediainfo cache", toRemove);
+    return toRemove;
+  }
+
+  private static byte[] encode(List<MediaInfoFile> files, long lastAccess) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(VERSION);
+    out.writeLong(lastAccess);
+    out.writeInt(files.size());
+
+    for (MediaInfoFile file : files) {
+      writeString(out, file.getPath());
+      writeString(out, file.getFilename());
+      out.writeLong(file.getFilesize());
+      out.writeInt(file.getDuration());
+
+      MediaInfoSnapshot snapshot = file.getSnapshot();
+      out.writeInt(snapshot.size());
+      for (Map.Entry<StreamKind, List<Map<String, String>>> kind : snapshot.entrySet()) {
+        writeString(out, kind.getKey().name());
+        out.writeInt(kind.getValue().size());
+        for (Map<String, String> stream : kind.getValue()) {
+          // values may be longer than writeUTF() supports (e.g. embedded cover data)
+          out.writeInt(stream != null ? stream.size() : 0);
+          if (stream != null) {
+            for (Map.Entry<String, String> value : stream.entrySet()) {
+              writeString(out, value.getKey());
+              writeString(out, value.getValue());
+            }
+          }
+        }
+      }
+    }
+
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static Entry decode(byte[] value) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+    if (in.readByte() != VERSION) {
+      throw new IOException("unknown version");
+    }
+    long lastAccess = in.readLong();
+
+    int fileCount = in.readInt();
+    List<MediaInfoFile> files = new ArrayList<>(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      String path = readString(in);
+      String filename = readString(in);
+      long filesize = in.readLong();
+      int duration = in.readInt();
+
+      Map<StreamKind, List<Map<String, String>>> snapshot = new EnumMap<>(StreamKind.class);
+      int kindCount = in.readInt();
+      for (int k = 0; k < kindCount; k++) {
+        StreamKind kind = StreamKind.valueOf(readString(in));
+        int streamCount = in.readInt();
+        List<Map<String, String>> streams = new ArrayList<>(streamCount);
+        for (int s = 0; s < streamCount; s++) {
+          int valueCount = in.readInt();
+          Map<String, String> stream = new LinkedHashMap<>();
+          for (int v = 0; v < valueCount; v++) {
+            stream.put(readString(in), readString(in));
+          }
+          streams.add(stream);
+        }
+        snapshot.put(kind, streams);
+      }
+
+      // restore the stored values; setSnapshot() derives them from the snapshot which may differ (e.g. for ISO results)
+      MediaInfoFile file = new MediaInfoFile(Paths.get(path, filename));
+      file.setSnapshot(snapshot);
+      file.setPath(path);
+      file.setFilename(filename);
+      file.setFilesize(filesize);
+      file.setDuration(duration);
+      files.add(file);
+    }
+
+    return new Entry(files, lastAccess);
+  }
+
+  private static long decodeLastAccess(byte[] value) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+      if (in.readByte() == VERSION) {
+        return in.readLong();
+      }
+    }
+    catch (Exception ignored) {
+      // just evict it first
+    }
+    return 0;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static class Entry {
+    private final List<MediaInfoFile> files;
+    private final long                lastAccess;
+
+    private Entry(List<MediaInfoFile> files, long lastAccess) {
+      this.files = files;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
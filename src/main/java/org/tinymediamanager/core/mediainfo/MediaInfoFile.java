@@ -17,7 +17,6 @@
 package org.tinymediamanager.core.mediainfo;
 
 import java.nio.file.Path;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -29,7 +28,6 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.tinymediamanager.core.MediaFileHelper;
 import org.tinymediamanager.thirdparty.MediaInfo;
 import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
 
@@ -42,7 +40,7 @@ import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
 public class MediaInfoFile {
 
   private static final Logger                        LOGGER   = LoggerFactory.getLogger(MediaInfoFile.class);
-  private Map<StreamKind, List<Map<String, String>>> snapshot;
+  private MediaInfoSnapshot                          snapshot;
   private int                                        duration = 0;
   private long                                       filesize = 0;
   private String                                     path     = "";
@@ -94,16 +92,22 @@ public class MediaInfoFile {
     return duration;
   }
 
-  public Map<StreamKind, List<Map<String, String>>> getSnapshot() {
+  public MediaInfoSnapshot getSnapshot() {
     if (snapshot == null) {
-      snapshot = Collections.emptyMap();
+      snapshot = MediaInfoSnapshot.of(null);
     }
     return snapshot;
   }
 
+  /**
+   * set the mediainfo data of this file; the data is converted into an immutable {@link MediaInfoSnapshot} (if it is not one already)
+   *
+   * @param snapshot
+   *          the mediainfo data
+   */
   public void setSnapshot(Map<StreamKind, List<Map<String, String>>> snapshot) {
-    this.snapshot = snapshot;
-    String dur = MediaFileHelper.getMediaInfo(snapshot, MediaInfo.StreamKind.General, 0, "Duration");
+    this.snapshot = MediaInfoSnapshot.of(snapshot);
+    String dur = this.snapshot.get(MediaInfo.StreamKind.General, 0, "Duration");
     if (!dur.isEmpty()) {
       try {
         this.duration = ((int) (Double.parseDouble(dur) / 1000));
@@ -114,7 +118,7 @@ public class MediaInfoFile {
     }
 
     if (this.filesize == 0) {
-      String siz = MediaFileHelper.getMediaInfo(snapshot, MediaInfo.StreamKind.General, 0, "FileSize");
+      String siz = this.snapshot.get(MediaInfo.StreamKind.General, 0, "FileSize");
       if (!siz.isEmpty()) {
         try {
           this.filesize = Long.parseLong(siz);
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.mediainfo;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.tinymediamanager.core.MediaFileHelper;
+import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
+
+/**
+ * The class MediaInfoSnapshot. An immutable mediainfo snapshot (all values of all streams per {@link StreamKind}). The keys of every stream are
+ * normalized once when the snapshot is created (see {@link MediaFileHelper#normalizeKey(String)}) - so a lookup of a value is just an array access
+ * for the stream and a hash lookup for the key (instead of normalizing the whole stream on every lookup).<br />
+ * The snapshot is still a {@link Map} of the original (not normalized) values, so it can be used everywhere a raw snapshot has been used before.
+ *
+ * @author Manuel Laggner
+ */
+public class MediaInfoSnapshot extends AbstractMap<StreamKind, List<Map<String, String>>> {
+  private static final StreamKind[]                               KINDS           = StreamKind.values();
+  // the keys are constants in our code - so there are only a few hundred of them
+  private static final Map<String, String>                        NORMALIZED_KEYS = new ConcurrentHashMap<>();
+
+  private final List<Map<String, String>>[]                       streams;
+  private final Map<String, String>[][]                           normalizedStreams;
+  private final Set<Entry<StreamKind, List<Map<String, String>>>> entrySet;
+  private final int                                               size;
+
+  @SuppressWarnings("unchecked")
+  private MediaInfoSnapshot(Map<StreamKind, List<Map<String, String>>> snapshot) {
+    this.streams = new List[KINDS.length];
+    this.normalizedStreams = new Map[KINDS.length][];
+
+    int kinds = 0;
+    for (Entry<StreamKind, List<Map<String, String>>> entry : snapshot.entrySet()) {
+      if (entry.getKey() == null || entry.getValue() == null) {
+        continue;
+      }
+
+      List<Map<String, String>> stream = new ArrayList<>(entry.getValue().size());
+      Map<String, String>[] normalizedStream = new Map[entry.getValue().size()];
+
+      for (int i = 0; i < entry.getValue().size(); i++) {
+        Map<String, String> info = entry.getValue().get(i);
+        if (info == null) {
+          stream.add(null);
+          continue;
+        }
+        stream.add(Collections.unmodifiableMap(new LinkedHashMap<>(info)));
+        normalizedStream[i] = normalize(info);
+      }
+
+      int ordinal = entry.getKey().ordinal();
+      if (streams[ordinal] == null) {
+        kinds++;
+      }
+      streams[ordinal] = Collections.unmodifiableList(stream);
+      normalizedStreams[ordinal] = normalizedStream;
+    }
+
+    this.size = kinds;
+    this.entrySet = new EntrySet();
+  }
+
+  /**
+   * create an immutable snapshot of the given mediainfo data
+   *
+   * @param snapshot
+   *          the mediainfo data (as delivered by libmediainfo or the XML parser)
+   * @return the snapshot (or the given snapshot itself if it is already a {@link MediaInfoSnapshot})
+   */
+  public static MediaInfoSnapshot of(Map<StreamKind, List<Map<String, String>>> snapshot) {
+    if (snapshot instanceof MediaInfoSnapshot) {
+      return (MediaInfoSnapshot) snapshot;
+    }
+    return new MediaInfoSnapshot(snapshot != null ? snapshot : Collections.emptyMap());
+  }
+
+  /**
+   * get the first non blank value of the given keys
+   *
+   * @param streamKind
+   *          the stream kind
+   * @param streamNumber
+   *          the stream number (0 for first)
+   * @param keys
+   *          the keys to look for (not normalized)
+   * @return the value or an empty string (never null)
+   */
+  public String get(StreamKind streamKind, int streamNumber, String... keys) {
+    Map<String, String> info = getNormalizedStream(streamKind, streamNumber);
+    if (info == null) {
+      return "";
+    }
+
+    for (String key : keys) {
+      String value = info.get(normalizeKey(key));
+      if (StringUtils.isNotBlank(value)) {
+        return value;
+      }
+    }
+
+    return "";
+  }
+
+  /**
+   * get the amount of streams of the given kind
+   *
+   * @param streamKind
+   *          the stream kind
+   * @return the amount of streams
+   */
+  public int getStreamCount(StreamKind streamKind) {
+    Map<String, String>[] normalizedStream = normalizedStreams[streamKind.ordinal()];
+    return normalizedStream != null ? normalizedStream.length : 0;
+  }
+
+  /**
+   * get all values of the given stream with normalized keys
+   *
+   * @param streamKind
+   *          the stream kind
+   * @param streamNumber
+   *          the stream number (0 for first)
+   * @return an unmodifiable map of all values or null if there is no such stream
+   */
+  public Map<String, String> getNormalizedStream(StreamKind streamKind, int streamNumber) {
+    if (streamKind == null) {
+      return null;
+    }
+
+    Map<String, String>[] normalizedStream = normalizedStreams[streamKind.ordinal()];
+    if (normalizedStream == null || streamNumber < 0 || streamNumber >= normalizedStream.length) {
+      return null;
+    }
+    return normalizedStream[streamNumber];
+  }
+
+  /**
+   * normalize the given key; the normalized keys are cached
+   *
+   * @param key
+   *          the key to normalize
+   * @return the normalized key
+   */
+  public static String normalizeKey(String key) {
+    return NORMALIZED_KEYS.computeIfAbsent(key, MediaFileHelper::normalizeKey);
+  }
+
+  private static Map<String, String> normalize(Map<String, String> info) {
+    Map<String, String> normalized = new HashMap<>(info.size() * 2);
+    for (Entry<String, String> entry : info.entrySet()) {
+      // the keys of the streams differ per file - do not pollute the key cache with them
+      normalized.put(MediaFileHelper.normalizeKey(entry.getKey()), entry.getValue());
+    }
+    return Collections.unmodifiableMap(normalized);
+  }
+
+  @Override
+  public List<Map<String, String>> get(Object key) {
+    if (!(key instanceof StreamKind)) {
+      return null;
+    }
+    return streams[((StreamKind) key).ordinal()];
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Entry<StreamKind, List<Map<String, String>>>> entrySet() {
+    return entrySet;
+  }
+
+  private class EntrySet extends AbstractSet<Entry<StreamKind, List<Map<String, String>>>> {
+    @Override
+    public Iterator<Entry<StreamKind, List<Map<String, String>>>> iterator() {
+      return new Iterator<Entry<StreamKind, List<Map<String, String>>>>() {
+        private int next = advance(0);
+
+        private int advance(int index) {
+          while (index < streams.length && streams[index] == null) {
+            index++;
+          }
+          return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next < streams.length;
+        }
+
+        @Override
+        public Entry<StreamKind, List<Map<String, String>>> next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          Entry<StreamKind, List<Map<String, String>>> entry = new SimpleImmutableEntry<>(KINDS[next], streams[next]);
+          next = advance(next + 1);
+          return entry;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
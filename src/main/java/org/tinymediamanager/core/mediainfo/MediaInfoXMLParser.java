@@ -79,7 +79,7 @@ public class MediaInfoXMLParser {
     // process every file in the ISO
     for (Element fileInXML : fileElements) {
       MediaInfoFile miFile = new MediaInfoFile(Paths.get(DUMMY_FILENAME));
-      miFile.setSnapshot(new EnumMap<>(StreamKind.class));
+      Map<StreamKind, List<Map<String, String>>> snapshot = new EnumMap<>(StreamKind.class);
       if (StringUtils.isNotBlank(fileInXML.attr("ref")) && fileInXML.attr("ref").length() > 5) {
         miFile.setFilename(fileInXML.attr("ref"));
       }
@@ -258,25 +258,27 @@ public class MediaInfoXMLParser {
           }
         }
         streamInfoList.add(streamInfo);
-        miFile.getSnapshot().put(StreamKind.valueOf(track.type), streamInfoList);
+        snapshot.put(StreamKind.valueOf(track.type), streamInfoList);
       } // end tracks
 
-      miFile.setDuration(duration);
-      miFile.setFilesize(filesize);
-
       // we rely on some infos in the general stream info; add that if it was not available in the XML
       if (generalStreamInfo != null) {
-        if (generalStreamInfo.get("VideoCount") == null && miFile.getSnapshot().get(StreamKind.Video) != null) {
-          generalStreamInfo.put("VideoCount", String.valueOf(miFile.getSnapshot().get(StreamKind.Video).size()));
+        if (generalStreamInfo.get("VideoCount") == null && snapshot.get(StreamKind.Video) != null) {
+          generalStreamInfo.put("VideoCount", String.valueOf(snapshot.get(StreamKind.Video).size()));
         }
-        if (generalStreamInfo.get("AudioCount") == null && miFile.getSnapshot().get(StreamKind.Audio) != null) {
-          generalStreamInfo.put("AudioCount", String.valueOf(miFile.getSnapshot().get(StreamKind.Audio).size()));
+        if (generalStreamInfo.get("AudioCount") == null && snapshot.get(StreamKind.Audio) != null) {
+          generalStreamInfo.put("AudioCount", String.valueOf(snapshot.get(StreamKind.Audio).size()));
         }
-        if (generalStreamInfo.get("TextCount") == null && miFile.getSnapshot().get(StreamKind.Text) != null) {
-          generalStreamInfo.put("TextCount", String.valueOf(miFile.getSnapshot().get(StreamKind.Text).size()));
+        if (generalStreamInfo.get("TextCount") == null && snapshot.get(StreamKind.Text) != null) {
+          generalStreamInfo.put("TextCount", String.valueOf(snapshot.get(StreamKind.Text).size()));
         }
       }
 
+      // the snapshot is complete now - wrap it into the immutable/normalized structure once
+      miFile.setSnapshot(snapshot);
+      miFile.setDuration(duration);
+      miFile.setFilesize(filesize);
+
       if (!miFile.getFilename().isEmpty()) {
         // we have a filename (DVD structure or plain file)
         Path p = Paths.get(miFile.getFilename());
@@ -15,7 +15,6 @@
  */
 package org.tinymediamanager.core.movie;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -1235,7 +1234,7 @@ public class MovieArtworkHelper {
       try {
         String filename = fileNaming.getFilename(basename, "jpg"); // need to force jpg here since we do know it better
         MediaFile mf = new MediaFile(vsMetaFile.getFileAsPath().getParent().resolve(filename), MediaFileType.getMediaFileType(artworkType));
-        Files.write(mf.getFileAsPath(), bytes);
+        Utils.writeBytesToFile(mf.getFileAsPath(), bytes);
         movie.addToMediaFiles(mf);
       }
       catch (Exception e) {
@@ -18,14 +18,10 @@ package org.tinymediamanager.core.movie;
 import static org.tinymediamanager.core.movie.MovieSettings.DEFAULT_RENAMER_FILE_PATTERN;
 
 import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.URLEncoder;
-import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -36,7 +32,6 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.tinymediamanager.core.ImageUtils;
 import org.tinymediamanager.core.MediaEntityExporter;
 import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.entities.MediaEntity;
@@ -51,6 +46,7 @@ import org.tinymediamanager.core.jmte.NamedTitleCaseRenderer;
 import org.tinymediamanager.core.jmte.NamedUpperCaseRenderer;
 import org.tinymediamanager.core.movie.entities.Movie;
 
+import com.floreysoft.jmte.Engine;
 import com.floreysoft.jmte.NamedRenderer;
 import com.floreysoft.jmte.RenderFormatInfo;
 
@@ -84,22 +80,8 @@ public class MovieExporter extends MediaEntityExporter {
       return;
     }
 
-    // register own renderers
-    engine.registerNamedRenderer(new NamedDateRenderer());
-    engine.registerNamedRenderer(new NamedNumberRenderer());
-    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
-    engine.registerNamedRenderer(new NamedLowerCaseRenderer());
-    engine.registerNamedRenderer(new NamedTitleCaseRenderer());
-    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
-    engine.registerNamedRenderer(new MovieFilenameRenderer());
-    engine.registerNamedRenderer(new MovieArtworkCopyRenderer(exportDir));
-    engine.registerNamedRenderer(new NamedFilesizeRenderer());
-    engine.registerNamedRenderer(new NamedReplacementRenderer());
-
-    // prepare export destination
-    if (!Files.exists(exportDir)) {
-      Files.createDirectories(exportDir);
-    }
+    // prepare export destination and the renderers
+    startExport(exportDir);
 
     // prepare listfile
     Path listExportFile = exportDir.resolve("movielist." + fileExtension);
@@ -114,9 +96,7 @@ public class MovieExporter extends MediaEntityExporter {
     Map<String, Object> root = new HashMap<>();
     root.put("movies", new ArrayList<>(moviesToExport));
 
-    String output = engine.transform(listTemplate, root);
-
-    Utils.writeStringToFile(listExportFile, output);
+    transformToFile(listTemplate, root, listExportFile);
     LOGGER.info("movie list generated: {}", listExportFile);
 
     // create details for
@@ -135,7 +115,6 @@ public class MovieExporter extends MediaEntityExporter {
         }
 
         Movie movie = (Movie) me;
-        LOGGER.debug("processing movie {}", movie.getTitle());
         // get preferred movie name like set up in movie renamer
         String detailFilename = MovieRenamer.createDestinationForFilename(MovieModuleManager.SETTINGS.getRenamerFilename(), movie);
         if (StringUtils.isBlank(detailFilename)) {
@@ -143,38 +122,41 @@ public class MovieExporter extends MediaEntityExporter {
         }
         Path detailsExportFile = detailsDir.resolve(detailFilename + "." + fileExtension);
 
+        // unchanged since the last export
+        if (!isExportNeeded(movie, detailsExportFile)) {
+          continue;
+        }
+
+        LOGGER.debug("processing movie {}", movie.getTitle());
         root = new HashMap<>();
         root.put("movie", movie);
 
-        output = engine.transform(detailTemplate, root);
-        Utils.writeStringToFile(detailsExportFile, output);
-
+        // rendered in the export pool
+        submitTransformToFile(detailTemplate, root, detailsExportFile);
       }
-
-      LOGGER.info("movie detail pages generated: {}", exportDir);
     }
 
+    // wait for the detail pages/artwork and copy all non .jtme/template.conf files to destination dir
+    finishExport();
     if (cancel) {
       return;
     }
 
-    // copy all non .jtme/template.conf files to destination dir
-    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(templateDir)) {
-      for (Path path : directoryStream) {
-        if (Utils.isRegularFile(path)) {
-          if (path.getFileName().toString().endsWith(".jmte") || path.getFileName().toString().endsWith("template.conf")) {
-            continue;
-          }
-          Files.copy(path, exportDir.resolve(path.getFileName()), StandardCopyOption.REPLACE_EXISTING);
-        }
-        else if (Files.isDirectory(path)) {
-          Utils.copyDirectoryRecursive(path, exportDir.resolve(path.getFileName()));
-        }
-      }
-    }
-    catch (IOException ex) {
-      LOGGER.error("could not copy resources: ", ex);
-    }
+    LOGGER.info("movie detail pages generated: {}", exportDir);
+  }
+
+  @Override
+  protected void registerRenderers(Engine engine, Path exportDir) {
+    engine.registerNamedRenderer(new NamedDateRenderer());
+    engine.registerNamedRenderer(new NamedNumberRenderer());
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+    engine.registerNamedRenderer(new NamedLowerCaseRenderer());
+    engine.registerNamedRenderer(new NamedTitleCaseRenderer());
+    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
+    engine.registerNamedRenderer(new MovieFilenameRenderer());
+    engine.registerNamedRenderer(new MovieArtworkCopyRenderer(this, exportDir));
+    engine.registerNamedRenderer(new NamedFilesizeRenderer());
+    engine.registerNamedRenderer(new NamedReplacementRenderer());
   }
 
   private static String getMovieFilename(Movie movie) {
@@ -284,8 +266,8 @@ public class MovieExporter extends MediaEntityExporter {
    */
   private static class MovieArtworkCopyRenderer extends ArtworkCopyRenderer {
 
-    public MovieArtworkCopyRenderer(Path pathToExport) {
-      super(pathToExport);
+    public MovieArtworkCopyRenderer(MediaEntityExporter exporter, Path pathToExport) {
+      super(exporter, pathToExport);
     }
 
     @Override
@@ -300,7 +282,7 @@ public class MovieExporter extends MediaEntityExporter {
         Map<String, Object> parameters = parseParameters(pattern);
 
         MediaFile mf = movie.getArtworkMap().get(parameters.get("type"));
-        if (mf == null || !mf.isGraphic()) {
+        if (mf == null || !mf.isGraphic() || !isCopyable(mf)) {
           if (StringUtils.isNotBlank((String) parameters.get("default"))) {
             return (String) parameters.get("default");
           }
@@ -316,33 +298,19 @@ public class MovieExporter extends MediaEntityExporter {
         else {
           imageDir = pathToExport;
         }
-        try {
-          // create the image dir
-          if (!Files.exists(imageDir)) {
-            Files.createDirectory(imageDir);
-          }
 
-          // we need to rescale the image; scale factor is fixed to
-          if (parameters.get("thumb") == Boolean.TRUE) {
-            filename += ".thumb." + FilenameUtils.getExtension(mf.getFilename());
-            int width = 150;
-            if (parameters.get("width") != null) {
-              width = (int) parameters.get("width");
-            }
-            InputStream is = ImageUtils.scaleImage(mf.getFileAsPath(), width);
-            Files.copy(is, imageDir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
-          }
-          else {
-            filename += "." + FilenameUtils.getExtension(mf.getFilename());
-            Files.copy(mf.getFileAsPath(), imageDir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+        // we need to rescale the image; scale factor is fixed to
+        if (parameters.get("thumb") == Boolean.TRUE) {
+          filename += ".thumb." + FilenameUtils.getExtension(mf.getFilename());
+          int width = 150;
+          if (parameters.get("width") != null) {
+            width = (int) parameters.get("width");
           }
+          copyArtwork(mf.getFileAsPath(), imageDir.resolve(filename), width);
         }
-        catch (Exception e) {
-          LOGGER.error("could not copy artwork file: ", e);
-          if (StringUtils.isNotBlank((String) parameters.get("default"))) {
-            return (String) parameters.get("default");
-          }
-          return ""; // pass an emtpy string to prevent movie.toString() gets triggered by jmte
+        else {
+          filename += "." + FilenameUtils.getExtension(mf.getFilename());
+          copyArtwork(mf.getFileAsPath(), imageDir.resolve(filename), 0);
         }
 
         if (parameters.get("escape") == Boolean.TRUE) {
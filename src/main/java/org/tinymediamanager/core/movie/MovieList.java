@@ -45,13 +45,15 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
-import org.h2.mvstore.MVMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.AbstractModelObject;
 import org.tinymediamanager.core.Constants;
+import org.tinymediamanager.core.DatabaseLoader;
 import org.tinymediamanager.core.FeatureNotEnabledException;
 import org.tinymediamanager.core.MediaCertification;
+import org.tinymediamanager.core.MediaEntityIndex;
+import org.tinymediamanager.core.MediaEntityMap;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.MediaSource;
 import org.tinymediamanager.core.Message;
@@ -76,9 +78,6 @@ import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 import org.tinymediamanager.scraper.util.ListUtils;
 import org.tinymediamanager.scraper.util.MetadataUtil;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
-
 import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.GlazedLists;
 import ca.odell.glazedlists.ObservableElementList;
@@ -95,6 +94,8 @@ public class MovieList extends AbstractModelObject {
   private final MovieSettings                            movieSettings;
   private final List<Movie>                              movieList;
   private final List<MovieSet>                           movieSetList;
+  private final MediaEntityIndex<Movie>                  movieIndex;
+  private final MediaEntityIndex<MovieSet>               movieSetIndex;
 
   private final CopyOnWriteArrayList<Integer>            yearsInMovies;
   private final CopyOnWriteArrayList<String>             tagsInMovies;
@@ -123,6 +124,10 @@ public class MovieList extends AbstractModelObject {
     movieList = new ObservableElementList<>(GlazedLists.threadSafeList(new BasicEventList<>()), GlazedLists.beanConnector(Movie.class));
     movieSetList = new ObservableCopyOnWriteArrayList<>();
 
+    // lookup tables by id (and path)
+    movieIndex = new MediaEntityIndex<>(movie -> Collections.singletonList(movie.getPathNIO()));
+    movieSetIndex = new MediaEntityIndex<>();
+
     yearsInMovies = new CopyOnWriteArrayList<>();
     tagsInMovies = new CopyOnWriteArrayList<>();
     genresInMovies = new CopyOnWriteArrayList<>();
@@ -209,6 +214,7 @@ public class MovieList extends AbstractModelObject {
     if (!movieList.contains(movie)) {
       int oldValue = movieList.size();
       movieList.add(movie);
+      movieIndex.add(movie);
 
       updateLists(Collections.singletonList(movie));
       movie.addPropertyChangeListener(movieListener);
@@ -323,6 +329,7 @@ public class MovieList extends AbstractModelObject {
     for (int i = movies.size() - 1; i >= 0; i--) {
       Movie movie = movies.get(i);
       movieList.remove(movie);
+      movieIndex.remove(movie);
       if (movie.getMovieSet() != null) {
         MovieSet movieSet = movie.getMovieSet();
 
@@ -360,6 +367,7 @@ public class MovieList extends AbstractModelObject {
       Movie movie = movies.get(i);
       movie.deleteFilesSafely();
       movieList.remove(movie);
+      movieIndex.remove(movie);
       if (movie.getMovieSet() != null) {
         MovieSet movieSet = movie.getMovieSet();
         movieSet.removeMovie(movie, false);
@@ -390,77 +398,82 @@ public class MovieList extends AbstractModelObject {
   /**
    * Load movies from database.
    */
-  void loadMoviesFromDatabase(MVMap<UUID, String> movieMap, ObjectMapper objectMapper) {
+  void loadMoviesFromDatabase(MediaEntityMap<Movie> movieMap) {
     // load movies
-    ObjectReader movieObjectReader = objectMapper.readerFor(Movie.class);
-
-    for (UUID uuid : new ArrayList<>(movieMap.keyList())) {
-      String json = "";
-      try {
-        json = movieMap.get(uuid);
-        Movie movie = movieObjectReader.readValue(json);
-        movie.setDbId(uuid);
-
-        // sanity check: only movies with a video file are valid
-        if (movie.getMediaFiles(MediaFileType.VIDEO).isEmpty()) {
-          // no video file? drop it
-          LOGGER.info("movie \"{}\" without video file - dropping", movie.getTitle());
-          movieMap.remove(uuid);
-        }
+    DatabaseLoader<Movie> loader = new DatabaseLoader<>("movie", movieMap);
+    List<Movie> movies = loader.load();
 
-        // for performance reasons we add movies directly
-        movieList.add(movie);
-      }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding movie json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt movie: {}", json);
-        movieMap.remove(uuid);
+    for (Movie movie : movies) {
+      // sanity check: only movies with a video file are valid
+      if (movie.getMediaFiles(MediaFileType.VIDEO).isEmpty()) {
+        // no video file? drop it
+        LOGGER.info("movie \"{}\" without video file - dropping", movie.getTitle());
+        movieMap.remove(movie.getDbId());
       }
     }
+
+    // drop corrupt movies
+    for (UUID uuid : loader.getCorruptEntries()) {
+      movieMap.remove(uuid);
+    }
+
+    // for performance reasons we add movies directly
+    movieList.addAll(movies);
+    movieIndex.addAll(movies);
+
     LOGGER.info("found {} movies in database", movieList.size());
+    LOGGER.info("startup timing movies - load: {} ms (read: {} ms, decode: {} ms)", loader.getWallTime(), loader.getReadTime(),
+        loader.getDecodeTime());
   }
 
-  void loadMovieSetsFromDatabase(MVMap<UUID, String> movieSetMap, ObjectMapper objectMapper) {
+  void loadMovieSetsFromDatabase(MediaEntityMap<MovieSet> movieSetMap) {
     // load movie sets
-    ObjectReader movieSetObjectReader = objectMapper.readerFor(MovieSet.class);
+    DatabaseLoader<MovieSet> loader = new DatabaseLoader<>("movie set", movieSetMap);
 
-    for (UUID uuid : new ArrayList<>(movieSetMap.keyList())) {
-      try {
-        MovieSet movieSet = movieSetObjectReader.readValue(movieSetMap.get(uuid));
-        movieSet.setDbId(uuid);
-        // for performance reasons we add movies sets directly
-        movieSetList.add(movieSet);
-      }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding movie set json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt movie set");
-        movieSetMap.remove(uuid);
-      }
+    // for performance reasons we add movies sets directly
+    List<MovieSet> movieSets = loader.load();
+    movieSetList.addAll(movieSets);
+    movieSetIndex.addAll(movieSets);
+
+    // drop corrupt movie sets
+    for (UUID uuid : loader.getCorruptEntries()) {
+      movieSetMap.remove(uuid);
     }
 
     LOGGER.info("found {} movieSets in database", movieSetList.size());
+    LOGGER.info("startup timing movie sets - load: {} ms (read: {} ms, decode: {} ms)", loader.getWallTime(), loader.getReadTime(),
+        loader.getDecodeTime());
   }
 
   void initDataAfterLoading() {
+    long start = System.currentTimeMillis();
+
     // remove invalid movies which have no VIDEO files
     checkAndCleanupMediaFiles();
 
     // initialize movies/movie sets (e.g. link with each others)
     // updateLists is slow here calling for a bunch of movies, so we do the work directly
-    for (Movie movie : movieList) {
-      movie.initializeAfterLoading();
+    List<Movie> movies = new ArrayList<>(movieList);
+    DatabaseLoader.forEachParallel(movies, Movie::initializeAfterLoading);
+    DatabaseLoader.forEachParallel(new ArrayList<>(movieSetList), MovieSet::initializeAfterLoading);
+
+    for (Movie movie : movies) {
       movie.addPropertyChangeListener(movieListener);
     }
 
-    updateLists(movieList);
+    long link = System.currentTimeMillis();
 
-    for (MovieSet movieSet : movieSetList) {
-      movieSet.initializeAfterLoading();
-    }
+    updateLists(movies);
+
+    long end = System.currentTimeMillis();
+    LOGGER.info("startup timing movies - link: {} ms, index: {} ms", link - start, end - link);
   }
 
   public void persistMovie(Movie movie) {
-    // remove this movie from the database
+    // the path may have been changed (rename, change of the data source, ..)
+    movieIndex.reindex(movie);
+
+    // persist this movie to the database
     try {
       MovieModuleManager.getInstance().persistMovie(movie);
     }
@@ -500,21 +513,11 @@ public class MovieList extends AbstractModelObject {
   }
 
   public MovieSet lookupMovieSet(UUID uuid) {
-    for (MovieSet movieSet : movieSetList) {
-      if (movieSet.getDbId().equals(uuid)) {
-        return movieSet;
-      }
-    }
-    return null;
+    return movieSetIndex.get(uuid);
   }
 
   public Movie lookupMovie(UUID uuid) {
-    for (Movie movie : movieList) {
-      if (movie.getDbId().equals(uuid)) {
-        return movie;
-      }
-    }
-    return null;
+    return movieIndex.get(uuid);
   }
 
   /**
@@ -524,16 +527,12 @@ public class MovieList extends AbstractModelObject {
    *          the path
    * @return the movie by path
    */
-  public synchronized Movie getMovieByPath(Path path) {
-
-    for (Movie movie : movieList) {
-      if (movie.getPathNIO().compareTo(path.toAbsolutePath()) == 0) {
-        LOGGER.debug("Ok, found already existing movie '{}' in DB (path: {})", movie.getTitle(), path);
-        return movie;
-      }
+  public Movie getMovieByPath(Path path) {
+    Movie movie = movieIndex.getByPath(path);
+    if (movie != null) {
+      LOGGER.debug("Ok, found already existing movie '{}' in DB (path: {})", movie.getTitle(), path);
     }
-
-    return null;
+    return movie;
   }
 
   /**
@@ -543,14 +542,19 @@ public class MovieList extends AbstractModelObject {
    *          the path
    * @return the movie list
    */
-  public synchronized List<Movie> getMoviesByPath(Path path) {
-    ArrayList<Movie> movies = new ArrayList<>();
-    for (Movie movie : movieList) {
-      if (movie.getPathNIO().compareTo(path) == 0) {
-        movies.add(movie);
-      }
-    }
-    return movies;
+  public List<Movie> getMoviesByPath(Path path) {
+    return movieIndex.getAllByPath(path);
+  }
+
+  /**
+   * check whether the lookup tables are consistent with the movie/movie set lists
+   *
+   * @return a list of all found inconsistencies (empty if everything is fine)
+   */
+  List<String> checkIndexConsistency() {
+    List<String> problems = new ArrayList<>(movieIndex.checkConsistency(new ArrayList<>(movieList)));
+    problems.addAll(movieSetIndex.checkConsistency(movieSetList));
+    return problems;
   }
 
   /**
@@ -1193,6 +1197,7 @@ public class MovieList extends AbstractModelObject {
   public void addMovieSet(MovieSet movieSet) {
     int oldValue = movieSetList.size();
     this.movieSetList.add(movieSet);
+    movieSetIndex.add(movieSet);
     movieSet.addPropertyChangeListener(movieSetListener);
     firePropertyChange(Constants.ADDED_MOVIE_SET, null, movieSet);
     firePropertyChange("movieSetCount", oldValue, movieSetList.size());
@@ -1214,6 +1219,7 @@ public class MovieList extends AbstractModelObject {
       // remove artwork
       MovieSetArtworkHelper.removeMovieSetArtwork(movieSet);
       movieSetList.remove(movieSet);
+      movieSetIndex.remove(movieSet);
       MovieModuleManager.getInstance().removeMovieSetFromDb(movieSet);
     }
     catch (Exception e) {
@@ -1340,7 +1346,7 @@ public class MovieList extends AbstractModelObject {
 
     // create the stub file
     try {
-      Files.createDirectory(stubFolder);
+      Utils.createDirectory(stubFolder);
       Files.createFile(stubFile);
     }
     catch (IOException e) {
@@ -19,30 +19,27 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.TimeZone;
-import java.util.UUID;
 
-import org.apache.commons.lang3.StringUtils;
-import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
 import org.tinymediamanager.core.Constants;
-import org.tinymediamanager.core.CustomNullStringSerializerProvider;
+import org.tinymediamanager.core.DatabaseCodec;
+import org.tinymediamanager.core.DatasourceWatcher;
+import org.tinymediamanager.core.DirectoryJournal;
 import org.tinymediamanager.core.ITmmModule;
-import org.tinymediamanager.core.NullKeySerializer;
+import org.tinymediamanager.core.MediaEntityMap;
+import org.tinymediamanager.core.PersistenceService;
 import org.tinymediamanager.core.Settings;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.movie.entities.Movie;
 import org.tinymediamanager.core.movie.entities.MovieSet;
+import org.tinymediamanager.core.movie.tasks.MovieUpdateDatasourceTask;
 
-import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
  * The class MovieModuleManager. Used to manage the movies module
@@ -51,22 +48,26 @@ import com.fasterxml.jackson.databind.ObjectWriter;
  */
 public class MovieModuleManager implements ITmmModule {
   
-  public static final MovieSettings   SETTINGS     = MovieSettings.getInstance();
+  public static final MovieSettings SETTINGS              = MovieSettings.getInstance();
 
-  private static final String         MODULE_TITLE = "Movie management";
-  private static final String         MOVIE_DB     = "movies.db";
-  private static final Logger         LOGGER       = LoggerFactory.getLogger(MovieModuleManager.class);
-  private static MovieModuleManager   instance;
+  private static final String       MODULE_TITLE          = "Movie management";
+  private static final String       MOVIE_DB              = "movies.db";
+  private static final String       MOVIE_MAP             = "movies";
+  private static final String       MOVIE_SET_MAP         = "movieSets";
+  private static final String       DIRECTORY_JOURNAL_MAP = "directoryJournal";
+  private static final Logger       LOGGER                = LoggerFactory.getLogger(MovieModuleManager.class);
+  private static MovieModuleManager instance;
 
-  private boolean                     enabled;
-  private MVStore                     mvStore;
-  private ObjectWriter                movieObjectWriter;
-  private ObjectWriter                movieSetObjectWriter;
+  private boolean                   enabled;
+  private MVStore                   mvStore;
 
-  private MVMap<UUID, String>         movieMap;
-  private MVMap<UUID, String>         movieSetMap;
+  private MediaEntityMap<Movie>     movieMap;
+  private MediaEntityMap<MovieSet>  movieSetMap;
+  private PersistenceService        persistenceService;
+  private DirectoryJournal          directoryJournal;
+  private DatasourceWatcher         datasourceWatcher;
 
-  private List<String>                startupMessages;
+  private List<String>              startupMessages;
 
   private MovieModuleManager() {
     enabled = false;
@@ -118,32 +119,31 @@ public class MovieModuleManager implements ITmmModule {
     mvStore.setReuseSpace(true);
     mvStore.setCacheSize(8);
 
-    // configure JSON
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
-    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    objectMapper.setTimeZone(TimeZone.getDefault());
-    objectMapper.setSerializationInclusion(Include.NON_DEFAULT);
-    objectMapper.setSerializerProvider(new CustomNullStringSerializerProvider());
-    objectMapper.getSerializerProvider().setNullKeySerializer(new NullKeySerializer());
-
-    movieObjectWriter = objectMapper.writerFor(Movie.class);
-    movieSetObjectWriter = objectMapper.writerFor(MovieSet.class);
-
-    movieMap = mvStore.openMap("movies");
-    movieSetMap = mvStore.openMap("movieSets");
-
-    MovieList.getInstance().loadMoviesFromDatabase(movieMap, objectMapper);
-    MovieList.getInstance().loadMovieSetsFromDatabase(movieSetMap, objectMapper);
+    // configure the codec (and migrate the existing data if needed)
+    DatabaseCodec codec = Settings.getInstance().getDatabaseCodec();
+    MediaEntityMap.migrate(mvStore, codec, MOVIE_MAP, MOVIE_SET_MAP);
+
+    ObjectMapper objectMapper = codec.createObjectMapper();
+    movieMap = new MediaEntityMap<>(mvStore, MOVIE_MAP, Movie.class, objectMapper);
+    movieSetMap = new MediaEntityMap<>(mvStore, MOVIE_SET_MAP, MovieSet.class, objectMapper);
+    persistenceService = new PersistenceService("movie", mvStore);
+    directoryJournal = new DirectoryJournal(mvStore, DIRECTORY_JOURNAL_MAP);
+
+    MovieList.getInstance().loadMoviesFromDatabase(movieMap);
+    MovieList.getInstance().loadMovieSetsFromDatabase(movieSetMap);
     MovieList.getInstance().initDataAfterLoading();
     enabled = true;
   }
 
   @Override
   public void shutDown() throws Exception {
+    if (datasourceWatcher != null) {
+      datasourceWatcher.stop();
+    }
+
+    // write all pending changes before closing the database
+    persistenceService.shutdown();
+
     mvStore.compactMoveChunks();
     mvStore.close();
 
@@ -169,9 +169,10 @@ public class MovieModuleManager implements ITmmModule {
    *          the movie to make the dump for
    */
   public void dump(Movie movie) {
+    flush();
     try {
       ObjectMapper mapper = new ObjectMapper();
-      Object json = mapper.readValue(movieMap.get(movie.getDbId()), Object.class);
+      JsonNode json = movieMap.readTree(movie.getDbId());
       String s = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
       LOGGER.info("Dumping Movie: {}\n{}", movie.getDbId(), s);
     }
@@ -187,9 +188,10 @@ public class MovieModuleManager implements ITmmModule {
    *          the movieset to make the dump for
    */
   public void dump(MovieSet movieSet) {
+    flush();
     try {
       ObjectMapper mapper = new ObjectMapper();
-      Object json = mapper.readValue(movieSetMap.get(movieSet.getDbId()), Object.class);
+      JsonNode json = movieSetMap.readTree(movieSet.getDbId());
       String s = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
       LOGGER.info("Dumping MovieSet: {}\n{}", movieSet.getDbId(), s);
     }
@@ -198,30 +200,72 @@ public class MovieModuleManager implements ITmmModule {
     }
   }
 
-  void persistMovie(Movie movie) throws Exception {
-    String newValue = movieObjectWriter.writeValueAsString(movie);
-    String oldValue = movieMap.get(movie.getDbId());
+  /**
+   * get the journal of the directory fingerprints of the movie data sources (used for the incremental update of the data sources)
+   *
+   * @return the {@link DirectoryJournal} or null if the module has not been started
+   */
+  public DirectoryJournal getDirectoryJournal() {
+    return directoryJournal;
+  }
 
-    if (!StringUtils.equals(newValue, oldValue)) {
-      // write movie to DB
-      movieMap.put(movie.getDbId(), newValue);
+  /**
+   * start watching the movie data sources for changes (if enabled in the settings). Changes of the settings are tracked afterwards
+   */
+  public synchronized void startDatasourceWatcher() {
+    if (datasourceWatcher != null) {
+      return;
     }
+
+    datasourceWatcher = new DatasourceWatcher("movie", MovieUpdateDatasourceTask::new, directoryJournal);
+    SETTINGS.addPropertyChangeListener(evt -> {
+      switch (evt.getPropertyName()) {
+        case Constants.WATCH_DATASOURCES:
+        case Constants.DATA_SOURCE:
+          updateDatasourceWatcher();
+          break;
+
+        default:
+          break;
+      }
+    });
+    updateDatasourceWatcher();
   }
 
-  void removeMovieFromDb(Movie movie) {
-    movieMap.remove(movie.getDbId());
+  private synchronized void updateDatasourceWatcher() {
+    if (enabled && SETTINGS.isWatchDatasources()) {
+      datasourceWatcher.setDatasources(SETTINGS.getMovieDataSource());
+      datasourceWatcher.start();
+    }
+    else {
+      datasourceWatcher.stop();
+    }
   }
 
-  void persistMovieSet(MovieSet movieSet) throws Exception {
-    String newValue = movieSetObjectWriter.writeValueAsString(movieSet);
-    String oldValue = movieSetMap.get(movieSet.getDbId());
-    if (!StringUtils.equals(newValue, oldValue)) {
-      movieSetMap.put(movieSet.getDbId(), newValue);
+  /**
+   * blocks until all pending changes of movies/movie sets have been written to the database
+   */
+  public void flush() {
+    if (persistenceService != null) {
+      persistenceService.flush();
     }
   }
 
+  void persistMovie(Movie movie) {
+    // queued for the background writer; only written to the DB if something changed
+    persistenceService.persist(movieMap, movie);
+  }
+
+  void removeMovieFromDb(Movie movie) {
+    persistenceService.remove(movieMap, movie.getDbId());
+  }
+
+  void persistMovieSet(MovieSet movieSet) {
+    persistenceService.persist(movieSetMap, movieSet);
+  }
+
   void removeMovieSetFromDb(MovieSet movieSet) {
-    movieSetMap.remove(movieSet.getDbId());
+    persistenceService.remove(movieSetMap, movieSet.getDbId());
   }
 
   @Override
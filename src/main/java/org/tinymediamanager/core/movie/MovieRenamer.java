@@ -48,7 +48,7 @@ import org.tinymediamanager.core.MessageManager;
 import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.entities.MediaFileSubtitle;
-import org.tinymediamanager.core.jmte.JmteUtils;
+import org.tinymediamanager.core.jmte.JmteTemplateEngine;
 import org.tinymediamanager.core.jmte.NamedArrayRenderer;
 import org.tinymediamanager.core.jmte.NamedDateRenderer;
 import org.tinymediamanager.core.jmte.NamedFilesizeRenderer;
@@ -96,6 +96,7 @@ public class MovieRenamer {
   private static final Pattern             YEAR_ID_PATTERN             = Pattern.compile("\\$\\{.*?(year|imdb|tmdb).*?\\}", Pattern.CASE_INSENSITIVE);
 
   private static final Map<String, String> TOKEN_MAP                   = createTokenMap();
+  private static final JmteTemplateEngine  TEMPLATE_ENGINE             = createTemplateEngine();
 
   private MovieRenamer() {
     throw new IllegalAccessError();
@@ -399,7 +400,7 @@ public class MovieRenamer {
           LOGGER.trace("Upgrading movie into it's own dir :) - {}", newPathname);
           if (!Files.exists(destDir)) {
             try {
-              Files.createDirectories(destDir);
+              Utils.createDirectories(destDir);
             }
             catch (Exception e) {
               LOGGER.error("Could not create destination '{}' - NOT renaming folder ('upgrade' movie)", destDir);
@@ -425,7 +426,7 @@ public class MovieRenamer {
           LOGGER.trace("New movie path is a MMD :( - {}", newPathname);
           if (!Files.exists(destDir)) { // if existent, all is good -> MMD (FIXME: kinda, we *might* have another full movie in there)
             try {
-              Files.createDirectories(destDir);
+              Utils.createDirectories(destDir);
             }
             catch (Exception e) {
               LOGGER.error("Could not create destination '{}' - NOT renaming folder ('MMD' movie)", destDir);
@@ -689,7 +690,7 @@ public class MovieRenamer {
           if (!directoryStream.iterator().hasNext()) {
             // no iterator = empty
             LOGGER.debug("Deleting empty Directory {}", cl.getFileAsPath().getParent());
-            Files.delete(cl.getFileAsPath().getParent()); // do not use recursive her
+            Utils.deleteEmptyDirectory(cl.getFileAsPath().getParent()); // do not use recursive her
           }
         }
         catch (IOException e) {
@@ -1039,7 +1040,7 @@ public class MovieRenamer {
                 folder = newMovieDir.resolve("extrafanart");
                 try {
                   if (!folder.toFile().exists()) {
-                    Files.createDirectory(folder);
+                    Utils.createDirectory(folder);
                   }
                 }
                 catch (IOException e) {
@@ -1157,8 +1158,6 @@ public class MovieRenamer {
    */
   public static String getTokenValue(Movie movie, String token) {
     try {
-      Engine engine = createEngine();
-      engine.setModelAdaptor(new MovieRenamerModelAdaptor());
       Map<String, Object> root = new HashMap<>();
       root.put("movie", movie);
 
@@ -1168,7 +1167,7 @@ public class MovieRenamer {
         root.put("movieSet", movie.getMovieSet());
       }
 
-      return engine.transform(JmteUtils.morphTemplate(token, TOKEN_MAP), root);
+      return TEMPLATE_ENGINE.transform(token, root);
     }
     catch (Exception e) {
       LOGGER.warn("unable to process token: {}", token);
@@ -1196,6 +1195,17 @@ public class MovieRenamer {
     return engine;
   }
 
+  /**
+   * create the shared {@link JmteTemplateEngine} for the renamer (the {@link Engine} from {@link #createEngine()} with the renamer model adaptor)
+   *
+   * @return the template engine
+   */
+  private static JmteTemplateEngine createTemplateEngine() {
+    Engine engine = createEngine();
+    engine.setModelAdaptor(new MovieRenamerModelAdaptor());
+    return new JmteTemplateEngine(engine, TOKEN_MAP);
+  }
+
   /**
    * Creates the new file/folder name according to template string
    * 
@@ -1299,7 +1309,7 @@ public class MovieRenamer {
     try {
       // create parent if needed
       if (!Files.exists(newFilename.getParent())) {
-        Files.createDirectory(newFilename.getParent());
+        Utils.createDirectory(newFilename.getParent());
       }
       boolean ok = Utils.moveFileSafe(oldFilename, newFilename);
       if (ok) {
@@ -1338,7 +1348,7 @@ public class MovieRenamer {
       try {
         // create parent if needed
         if (!Files.exists(newFilename.getParent())) {
-          Files.createDirectory(newFilename.getParent());
+          Utils.createDirectory(newFilename.getParent());
         }
         Utils.copyFileSafe(oldFilename, newFilename, true);
         return true;
@@ -15,8 +15,6 @@
  */
 package org.tinymediamanager.core.movie;
 
-import java.io.ByteArrayInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
@@ -205,7 +203,7 @@ public class MovieSetArtworkHelper {
         try {
           if ((artworkFolder != null && !artworkFolder.equals(cl.getFile().getParent())) && Utils.isFolderEmpty(cl.getFile().getParent())) {
             LOGGER.debug("Deleting empty Directory {}", cl.getFileAsPath().getParent());
-            Files.delete(cl.getFileAsPath().getParent()); // do not use recursive her
+            Utils.deleteEmptyDirectory(cl.getFileAsPath().getParent()); // do not use recursive her
           }
         }
         catch (IOException e) {
@@ -881,7 +879,7 @@ public class MovieSetArtworkHelper {
         // check if folder exists
         if (!Files.exists(path.getParent())) {
           try {
-            Files.createDirectories(path.getParent());
+            Utils.createDirectories(path.getParent());
           }
           catch (IOException e) {
             LOGGER.warn("could not create directory '{}' - {} ", path.getParent(), e.getMessage());
@@ -890,7 +888,7 @@ public class MovieSetArtworkHelper {
 
         // write files
         try {
-          writeImage(bytes, path);
+          Utils.writeBytesToFile(path, bytes);
 
           MediaFile artwork = new MediaFile(path, type);
           artwork.gatherMediaInformation();
@@ -923,7 +921,7 @@ public class MovieSetArtworkHelper {
           try {
             if (!movie.isMultiMovieDir()) {
               Path imageFile = movie.getPathNIO().resolve(filename);
-              writeImage(bytes, imageFile);
+              Utils.writeBytesToFile(imageFile, bytes);
 
               MediaFile artwork = new MediaFile(imageFile, type);
               artwork.gatherMediaInformation();
@@ -941,30 +939,14 @@ public class MovieSetArtworkHelper {
     }
 
     private void writeImageToCacheFolder(byte[] bytes) {
-      String filename = ImageCache.getMD5WithSubfolder(urlToArtwork);
-
       try {
-        writeImage(bytes, ImageCache.getCacheDir().resolve(filename + ".jpg"));
+        // through the image cache to get it indexed (quota and lookup)
+        ImageCache.cacheImage(urlToArtwork, bytes);
       }
       catch (Exception e) {
         LOGGER.warn("error in image fetcher", e);
       }
     }
-
-    private void writeImage(byte[] bytes, Path pathAndFilename) throws IOException {
-      FileOutputStream outputStream = new FileOutputStream(pathAndFilename.toFile());
-      InputStream is = new ByteArrayInputStream(bytes);
-      IOUtils.copy(is, outputStream);
-      outputStream.flush();
-      try {
-        outputStream.getFD().sync(); // wait until file has been completely written
-      }
-      catch (Exception e) {
-        // empty here -> just not let the thread crash
-      }
-      outputStream.close();
-      is.close();
-    }
   }
 
   /**
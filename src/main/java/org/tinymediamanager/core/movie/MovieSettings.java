@@ -162,6 +162,7 @@ public class MovieSettings extends AbstractSettings {
   // renamer
   private boolean                                renameAfterScrape                      = false;
   private boolean                                updateOnStart                          = false;
+  private boolean                                watchDatasources                       = false;
   private String                                 renamerPathname                        = DEFAULT_RENAMER_FOLDER_PATTERN;
   private String                                 renamerFilename                        = DEFAULT_RENAMER_FILE_PATTERN;
   private boolean                                renamerPathnameSpaceSubstitution       = false;
@@ -804,6 +805,16 @@ public class MovieSettings extends AbstractSettings {
     firePropertyChange("updateOnStart", oldValue, newValue);
   }
 
+  public boolean isWatchDatasources() {
+    return this.watchDatasources;
+  }
+
+  public void setWatchDatasources(boolean newValue) {
+    boolean oldValue = this.watchDatasources;
+    this.watchDatasources = newValue;
+    firePropertyChange(Constants.WATCH_DATASOURCES, oldValue, newValue);
+  }
+
   public String getRenamerPathnameSpaceReplacement() {
     return renamerPathnameSpaceReplacement;
   }
@@ -212,6 +212,10 @@ public class MovieSet extends MediaEntity {
     // we did not find an image - get the cached file from the url
     if (StringUtils.isBlank(artworkFilename)) {
       Path cachedFile = ImageCache.getCachedFile(getArtworkUrl(type));
+      if (cachedFile != null && !cachedFile.toFile().exists() && ImageCache.invalidateCachedFile(cachedFile)) {
+        // the cached file has been removed outside of tmm - cache it again
+        cachedFile = ImageCache.getCachedFile(getArtworkUrl(type));
+      }
       if (cachedFile != null && cachedFile.toFile().exists()) {
         return cachedFile.toAbsolutePath().toString();
       }
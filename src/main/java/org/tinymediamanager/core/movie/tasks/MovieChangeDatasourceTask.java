@@ -129,7 +129,7 @@ public class MovieChangeDatasourceTask extends TmmThreadPool {
 
       try {
         if (!Files.exists(destDir)) {
-          Files.createDirectories(destDir);
+          Utils.createDirectories(destDir);
         }
         else {
           LOGGER.error("Directory already exists! '{}' - NOT renaming folder ('upgrade' movie)", destDir);
@@ -122,7 +122,7 @@ public class MovieExtraImageFetcherTask implements Runnable {
       folder = movie.getPathNIO().resolve("extrafanart");
       try {
         if (!folder.toFile().exists()) {
-          Files.createDirectory(folder);
+          Utils.createDirectory(folder);
         }
       }
       catch (IOException e) {
@@ -188,7 +188,7 @@ public class MovieExtraImageFetcherTask implements Runnable {
         Utils.deleteDirectorySafely(folder, movie.getDataSource());
         movie.removeAllMediaFiles(MediaFileType.EXTRATHUMB);
       }
-      Files.createDirectory(folder);
+      Utils.createDirectory(folder);
     }
     catch (IOException e) {
       LOGGER.error("could not create extrathumbs folder: {}", e.getMessage());
@@ -15,11 +15,18 @@
  */
 package org.tinymediamanager.core.movie.tasks;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.Message;
@@ -28,18 +35,20 @@ import org.tinymediamanager.core.MessageManager;
 import org.tinymediamanager.core.Settings;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.movie.MovieModuleManager;
 import org.tinymediamanager.core.movie.MovieRenamer;
 import org.tinymediamanager.core.movie.entities.Movie;
 import org.tinymediamanager.core.tasks.ImageCacheTask;
 import org.tinymediamanager.core.threading.TmmTaskManager;
 import org.tinymediamanager.core.threading.TmmThreadPool;
+import org.tinymediamanager.core.threading.VolumeTaskScheduler;
 
 /**
  * The Class MovieRenameTask.
  * 
  * @author Manuel Laggner
  */
-public class MovieRenameTask extends TmmThreadPool {
+public class MovieRenameTask extends TmmThreadPool implements VolumeTaskScheduler.Listener {
   private static final Logger         LOGGER = LoggerFactory.getLogger(MovieRenameTask.class);
   
 
@@ -59,23 +68,40 @@ public class MovieRenameTask extends TmmThreadPool {
   @Override
   protected void doInBackground() {
     try {
-      initThreadPool(1, "rename");
       start();
 
       List<MediaFile> imageFiles = new ArrayList<>();
 
-      // rename movies
-      for (Movie aMoviesToRename : moviesToRename) {
+      // movies which would be renamed to the same destination must not be touched at all
+      Map<Movie, Path> destinations = new HashMap<>();
+      for (Movie movie : moviesToRename) {
+        destinations.put(movie, getDestinationFolder(movie));
+      }
+      Set<Movie> conflicts = findConflicts(destinations);
+
+      VolumeTaskScheduler scheduler = new VolumeTaskScheduler("rename", Settings.getInstance().getRenamerThreadsPerVolume());
+      for (Movie movie : moviesToRename) {
         if (cancel) {
           break;
         }
 
-        submitTask(new RenameMovieTask(aMoviesToRename));
+        if (conflicts.contains(movie)) {
+          LOGGER.warn("not renaming movie '{}' - the destination is used by another movie", movie.getTitle());
+          MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, movie, "message.renamer.destinationconflict",
+              new String[] { destinations.get(movie).toString() }));
+          continue;
+        }
+
+        // movies in the same source or destination folder are renamed one after another
+        scheduler.add(Paths.get(movie.getDataSource()), new RenameMovieTask(movie), movie.getPathNIO().toAbsolutePath().toString(),
+            destinations.get(movie).toString());
 
         // remember all image files
-        imageFiles.addAll(aMoviesToRename.getMediaFiles().stream().filter(MediaFile::isGraphic).collect(Collectors.toList()));
+        imageFiles.addAll(movie.getMediaFiles().stream().filter(MediaFile::isGraphic).collect(Collectors.toList()));
       }
-      waitForCompletionOrCancel();
+
+      setWorkUnits(scheduler.size());
+      scheduler.run(this, () -> cancel);
       if (cancel) {
         return;
       }
@@ -94,6 +120,65 @@ public class MovieRenameTask extends TmmThreadPool {
     }
   }
 
+  /**
+   * get the destination folder of the given movie (without renaming it)
+   *
+   * @param movie
+   *          the movie
+   * @return the absolute destination folder
+   */
+  private static Path getDestinationFolder(Movie movie) {
+    String pattern = MovieModuleManager.SETTINGS.getRenamerPathname();
+    if (StringUtils.isBlank(pattern) || StringUtils.isBlank(movie.getDataSource()) || StringUtils.isBlank(movie.getTitle())) {
+      return movie.getPathNIO().toAbsolutePath();
+    }
+
+    String newPathname = MovieRenamer.createDestinationForFoldername(pattern, movie);
+    if (newPathname.isEmpty()) {
+      return movie.getPathNIO().toAbsolutePath();
+    }
+    return Paths.get(movie.getDataSource(), newPathname).toAbsolutePath();
+  }
+
+  /**
+   * find all movies which would be renamed to the same destination (the same folder for single movie folders or the same video file in multi movie
+   * folders)
+   *
+   * @param destinations
+   *          the destination folders of all movies
+   * @return all conflicting movies
+   */
+  static Set<Movie> findConflicts(Map<Movie, Path> destinations) {
+    boolean multiMovieDestination = !MovieRenamer.isFolderPatternUnique(MovieModuleManager.SETTINGS.getRenamerPathname());
+
+    Map<Path, List<Movie>> moviesPerDestination = new HashMap<>();
+    for (Map.Entry<Movie, Path> entry : destinations.entrySet()) {
+      Movie movie = entry.getKey();
+      Path destination = entry.getValue();
+
+      // several movies in one (multi movie) folder: the video files must not clash
+      if (multiMovieDestination) {
+        String filename;
+        if (MovieRenamer.isFilePatternValid()) {
+          filename = MovieRenamer.createDestinationForFilename(MovieModuleManager.SETTINGS.getRenamerFilename(), movie);
+        }
+        else {
+          filename = movie.getMainVideoFile().getBasename();
+        }
+        destination = destination.resolve(filename);
+      }
+      moviesPerDestination.computeIfAbsent(destination, path -> new ArrayList<>()).add(movie);
+    }
+
+    Set<Movie> conflicts = new HashSet<>();
+    for (List<Movie> movies : moviesPerDestination.values()) {
+      if (movies.size() > 1) {
+        conflicts.addAll(movies);
+      }
+    }
+    return conflicts;
+  }
+
   /**
    * ThreadpoolWorker to work off ONE possible movie from root datasource directory
    * 
@@ -116,7 +201,21 @@ public class MovieRenameTask extends TmmThreadPool {
   }
 
   @Override
-  public void callback(Object obj) {
-    publishState((String) obj, progressDone);
+  public synchronized void callback(Object obj) {
+    publishState((String) obj, progressDone + 1);
+  }
+
+  @Override
+  public synchronized void taskFailed(Callable<Object> task, Exception e) {
+    Movie movie = ((RenameMovieTask) task).movie;
+    LOGGER.error("could not rename movie '{}' - {}", movie.getTitle(), e.getMessage());
+    MessageManager.instance
+        .pushMessage(new Message(MessageLevel.ERROR, movie, "message.renamer.failedrename", new String[] { ":", e.getLocalizedMessage() }));
+    publishState(movie.getTitle(), progressDone + 1);
+  }
+
+  @Override
+  public void taskFinished(Object result) {
+    callback(result);
   }
 }
@@ -16,8 +16,11 @@
 package org.tinymediamanager.core.movie.tasks;
 
 import java.awt.GraphicsEnvironment;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.SwingUtilities;
 
@@ -35,8 +38,9 @@ import org.tinymediamanager.core.movie.MovieModuleManager;
 import org.tinymediamanager.core.movie.MovieScraperMetadataConfig;
 import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
 import org.tinymediamanager.core.movie.entities.Movie;
+import org.tinymediamanager.core.threading.StagedPipeline;
+import org.tinymediamanager.core.threading.TmmTask;
 import org.tinymediamanager.core.threading.TmmTaskManager;
-import org.tinymediamanager.core.threading.TmmThreadPool;
 import org.tinymediamanager.scraper.ArtworkSearchAndScrapeOptions;
 import org.tinymediamanager.scraper.MediaMetadata;
 import org.tinymediamanager.scraper.MediaScraper;
@@ -50,16 +54,25 @@ import org.tinymediamanager.scraper.exceptions.ScrapeException;
 import org.tinymediamanager.scraper.interfaces.IMovieArtworkProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieTrailerProvider;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 import org.tinymediamanager.thirdparty.trakttv.MovieSyncTraktTvTask;
 import org.tinymediamanager.ui.movies.dialogs.MovieChooserDialog;
 
 /**
- * The Class MovieScrapeTask.
+ * The Class MovieScrapeTask. The movies are scraped in a pipeline: search, metadata, artwork lookup, trailer lookup and persistence (setting the
+ * data, writing the NFO and queueing the image downloads) are stages with an own amount of threads each, so the HTTP requests of different movies
+ * overlap.
  *
  * @author Manuel Laggner
  */
-public class MovieScrapeTask extends TmmThreadPool {
-  private static final Logger              LOGGER = LoggerFactory.getLogger(MovieScrapeTask.class);
+public class MovieScrapeTask extends TmmTask {
+  private static final Logger              LOGGER           = LoggerFactory.getLogger(MovieScrapeTask.class);
+
+  private static final int                 SEARCH_THREADS   = 2;
+  private static final int                 METADATA_THREADS = 3;
+  private static final int                 ARTWORK_THREADS  = 3;
+  private static final int                 TRAILER_THREADS  = 2;
+  private static final int                 PERSIST_THREADS  = 2;
 
   private List<Movie>                      moviesToScrape;
   private boolean                          doSearch;
@@ -69,7 +82,7 @@ public class MovieScrapeTask extends TmmThreadPool {
 
   public MovieScrapeTask(List<Movie> moviesToScrape, boolean doSearch, MovieSearchAndScrapeOptions options,
       List<MovieScraperMetadataConfig> metadataConfig) {
-    super(TmmResourceBundle.getString("movie.scraping"));
+    super(TmmResourceBundle.getString("movie.scraping"), 0, TaskType.MAIN_TASK);
     this.moviesToScrape = moviesToScrape;
     this.doSearch = doSearch;
     this.searchAndScrapeOptions = options;
@@ -83,15 +96,21 @@ public class MovieScrapeTask extends TmmThreadPool {
       return;
     }
 
-    initThreadPool(3, "scrape");
     start();
 
     smartScrapeList = new ArrayList<>(0);
 
+    StagedPipeline<ScrapeItem> pipeline = new StagedPipeline<ScrapeItem>("scrape").addStage("search", SEARCH_THREADS, guard(this::search))
+        .addStage("metadata", METADATA_THREADS, guard(this::scrapeMetadata))
+        .addStage("artwork", ARTWORK_THREADS, guard(this::scrapeArtwork))
+        .addStage("trailer", TRAILER_THREADS, guard(this::scrapeTrailers))
+        .addStage("persist", PERSIST_THREADS, guard(this::persist));
+
+    workUnits = moviesToScrape.size();
     for (Movie movie : moviesToScrape) {
-      submitTask(new Worker(movie));
+      pipeline.submit(new ScrapeItem(movie));
     }
-    waitForCompletionOrCancel();
+    waitForCompletionOrCancel(pipeline);
 
     // initiate smart scrape
     if (!smartScrapeList.isEmpty() && !GraphicsEnvironment.isHeadless()) {
@@ -135,204 +154,275 @@ public class MovieScrapeTask extends TmmThreadPool {
     LOGGER.info("Done scraping movies)");
   }
 
-  @Override
-  public void callback(Object obj) {
-    // do not publish task description here, because with different workers the text is never right
-    publishState(progressDone);
+  /**
+   * wait until all movies have passed the pipeline; the progress shows the statistics of every stage
+   */
+  private void waitForCompletionOrCancel(StagedPipeline<ScrapeItem> pipeline) {
+    try {
+      while (!pipeline.awaitCompletion(500, TimeUnit.MILLISECONDS)) {
+        if (cancel) {
+          LOGGER.info("Abort queue (discarding {} movies)", workUnits - pipeline.getFinishedCount());
+          pipeline.cancel();
+          break;
+        }
+        publishState(getStageStatistics(pipeline), pipeline.getFinishedCount());
+      }
+    }
+    catch (InterruptedException e) {
+      LOGGER.error("scrape pipeline interrupted!");
+      pipeline.cancel();
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      pipeline.shutdown();
+    }
+
+    for (StagedPipeline.StageStatistics statistics : pipeline.getStatistics()) {
+      LOGGER.debug("stage {} - done: {}, failed: {}, throughput: {} movies/s", statistics.getName(), statistics.getCompleted(),
+          statistics.getFailed(), String.format("%.1f", statistics.getThroughput()));
+    }
+    publishState("", pipeline.getFinishedCount());
+  }
+
+  /**
+   * one line per stage: queue length, running items and throughput
+   */
+  private String getStageStatistics(StagedPipeline<ScrapeItem> pipeline) {
+    List<String> lines = new ArrayList<>();
+    for (StagedPipeline.StageStatistics statistics : pipeline.getStatistics()) {
+      lines.add(MessageFormat.format(TmmResourceBundle.getString("task.stagestatistics"),
+          TmmResourceBundle.getString("movie.scrape.stage." + statistics.getName()), statistics.getQueued(), statistics.getActive(),
+          statistics.getCompleted(), String.format("%.1f", statistics.getThroughput())));
+    }
+    return String.join("\n", lines);
   }
 
   /****************************************************************************************
-   * Helper classes
+   * pipeline stages
    ****************************************************************************************/
-  private class Worker implements Runnable {
-    private MovieList   movieList;
-    private final Movie movie;
+  /**
+   * a crashing stage drops the movie and informs the user
+   */
+  private StagedPipeline.StageFunction<ScrapeItem> guard(StagedPipeline.StageFunction<ScrapeItem> stage) {
+    return item -> {
+      try {
+        return stage.process(item);
+      }
+      catch (Exception e) {
+        LOGGER.error("Thread crashed", e);
+        MessageManager.instance.pushMessage(
+            new Message(MessageLevel.ERROR, "MovieScraper", "message.scrape.threadcrashed", new String[] { ":", e.getLocalizedMessage() }));
+        return false;
+      }
+    };
+  }
 
-    public Worker(Movie movie) {
-      this.movie = movie;
+  private boolean search(ScrapeItem item) {
+    item.options = new MovieSearchAndScrapeOptions(searchAndScrapeOptions);
+    item.metadataScraper = searchAndScrapeOptions.getMetadataScraper();
+
+    if (!doSearch) {
+      // we didn't do a search - pass imdbid and tmdbid from movie object
+      item.options.setIds(item.movie.getIds());
+      return true;
     }
 
-    @Override
-    public void run() {
-      try {
-        movieList = MovieList.getInstance();
-        // set up scrapers
-        MediaScraper mediaMetadataScraper = searchAndScrapeOptions.getMetadataScraper();
-        List<MediaScraper> artworkScrapers = searchAndScrapeOptions.getArtworkScrapers();
-        List<MediaScraper> trailerScrapers = searchAndScrapeOptions.getTrailerScrapers();
-
-        // search movie
-        MediaSearchResult result1 = null;
-        if (doSearch) {
-          result1 = searchForMovie(mediaMetadataScraper);
-          if (result1 == null) {
-            // append this search request to the UI with search & scrape dialog
-            synchronized (smartScrapeList) {
-              smartScrapeList.add(movie);
-              return;
-            }
-          }
-        }
+    MediaSearchResult result = searchForMovie(item.movie, item.metadataScraper);
+    if (result == null) {
+      // append this search request to the UI with search & scrape dialog
+      synchronized (smartScrapeList) {
+        smartScrapeList.add(item.movie);
+      }
+      return false;
+    }
 
-        // get metadata, artwork and trailers
-        if ((doSearch && result1 != null) || !doSearch) {
-          MovieSearchAndScrapeOptions options = new MovieSearchAndScrapeOptions(searchAndScrapeOptions);
-          options.setSearchResult(result1);
-
-          // we didn't do a search - pass imdbid and tmdbid from movie object
-          if (doSearch) {
-            options.setIds(result1.getIds());
-            // override scraper with one from search result
-            mediaMetadataScraper = movieList.getMediaScraperById(result1.getProviderId());
-          }
-          else {
-            options.setIds(movie.getIds());
-          }
-
-          // scrape metadata if wanted
-          MediaMetadata md = null;
-
-          if (mediaMetadataScraper != null && mediaMetadataScraper.getMediaProvider() != null) {
-            LOGGER.info("=====================================================");
-            LOGGER.info("Scraper metadata with scraper: " + mediaMetadataScraper.getMediaProvider().getProviderInfo().getId() + ", "
-                + mediaMetadataScraper.getMediaProvider().getProviderInfo().getVersion());
-            LOGGER.info(options.toString());
-            LOGGER.info("=====================================================");
-            try {
-              md = ((IMovieMetadataProvider) mediaMetadataScraper.getMediaProvider()).getMetadata(options);
-            }
-            catch (MissingIdException e) {
-              LOGGER.warn("missing id for scrape");
-              MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, movie, "scraper.error.missingid"));
-            }
-            catch (ScrapeException e) {
-              LOGGER.error("searchMovieFallback", e);
-              MessageManager.instance.pushMessage(
-                  new Message(MessageLevel.ERROR, movie, "message.scrape.metadatamoviefailed", new String[] { ":", e.getLocalizedMessage() }));
-            }
+    item.options.setSearchResult(result);
+    item.options.setIds(result.getIds());
+    // override scraper with one from search result
+    item.metadataScraper = MovieList.getInstance().getMediaScraperById(result.getProviderId());
+    return true;
+  }
 
-            if (ScraperMetadataConfig.containsAnyMetadata(scraperMetadataConfig) || ScraperMetadataConfig.containsAnyCast(scraperMetadataConfig)) {
-              movie.setMetadata(md, scraperMetadataConfig);
-              movie.setLastScraperId(searchAndScrapeOptions.getMetadataScraper().getId());
-              movie.setLastScrapeLanguage(searchAndScrapeOptions.getLanguage().name());
-            }
+  private boolean scrapeMetadata(ScrapeItem item) {
+    MediaScraper mediaMetadataScraper = item.metadataScraper;
+    if (mediaMetadataScraper == null || mediaMetadataScraper.getMediaProvider() == null) {
+      return false;
+    }
 
-            // scrape artwork if wanted
-            if (ScraperMetadataConfig.containsAnyArtwork(scraperMetadataConfig)) {
-              movie.setArtwork(getArtwork(movie, md, artworkScrapers), scraperMetadataConfig);
-            }
+    LOGGER.info("=====================================================");
+    LOGGER.info("Scraper metadata with scraper: " + mediaMetadataScraper.getMediaProvider().getProviderInfo().getId() + ", "
+        + mediaMetadataScraper.getMediaProvider().getProviderInfo().getVersion());
+    LOGGER.info(item.options.toString());
+    LOGGER.info("=====================================================");
+    try {
+      item.metadata = ((IMovieMetadataProvider) mediaMetadataScraper.getMediaProvider()).getMetadata(item.options);
+    }
+    catch (MissingIdException e) {
+      LOGGER.warn("missing id for scrape");
+      MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, item.movie, "scraper.error.missingid"));
+    }
+    catch (ScrapeException e) {
+      LOGGER.error("searchMovieFallback", e);
+      MessageManager.instance.pushMessage(
+          new Message(MessageLevel.ERROR, item.movie, "message.scrape.metadatamoviefailed", new String[] { ":", e.getLocalizedMessage() }));
+    }
 
-            // scrape trailer if wanted
-            if (scraperMetadataConfig.contains(MovieScraperMetadataConfig.TRAILER)) {
-              movie.setTrailers(getTrailers(movie, md, trailerScrapers));
-              movie.saveToDb();
-              movie.writeNFO();
+    // without metadata there is nothing to look up artwork/trailers for
+    return item.metadata != null;
+  }
 
-              // start automatic movie trailer download
-              MovieHelpers.startAutomaticTrailerDownload(movie);
-            }
-          }
-        }
-      }
-      catch (Exception e) {
-        LOGGER.error("Thread crashed", e);
-        MessageManager.instance.pushMessage(
-            new Message(MessageLevel.ERROR, "MovieScraper", "message.scrape.threadcrashed", new String[] { ":", e.getLocalizedMessage() }));
-      }
+  private boolean scrapeArtwork(ScrapeItem item) {
+    if (ScraperMetadataConfig.containsAnyArtwork(scraperMetadataConfig)) {
+      item.artwork = getArtwork(item.movie, item.metadata, searchAndScrapeOptions.getArtworkScrapers());
     }
+    return true;
+  }
 
-    private MediaSearchResult searchForMovie(MediaScraper mediaMetadataProvider) {
-      List<MediaSearchResult> results = movieList.searchMovie(movie.getTitle(), movie.getYear(), movie.getIds(), mediaMetadataProvider);
-      MediaSearchResult result = null;
-
-      if (results != null && !results.isEmpty()) {
-        result = results.get(0);
-        // check if there is an other result with 100% score
-        if (results.size() > 1) {
-          MediaSearchResult result2 = results.get(1);
-          // if both results have 100% score - do not take any result
-          if (result.getScore() == 1 && result2.getScore() == 1) {
-            LOGGER.info("two 100% results, can't decide which to take - ignore result");
-            MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, movie, "movie.scrape.toosimilar"));
-            return null;
-          }
-        }
+  private boolean scrapeTrailers(ScrapeItem item) {
+    if (scraperMetadataConfig.contains(MovieScraperMetadataConfig.TRAILER)) {
+      item.trailers = getTrailers(item.movie, item.metadata, searchAndScrapeOptions.getTrailerScrapers());
+    }
+    return true;
+  }
+
+  private boolean persist(ScrapeItem item) {
+    Movie movie = item.movie;
+
+    if (ScraperMetadataConfig.containsAnyMetadata(scraperMetadataConfig) || ScraperMetadataConfig.containsAnyCast(scraperMetadataConfig)) {
+      movie.setMetadata(item.metadata, scraperMetadataConfig);
+      movie.setLastScraperId(searchAndScrapeOptions.getMetadataScraper().getId());
+      movie.setLastScrapeLanguage(searchAndScrapeOptions.getLanguage().name());
+    }
+
+    // set the artwork (this queues the image downloads)
+    if (item.artwork != null) {
+      movie.setArtwork(item.artwork, scraperMetadataConfig);
+    }
+
+    if (item.trailers != null) {
+      movie.setTrailers(item.trailers);
+      movie.saveToDb();
+      movie.writeNFO();
+
+      // start automatic movie trailer download
+      MovieHelpers.startAutomaticTrailerDownload(movie);
+    }
+
+    return true;
+  }
 
-        // get threshold from settings (default 0.75) - to minimize false positives
-        final double scraperTreshold = MovieModuleManager.SETTINGS.getScraperThreshold();
-        LOGGER.info("using treshold from settings of {}", scraperTreshold);
-        if (result.getScore() < scraperTreshold) {
-          LOGGER.info("score is lower than {} ({}) - ignore result", scraperTreshold, result.getScore());
-          MessageManager.instance.pushMessage(
-              new Message(MessageLevel.ERROR, movie, "movie.scrape.toolowscore", new String[] { String.format("%.2f", scraperTreshold) }));
+  private MediaSearchResult searchForMovie(Movie movie, MediaScraper mediaMetadataProvider) {
+    List<MediaSearchResult> results = MovieList.getInstance().searchMovie(movie.getTitle(), movie.getYear(), movie.getIds(), mediaMetadataProvider);
+    MediaSearchResult result = null;
+
+    if (results != null && !results.isEmpty()) {
+      result = results.get(0);
+      // check if there is an other result with 100% score
+      if (results.size() > 1) {
+        MediaSearchResult result2 = results.get(1);
+        // if both results have 100% score - do not take any result
+        if (result.getScore() == 1 && result2.getScore() == 1) {
+          LOGGER.info("two 100% results, can't decide which to take - ignore result");
+          MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, movie, "movie.scrape.toosimilar"));
           return null;
         }
       }
-      else {
-        LOGGER.info("no result found for {}", movie.getTitle());
-        MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, movie, "movie.scrape.nomatchfound"));
+
+      // get threshold from settings (default 0.75) - to minimize false positives
+      final double scraperTreshold = MovieModuleManager.SETTINGS.getScraperThreshold();
+      LOGGER.info("using treshold from settings of {}", scraperTreshold);
+      if (result.getScore() < scraperTreshold) {
+        LOGGER.info("score is lower than {} ({}) - ignore result", scraperTreshold, result.getScore());
+        MessageManager.instance.pushMessage(
+            new Message(MessageLevel.ERROR, movie, "movie.scrape.toolowscore", new String[] { String.format("%.2f", scraperTreshold) }));
+        return null;
       }
+    }
+    else {
+      LOGGER.info("no result found for {}", movie.getTitle());
+      MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, movie, "movie.scrape.nomatchfound"));
+    }
 
-      return result;
+    return result;
+  }
+
+  private List<MediaArtwork> getArtwork(Movie movie, MediaMetadata metadata, List<MediaScraper> artworkScrapers) {
+    List<MediaArtwork> artwork = new ArrayList<>();
+
+    ArtworkSearchAndScrapeOptions options = new ArtworkSearchAndScrapeOptions(MediaType.MOVIE);
+    options.setDataFromOtherOptions(searchAndScrapeOptions);
+    options.setArtworkType(MediaArtworkType.ALL);
+    options.setMetadata(metadata);
+    options.setIds(metadata.getIds());
+    options.setId("mediaFile", movie.getMainFile());
+    options.setLanguage(MovieModuleManager.SETTINGS.getImageScraperLanguage());
+    options.setFanartSize(MovieModuleManager.SETTINGS.getImageFanartSize());
+    options.setPosterSize(MovieModuleManager.SETTINGS.getImagePosterSize());
+
+    // query all providers in parallel (in the shared scraper executor); the results are added in the order of the providers
+    List<Future<List<MediaArtwork>>> futures = new ArrayList<>();
+    for (MediaScraper scraper : artworkScrapers) {
+      IMovieArtworkProvider artworkProvider = (IMovieArtworkProvider) scraper.getMediaProvider();
+      futures.add(ScraperExecutor.getInstance().submit(scraper.getId(), () -> artworkProvider.getArtwork(options)));
     }
 
-    private List<MediaArtwork> getArtwork(Movie movie, MediaMetadata metadata, List<MediaScraper> artworkScrapers) {
-      List<MediaArtwork> artwork = new ArrayList<>();
-
-      ArtworkSearchAndScrapeOptions options = new ArtworkSearchAndScrapeOptions(MediaType.MOVIE);
-      options.setDataFromOtherOptions(searchAndScrapeOptions);
-      options.setArtworkType(MediaArtworkType.ALL);
-      options.setMetadata(metadata);
-      options.setIds(metadata.getIds());
-      options.setId("mediaFile", movie.getMainFile());
-      options.setLanguage(MovieModuleManager.SETTINGS.getImageScraperLanguage());
-      options.setFanartSize(MovieModuleManager.SETTINGS.getImageFanartSize());
-      options.setPosterSize(MovieModuleManager.SETTINGS.getImagePosterSize());
-
-      // scrape providers till one artwork has been found
-      for (MediaScraper scraper : artworkScrapers) {
-        IMovieArtworkProvider artworkProvider = (IMovieArtworkProvider) scraper.getMediaProvider();
-        try {
-          artwork.addAll(artworkProvider.getArtwork(options));
-        }
-        catch (MissingIdException ignored) {
-          // no need to log here
-        }
-        catch (ScrapeException e) {
-          LOGGER.error("getArtwork", e);
-          MessageManager.instance.pushMessage(
-              new Message(MessageLevel.ERROR, movie, "message.scrape.movieartworkfailed", new String[] { ":", e.getLocalizedMessage() }));
-        }
+    for (Future<List<MediaArtwork>> future : futures) {
+      try {
+        artwork.addAll(ScraperExecutor.getResult(future));
+      }
+      catch (MissingIdException ignored) {
+        // no need to log here
+      }
+      catch (ScrapeException e) {
+        LOGGER.error("getArtwork", e);
+        MessageManager.instance.pushMessage(
+            new Message(MessageLevel.ERROR, movie, "message.scrape.movieartworkfailed", new String[] { ":", e.getLocalizedMessage() }));
       }
-
-      return artwork;
     }
 
-    private List<MediaTrailer> getTrailers(Movie movie, MediaMetadata metadata, List<MediaScraper> trailerScrapers) {
-      List<MediaTrailer> trailers = new ArrayList<>();
+    return artwork;
+  }
 
-      TrailerSearchAndScrapeOptions options = new TrailerSearchAndScrapeOptions(MediaType.MOVIE);
-      options.setDataFromOtherOptions(searchAndScrapeOptions);
-      options.setMetadata(metadata);
-      options.setIds(metadata.getIds());
+  private List<MediaTrailer> getTrailers(Movie movie, MediaMetadata metadata, List<MediaScraper> trailerScrapers) {
+    List<MediaTrailer> trailers = new ArrayList<>();
 
-      // scrape trailers
-      for (MediaScraper trailerScraper : trailerScrapers) {
-        try {
-          IMovieTrailerProvider trailerProvider = (IMovieTrailerProvider) trailerScraper.getMediaProvider();
-          trailers.addAll(trailerProvider.getTrailers(options));
-        }
-        catch (MissingIdException e) {
-          LOGGER.debug("no usable ID found for scraper {}", trailerScraper.getMediaProvider().getProviderInfo().getId());
-        }
-        catch (ScrapeException e) {
-          LOGGER.error("getTrailers", e);
-          MessageManager.instance
-              .pushMessage(new Message(MessageLevel.ERROR, movie, "message.scrape.trailerfailed", new String[] { ":", e.getLocalizedMessage() }));
-        }
+    TrailerSearchAndScrapeOptions options = new TrailerSearchAndScrapeOptions(MediaType.MOVIE);
+    options.setDataFromOtherOptions(searchAndScrapeOptions);
+    options.setMetadata(metadata);
+    options.setIds(metadata.getIds());
+
+    // scrape trailers
+    for (MediaScraper trailerScraper : trailerScrapers) {
+      try {
+        IMovieTrailerProvider trailerProvider = (IMovieTrailerProvider) trailerScraper.getMediaProvider();
+        trailers.addAll(trailerProvider.getTrailers(options));
+      }
+      catch (MissingIdException e) {
+        LOGGER.debug("no usable ID found for scraper {}", trailerScraper.getMediaProvider().getProviderInfo().getId());
       }
+      catch (ScrapeException e) {
+        LOGGER.error("getTrailers", e);
+        MessageManager.instance
+            .pushMessage(new Message(MessageLevel.ERROR, movie, "message.scrape.trailerfailed", new String[] { ":", e.getLocalizedMessage() }));
+      }
+    }
 
-      return trailers;
+    return trailers;
+  }
+
+  /**
+   * the state of one movie passed along the stages of the pipeline
+   */
+  private static class ScrapeItem {
+    private final Movie                 movie;
+    private MovieSearchAndScrapeOptions options;
+    private MediaScraper                metadataScraper;
+    private MediaMetadata               metadata;
+    private List<MediaArtwork>          artwork;
+    private List<MediaTrailer>          trailers;
+
+    private ScrapeItem(Movie movie) {
+      this.movie = movie;
     }
   }
 }
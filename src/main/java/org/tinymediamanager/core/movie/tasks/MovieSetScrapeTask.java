@@ -18,6 +18,7 @@ package org.tinymediamanager.core.movie.tasks;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +42,7 @@ import org.tinymediamanager.scraper.exceptions.MissingIdException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
 import org.tinymediamanager.scraper.interfaces.IMovieArtworkProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieSetMetadataProvider;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 
 /**
  * the class {@link MovieSetScrapeTask} is used to automatically scrape movie sets
@@ -135,11 +137,16 @@ public class MovieSetScrapeTask extends TmmThreadPool {
       options.setFanartSize(MovieModuleManager.SETTINGS.getImageFanartSize());
       options.setPosterSize(MovieModuleManager.SETTINGS.getImagePosterSize());
 
-      // scrape providers till one artwork has been found
+      // query all providers in parallel (in the shared scraper executor); the results are added in the order of the providers
+      List<Future<List<MediaArtwork>>> futures = new ArrayList<>();
       for (MediaScraper scraper : artworkScrapers) {
         IMovieArtworkProvider artworkProvider = (IMovieArtworkProvider) scraper.getMediaProvider();
+        futures.add(ScraperExecutor.getInstance().submit(scraper.getId(), () -> artworkProvider.getArtwork(options)));
+      }
+
+      for (Future<List<MediaArtwork>> future : futures) {
         try {
-          artwork.addAll(artworkProvider.getArtwork(options));
+          artwork.addAll(ScraperExecutor.getResult(future));
         }
         catch (MissingIdException ignored) {
           // nothing to do
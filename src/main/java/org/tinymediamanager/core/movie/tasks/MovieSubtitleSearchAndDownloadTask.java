@@ -32,6 +32,8 @@ import org.tinymediamanager.core.Message.MessageLevel;
 import org.tinymediamanager.core.MessageManager;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.hash.FileHashService;
+import org.tinymediamanager.core.hash.StandardFileHashAlgorithm;
 import org.tinymediamanager.core.movie.MovieModuleManager;
 import org.tinymediamanager.core.movie.entities.Movie;
 import org.tinymediamanager.core.tasks.SubtitleDownloadTask;
@@ -117,13 +119,23 @@ public class MovieSubtitleSearchAndDownloadTask extends TmmThreadPool {
     @Override
     public void run() {
       try {
+        MediaFile mf = movie.getMediaFiles(MediaFileType.VIDEO).get(0);
+
+        // the hash is read only once per file - it is stored in the media file
+        FileHashService hashService = FileHashService.getInstance();
+        boolean hashStored = hashService.getStoredHash(mf, StandardFileHashAlgorithm.OPENSUBTITLES) != null;
+        String hash = hashService.getHash(mf, StandardFileHashAlgorithm.OPENSUBTITLES);
+        if (!hashStored && !hash.isEmpty()) {
+          movie.saveToDb();
+        }
+
         for (MediaScraper scraper : subtitleScrapers) {
           try {
-            MediaFile mf = movie.getMediaFiles(MediaFileType.VIDEO).get(0);
 
             IMovieSubtitleProvider subtitleProvider = (IMovieSubtitleProvider) scraper.getMediaProvider();
             SubtitleSearchAndScrapeOptions options = new SubtitleSearchAndScrapeOptions(MOVIE);
             options.setFile(mf.getFileAsPath().toFile());
+            options.setFileHash(StandardFileHashAlgorithm.OPENSUBTITLES.getId(), hash);
             options.setSearchQuery(movie.getOriginalTitle());
             options.setLanguage(language);
             options.setImdbId(movie.getImdbId());
@@ -30,6 +30,7 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
@@ -52,6 +53,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
 import org.tinymediamanager.core.AbstractFileVisitor;
+import org.tinymediamanager.core.DirectoryJournal;
 import org.tinymediamanager.core.MediaFileHelper;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.MediaSource;
@@ -109,12 +111,16 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
   private final List<String>        dataSources;
   private final List<String>        skipFolders;
   private final List<Movie>         moviesToUpdate   = new ArrayList<>();
+  private final Set<Path>           movieFolders     = new LinkedHashSet<>();
   private final MovieList           movieList        = MovieList.getInstance();
   private final Set<Path>           filesFound       = ConcurrentHashMap.newKeySet();
   private final List<Runnable>      miTasks          = Collections.synchronizedList(new ArrayList<>());
   private final List<Path>          existingMovies   = new ArrayList<>();
   private final List<MediaFile>     imageFiles       = new ArrayList<>();
 
+  private boolean                   forceFullRescan  = false;
+  private DirectoryJournal.Scan     journalScan      = null;
+
   public MovieUpdateDatasourceTask() {
     super(TmmResourceBundle.getString("update.datasource"));
     dataSources = new ArrayList<>(MovieModuleManager.SETTINGS.getMovieDataSource());
@@ -128,6 +134,30 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     skipFolders = new ArrayList<>(MovieModuleManager.SETTINGS.getSkipFolder());
   }
 
+  /**
+   * update only the given (changed) directories of the data source
+   *
+   * @param datasource
+   *          the data source
+   * @param changedDirectories
+   *          the changed/created/removed directories of the data source
+   */
+  public MovieUpdateDatasourceTask(String datasource, Collection<Path> changedDirectories) {
+    this(datasource);
+
+    // the movie folders are the direct sub folders of the data source (like in the update of the whole data source)
+    Path dsAsPath = Paths.get(datasource).toAbsolutePath();
+    for (Path dir : changedDirectories) {
+      Path path = dir.toAbsolutePath();
+      if (!path.startsWith(dsAsPath) || path.equals(dsAsPath)) {
+        // something in the root of the data source changed - update the whole data source
+        movieFolders.clear();
+        return;
+      }
+      movieFolders.add(dsAsPath.resolve(dsAsPath.relativize(path).getName(0)));
+    }
+  }
+
   public MovieUpdateDatasourceTask(List<Movie> movies) {
     super(TmmResourceBundle.getString("update.datasource"));
     dataSources = new ArrayList<>(0);
@@ -135,6 +165,16 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     skipFolders = new ArrayList<>(MovieModuleManager.SETTINGS.getSkipFolder());
   }
 
+  /**
+   * force a full rescan of the data sources (do not skip unchanged directories)
+   *
+   * @param forceFullRescan
+   *          true/false
+   */
+  public void setForceFullRescan(boolean forceFullRescan) {
+    this.forceFullRescan = forceFullRescan;
+  }
+
   @Override
   public void doInBackground() {
     // check if there is at least one DS to update
@@ -160,7 +200,10 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
       StopWatch stopWatch = new StopWatch();
       stopWatch.start();
 
-      if (moviesToUpdate.isEmpty()) {
+      if (!movieFolders.isEmpty()) {
+        updateMovieFolders();
+      }
+      else if (moviesToUpdate.isEmpty()) {
         updateDatasource();
       }
       else {
@@ -199,7 +242,7 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
 
       LOGGER.info("Start UDS on datasource: {}", ds);
       miTasks.clear();
-      initThreadPool(3, "update");
+      initThreadPool(Globals.settings.getUpdateThreads(), "update", Globals.settings.isAdaptiveThreads());
       setTaskName(TmmResourceBundle.getString("update.datasource") + " '" + ds + "'");
       publishState();
 
@@ -230,6 +273,8 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
         continue;
       }
 
+      journalScan = startJournalScan(dsAsPath);
+
       List<Path> rootFiles = new ArrayList<>();
       for (Path path : rootList) {
         if (Files.isDirectory(path)) {
@@ -273,6 +318,16 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
       existingMovieDirs.clear();
       rootFiles.clear();
 
+      if (journalScan != null) {
+        // only remember the state of the directories if the scan is complete
+        if (!cancel) {
+          journalScan.commit();
+        }
+        LOGGER.info("incremental scan of '{}' - directories visited: {}, skipped (unchanged): {}", ds, journalScan.getVisited(),
+            journalScan.getSkipped());
+        journalScan = null;
+      }
+
       if (cancel) {
         break;
       }
@@ -300,9 +355,61 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     } // END datasource loop
   }
 
+  private void updateMovieFolders() {
+    String ds = dataSources.get(0);
+    LOGGER.info("Start UDS for {} folders of datasource: {}", movieFolders.size(), ds);
+    initThreadPool(Globals.settings.getUpdateThreads(), "update", Globals.settings.isAdaptiveThreads());
+    setTaskName(TmmResourceBundle.getString("update.datasource") + " '" + ds + "'");
+    publishState();
+
+    Path dsAsPath = Paths.get(ds).toAbsolutePath();
+    if (!Files.exists(dsAsPath)) {
+      // error - the data source is not available
+      MessageManager.instance
+          .pushMessage(new Message(MessageLevel.ERROR, "update.datasource", "update.datasource.unavailable", new String[] { ds }));
+      return;
+    }
+
+    for (Path path : movieFolders) {
+      // removed folders are handled in the cleanup
+      if (Files.isDirectory(path)) {
+        searchAndParse(dsAsPath, path, Integer.MAX_VALUE);
+      }
+    }
+
+    waitForCompletionOrCancel();
+
+    // print stats
+    LOGGER.info("FilesFound: {}", filesFound.size());
+    LOGGER.info("moviesFound: {}", movieList.getMovieCount());
+
+    if (cancel) {
+      return;
+    }
+
+    // all movies in the changed folders (the new, existing and removed ones)
+    List<Movie> movies = new ArrayList<>();
+    for (Movie movie : movieList.getMovies()) {
+      Path moviePath = movie.getPathNIO().toAbsolutePath();
+      for (Path path : movieFolders) {
+        if (moviePath.startsWith(path)) {
+          movies.add(movie);
+          break;
+        }
+      }
+    }
+
+    // cleanup
+    cleanup(movies);
+
+    // mediainfo (only for the movies which are still there)
+    movies.removeIf(movie -> movieList.lookupMovie(movie.getDbId()) == null);
+    gatherMediainfo(movies);
+  }
+
   private void updateMovies() {
     LOGGER.info("Start UDS for selected movies");
-    initThreadPool(3, "update");
+    initThreadPool(Globals.settings.getUpdateThreads(), "update", Globals.settings.isAdaptiveThreads());
     setTaskName(TmmResourceBundle.getString("update.datasource"));
     publishState();
 
@@ -1075,6 +1182,58 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     } // end MF loop
   }
 
+  /**
+   * start the scan of the directory journal for the given data source (or null if the incremental scan is not available)
+   */
+  private DirectoryJournal.Scan startJournalScan(Path datasource) {
+    DirectoryJournal journal = MovieModuleManager.getInstance().getDirectoryJournal();
+    if (journal == null || !Globals.settings.isIncrementalDatasourceScan()) {
+      return null;
+    }
+
+    // all settings which have an influence on the scan
+    String config = String.join("|", skipFolders) + "#" + String.join("|", Globals.settings.getVideoFileType());
+    return journal.startScan(datasource, config, forceFullRescan);
+  }
+
+  /**
+   * check if the given directory tree is unchanged since the last scan and all video folders in it belong to movies in the database. If so, the
+   * files of these movies are taken from the database rather than walking the tree again
+   */
+  private boolean skipUnchangedDirectory(Path dir, Set<Path> videoFolders) {
+    if (journalScan == null || !journalScan.isUnchanged(dir)) {
+      return false;
+    }
+
+    Set<Path> recordedVideoFolders = journalScan.getVideoFolders(dir);
+    Set<Movie> movies = new HashSet<>();
+    for (Path videoFolder : recordedVideoFolders) {
+      // the movie may be located some levels above the video folder (disc folders, folder stacking)
+      List<Movie> found = Collections.emptyList();
+      for (Path path = videoFolder; path != null && path.startsWith(dir) && found.isEmpty(); path = path.getParent()) {
+        found = movieList.getMoviesByPath(path);
+      }
+
+      if (found.isEmpty()) {
+        // no movie in the database for this video folder - it has to be parsed again
+        return false;
+      }
+      movies.addAll(found);
+    }
+
+    for (Movie movie : movies) {
+      filesFound.add(movie.getPathNIO());
+      for (MediaFile mf : movie.getMediaFiles()) {
+        filesFound.add(mf.getFileAsPath());
+      }
+    }
+    videoFolders.addAll(recordedVideoFolders);
+
+    int skipped = journalScan.skip(dir);
+    LOGGER.trace("skipping unchanged directory '{}' ({} directories)", dir, skipped);
+    return true;
+  }
+
   /*
    * cleanup database - remove orphaned movies/files
    */
@@ -1207,7 +1366,7 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     setTaskName(TmmResourceBundle.getString("update.mediainfo"));
     publishState();
 
-    initThreadPool(1, "mediainfo");
+    initThreadPool(Globals.settings.getMediainfoThreads(), "mediainfo", Globals.settings.isAdaptiveThreads());
 
     LOGGER.info("getting Mediainfo...");
 
@@ -1253,7 +1412,7 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
     setTaskName(TmmResourceBundle.getString("update.mediainfo"));
     publishState();
 
-    initThreadPool(1, "mediainfo");
+    initThreadPool(Globals.settings.getMediainfoThreads(), "mediainfo", Globals.settings.isAdaptiveThreads());
 
     LOGGER.info("getting Mediainfo...");
     for (Movie movie : movies) {
@@ -1323,9 +1482,9 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
 
   @Override
   public void callback(Object obj) {
-    // do not publish task description here, because with different workers the
-    // text is never right
-    publishState(progressDone);
+    // do not publish the task description of the workers here, because with different workers the
+    // text is never right - just show the amount of workers and the throughput
+    publishState(getPoolStatistics(), progressDone);
   }
 
   /**
@@ -1500,6 +1659,13 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
         LOGGER.debug("Skipping dir: {}", dir);
         return SKIP_SUBTREE;
       }
+
+      if (skipUnchangedDirectory(dir, videofolders)) {
+        return SKIP_SUBTREE;
+      }
+      if (journalScan != null) {
+        journalScan.directoryEntered(dir, attrs);
+      }
       return CONTINUE;
     }
 
@@ -1510,6 +1676,10 @@ public class MovieUpdateDatasourceTask extends TmmThreadPool {
         return TERMINATE;
       }
 
+      if (journalScan != null) {
+        journalScan.directoryLeft(dir, videofolders.contains(dir));
+      }
+
       if (this.videofolders.contains(dir)) {
         boolean update = true;
         // quick fix for folder stacking
@@ -15,16 +15,16 @@
  */
 package org.tinymediamanager.core.tasks;
 
-import java.io.BufferedInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -37,21 +37,26 @@ import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.entities.MediaEntity;
 import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.threading.TmmTask;
-import org.tinymediamanager.scraper.http.StreamingUrl;
+import org.tinymediamanager.scraper.exceptions.HttpException;
+import org.tinymediamanager.scraper.http.SegmentedDownload;
 import org.tinymediamanager.scraper.util.UrlUtil;
 
-import okhttp3.Headers;
-
 /**
  * {@link DownloadTask} for bigger downloads with status updates
  * 
  * @author Myron Boyle, Manuel Laggner
  */
 public abstract class DownloadTask extends TmmTask {
-  private static final Logger LOGGER = LoggerFactory.getLogger(DownloadTask.class);
+  private static final Logger        LOGGER            = LoggerFactory.getLogger(DownloadTask.class);
+  private static final Set<Path>     ACTIVE_TEMP_FILES = ConcurrentHashMap.newKeySet();
+
+  protected String                   url;
+  protected Path                     tempFile;
 
-  protected String            url;
-  protected Path              tempFile;
+  private volatile SegmentedDownload download;
+  private long                       progressTimestamp = 0;
+  private long                       progressBytes     = 0;
+  private double                     speed             = 0;
 
   /**
    * Starts the download of an url to a file
@@ -114,70 +119,73 @@ public abstract class DownloadTask extends TmmTask {
       }
 
       LOGGER.info("Downloading '{}'", url);
-      StreamingUrl u = new StreamingUrl(UrlUtil.getURIEncoded(url).toASCIIString());
-      if (StringUtils.isNotBlank(userAgent)) {
-        u.setUserAgent(userAgent);
-      }
-
-      long timestamp = System.currentTimeMillis();
 
+      // the name of the temp file is derived from the url and the destination, so an aborted download can be resumed
+      String partName = getDestinationWoExtension().getFileName() + "." + DigestUtils.md5Hex(url + "|" + destination.toAbsolutePath());
       try {
         // create a temp file/folder inside the temp folder or tmm folder
         Path tempFolder = Paths.get(Utils.getTempFolder());
         if (!Files.exists(tempFolder)) {
           Files.createDirectory(tempFolder);
         }
-        tempFile = tempFolder.resolve(getDestinationWoExtension().getFileName() + "." + timestamp + ".part"); // multi episode same file
+        tempFile = tempFolder.resolve(partName + ".part");
       }
       catch (Exception e) {
         LOGGER.warn("could not write to temp folder - {}", e.getMessage());
 
         // could not create the temp folder somehow - put the files into the tmm/tmp dir
-        tempFile = destination.resolveSibling(destination.getFileName() + "." + timestamp + ".part"); // multi episode same file
+        tempFile = destination.resolveSibling(partName + ".part");
       }
 
-      // try to resume if the temp file exists
-      boolean resume = false;
-      if (Files.exists(tempFile)) {
-        resume = true;
-        u.addHeader("Range", "bytes=" + tempFile.toFile().length() + "-");
+      // the same file is already being downloaded by another task (multi episode same file)
+      if (!ACTIVE_TEMP_FILES.add(tempFile)) {
+        tempFile = tempFile.resolveSibling(partName + "." + System.currentTimeMillis() + ".part");
+        ACTIVE_TEMP_FILES.add(tempFile);
       }
 
-      try (InputStream is = u.getInputStream()) {
-        // trace server headers
-        LOGGER.trace("Server returned: {}", u.getStatusLine());
-        Headers headers = u.getHeadersResponse();
-        for (String name : headers.names()) {
-          LOGGER.trace(" < {} : {}", name, headers.get(name));
-        }
+      download = new SegmentedDownload(UrlUtil.getURIEncoded(url).toASCIIString(), tempFile);
+      if (StringUtils.isNotBlank(userAgent)) {
+        download.addHeader("User-Agent", userAgent);
+      }
+      download.setMaxSegments(Globals.settings.getDownloadSegments());
+      download.setProgressListener(this::downloadProgress);
+      download.setCancelled(() -> cancel);
 
-        if (u.isFault()) {
-          MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, u.getUrl(), u.getStatusLine()));
-          setState(TaskState.FAILED);
-          return;
-        }
+      LOGGER.debug("Downloading to '{}'", tempFile);
 
-        String type = u.getContentEncoding();
-        if (StringUtils.isBlank(fileExtension)) {
-          // still empty? try to parse from mime header
-          if (type.startsWith("video/") || type.startsWith("audio/") || type.startsWith("image/")) {
-            fileExtension = type.split("/")[1];
-            fileExtension = fileExtension.replace("x-", ""); // x-wmf and others
-          }
-          if ("application/zip".equals(type)) {
-            fileExtension = "zip";
-          }
-        }
+      boolean finished;
+      try {
+        finished = download.download();
+      }
+      catch (HttpException e) {
+        LOGGER.debug("Server returned: {}", e.getMessage());
+        MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, url, e.getMessage()));
+        setState(TaskState.FAILED);
+        return;
+      }
 
-        // fileExtension still empty?
-        if (StringUtils.isEmpty(fileExtension)) {
-          // fallback!
-          fileExtension = "dat";
-        }
+      if (!finished) {
+        LOGGER.info("download of {} cancelled", url);
+        setState(TaskState.CANCELLED);
+        return;
+      }
 
-        LOGGER.debug("Downloading to '{}'", tempFile);
+      String type = download.getContentType();
+      if (StringUtils.isBlank(fileExtension)) {
+        // still empty? try to parse from mime header
+        if (type.startsWith("video/") || type.startsWith("audio/") || type.startsWith("image/")) {
+          fileExtension = type.split("/")[1];
+          fileExtension = fileExtension.replace("x-", ""); // x-wmf and others
+        }
+        if ("application/zip".equals(type)) {
+          fileExtension = "zip";
+        }
+      }
 
-        download(u, is, resume);
+      // fileExtension still empty?
+      if (StringUtils.isEmpty(fileExtension)) {
+        // fallback!
+        fileExtension = "dat";
       }
 
       checkDownloadedFile();
@@ -213,58 +221,66 @@ public abstract class DownloadTask extends TmmTask {
       setState(TaskState.FAILED);
     }
     finally {
-      // remove temp file
-      if (tempFile != null && Files.exists(tempFile)) {
+      if (tempFile != null) {
+        ACTIVE_TEMP_FILES.remove(tempFile);
+      }
+
+      // remove temp file - unless the download can be resumed later
+      if (download != null && download.isResumable() && !cancel) {
+        LOGGER.info("download of {} failed - it will be resumed on the next try", url);
+      }
+      else if (download != null) {
+        download.discard();
+      }
+      else if (tempFile != null && Files.exists(tempFile)) {
         Utils.deleteFileSafely(tempFile);
       }
     }
   }
 
-  protected void download(StreamingUrl url, InputStream is, boolean resume) throws IOException, InterruptedException {
-    long length = url.getContentLength();
-
-    try (BufferedInputStream bufferedInputStream = new BufferedInputStream(is);
-        FileOutputStream outputStream = new FileOutputStream(tempFile.toFile(), resume)) {
-      int count;
-      byte[] buffer = new byte[2048];
-      Long timestamp1 = System.nanoTime();
-      Long timestamp2;
-      long bytesDone = 0;
-      long bytesDonePrevious = 0;
-      double speed = 0;
-
-      while ((count = bufferedInputStream.read(buffer, 0, buffer.length)) != -1) {
-        if (cancel) {
-          Thread.currentThread().interrupt();
-        }
+  @Override
+  public void cancel() {
+    super.cancel();
 
-        outputStream.write(buffer, 0, count);
-        bytesDone += count;
+    // abort all running connections
+    SegmentedDownload runningDownload = download;
+    if (runningDownload != null) {
+      runningDownload.abort();
+    }
+  }
 
-        // we push the progress only once per 250ms (to use less performance and get a better download speed)
-        timestamp2 = System.nanoTime();
-        if (timestamp2 - timestamp1 > 250000000) {
-          // avg. speed between the actual and the previous
-          speed = (speed + (bytesDone - bytesDonePrevious) / ((double) (timestamp2 - timestamp1) / 1000000000)) / 2;
+  /**
+   * publish the download progress; we push the progress only once per 250ms (to use less performance and get a better download speed)
+   *
+   * @param bytesDone
+   *          the amount of downloaded bytes
+   * @param length
+   *          the content length or -1 if unknown
+   */
+  private synchronized void downloadProgress(long bytesDone, long length) {
+    long timestamp = System.nanoTime();
+    if (progressTimestamp == 0) {
+      progressTimestamp = timestamp;
+      progressBytes = bytesDone;
+      return;
+    }
+    if (timestamp - progressTimestamp <= 250000000) {
+      return;
+    }
 
-          timestamp1 = timestamp2;
-          bytesDonePrevious = bytesDone;
+    // avg. speed between the actual and the previous
+    speed = (speed + (bytesDone - progressBytes) / ((double) (timestamp - progressTimestamp) / 1000000000)) / 2;
 
-          if (length > 0) {
-            publishState(formatBytesForOutput(bytesDone) + "/" + formatBytesForOutput(length) + " @" + formatSpeedForOutput(speed),
-                (int) (bytesDone * 100 / length));
-          }
-          else {
-            setWorkUnits(0);
-            publishState(formatBytesForOutput(bytesDone) + " @" + formatSpeedForOutput(speed), 0);
-          }
-        }
-      }
-    }
+    progressTimestamp = timestamp;
+    progressBytes = bytesDone;
 
-    // we must not close the input stream on cancel(the rest will be downloaded if we close it on cancel)
-    if (!cancel) {
-      is.close();
+    if (length > 0) {
+      publishState(formatBytesForOutput(bytesDone) + "/" + formatBytesForOutput(length) + " @" + formatSpeedForOutput(speed),
+          (int) (bytesDone * 100 / length));
+    }
+    else {
+      setWorkUnits(0);
+      publishState(formatBytesForOutput(bytesDone) + " @" + formatSpeedForOutput(speed), 0);
     }
   }
 
@@ -278,7 +294,7 @@ public abstract class DownloadTask extends TmmTask {
 
     // create parent if needed
     if (!Files.exists(destination.getParent())) {
-      Files.createDirectory(destination.getParent());
+      Utils.createDirectory(destination.getParent());
     }
 
     boolean ok = Utils.moveFileSafe(tempFile, destination);
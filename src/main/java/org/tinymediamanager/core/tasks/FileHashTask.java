@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.tasks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.MediaFileType;
+import org.tinymediamanager.core.TmmResourceBundle;
+import org.tinymediamanager.core.entities.MediaEntity;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.hash.FileHashAlgorithm;
+import org.tinymediamanager.core.hash.FileHashService;
+import org.tinymediamanager.core.hash.StandardFileHashAlgorithm;
+import org.tinymediamanager.core.threading.TmmTask;
+
+/**
+ * The class FileHashTask. Computes the hashes of all video files of the given entities (only files which have been changed since the last hashing
+ * are read) and stores them in the database - so later subtitle searches or duplicate checks do not need to read the files again
+ *
+ * @author Manuel Laggner
+ */
+public class FileHashTask extends TmmTask {
+  private static final Logger           LOGGER     = LoggerFactory.getLogger(FileHashTask.class);
+
+  private final List<MediaEntity>       entities   = new ArrayList<>();
+  private final List<FileHashAlgorithm> algorithms = new ArrayList<>();
+
+  public FileHashTask(Collection<? extends MediaEntity> entities) {
+    this(entities, StandardFileHashAlgorithm.OPENSUBTITLES, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL);
+  }
+
+  public FileHashTask(Collection<? extends MediaEntity> entities, FileHashAlgorithm... algorithms) {
+    super(TmmResourceBundle.getString("tmm.hashfiles"), 0, TaskType.BACKGROUND_TASK);
+    this.entities.addAll(entities);
+    this.algorithms.addAll(Arrays.asList(algorithms));
+  }
+
+  @Override
+  protected void doInBackground() {
+    Map<MediaFile, MediaEntity> mediaFiles = new HashMap<>();
+    for (MediaEntity entity : entities) {
+      for (MediaFile mediaFile : entity.getMediaFiles(MediaFileType.VIDEO)) {
+        mediaFiles.put(mediaFile, entity);
+      }
+    }
+
+    setWorkUnits(mediaFiles.size());
+    publishState(0);
+
+    AtomicInteger done = new AtomicInteger();
+    Set<MediaEntity> changedEntities = ConcurrentHashMap.newKeySet();
+
+    int hashed = FileHashService.getInstance().hashAll(mediaFiles.keySet(), algorithms, (mediaFile, changed) -> {
+      if (changed) {
+        changedEntities.add(mediaFiles.get(mediaFile));
+      }
+      publishState(mediaFile.getFilename(), done.incrementAndGet());
+    }, () -> cancel);
+
+    // persist the new hashes
+    for (MediaEntity entity : changedEntities) {
+      entity.saveToDb();
+    }
+
+    LOGGER.info("hashed {} of {} files", hashed, mediaFiles.size());
+  }
+}
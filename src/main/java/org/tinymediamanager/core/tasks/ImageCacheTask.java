@@ -82,8 +82,7 @@ public class ImageCacheTask extends TmmThreadPool {
     @Override
     public Object call() {
       try {
-        // sleep 50ms to let the system calm down from a previous task
-        Thread.sleep(50);
+        // the memory of the parallel decodings is limited by the ImageMemoryBudget
         ImageCache.cacheImage(fileToCache);
       }
       catch (EmptyFileException e) {
@@ -15,6 +15,7 @@
  */
 package org.tinymediamanager.core.tasks;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.nio.file.DirectoryStream;
@@ -57,7 +58,7 @@ public abstract class MediaEntityActorImageFetcherTask implements Runnable {
       // check if actors folder exists
       Path actorsDir = mediaEntity.getPathNIO().resolve(Person.ACTOR_DIR);
       if (!Files.isDirectory(actorsDir)) {
-        Files.createDirectory(actorsDir);
+        Utils.createDirectory(actorsDir);
       }
 
       // first - check which actors images can be deleted (images for actors which are not in this ME)
@@ -134,18 +135,24 @@ public abstract class MediaEntityActorImageFetcherTask implements Runnable {
       Path cache = ImageCache.getCachedFile(person.getThumbUrl());
       if (cache != null) {
         LOGGER.debug("using cached version of: {}", person.getThumbUrl());
-        Utils.copyFileSafe(cache, actorImage, true);
-        // last but not least clean/rebuild the image cache for the new file
-        ImageCache.cacheImageSilently(actorImage);
+        try {
+          Utils.copyFileSafe(cache, actorImage, true);
+          // last but not least clean/rebuild the image cache for the new file
+          ImageCache.cacheImageSilently(actorImage);
+          return;
+        }
+        catch (FileNotFoundException e) {
+          // the cached file has been removed outside of tmm - drop it from the image cache and download the image directly
+          ImageCache.invalidateCachedFile(cache);
+        }
       }
-      else {
-        // no cache file found - directly download it
-        ImageUtils.downloadImage(person.getThumbUrl(), actorImage.getParent(), actorImageFilename);
 
-        // last but not least clean/rebuild the image cache for the new file
-        ImageCache.invalidateCachedImage(actorImage);
-        ImageCache.cacheImageSilently(actorImage);
-      }
+      // no cache file found - directly download it
+      ImageUtils.downloadImage(person.getThumbUrl(), actorImage.getParent(), actorImageFilename);
+
+      // last but not least clean/rebuild the image cache for the new file
+      ImageCache.invalidateCachedImage(actorImage);
+      ImageCache.cacheImageSilently(actorImage);
     }
   }
 }
@@ -16,7 +16,6 @@
 package org.tinymediamanager.core.tasks;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Locale;
@@ -24,7 +23,6 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
@@ -170,10 +168,8 @@ public class SubtitleDownloadTask extends DownloadTask {
 
     Path destination = getDestinationWoExtension();
     destination = destination.getParent().resolve(destination.getFileName() + "." + extension);
-    try (FileOutputStream os = new FileOutputStream(destination.toFile())) {
-      IOUtils.write(entry.buffer, os);
-      return new MediaFile(destination);
-    }
+    Utils.writeBytesToFile(destination, entry.buffer);
+    return new MediaFile(destination);
   }
 
   private static class SubtitleEntry {
@@ -356,7 +356,7 @@ public abstract class YTDownloadTask extends TmmTask {
 
       // create parent if needed
       if (!Files.exists(trailer.getParent())) {
-        Files.createDirectory(trailer.getParent());
+        Utils.createDirectory(trailer.getParent());
       }
 
       // and move the temporary file
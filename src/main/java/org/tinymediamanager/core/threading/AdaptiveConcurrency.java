@@ -0,0 +1,160 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+/**
+ * The class AdaptiveConcurrency. Adapts the amount of worker threads of a pool to the measured throughput of the finished tasks. The throughput is
+ * measured as the amount of finished tasks per time in a window of tasks (so an idle pool, where the tasks are submitted slower than they are
+ * processed, does not look faster with more workers); the amount of workers is changed step by step (hill climbing): another worker is only kept if
+ * it brings a noticeable gain and a worker is removed again if it costs (almost) nothing. So fast storage gets more workers while slow spinning disks
+ * or network mounts (where the latency rises with every additional worker) are not thrashed.
+ *
+ * @author Manuel Laggner
+ */
+class AdaptiveConcurrency {
+  private static final int    MIN_WINDOW          = 8;
+  private static final double MIN_GAIN            = 0.1;
+  private static final int    HOLD_WINDOWS        = 4;
+
+  private final int           minConcurrency;
+  private final int           maxConcurrency;
+  private final long          start;
+
+  private int                 concurrency;
+  private int                 direction           = 1;
+  private int                 probe               = 0;
+  private int                 holdWindows         = 0;
+  private boolean             settling            = false;
+  private double              referenceThroughput = 0;
+  private long                windowStart;
+  private int                 windowCount         = 0;
+  private long                finishedTasks       = 0;
+  private long                lastFinished;
+
+  /**
+   * create a new controller
+   *
+   * @param concurrency
+   *          the initial amount of workers
+   * @param minConcurrency
+   *          the minimum amount of workers
+   * @param maxConcurrency
+   *          the maximum amount of workers
+   */
+  AdaptiveConcurrency(int concurrency, int minConcurrency, int maxConcurrency) {
+    this(concurrency, minConcurrency, maxConcurrency, System.nanoTime());
+  }
+
+  AdaptiveConcurrency(int concurrency, int minConcurrency, int maxConcurrency, long start) {
+    this.minConcurrency = Math.max(1, minConcurrency);
+    this.maxConcurrency = Math.max(this.minConcurrency, maxConcurrency);
+    this.concurrency = Math.min(this.maxConcurrency, Math.max(this.minConcurrency, concurrency));
+    this.start = start;
+    this.windowStart = start;
+    this.lastFinished = start;
+  }
+
+  /**
+   * a task has been finished
+   *
+   * @param finished
+   *          the time when the task has been finished ({@link System#nanoTime()})
+   * @return the new amount of workers
+   */
+  synchronized int taskFinished(long finished) {
+    finishedTasks++;
+    windowCount++;
+    lastFinished = Math.max(lastFinished, finished);
+
+    // measure over a window of tasks (all workers should have finished at least 2 tasks)
+    if (windowCount < Math.max(MIN_WINDOW, 2 * concurrency)) {
+      return concurrency;
+    }
+
+    double throughput = windowCount / (double) Math.max(1, lastFinished - windowStart);
+    windowStart = lastFinished;
+    windowCount = 0;
+
+    if (settling) {
+      // the first window after a change still contains tasks of the old amount of workers
+      settling = false;
+      return concurrency;
+    }
+
+    if (probe != 0) {
+      // evaluate the last change: more workers have to bring a noticeable gain; fewer workers may only cost a little
+      double required = probe > 0 ? referenceThroughput * (1 + MIN_GAIN) : referenceThroughput * (1 - MIN_GAIN);
+      if (throughput >= required) {
+        // keep it and go on in the same direction
+        return change(probe, throughput);
+      }
+
+      // undo it and wait some windows before probing the other direction
+      concurrency -= probe;
+      direction = -probe;
+      probe = 0;
+      holdWindows = HOLD_WINDOWS;
+      settling = true;
+      return concurrency;
+    }
+
+    if (holdWindows > 0) {
+      holdWindows--;
+      return concurrency;
+    }
+
+    return change(direction, throughput);
+  }
+
+  private int change(int delta, double throughput) {
+    int newConcurrency = Math.min(maxConcurrency, Math.max(minConcurrency, concurrency + delta));
+    if (newConcurrency == concurrency) {
+      // at the limit - probe the other direction later
+      direction = -delta;
+      probe = 0;
+      holdWindows = HOLD_WINDOWS;
+      return concurrency;
+    }
+
+    referenceThroughput = throughput;
+    probe = newConcurrency - concurrency;
+    concurrency = newConcurrency;
+    settling = true;
+    return concurrency;
+  }
+
+  /**
+   * get the current amount of workers
+   *
+   * @return the amount of workers
+   */
+  synchronized int getConcurrency() {
+    return concurrency;
+  }
+
+  /**
+   * get the amount of finished tasks per second since the start
+   *
+   * @return the throughput
+   */
+  synchronized double getThroughput() {
+    double seconds = (lastFinished - start) / 1_000_000_000d;
+    if (seconds <= 0) {
+      return 0;
+    }
+    return finishedTasks / seconds;
+  }
+}
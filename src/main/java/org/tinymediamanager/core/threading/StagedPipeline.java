@@ -0,0 +1,318 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class StagedPipeline. Processes items in a sequence of stages where every stage has its own bounded amount of threads - so the stages of
+ * different items overlap (e.g. while one item waits for the response of a metadata request, the artwork of another item is being looked up).<br />
+ * Every item passes the stages in the order they have been added; the state of the item is carried along in the item itself. A stage can drop an
+ * item (it does not reach the following stages); a failing stage drops the item too without affecting the other items.
+ *
+ * @param <T>
+ *          the type of the items
+ * @author Manuel Laggner
+ */
+public class StagedPipeline<T> {
+  private static final Logger  LOGGER   = LoggerFactory.getLogger(StagedPipeline.class);
+
+  private final String         name;
+  private final List<Stage<T>> stages   = new ArrayList<>();
+  private final AtomicInteger  inFlight = new AtomicInteger();
+  private final AtomicInteger  finished = new AtomicInteger();
+  private final Object         lock     = new Object();
+
+  private volatile boolean     cancelled;
+  private volatile long        start;
+
+  /**
+   * the work of one stage
+   *
+   * @param <T>
+   *          the type of the items
+   */
+  @FunctionalInterface
+  public interface StageFunction<T> {
+    /**
+     * process the item in this stage
+     *
+     * @param item
+     *          the item to process
+     * @return true if the item should be passed to the next stage; false to drop it
+     * @throws Exception
+     *           any exception occurred (drops the item)
+     */
+    boolean process(T item) throws Exception;
+  }
+
+  /**
+   * create a new pipeline
+   *
+   * @param name
+   *          a name for the logging/threads
+   */
+  public StagedPipeline(String name) {
+    this.name = name;
+  }
+
+  /**
+   * add a stage at the end of the pipeline; all stages must be added before the first item is submitted
+   *
+   * @param stageName
+   *          the name of the stage (for logging and the statistics)
+   * @param threads
+   *          the maximum amount of items processed concurrently in this stage
+   * @param function
+   *          the work of the stage
+   * @return this pipeline
+   */
+  public StagedPipeline<T> addStage(String stageName, int threads, StageFunction<T> function) {
+    stages.add(new Stage<>(name + "-" + stageName, stageName, Math.max(1, threads), function));
+    return this;
+  }
+
+  /**
+   * pass a new item to the first stage
+   *
+   * @param item
+   *          the item to process
+   */
+  public void submit(T item) {
+    if (start == 0) {
+      start = System.nanoTime();
+    }
+    inFlight.incrementAndGet();
+    execute(0, item);
+  }
+
+  /**
+   * wait until all submitted items have passed (or have been dropped by) the pipeline
+   *
+   * @param timeout
+   *          the maximum time to wait
+   * @param unit
+   *          the unit of the timeout
+   * @return true if all items have been processed, false if the timeout elapsed before
+   * @throws InterruptedException
+   *           if the thread has been interrupted while waiting
+   */
+  public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (lock) {
+      while (inFlight.get() > 0) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * cancel the pipeline: all waiting items are dropped and the running stages are interrupted
+   */
+  public void cancel() {
+    cancelled = true;
+    for (Stage<T> stage : stages) {
+      // the removed runnables will never run - every one of them is an item which is finished now
+      int dropped = stage.executor.shutdownNow().size();
+      stage.queued.addAndGet(-dropped);
+      for (int i = 0; i < dropped; i++) {
+        itemFinished();
+      }
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * shut down the threads of all stages (after all items have been processed)
+   */
+  public void shutdown() {
+    for (Stage<T> stage : stages) {
+      stage.executor.shutdown();
+    }
+  }
+
+  /**
+   * get the amount of items which have passed (or have been dropped by) the pipeline
+   *
+   * @return the amount of finished items
+   */
+  public int getFinishedCount() {
+    return finished.get();
+  }
+
+  /**
+   * get the current statistics of all stages
+   *
+   * @return the statistics in the order of the stages
+   */
+  public List<StageStatistics> getStatistics() {
+    double seconds = start == 0 ? 0 : (System.nanoTime() - start) / 1_000_000_000d;
+
+    List<StageStatistics> statistics = new ArrayList<>();
+    for (Stage<T> stage : stages) {
+      int completed = stage.completed.get();
+      statistics.add(new StageStatistics(stage.name, stage.queued.get(), stage.active.get(), completed, stage.failed.get(),
+          seconds > 0 ? completed / seconds : 0));
+    }
+    return statistics;
+  }
+
+  private void execute(int index, T item) {
+    Stage<T> stage = stages.get(index);
+    stage.queued.incrementAndGet();
+    try {
+      stage.executor.execute(() -> run(index, item));
+    }
+    catch (RejectedExecutionException e) {
+      // cancelled
+      stage.queued.decrementAndGet();
+      itemFinished();
+    }
+  }
+
+  private void run(int index, T item) {
+    Stage<T> stage = stages.get(index);
+    stage.queued.decrementAndGet();
+
+    boolean passOn = false;
+    if (!cancelled) {
+      stage.active.incrementAndGet();
+      try {
+        passOn = stage.function.process(item);
+        stage.completed.incrementAndGet();
+      }
+      catch (Exception e) {
+        stage.failed.incrementAndGet();
+        LOGGER.error("pipeline {} - stage {} failed: {}", name, stage.name, e.getMessage());
+      }
+      finally {
+        stage.active.decrementAndGet();
+      }
+    }
+
+    if (passOn && !cancelled && index + 1 < stages.size()) {
+      execute(index + 1, item);
+    }
+    else {
+      itemFinished();
+    }
+  }
+
+  private void itemFinished() {
+    finished.incrementAndGet();
+    if (inFlight.decrementAndGet() <= 0) {
+      synchronized (lock) {
+        lock.notifyAll();
+      }
+    }
+  }
+
+  private static class Stage<T> {
+    private final String             name;
+    private final StageFunction<T>   function;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger      queued       = new AtomicInteger();
+    private final AtomicInteger      active       = new AtomicInteger();
+    private final AtomicInteger      completed    = new AtomicInteger();
+    private final AtomicInteger      failed       = new AtomicInteger();
+    private final AtomicInteger      threadNumber = new AtomicInteger(1);
+
+    private Stage(String poolName, String name, int threads, StageFunction<T> function) {
+      this.name = name;
+      this.function = function;
+      this.executor = new ThreadPoolExecutor(threads, threads, 2, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+          runnable -> new Thread(runnable, "tmmpool-" + poolName + "-T" + threadNumber.getAndIncrement()));
+      this.executor.allowCoreThreadTimeOut(true);
+    }
+  }
+
+  /**
+   * the statistics of one stage
+   */
+  public static class StageStatistics {
+    private final String name;
+    private final int    queued;
+    private final int    active;
+    private final int    completed;
+    private final int    failed;
+    private final double throughput;
+
+    StageStatistics(String name, int queued, int active, int completed, int failed, double throughput) {
+      this.name = name;
+      this.queued = queued;
+      this.active = active;
+      this.completed = completed;
+      this.failed = failed;
+      this.throughput = throughput;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * get the amount of items waiting for this stage
+     *
+     * @return the queue length
+     */
+    public int getQueued() {
+      return queued;
+    }
+
+    /**
+     * get the amount of items being processed in this stage right now
+     *
+     * @return the amount of active items
+     */
+    public int getActive() {
+      return active;
+    }
+
+    public int getCompleted() {
+      return completed;
+    }
+
+    public int getFailed() {
+      return failed;
+    }
+
+    /**
+     * get the throughput of this stage since the first item has been submitted
+     *
+     * @return the processed items per second
+     */
+    public double getThroughput() {
+      return throughput;
+    }
+  }
+}
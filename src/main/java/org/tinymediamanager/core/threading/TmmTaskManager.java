@@ -219,13 +219,12 @@ public class TmmTaskManager implements TmmTaskListener {
   }
 
   /**
-   * add a new task to the the main task queue
+   * add a new task to the the main task queue (the main tasks are executed one after another)
    * 
    * @param newTask
    *          the task to be added
-   * @return true if there is already a main task running
    */
-  public void addMainTask(TmmThreadPool newTask) {
+  public void addMainTask(TmmTask newTask) {
     newTask.setState(TaskState.QUEUED);
     newTask.addListener(this);
     // immediately inform this listener
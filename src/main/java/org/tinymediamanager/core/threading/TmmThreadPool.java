@@ -15,10 +15,12 @@
  */
 package org.tinymediamanager.core.threading;
 
+import java.text.MessageFormat;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
@@ -28,6 +30,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.TmmResourceBundle;
 
 /**
  * The Class TmmThreadPool.
@@ -35,10 +38,11 @@ import org.slf4j.LoggerFactory;
  * @author Myron Boyle, Manuel Laggner
  */
 public abstract class TmmThreadPool extends TmmTask {
-  private static final Logger       LOGGER  = LoggerFactory.getLogger(TmmThreadPool.class);
+  private static final Logger       LOGGER      = LoggerFactory.getLogger(TmmThreadPool.class);
 
-  private ThreadPoolExecutor        pool    = null;
-  private CompletionService<Object> service = null;
+  private ThreadPoolExecutor        pool        = null;
+  private CompletionService<Object> service     = null;
+  private AdaptiveConcurrency       concurrency = null;
 
   protected String                  poolname;
 
@@ -55,8 +59,29 @@ public abstract class TmmThreadPool extends TmmTask {
    *          a name for the logging
    */
   protected void initThreadPool(int threads, String name) {
+    initThreadPool(threads, name, false);
+  }
+
+  /**
+   * create new ThreadPool.
+   * 
+   * @param threads
+   *          amount of threads (the initial amount of threads in the adaptive mode)
+   * @param name
+   *          a name for the logging
+   * @param adaptive
+   *          adapt the amount of threads to the measured throughput of the tasks (between 1 and the amount of available processors)
+   */
+  protected void initThreadPool(int threads, String name, boolean adaptive) {
     this.cancel = false;
     this.poolname = name;
+    threads = Math.max(1, threads);
+    if (adaptive) {
+      concurrency = new AdaptiveConcurrency(threads, 1, Math.max(threads, Runtime.getRuntime().availableProcessors()));
+    }
+    else {
+      concurrency = new AdaptiveConcurrency(threads, threads, threads);
+    }
     pool = new ThreadPoolExecutor(threads, threads, // max threads
         2, TimeUnit.SECONDS, // time to wait before closing idle workers
         new LinkedBlockingQueue<>(), // our queue
@@ -75,7 +100,7 @@ public abstract class TmmThreadPool extends TmmTask {
   protected synchronized void submitTask(Callable<Object> task) {
     if (!cancel) {
       workUnits++;
-      service.submit(task);
+      service.submit(measure(task));
     }
   }
 
@@ -88,10 +113,54 @@ public abstract class TmmThreadPool extends TmmTask {
   protected synchronized void submitTask(Runnable task) {
     if (!cancel) {
       workUnits++;
-      service.submit(task, "");
+      service.submit(measure(Executors.callable(task, "")));
     }
   }
 
+  /**
+   * count the finished tasks to measure the throughput and adapt the pool size
+   */
+  private Callable<Object> measure(Callable<Object> task) {
+    final ThreadPoolExecutor executor = pool;
+    final AdaptiveConcurrency controller = concurrency;
+
+    return () -> {
+      try {
+        return task.call();
+      }
+      finally {
+        adjustPoolSize(executor, controller.taskFinished(System.nanoTime()));
+      }
+    };
+  }
+
+  private static void adjustPoolSize(ThreadPoolExecutor executor, int threads) {
+    synchronized (executor) {
+      // the maximum pool size must never be lower than the core pool size
+      if (threads > executor.getMaximumPoolSize()) {
+        executor.setMaximumPoolSize(threads);
+        executor.setCorePoolSize(threads);
+      }
+      else if (threads < executor.getCorePoolSize()) {
+        executor.setCorePoolSize(threads);
+        executor.setMaximumPoolSize(threads);
+      }
+    }
+  }
+
+  /**
+   * get the current statistics of the pool (amount of threads and throughput) for the task progress
+   * 
+   * @return the statistics as a human readable string
+   */
+  protected String getPoolStatistics() {
+    if (concurrency == null) {
+      return "";
+    }
+    return MessageFormat.format(TmmResourceBundle.getString("task.poolstatistics"), concurrency.getConcurrency(),
+        String.format("%.1f", concurrency.getThroughput()));
+  }
+
   /**
    * Wait for completion or cancel.
    */
@@ -128,6 +197,10 @@ public abstract class TmmThreadPool extends TmmTask {
       LOGGER.info("Abort queue (discarding {} tasks", workUnits - progressDone);
       pool.shutdownNow();
     }
+    else {
+      LOGGER.debug("ThreadPool {} finished - threads: {}, throughput: {} tasks/s", poolname, concurrency.getConcurrency(),
+          String.format("%.1f", concurrency.getThroughput()));
+    }
   }
 
   /**
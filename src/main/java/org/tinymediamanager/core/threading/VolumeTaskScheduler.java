@@ -0,0 +1,280 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class VolumeTaskScheduler. Schedules tasks which work on the file system (renaming, moving, ...) by the volume they are working on: tasks on
+ * different volumes run concurrently (with a configurable amount of threads per volume), whereas tasks which share a serial key (e.g. the movie
+ * folder or the TV show) are always executed one after another in the order they have been added.<br />
+ * If a task shares serial keys with several groups, all these groups are merged into one serial group.
+ *
+ * @author Manuel Laggner
+ */
+public class VolumeTaskScheduler {
+  private static final Logger             LOGGER  = LoggerFactory.getLogger(VolumeTaskScheduler.class);
+
+  private final String                    name;
+  private final int                       threadsPerVolume;
+
+  private final List<ScheduledTask>       tasks   = new ArrayList<>();
+  private final Map<String, Integer>      keys    = new HashMap<>();
+  private final List<Integer>             parents = new ArrayList<>();
+  private final Map<Path, Object>         volumes = new HashMap<>();
+
+  /**
+   * create a new scheduler
+   *
+   * @param name
+   *          a name for the logging/threads
+   * @param threadsPerVolume
+   *          the maximum amount of concurrently running tasks per volume
+   */
+  public VolumeTaskScheduler(String name, int threadsPerVolume) {
+    this.name = name;
+    this.threadsPerVolume = Math.max(1, threadsPerVolume);
+  }
+
+  /**
+   * add a new task
+   *
+   * @param location
+   *          a path on the volume where the task is working on (e.g. the data source)
+   * @param task
+   *          the task to execute
+   * @param serialKeys
+   *          all tasks sharing one of these keys are executed serially (e.g. the source and destination folder)
+   */
+  public void add(Path location, Callable<Object> task, String... serialKeys) {
+    add(getVolume(location), task, serialKeys);
+  }
+
+  void add(Object volume, Callable<Object> task, String... serialKeys) {
+    int group = parents.size();
+    parents.add(group);
+
+    for (String key : serialKeys) {
+      if (key == null) {
+        continue;
+      }
+      Integer other = keys.putIfAbsent(key, group);
+      if (other != null) {
+        union(other, group);
+      }
+    }
+
+    tasks.add(new ScheduledTask(volume, group, task));
+  }
+
+  /**
+   * get the amount of added tasks
+   *
+   * @return the amount of tasks
+   */
+  public int size() {
+    return tasks.size();
+  }
+
+  /**
+   * execute all added tasks and wait until all of them have been finished (or the execution has been cancelled). A failing task does not stop the
+   * execution of any other task
+   *
+   * @param listener
+   *          the listener to get informed about every finished task (invoked from the worker threads)
+   * @param cancelled
+   *          a check whether the execution has been cancelled (evaluated before every task)
+   */
+  public void run(Listener listener, BooleanSupplier cancelled) {
+    // volume -> serial groups (in the order of the tasks)
+    Map<Object, Map<Integer, List<ScheduledTask>>> lanes = new LinkedHashMap<>();
+    Map<Integer, Object> groupVolumes = new HashMap<>();
+    for (ScheduledTask task : tasks) {
+      // the volume of the serial group is the volume of its first task
+      int group = find(task.group);
+      Object volume = groupVolumes.computeIfAbsent(group, g -> task.volume);
+      lanes.computeIfAbsent(volume, v -> new LinkedHashMap<>()).computeIfAbsent(group, g -> new ArrayList<>()).add(task);
+    }
+
+    List<Callable<Void>> workers = new ArrayList<>();
+    for (Map<Integer, List<ScheduledTask>> lane : lanes.values()) {
+      Queue<List<ScheduledTask>> queue = new ConcurrentLinkedQueue<>(lane.values());
+      for (int i = 0; i < Math.min(threadsPerVolume, lane.size()); i++) {
+        workers.add(() -> {
+          List<ScheduledTask> group;
+          while ((group = queue.poll()) != null) {
+            for (ScheduledTask task : group) {
+              if (cancelled.getAsBoolean()) {
+                return null;
+              }
+              execute(task, listener);
+            }
+          }
+          return null;
+        });
+      }
+    }
+
+    if (workers.isEmpty()) {
+      return;
+    }
+
+    LOGGER.debug("{}: {} tasks on {} volume(s) with {} thread(s)", name, tasks.size(), lanes.size(), workers.size());
+
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    ExecutorService executor = new ThreadPoolExecutor(workers.size(), workers.size(), 2, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        runnable -> new Thread(runnable, "tmmpool-" + name + "-T" + threadNumber.getAndIncrement()));
+    try {
+      for (Future<Void> future : executor.invokeAll(workers)) {
+        future.get();
+      }
+    }
+    catch (InterruptedException e) {
+      LOGGER.error("{} interrupted!", name);
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      LOGGER.error("{}: worker crashed - {}", name, e.getMessage());
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  private void execute(ScheduledTask task, Listener listener) {
+    Object result;
+    try {
+      result = task.task.call();
+    }
+    catch (Exception e) {
+      LOGGER.error("{}: task failed - {}", name, e.getMessage());
+      listener.taskFailed(task.task, e);
+      return;
+    }
+    listener.taskFinished(result);
+  }
+
+  private int find(int group) {
+    while (parents.get(group) != group) {
+      parents.set(group, parents.get(parents.get(group)));
+      group = parents.get(group);
+    }
+    return group;
+  }
+
+  private void union(int first, int second) {
+    int root1 = find(first);
+    int root2 = find(second);
+    if (root1 != root2) {
+      // the older group stays the root
+      parents.set(Math.max(root1, root2), Math.min(root1, root2));
+    }
+  }
+
+  /**
+   * get the volume (file store) for the given location. The results are cached per location
+   */
+  private Object getVolume(Path location) {
+    if (location == null) {
+      return "";
+    }
+    return volumes.computeIfAbsent(location, VolumeTaskScheduler::resolveVolume);
+  }
+
+  /**
+   * resolve the volume (file store) of the given path; if the path does not exist (yet), the nearest existing parent is taken
+   *
+   * @param path
+   *          the path to resolve the volume for
+   * @return the {@link java.nio.file.FileStore} or the root of the path if the file store cannot be determined
+   */
+  static Object resolveVolume(Path path) {
+    Path absolute = path.toAbsolutePath();
+    Path existing = absolute;
+    while (existing != null && !Files.exists(existing)) {
+      existing = existing.getParent();
+    }
+
+    if (existing != null) {
+      try {
+        return Files.getFileStore(existing);
+      }
+      catch (IOException e) {
+        LOGGER.debug("could not get the file store of '{}' - {}", existing, e.getMessage());
+      }
+    }
+
+    Path root = absolute.getRoot();
+    return root != null ? root : absolute;
+  }
+
+  /**
+   * the listener to get informed about the finished tasks
+   */
+  public interface Listener {
+    /**
+     * the task has been finished successfully
+     *
+     * @param result
+     *          the result of the task
+     */
+    void taskFinished(Object result);
+
+    /**
+     * the task has thrown an exception
+     *
+     * @param task
+     *          the failed task
+     * @param e
+     *          the exception
+     */
+    void taskFailed(Callable<Object> task, Exception e);
+  }
+
+  private static class ScheduledTask {
+    private final Object           volume;
+    private final int              group;
+    private final Callable<Object> task;
+
+    private ScheduledTask(Object volume, int group, Callable<Object> task) {
+      this.volume = volume;
+      this.group = group;
+      this.task = task;
+    }
+  }
+}
@@ -417,7 +417,7 @@ public class TvShowArtworkHelper {
       // check if the parent exist and create if needed
       if (!Files.exists(destFile.getParent())) {
         try {
-          Files.createDirectory(destFile.getParent());
+          Utils.createDirectory(destFile.getParent());
         }
         catch (IOException e) {
           LOGGER.error("could not create folder: {} - {}", destFile.getParent(), e.getMessage());
@@ -469,7 +469,7 @@ public class TvShowArtworkHelper {
       // check if the parent exist and create if needed
       if (!Files.exists(destFile.getParent())) {
         try {
-          Files.createDirectory(destFile.getParent());
+          Utils.createDirectory(destFile.getParent());
         }
         catch (IOException e) {
           LOGGER.error("could not create folder: {} - {}", destFile.getParent(), e.getMessage());
@@ -521,7 +521,7 @@ public class TvShowArtworkHelper {
       // check if the parent exist and create if needed
       if (!Files.exists(destFile.getParent())) {
         try {
-          Files.createDirectory(destFile.getParent());
+          Utils.createDirectory(destFile.getParent());
         }
         catch (IOException e) {
           LOGGER.error("could not create folder: {} - {}", destFile.getParent(), e.getMessage());
@@ -876,7 +876,7 @@ public class TvShowArtworkHelper {
       try {
         String filename = fileNaming.getFilename(basename, "jpg"); // need to force jpg here since we do know it better
         MediaFile mf = new MediaFile(vsMetaFile.getFileAsPath().getParent().resolve(filename), MediaFileType.getMediaFileType(artworkType));
-        Files.write(mf.getFileAsPath(), bytes);
+        Utils.writeBytesToFile(mf.getFileAsPath(), bytes);
         mediaEntity.addToMediaFiles(mf);
       }
       catch (Exception e) {
@@ -18,14 +18,10 @@ package org.tinymediamanager.core.tvshow;
 import static org.tinymediamanager.core.tvshow.TvShowSettings.DEFAULT_RENAMER_FILE_PATTERN;
 
 import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.URLEncoder;
-import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -36,7 +32,6 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.tinymediamanager.core.ImageUtils;
 import org.tinymediamanager.core.MediaEntityExporter;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.Utils;
@@ -53,6 +48,7 @@ import org.tinymediamanager.core.jmte.NamedUpperCaseRenderer;
 import org.tinymediamanager.core.tvshow.entities.TvShow;
 import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
 
+import com.floreysoft.jmte.Engine;
 import com.floreysoft.jmte.NamedRenderer;
 import com.floreysoft.jmte.RenderFormatInfo;
 
@@ -86,22 +82,8 @@ public class TvShowExporter extends MediaEntityExporter {
       return;
     }
 
-    // register own renderers
-    engine.registerNamedRenderer(new NamedDateRenderer());
-    engine.registerNamedRenderer(new NamedNumberRenderer());
-    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
-    engine.registerNamedRenderer(new NamedLowerCaseRenderer());
-    engine.registerNamedRenderer(new NamedTitleCaseRenderer());
-    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
-    engine.registerNamedRenderer(new TvShowFilenameRenderer());
-    engine.registerNamedRenderer(new TvShowArtworkCopyRenderer(exportDir));
-    engine.registerNamedRenderer(new NamedFilesizeRenderer());
-    engine.registerNamedRenderer(new NamedReplacementRenderer());
-
-    // prepare export destination
-    if (!Files.exists(exportDir)) {
-      Files.createDirectories(exportDir);
-    }
+    // prepare export destination and the renderers
+    startExport(exportDir);
 
     // prepare listfile
     Path listExportFile = exportDir.resolve("tvshows." + fileExtension);
@@ -122,8 +104,7 @@ public class TvShowExporter extends MediaEntityExporter {
 
     Map<String, Object> root = new HashMap<>();
     root.put("tvShows", new ArrayList<>(tvShowsToExport));
-    String output = engine.transform(listTemplate, root);
-    Utils.writeStringToFile(listExportFile, output);
+    transformToFile(listTemplate, root, listExportFile);
     LOGGER.info("TvShow list generated: {}", listExportFile);
 
     if (StringUtils.isNotBlank(detailTemplate)) {
@@ -142,12 +123,16 @@ public class TvShowExporter extends MediaEntityExporter {
           LOGGER.debug("Folder already exists...");
         }
 
+        // rendered in the export pool (if the TV show or any of its episodes has been changed since the last export)
         Path detailsExportFile = showDir.resolve("tvshow." + fileExtension);
-        root = new HashMap<>();
-        root.put("tvShow", show);
-
-        output = engine.transform(detailTemplate, root);
-        Utils.writeStringToFile(detailsExportFile, output);
+        List<MediaEntity> showAndEpisodes = new ArrayList<>();
+        showAndEpisodes.add(show);
+        showAndEpisodes.addAll(show.getEpisodes());
+        if (isExportNeeded(showAndEpisodes, detailsExportFile)) {
+          root = new HashMap<>();
+          root.put("tvShow", show);
+          submitTransformToFile(detailTemplate, root, detailsExportFile);
+        }
 
         if (StringUtils.isNotBlank(episodeTemplate)) {
           for (TvShowEpisode episode : show.getEpisodes()) {
@@ -164,37 +149,33 @@ public class TvShowExporter extends MediaEntityExporter {
 
               String episodeFileName = getFilename(episode) + "." + fileExtension;
               Path episodeExportFile = seasonDir.resolve(episodeFileName);
-              root = new HashMap<>();
-              root.put("episode", episode);
-              output = engine.transform(episodeTemplate, root);
-              Utils.writeStringToFile(episodeExportFile, output);
+              if (isExportNeeded(episode, episodeExportFile)) {
+                root = new HashMap<>();
+                root.put("episode", episode);
+                submitTransformToFile(episodeTemplate, root, episodeExportFile);
+              }
             }
           }
         }
       }
     }
 
-    if (cancel) {
-      return;
-    }
+    // wait for the detail pages/artwork and copy all non .jtme/template.conf files to destination dir
+    finishExport();
+  }
 
-    // copy all non .jtme/template.conf files to destination dir
-    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(templateDir)) {
-      for (Path path : directoryStream) {
-        if (Utils.isRegularFile(path)) {
-          if (path.getFileName().toString().endsWith(".jmte") || path.getFileName().toString().endsWith("template.conf")) {
-            continue;
-          }
-          Files.copy(path, exportDir.resolve(path.getFileName()), StandardCopyOption.REPLACE_EXISTING);
-        }
-        else if (Files.isDirectory(path)) {
-          Utils.copyDirectoryRecursive(path, exportDir.resolve(path.getFileName()));
-        }
-      }
-    }
-    catch (IOException ex) {
-      LOGGER.error("could not copy resources: ", ex);
-    }
+  @Override
+  protected void registerRenderers(Engine engine, Path exportDir) {
+    engine.registerNamedRenderer(new NamedDateRenderer());
+    engine.registerNamedRenderer(new NamedNumberRenderer());
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+    engine.registerNamedRenderer(new NamedLowerCaseRenderer());
+    engine.registerNamedRenderer(new NamedTitleCaseRenderer());
+    engine.registerNamedRenderer(new NamedFirstCharacterRenderer());
+    engine.registerNamedRenderer(new TvShowFilenameRenderer());
+    engine.registerNamedRenderer(new TvShowArtworkCopyRenderer(this, exportDir));
+    engine.registerNamedRenderer(new NamedFilesizeRenderer());
+    engine.registerNamedRenderer(new NamedReplacementRenderer());
   }
 
   private static String getFilename(MediaEntity entity) {
@@ -299,8 +280,8 @@ public class TvShowExporter extends MediaEntityExporter {
    */
   private static class TvShowArtworkCopyRenderer extends ArtworkCopyRenderer {
 
-    public TvShowArtworkCopyRenderer(Path pathToExport) {
-      super(pathToExport);
+    public TvShowArtworkCopyRenderer(MediaEntityExporter exporter, Path pathToExport) {
+      super(exporter, pathToExport);
     }
 
     @Override
@@ -318,7 +299,7 @@ public class TvShowExporter extends MediaEntityExporter {
         }
 
         MediaFile mf = entity.getArtworkMap().get(parameters.get("type"));
-        if (mf == null || !mf.isGraphic()) {
+        if (mf == null || !mf.isGraphic() || !isCopyable(mf)) {
           if (StringUtils.isNotBlank((String) parameters.get("default"))) {
             return (String) parameters.get("default");
           }
@@ -335,33 +316,18 @@ public class TvShowExporter extends MediaEntityExporter {
           imageDir = pathToExport;
         }
 
-        try {
-          // create the image dir
-          if (!Files.exists(imageDir)) {
-            Files.createDirectory(imageDir);
-          }
-
-          // we need to rescale the image; scale factor is fixed to
-          if (parameters.get("thumb") == Boolean.TRUE) {
-            filename += ".thumb." + FilenameUtils.getExtension(mf.getFilename());
-            int width = 150;
-            if (parameters.get("width") != null) {
-              width = (int) parameters.get("width");
-            }
-            InputStream is = ImageUtils.scaleImage(mf.getFileAsPath(), width);
-            Files.copy(is, imageDir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
-          }
-          else {
-            filename += "." + FilenameUtils.getExtension(mf.getFilename());
-            Files.copy(mf.getFileAsPath(), imageDir.resolve(filename), StandardCopyOption.REPLACE_EXISTING);
+        // we need to rescale the image; scale factor is fixed to
+        if (parameters.get("thumb") == Boolean.TRUE) {
+          filename += ".thumb." + FilenameUtils.getExtension(mf.getFilename());
+          int width = 150;
+          if (parameters.get("width") != null) {
+            width = (int) parameters.get("width");
           }
+          copyArtwork(mf.getFileAsPath(), imageDir.resolve(filename), width);
         }
-        catch (Exception e) {
-          LOGGER.error("could not copy artwork file: ", e);
-          if (StringUtils.isNotBlank((String) parameters.get("default"))) {
-            return (String) parameters.get("default");
-          }
-          return ""; // pass an emtpy string to prevent tvShow.toString() gets triggered by jmte
+        else {
+          filename += "." + FilenameUtils.getExtension(mf.getFilename());
+          copyArtwork(mf.getFileAsPath(), imageDir.resolve(filename), 0);
         }
 
         if (parameters.get("escape") == Boolean.TRUE) {
@@ -43,13 +43,15 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
-import org.h2.mvstore.MVMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.AbstractModelObject;
 import org.tinymediamanager.core.Constants;
+import org.tinymediamanager.core.DatabaseLoader;
 import org.tinymediamanager.core.FeatureNotEnabledException;
 import org.tinymediamanager.core.MediaCertification;
+import org.tinymediamanager.core.MediaEntityIndex;
+import org.tinymediamanager.core.MediaEntityMap;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.Message;
 import org.tinymediamanager.core.Message.MessageLevel;
@@ -70,9 +72,6 @@ import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
 import org.tinymediamanager.scraper.util.ListUtils;
 import org.tinymediamanager.scraper.util.MetadataUtil;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
-
 import ca.odell.glazedlists.BasicEventList;
 import ca.odell.glazedlists.GlazedLists;
 import ca.odell.glazedlists.ObservableElementList;
@@ -87,6 +86,8 @@ public class TvShowList extends AbstractModelObject {
   private static TvShowList                              instance = null;
 
   private final List<TvShow>                             tvShowList;
+  private final MediaEntityIndex<TvShow>                 tvShowIndex;
+  private final MediaEntityIndex<TvShowEpisode>          episodeIndex;
 
   private final CopyOnWriteArrayList<String>             tagsInTvShows;
   private final CopyOnWriteArrayList<String>             tagsInEpisodes;
@@ -109,6 +110,9 @@ public class TvShowList extends AbstractModelObject {
   private TvShowList() {
     // create the lists
     tvShowList = new ObservableElementList<>(GlazedLists.threadSafeList(new BasicEventList<>()), GlazedLists.beanConnector(TvShow.class));
+    tvShowIndex = new MediaEntityIndex<>(tvShow -> Collections.singletonList(tvShow.getPathNIO()));
+    episodeIndex = new MediaEntityIndex<>(
+        episode -> episode.getMediaFiles(MediaFileType.VIDEO).stream().map(MediaFile::getFileAsPath).collect(Collectors.toList()));
     tagsInTvShows = new CopyOnWriteArrayList<>();
     tagsInEpisodes = new CopyOnWriteArrayList<>();
     videoCodecsInEpisodes = new CopyOnWriteArrayList<>();
@@ -255,6 +259,8 @@ public class TvShowList extends AbstractModelObject {
     int oldValue = tvShowList.size();
 
     tvShowList.add(newValue);
+    tvShowIndex.add(newValue);
+    episodeIndex.addAll(newValue.getEpisodes());
     newValue.addPropertyChangeListener(propertyChangeListener);
     firePropertyChange(TV_SHOWS, null, tvShowList);
     firePropertyChange(ADDED_TV_SHOW, null, newValue);
@@ -330,6 +336,7 @@ public class TvShowList extends AbstractModelObject {
     int oldValue = tvShowList.size();
     tvShow.removeAllEpisodes();
     tvShowList.remove(tvShow);
+    tvShowIndex.remove(tvShow);
 
     try {
       TvShowModuleManager.getInstance().removeTvShowFromDb(tvShow);
@@ -355,6 +362,7 @@ public class TvShowList extends AbstractModelObject {
     tvShow.deleteFilesSafely();
     tvShow.removeAllEpisodes();
     tvShowList.remove(tvShow);
+    tvShowIndex.remove(tvShow);
 
     try {
       TvShowModuleManager.getInstance().removeTvShowFromDb(tvShow);
@@ -420,126 +428,179 @@ public class TvShowList extends AbstractModelObject {
   }
 
   public TvShow lookupTvShow(UUID uuid) {
-    for (TvShow tvShow : tvShowList) {
-      if (tvShow.getDbId().equals(uuid)) {
-        return tvShow;
-      }
+    return tvShowIndex.get(uuid);
+  }
+
+  /**
+   * get the episode with the given database id
+   *
+   * @param uuid
+   *          the database id
+   * @return the episode or null
+   */
+  public TvShowEpisode lookupEpisode(UUID uuid) {
+    return episodeIndex.get(uuid);
+  }
+
+  /**
+   * add the given episode to the episode lookup table. This is done synchronously by {@link TvShow#addEpisode(TvShowEpisode)}, so the episode can
+   * be looked up right after adding it. Only episodes of TV shows in this list are indexed (no dummy episodes - they are not part of the database)
+   *
+   * @param tvShow
+   *          the TV show the episode has been added to
+   * @param episode
+   *          the episode
+   */
+  public void indexEpisode(TvShow tvShow, TvShowEpisode episode) {
+    if (episode.isDummy() || tvShow == null || tvShowIndex.get(tvShow.getDbId()) != tvShow) {
+      return;
     }
-    return null;
+    episodeIndex.add(episode);
+  }
+
+  /**
+   * get all episodes which have the given video file
+   *
+   * @param file
+   *          the video file
+   * @return a list of all found episodes (never null)
+   */
+  public List<TvShowEpisode> getEpisodesByVideoFile(Path file) {
+    return episodeIndex.getAllByPath(file);
+  }
+
+  /**
+   * check whether the lookup tables are consistent with the TV show/episode lists
+   *
+   * @return a list of all found inconsistencies (empty if everything is fine)
+   */
+  List<String> checkIndexConsistency() {
+    List<TvShow> tvShows = new ArrayList<>(tvShowList);
+    List<TvShowEpisode> episodes = new ArrayList<>();
+    for (TvShow tvShow : tvShows) {
+      episodes.addAll(tvShow.getEpisodes());
+    }
+
+    List<String> problems = new ArrayList<>(tvShowIndex.checkConsistency(tvShows));
+    problems.addAll(episodeIndex.checkConsistency(episodes));
+    return problems;
   }
 
   /**
    * Load tv shows from database.
    */
-  void loadTvShowsFromDatabase(MVMap<UUID, String> tvShowMap, ObjectMapper objectMapper) {
+  void loadTvShowsFromDatabase(MediaEntityMap<TvShow> tvShowMap) {
     // load all TV shows from the database
-    ObjectReader tvShowObjectReader = objectMapper.readerFor(TvShow.class);
+    DatabaseLoader<TvShow> loader = new DatabaseLoader<>("TV show", tvShowMap);
 
-    for (UUID uuid : new ArrayList<>(tvShowMap.keyList())) {
-      String json = "";
-      try {
-        json = tvShowMap.get(uuid);
-        TvShow tvShow = tvShowObjectReader.readValue(json);
-        tvShow.setDbId(uuid);
+    // for performance reasons we add tv shows directly
+    List<TvShow> tvShows = loader.load();
+    tvShowList.addAll(tvShows);
+    tvShowIndex.addAll(tvShows);
 
-        // for performance reasons we add tv shows directly
-        tvShowList.add(tvShow);
-      }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding TV show json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt TV show: {}", json);
-        tvShowMap.remove(uuid);
-      }
+    // drop corrupt TV shows
+    for (UUID uuid : loader.getCorruptEntries()) {
+      tvShowMap.remove(uuid);
     }
+
     LOGGER.info("found {} TV shows in database", tvShowList.size());
+    LOGGER.info("startup timing TV shows - load: {} ms (read: {} ms, decode: {} ms)", loader.getWallTime(), loader.getReadTime(),
+        loader.getDecodeTime());
   }
 
   /**
    * Load episodes from database.
    */
-  void loadEpisodesFromDatabase(MVMap<UUID, String> episodesMap, ObjectMapper objectMapper) {
+  void loadEpisodesFromDatabase(MediaEntityMap<TvShowEpisode> episodesMap) {
     List<UUID> orphanedEpisodes = new ArrayList<>();
 
     // load all episodes from the database
-    ObjectReader episodeObjectReader = objectMapper.readerFor(TvShowEpisode.class);
+    DatabaseLoader<TvShowEpisode> loader = new DatabaseLoader<>("episode", episodesMap);
+    List<TvShowEpisode> episodes = loader.load();
     int episodeCount = 0;
 
-    for (UUID uuid : new ArrayList<>(episodesMap.keyList())) {
-      String json = "";
-      try {
-        json = episodesMap.get(uuid);
-        TvShowEpisode episode = episodeObjectReader.readValue(json);
-        episode.setDbId(uuid);
-
-        // sanity check: only episodes with a video file are valid
-        if (episode.getMediaFiles(MediaFileType.VIDEO).isEmpty()) {
-          // no video file? drop it
-          LOGGER.info("episode \"S{}E{}\" without video file - dropping", episode.getSeason(), episode.getEpisode());
-          episodesMap.remove(uuid);
-        }
+    long start = System.currentTimeMillis();
 
-        // check for orphaned episodes
-        boolean found = false;
-
-        // and assign it the the right TV show
-        for (TvShow tvShow : tvShowList) {
-          if (tvShow.getDbId().equals(episode.getTvShowDbId())) {
-            episodeCount++;
-            episode.setTvShow(tvShow);
-            tvShow.addEpisode(episode);
-            found = true;
-            break;
-          }
-        }
+    // build a lookup table for the TV shows - much faster than iterating over all TV shows for every episode
+    Map<UUID, TvShow> tvShowMap = new HashMap<>();
+    for (TvShow tvShow : tvShowList) {
+      tvShowMap.put(tvShow.getDbId(), tvShow);
+    }
 
-        // ONLY DO THE CLEANUP IF NOT IN TRIAL VERSION
-        if (License.getInstance().isValidLicense()) {
-          if (!found) {
-            orphanedEpisodes.add(uuid);
-          }
-        }
+    for (TvShowEpisode episode : episodes) {
+      // sanity check: only episodes with a video file are valid
+      if (episode.getMediaFiles(MediaFileType.VIDEO).isEmpty()) {
+        // no video file? drop it
+        LOGGER.info("episode \"S{}E{}\" without video file - dropping", episode.getSeason(), episode.getEpisode());
+        episodesMap.remove(episode.getDbId());
       }
-      catch (Exception e) {
-        LOGGER.warn("problem decoding episode json string: {}", e.getMessage());
-        LOGGER.info("dropping corrupt episode: {}", json);
-        episodesMap.remove(uuid);
+
+      // and assign it the the right TV show
+      TvShow tvShow = tvShowMap.get(episode.getTvShowDbId());
+      if (tvShow != null) {
+        episodeCount++;
+        episode.setTvShow(tvShow);
+        tvShow.addEpisode(episode); // also indexes the episode
+      }
+      else if (License.getInstance().isValidLicense()) {
+        // ONLY DO THE CLEANUP IF NOT IN TRIAL VERSION
+        orphanedEpisodes.add(episode.getDbId());
       }
     }
 
-    // remove orphaned episodes
+    // remove corrupt and orphaned episodes
+    orphanedEpisodes.addAll(loader.getCorruptEntries());
     for (UUID uuid : orphanedEpisodes) {
       episodesMap.remove(uuid);
     }
 
     LOGGER.info("found {} episodes in database", episodeCount);
+    LOGGER.info("startup timing episodes - load: {} ms (read: {} ms, decode: {} ms), link: {} ms", loader.getWallTime(), loader.getReadTime(),
+        loader.getDecodeTime(), System.currentTimeMillis() - start);
   }
 
   void initDataAfterLoading() {
+    long start = System.currentTimeMillis();
+
     // check for corrupted media entities
     checkAndCleanupMediaFiles();
 
+    List<TvShow> tvShows = new ArrayList<>(tvShowList);
     List<TvShowEpisode> episodes = new ArrayList<>();
 
-    // init everything after loading
-    for (TvShow tvShow : tvShowList) {
+    // init everything after loading - every TV show with its episodes can be processed independently
+    DatabaseLoader.forEachParallel(tvShows, tvShow -> {
       tvShow.initializeAfterLoading();
 
       for (TvShowEpisode episode : tvShow.getEpisodes()) {
         episode.initializeAfterLoading();
-        episodes.add(episode);
       }
+    });
 
+    for (TvShow tvShow : tvShows) {
+      episodes.addAll(tvShow.getEpisodes());
       tvShow.addPropertyChangeListener(propertyChangeListener);
     }
 
-    updateTvShowTags(tvShowList);
-    updateCertification(tvShowList);
+    long link = System.currentTimeMillis();
+
+    updateTvShowTags(tvShows);
+    updateCertification(tvShows);
 
     updateEpisodeTags(episodes);
     updateMediaInformationLists(episodes);
+
+    long end = System.currentTimeMillis();
+    LOGGER.info("startup timing TV shows - link: {} ms, index: {} ms", link - start, end - link);
   }
 
   public void persistTvShow(TvShow tvShow) {
+    // the path may have been changed (rename, change of the data source, ..) - this affects the episodes too
+    tvShowIndex.reindex(tvShow);
+    for (TvShowEpisode episode : tvShow.getEpisodes()) {
+      episodeIndex.reindex(episode);
+    }
+
     // update/insert this TV show to the database
     try {
       TvShowModuleManager.getInstance().persistTvShow(tvShow);
@@ -560,6 +621,9 @@ public class TvShowList extends AbstractModelObject {
   }
 
   public void persistEpisode(TvShowEpisode episode) {
+    // index the episode if it is not indexed yet; the video files may have been changed (rename, change of the data source, ..)
+    indexEpisode(episode.getTvShow(), episode);
+
     // update/insert this episode to the database
     try {
       TvShowModuleManager.getInstance().persistEpisode(episode);
@@ -571,6 +635,8 @@ public class TvShowList extends AbstractModelObject {
   }
 
   public void removeEpisodeFromDb(TvShowEpisode episode) {
+    episodeIndex.remove(episode);
+
     // delete this episode from the database
     try {
       TvShowModuleManager.getInstance().removeEpisodeFromDb(episode);
@@ -948,15 +1014,7 @@ public class TvShowList extends AbstractModelObject {
    * @return the TV show by path
    */
   public TvShow getTvShowByPath(Path path) {
-    ArrayList<TvShow> tvShows = new ArrayList<>(tvShowList);
-    // iterate over all tv shows and check whether this path is being owned by one
-    for (TvShow tvShow : tvShows) {
-      if (tvShow.getPathNIO().compareTo(path.toAbsolutePath()) == 0) {
-        return tvShow;
-      }
-    }
-
-    return null;
+    return tvShowIndex.getByPath(path);
   }
 
   /**
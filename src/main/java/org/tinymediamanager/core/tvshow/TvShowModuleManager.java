@@ -19,30 +19,27 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.TimeZone;
-import java.util.UUID;
 
-import org.apache.commons.lang3.StringUtils;
-import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
 import org.tinymediamanager.core.Constants;
-import org.tinymediamanager.core.CustomNullStringSerializerProvider;
+import org.tinymediamanager.core.DatabaseCodec;
+import org.tinymediamanager.core.DatasourceWatcher;
+import org.tinymediamanager.core.DirectoryJournal;
 import org.tinymediamanager.core.ITmmModule;
-import org.tinymediamanager.core.NullKeySerializer;
+import org.tinymediamanager.core.MediaEntityMap;
+import org.tinymediamanager.core.PersistenceService;
 import org.tinymediamanager.core.Settings;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.tvshow.entities.TvShow;
 import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
+import org.tinymediamanager.core.tvshow.tasks.TvShowUpdateDatasourceTask;
 
-import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -54,22 +51,26 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
  */
 public class TvShowModuleManager implements ITmmModule {
 
-  public static final TvShowSettings  SETTINGS     = TvShowSettings.getInstance();
+  public static final TvShowSettings    SETTINGS              = TvShowSettings.getInstance();
 
-  private static final String         MODULE_TITLE = "TV show management";
-  private static final String         TV_SHOW_DB   = "tvshows.db";
-  private static final Logger         LOGGER       = LoggerFactory.getLogger(TvShowModuleManager.class);
-  private static TvShowModuleManager  instance;
+  private static final String           MODULE_TITLE          = "TV show management";
+  private static final String           TV_SHOW_DB            = "tvshows.db";
+  private static final String           TV_SHOW_MAP           = "tvshows";
+  private static final String           EPISODE_MAP           = "episodes";
+  private static final String           DIRECTORY_JOURNAL_MAP = "directoryJournal";
+  private static final Logger           LOGGER                = LoggerFactory.getLogger(TvShowModuleManager.class);
+  private static TvShowModuleManager    instance;
 
-  private boolean                     enabled;
-  private MVStore                     mvStore;
-  private ObjectWriter                tvShowObjectWriter;
-  private ObjectWriter                episodeObjectWriter;
+  private boolean                       enabled;
+  private MVStore                       mvStore;
 
-  private MVMap<UUID, String>         tvShowMap;
-  private MVMap<UUID, String>         episodeMap;
+  private MediaEntityMap<TvShow>        tvShowMap;
+  private MediaEntityMap<TvShowEpisode> episodeMap;
+  private PersistenceService            persistenceService;
+  private DirectoryJournal              directoryJournal;
+  private DatasourceWatcher             datasourceWatcher;
 
-  private List<String>                startupMessages;
+  private List<String>                  startupMessages;
 
   private TvShowModuleManager() {
     enabled = false;
@@ -121,32 +122,31 @@ public class TvShowModuleManager implements ITmmModule {
     mvStore.setReuseSpace(true);
     mvStore.setCacheSize(8);
 
-    // configure JSON
-    ObjectMapper objectMapper = new ObjectMapper();
-    objectMapper.configure(MapperFeature.AUTO_DETECT_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_IS_GETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_SETTERS, false);
-    objectMapper.configure(MapperFeature.AUTO_DETECT_FIELDS, false);
-    objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    objectMapper.setTimeZone(TimeZone.getDefault());
-    objectMapper.setSerializationInclusion(Include.NON_DEFAULT);
-    objectMapper.setSerializerProvider(new CustomNullStringSerializerProvider());
-    objectMapper.getSerializerProvider().setNullKeySerializer(new NullKeySerializer());
-
-    tvShowObjectWriter = objectMapper.writerFor(TvShow.class);
-    episodeObjectWriter = objectMapper.writerFor(TvShowEpisode.class);
-
-    tvShowMap = mvStore.openMap("tvshows");
-    episodeMap = mvStore.openMap("episodes");
-
-    TvShowList.getInstance().loadTvShowsFromDatabase(tvShowMap, objectMapper);
-    TvShowList.getInstance().loadEpisodesFromDatabase(episodeMap, objectMapper);
+    // configure the codec (and migrate the existing data if needed)
+    DatabaseCodec codec = Settings.getInstance().getDatabaseCodec();
+    MediaEntityMap.migrate(mvStore, codec, TV_SHOW_MAP, EPISODE_MAP);
+
+    ObjectMapper objectMapper = codec.createObjectMapper();
+    tvShowMap = new MediaEntityMap<>(mvStore, TV_SHOW_MAP, TvShow.class, objectMapper);
+    episodeMap = new MediaEntityMap<>(mvStore, EPISODE_MAP, TvShowEpisode.class, objectMapper);
+    persistenceService = new PersistenceService("tvshow", mvStore);
+    directoryJournal = new DirectoryJournal(mvStore, DIRECTORY_JOURNAL_MAP);
+
+    TvShowList.getInstance().loadTvShowsFromDatabase(tvShowMap);
+    TvShowList.getInstance().loadEpisodesFromDatabase(episodeMap);
     TvShowList.getInstance().initDataAfterLoading();
     enabled = true;
   }
 
   @Override
   public void shutDown() throws Exception {
+    if (datasourceWatcher != null) {
+      datasourceWatcher.stop();
+    }
+
+    // write all pending changes before closing the database
+    persistenceService.shutdown();
+
     mvStore.compactMoveChunks();
     mvStore.close();
 
@@ -172,13 +172,14 @@ public class TvShowModuleManager implements ITmmModule {
    *          the TV show to dump the data for
    */
   public void dump(TvShow tvshow) {
+    flush();
     try {
       ObjectMapper mapper = new ObjectMapper();
-      ObjectNode node = mapper.readValue(tvShowMap.get(tvshow.getDbId()), ObjectNode.class);
+      ObjectNode node = (ObjectNode) tvShowMap.readTree(tvshow.getDbId());
 
       ArrayNode episodes = JsonNodeFactory.instance.arrayNode();
       for (TvShowEpisode ep : tvshow.getEpisodes()) {
-        ObjectNode epNode = mapper.readValue(episodeMap.get(ep.getDbId()), ObjectNode.class);
+        JsonNode epNode = episodeMap.readTree(ep.getDbId());
         episodes.add(epNode);
         // TODO: dump EP IDs !!!
       }
@@ -192,31 +193,72 @@ public class TvShowModuleManager implements ITmmModule {
     }
   }
 
-  void persistTvShow(TvShow tvShow) throws Exception {
-    String newValue = tvShowObjectWriter.writeValueAsString(tvShow);
-    String oldValue = tvShowMap.get(tvShow.getDbId());
+  /**
+   * get the journal of the directory fingerprints of the TV show data sources (used for the incremental update of the data sources)
+   *
+   * @return the {@link DirectoryJournal} or null if the module has not been started
+   */
+  public DirectoryJournal getDirectoryJournal() {
+    return directoryJournal;
+  }
 
-    if (!StringUtils.equals(newValue, oldValue)) {
-      // write to DB
-      tvShowMap.put(tvShow.getDbId(), newValue);
+  /**
+   * start watching the TV show data sources for changes (if enabled in the settings). Changes of the settings are tracked afterwards
+   */
+  public synchronized void startDatasourceWatcher() {
+    if (datasourceWatcher != null) {
+      return;
     }
-  }
 
-  void removeTvShowFromDb(TvShow tvShow) {
-    tvShowMap.remove(tvShow.getDbId());
+    datasourceWatcher = new DatasourceWatcher("tvshow", TvShowUpdateDatasourceTask::new, directoryJournal);
+    SETTINGS.addPropertyChangeListener(evt -> {
+      switch (evt.getPropertyName()) {
+        case Constants.WATCH_DATASOURCES:
+        case Constants.DATA_SOURCE:
+          updateDatasourceWatcher();
+          break;
+
+        default:
+          break;
+      }
+    });
+    updateDatasourceWatcher();
   }
 
-  void persistEpisode(TvShowEpisode episode) throws Exception {
-    String newValue = episodeObjectWriter.writeValueAsString(episode);
-    String oldValue = episodeMap.get(episode.getDbId());
+  private synchronized void updateDatasourceWatcher() {
+    if (enabled && SETTINGS.isWatchDatasources()) {
+      datasourceWatcher.setDatasources(SETTINGS.getTvShowDataSource());
+      datasourceWatcher.start();
+    }
+    else {
+      datasourceWatcher.stop();
+    }
+  }
 
-    if (!StringUtils.equals(newValue, oldValue)) {
-      episodeMap.put(episode.getDbId(), newValue);
+  /**
+   * blocks until all pending changes of TV shows/episodes have been written to the database
+   */
+  public void flush() {
+    if (persistenceService != null) {
+      persistenceService.flush();
     }
   }
 
+  void persistTvShow(TvShow tvShow) {
+    // queued for the background writer; only written to the DB if something changed
+    persistenceService.persist(tvShowMap, tvShow);
+  }
+
+  void removeTvShowFromDb(TvShow tvShow) {
+    persistenceService.remove(tvShowMap, tvShow.getDbId());
+  }
+
+  void persistEpisode(TvShowEpisode episode) {
+    persistenceService.persist(episodeMap, episode);
+  }
+
   void removeEpisodeFromDb(TvShowEpisode episode) {
-    episodeMap.remove(episode.getDbId());
+    persistenceService.remove(episodeMap, episode.getDbId());
   }
 
   @Override
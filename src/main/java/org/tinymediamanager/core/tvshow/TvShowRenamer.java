@@ -54,7 +54,7 @@ import org.tinymediamanager.core.Settings;
 import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.entities.MediaFileSubtitle;
-import org.tinymediamanager.core.jmte.JmteUtils;
+import org.tinymediamanager.core.jmte.JmteTemplateEngine;
 import org.tinymediamanager.core.jmte.NamedArrayRenderer;
 import org.tinymediamanager.core.jmte.NamedDateRenderer;
 import org.tinymediamanager.core.jmte.NamedFilesizeRenderer;
@@ -90,20 +90,22 @@ import com.floreysoft.jmte.token.Token;
  * @author Myron Boyle
  */
 public class TvShowRenamer {
-  private static final Logger              LOGGER         = LoggerFactory.getLogger(TvShowRenamer.class);
-  private static final TvShowSettings      SETTINGS       = TvShowModuleManager.SETTINGS;
-  private static final Map<String, String> TOKEN_MAP      = createTokenMap();
+  private static final Logger              LOGGER          = LoggerFactory.getLogger(TvShowRenamer.class);
+  private static final TvShowSettings      SETTINGS        = TvShowModuleManager.SETTINGS;
+  private static final Map<String, String> TOKEN_MAP       = createTokenMap();
+  private static final JmteTemplateEngine  TEMPLATE_ENGINE = createTemplateEngine();
 
-  private static final String[]            seasonNumbers  = { "seasonNr", "seasonNr2", "seasonNrDvd", "seasonNrDvd2", "episode.season",
+  private static final String[]            seasonNumbers   = { "seasonNr", "seasonNr2", "seasonNrDvd", "seasonNrDvd2", "episode.season",
       "episode.dvdSeason" };
-  private static final String[]            episodeNumbers = { "episodeNr", "episodeNr2", "episodeNrDvd", "episodeNrDvd2", "episode.episode",
+  private static final String[]            episodeNumbers  = { "episodeNr", "episodeNr2", "episodeNrDvd", "episodeNrDvd2", "episode.episode",
       "episode.dvdEpisode" };
-  private static final String[]            episodeTitles  = { "title", "originalTitle", "titleSortable", "episode.title", "episode.originalTitle",
+  private static final String[]            episodeTitles   = { "title", "originalTitle", "titleSortable", "episode.title", "episode.originalTitle",
       "episode.titleSortable" };
-  private static final String[]            episodeAired   = { "airedDate", "episode.firstAired" };
+  private static final String[]            episodeAired    = { "airedDate", "episode.firstAired" };
 
-  private static final Pattern             epDelimiter    = Pattern.compile("(\\s?(folge|episode|[epx]+)\\s?)\\$\\{.*?\\}", Pattern.CASE_INSENSITIVE);
-  private static final Pattern             seDelimiter    = Pattern.compile("((staffel|season|s)\\s?)\\$\\{.*?\\}", Pattern.CASE_INSENSITIVE);
+  private static final Pattern             epDelimiter     = Pattern.compile("(\\s?(folge|episode|[epx]+)\\s?)\\$\\{.*?\\}",
+      Pattern.CASE_INSENSITIVE);
+  private static final Pattern             seDelimiter     = Pattern.compile("((staffel|season|s)\\s?)\\$\\{.*?\\}", Pattern.CASE_INSENSITIVE);
 
   private TvShowRenamer() {
     throw new IllegalAccessError();
@@ -239,7 +241,7 @@ public class TvShowRenamer {
 
           // create parent if needed
           if (!Files.exists(destDir.getParent())) {
-            Files.createDirectory(destDir.getParent());
+            Utils.createDirectory(destDir.getParent());
           }
           boolean ok = Utils.moveDirectorySafe(srcDir, destDir);
           if (ok) {
@@ -390,7 +392,7 @@ public class TvShowRenamer {
           if (!directoryStream.iterator().hasNext()) {
             // no iterator = empty
             LOGGER.debug("Deleting empty Directory {}", cl.getFileAsPath().getParent());
-            Files.delete(cl.getFileAsPath().getParent()); // do not use recursive her
+            Utils.deleteEmptyDirectory(cl.getFileAsPath().getParent()); // do not use recursive her
           }
         }
         catch (IOException e) {
@@ -484,7 +486,7 @@ public class TvShowRenamer {
           folder = tvShow.getPathNIO().resolve("extrafanart");
           try {
             if (!folder.toFile().exists()) {
-              Files.createDirectory(folder);
+              Utils.createDirectory(folder);
             }
           }
           catch (IOException e) {
@@ -603,7 +605,7 @@ public class TvShowRenamer {
           if (!directoryStream.iterator().hasNext()) {
             // no iterator = empty
             LOGGER.debug("Deleting empty Directory {}", cl.getFileAsPath().getParent());
-            Files.delete(cl.getFileAsPath().getParent()); // do not use recursive her
+            Utils.deleteEmptyDirectory(cl.getFileAsPath().getParent()); // do not use recursive her
           }
         }
         catch (IOException e) {
@@ -676,7 +678,7 @@ public class TvShowRenamer {
       seasonFolder = episode.getTvShow().getPathNIO().resolve(seasonFoldername);
       if (!Files.exists(seasonFolder)) {
         try {
-          Files.createDirectory(seasonFolder);
+          Utils.createDirectory(seasonFolder);
         }
         catch (IOException ignored) {
         }
@@ -833,7 +835,7 @@ public class TvShowRenamer {
           if (!directoryStream.iterator().hasNext()) {
             // no iterator = empty
             LOGGER.debug("Deleting empty Directory {}", cl.getFileAsPath().getParent());
-            Files.delete(cl.getFileAsPath().getParent()); // do not use recursive her
+            Utils.deleteEmptyDirectory(cl.getFileAsPath().getParent()); // do not use recursive her
           }
         }
         catch (IOException e) {
@@ -899,7 +901,7 @@ public class TvShowRenamer {
       seasonFolder = episode.getTvShow().getPathNIO().resolve(seasonFoldername);
       if (!Files.exists(seasonFolder)) {
         try {
-          Files.createDirectory(seasonFolder);
+          Utils.createDirectory(seasonFolder);
         }
         catch (IOException ignored) {
         }
@@ -922,7 +924,7 @@ public class TvShowRenamer {
         try {
           // create parent if needed
           if (!Files.exists(newEpFolder.getParent())) {
-            Files.createDirectory(newEpFolder.getParent());
+            Utils.createDirectory(newEpFolder.getParent());
           }
           ok = Utils.moveDirectorySafe(epFolder, newEpFolder);
         }
@@ -959,7 +961,7 @@ public class TvShowRenamer {
       if (!directoryStream.iterator().hasNext()) {
         // no iterator = empty
         LOGGER.debug("Deleting empty Directory - {}", dir);
-        Files.delete(dir); // do not use recursive her
+        Utils.deleteEmptyDirectory(dir); // do not use recursive her
         return;
       }
     }
@@ -1358,26 +1360,13 @@ public class TvShowRenamer {
    */
   public static String getTokenValue(TvShow show, TvShowEpisode episode, String token) {
     try {
-      Engine engine = Engine.createEngine();
-      engine.registerRenderer(Number.class, new ZeroNumberRenderer());
-      engine.registerNamedRenderer(new NamedDateRenderer());
-      engine.registerNamedRenderer(new NamedNumberRenderer());
-      engine.registerNamedRenderer(new NamedUpperCaseRenderer());
-      engine.registerNamedRenderer(new NamedLowerCaseRenderer());
-      engine.registerNamedRenderer(new NamedTitleCaseRenderer());
-      engine.registerNamedRenderer(new TvShowNamedFirstCharacterRenderer());
-      engine.registerNamedRenderer(new NamedArrayRenderer());
-      engine.registerNamedRenderer(new NamedFilesizeRenderer());
-      engine.registerNamedRenderer(new NamedReplacementRenderer());
-
-      engine.setModelAdaptor(new TvShowRenamerModelAdaptor());
       Map<String, Object> root = new HashMap<>();
       if (episode != null) {
         root.put("episode", episode);
         root.put("season", episode.getTvShowSeason());
       }
       root.put("tvShow", show);
-      return engine.transform(JmteUtils.morphTemplate(token, TOKEN_MAP), root);
+      return TEMPLATE_ENGINE.transform(token, root);
     }
     catch (Exception e) {
       LOGGER.warn("unable to process token: {}", token);
@@ -1385,6 +1374,38 @@ public class TvShowRenamer {
     }
   }
 
+  /**
+   * create the {@link Engine} to be used with JMTE
+   *
+   * @return the pre-created Engine
+   */
+  public static Engine createEngine() {
+    Engine engine = Engine.createEngine();
+    engine.registerRenderer(Number.class, new ZeroNumberRenderer());
+    engine.registerNamedRenderer(new NamedDateRenderer());
+    engine.registerNamedRenderer(new NamedNumberRenderer());
+    engine.registerNamedRenderer(new NamedUpperCaseRenderer());
+    engine.registerNamedRenderer(new NamedLowerCaseRenderer());
+    engine.registerNamedRenderer(new NamedTitleCaseRenderer());
+    engine.registerNamedRenderer(new TvShowNamedFirstCharacterRenderer());
+    engine.registerNamedRenderer(new NamedArrayRenderer());
+    engine.registerNamedRenderer(new NamedFilesizeRenderer());
+    engine.registerNamedRenderer(new NamedReplacementRenderer());
+
+    return engine;
+  }
+
+  /**
+   * create the shared {@link JmteTemplateEngine} for the renamer (the {@link Engine} from {@link #createEngine()} with the renamer model adaptor)
+   *
+   * @return the template engine
+   */
+  private static JmteTemplateEngine createTemplateEngine() {
+    Engine engine = createEngine();
+    engine.setModelAdaptor(new TvShowRenamerModelAdaptor());
+    return new JmteTemplateEngine(engine, TOKEN_MAP);
+  }
+
   /**
    * Creates the new TV show folder name according to template string
    *
@@ -1780,7 +1801,7 @@ public class TvShowRenamer {
     try {
       // create parent if needed
       if (!Files.exists(newFilename.getParent())) {
-        Files.createDirectory(newFilename.getParent());
+        Utils.createDirectory(newFilename.getParent());
       }
       boolean ok = Utils.moveFileSafe(oldFilename, newFilename);
       if (ok) {
@@ -1819,7 +1840,7 @@ public class TvShowRenamer {
       try {
         // create parent if needed
         if (!Files.exists(newFilename.getParent())) {
-          Files.createDirectory(newFilename.getParent());
+          Utils.createDirectory(newFilename.getParent());
         }
         Utils.copyFileSafe(oldFilename, newFilename, true);
         return true;
@@ -164,6 +164,7 @@ public class TvShowSettings extends AbstractSettings {
   // renamer
   private boolean                                        renameAfterScrape                      = false;
   private boolean                                        updateOnStart                          = false;
+  private boolean                                        watchDatasources                       = false;
   private String                                         renamerTvShowFoldername                = DEFAULT_RENAMER_FOLDER_PATTERN;
   private String                                         renamerSeasonFoldername                = DEFAULT_RENAMER_SEASON_PATTERN;
   private String                                         renamerFilename                        = DEFAULT_RENAMER_FILE_PATTERN;
@@ -601,6 +602,16 @@ public class TvShowSettings extends AbstractSettings {
     firePropertyChange("updateOnStart", oldValue, newValue);
   }
 
+  public boolean isWatchDatasources() {
+    return this.watchDatasources;
+  }
+
+  public void setWatchDatasources(boolean newValue) {
+    boolean oldValue = this.watchDatasources;
+    this.watchDatasources = newValue;
+    firePropertyChange(Constants.WATCH_DATASOURCES, oldValue, newValue);
+  }
+
   public boolean isBuildImageCacheOnImport() {
     return buildImageCacheOnImport;
   }
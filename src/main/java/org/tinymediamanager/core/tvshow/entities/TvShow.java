@@ -495,6 +495,9 @@ public class TvShow extends MediaEntity implements IMediaInformation {
 
     episodes.sort(TvShowEpisode::compareTo);
 
+    // the lookup table has to be up to date right now (the events are delivered asynchronously)
+    TvShowList.getInstance().indexEpisode(this, episode);
+
     firePropertyChange(ADDED_EPISODE, null, episode);
     firePropertyChange(EPISODE_COUNT, oldValue, episodes.size());
   }
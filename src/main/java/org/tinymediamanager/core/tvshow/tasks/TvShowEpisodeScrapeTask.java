@@ -16,9 +16,14 @@
 package org.tinymediamanager.core.tvshow.tasks;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -36,9 +41,9 @@ import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
 import org.tinymediamanager.scraper.MediaMetadata;
 import org.tinymediamanager.scraper.MediaScraper;
 import org.tinymediamanager.scraper.exceptions.MissingIdException;
-import org.tinymediamanager.scraper.exceptions.NothingFoundException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
 import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 import org.tinymediamanager.thirdparty.trakttv.TvShowSyncTraktTvTask;
 
 /**
@@ -78,6 +83,8 @@ public class TvShowEpisodeScrapeTask extends TmmTask {
       return;
     }
 
+    // group the episodes by their TV show to scrape all episodes of a show with one batch request
+    Map<TvShow, List<TvShowEpisode>> episodesPerTvShow = new LinkedHashMap<>();
     for (TvShowEpisode episode : episodes) {
       // only scrape if at least one ID is available
       if (episode.getTvShow().getIds().isEmpty()) {
@@ -85,47 +92,84 @@ public class TvShowEpisodeScrapeTask extends TmmTask {
         continue;
       }
 
-      TvShowEpisodeSearchAndScrapeOptions options = new TvShowEpisodeSearchAndScrapeOptions(scrapeOptions);
-      options.setTvShowIds(episode.getTvShow().getIds());
-
-      MediaMetadata md = new MediaMetadata(mediaScraper.getMediaProvider().getProviderInfo().getId());
-      md.setReleaseDate(episode.getFirstAired());
-      options.setMetadata(md);
-      options.setIds(episode.getIds());
+      episodesPerTvShow.computeIfAbsent(episode.getTvShow(), tvShow -> new ArrayList<>()).add(episode);
+    }
 
-      if (episode.isDvdOrder()) {
-        options.setId(MediaMetadata.SEASON_NR_DVD, String.valueOf(episode.getDvdSeason()));
-        options.setId(MediaMetadata.EPISODE_NR_DVD, String.valueOf(episode.getDvdEpisode()));
+    // the episodes of different TV shows are scraped in parallel (in the shared scraper executor)
+    Map<TvShow, Future<List<MediaMetadata>>> futures = new LinkedHashMap<>();
+    Map<TvShow, Map<Integer, ScrapeException>> errorsPerTvShow = new HashMap<>();
+    for (Map.Entry<TvShow, List<TvShowEpisode>> entry : episodesPerTvShow.entrySet()) {
+      List<TvShowEpisodeSearchAndScrapeOptions> options = new ArrayList<>();
+      for (TvShowEpisode episode : entry.getValue()) {
+        options.add(createScrapeOptions(episode));
       }
-      else {
-        options.setId(MediaMetadata.SEASON_NR, String.valueOf(episode.getAiredSeason()));
-        options.setId(MediaMetadata.EPISODE_NR, String.valueOf(episode.getAiredEpisode()));
+
+      LOGGER.info("=====================================================");
+      LOGGER.info("Scrape metadata with scraper: {}", mediaScraper.getMediaProvider().getProviderInfo().getId());
+      LOGGER.info("{} episodes of {}", options.size(), entry.getKey().getTitle());
+      LOGGER.info("=====================================================");
+      // errors of single episodes are collected per episode index
+      Map<Integer, ScrapeException> errors = new ConcurrentHashMap<>();
+      errorsPerTvShow.put(entry.getKey(), errors);
+      futures.put(entry.getKey(), ScraperExecutor.getInstance()
+          .submit(mediaScraper.getId(),
+              () -> ((ITvShowMetadataProvider) mediaScraper.getMediaProvider()).getEpisodeMetadata(options, errors)));
+    }
+
+    // apply the results in one pass per TV show
+    for (Map.Entry<TvShow, Future<List<MediaMetadata>>> entry : futures.entrySet()) {
+      List<TvShowEpisode> episodesOfTvShow = episodesPerTvShow.get(entry.getKey());
+
+      if (cancel) {
+        entry.getValue().cancel(false);
+        continue;
       }
 
       try {
-        LOGGER.info("=====================================================");
-        LOGGER.info("Scrape metadata with scraper: {}", mediaScraper.getMediaProvider().getProviderInfo().getId());
-        LOGGER.info(options.toString());
-        LOGGER.info("=====================================================");
-        MediaMetadata metadata = ((ITvShowMetadataProvider) mediaScraper.getMediaProvider()).getMetadata(options);
-        if (StringUtils.isNotBlank(metadata.getTitle())) {
-          episode.setMetadata(metadata, config);
-          episode.setLastScraperId(scrapeOptions.getMetadataScraper().getId());
-          episode.setLastScrapeLanguage(scrapeOptions.getLanguage().name());
+        List<MediaMetadata> results = ScraperExecutor.getResult(entry.getValue());
+        Map<Integer, ScrapeException> errors = errorsPerTvShow.get(entry.getKey());
+        for (int i = 0; i < episodesOfTvShow.size(); i++) {
+          TvShowEpisode episode = episodesOfTvShow.get(i);
+          MediaMetadata metadata = results.get(i);
+          if (metadata == null) {
+            ScrapeException error = errors.get(i);
+            if (error instanceof MissingIdException) {
+              LOGGER.warn("missing id for scrape");
+              MessageManager.instance.pushMessage(new Message(Message.MessageLevel.ERROR, episode, "scraper.error.missingid"));
+            }
+            else if (error != null) {
+              LOGGER.error("getEpisodeMetadata", error);
+              MessageManager.instance.pushMessage(new Message(Message.MessageLevel.ERROR, episode, "message.scrape.metadataepisodefailed",
+                  new String[] { ":", error.getLocalizedMessage() }));
+            }
+            else {
+              LOGGER.debug("nothing found");
+            }
+            continue;
+          }
+
+          if (StringUtils.isNotBlank(metadata.getTitle())) {
+            episode.setMetadata(metadata, config);
+            episode.setLastScraperId(scrapeOptions.getMetadataScraper().getId());
+            episode.setLastScrapeLanguage(scrapeOptions.getLanguage().name());
+          }
         }
       }
       catch (MissingIdException e) {
         LOGGER.warn("missing id for scrape");
-        MessageManager.instance.pushMessage(new Message(Message.MessageLevel.ERROR, episode, "scraper.error.missingid"));
-      }
-      catch (NothingFoundException ignored) {
-        LOGGER.debug("nothing found");
+        for (TvShowEpisode episode : episodesOfTvShow) {
+          MessageManager.instance.pushMessage(new Message(Message.MessageLevel.ERROR, episode, "scraper.error.missingid"));
+        }
       }
       catch (ScrapeException e) {
-        LOGGER.error("searchMovieFallback", e);
-        MessageManager.instance.pushMessage(
-            new Message(Message.MessageLevel.ERROR, episode, "message.scrape.metadataepisodefailed", new String[] { ":", e.getLocalizedMessage() }));
+        LOGGER.error("getEpisodeMetadata", e);
+        for (TvShowEpisode episode : episodesOfTvShow) {
+          MessageManager.instance.pushMessage(new Message(Message.MessageLevel.ERROR, episode, "message.scrape.metadataepisodefailed",
+              new String[] { ":", e.getLocalizedMessage() }));
+        }
       }
+
+      publishState(progressDone + episodesOfTvShow.size());
     }
 
     if (TvShowModuleManager.SETTINGS.getSyncTrakt()) {
@@ -140,4 +184,25 @@ public class TvShowEpisodeScrapeTask extends TmmTask {
       TmmTaskManager.getInstance().addUnnamedTask(task);
     }
   }
+
+  private TvShowEpisodeSearchAndScrapeOptions createScrapeOptions(TvShowEpisode episode) {
+    TvShowEpisodeSearchAndScrapeOptions options = new TvShowEpisodeSearchAndScrapeOptions(scrapeOptions);
+    options.setTvShowIds(episode.getTvShow().getIds());
+
+    MediaMetadata md = new MediaMetadata(scrapeOptions.getMetadataScraper().getMediaProvider().getProviderInfo().getId());
+    md.setReleaseDate(episode.getFirstAired());
+    options.setMetadata(md);
+    options.setIds(episode.getIds());
+
+    if (episode.isDvdOrder()) {
+      options.setId(MediaMetadata.SEASON_NR_DVD, String.valueOf(episode.getDvdSeason()));
+      options.setId(MediaMetadata.EPISODE_NR_DVD, String.valueOf(episode.getDvdEpisode()));
+    }
+    else {
+      options.setId(MediaMetadata.SEASON_NR, String.valueOf(episode.getAiredSeason()));
+      options.setId(MediaMetadata.EPISODE_NR, String.valueOf(episode.getAiredEpisode()));
+    }
+
+    return options;
+  }
 }
@@ -17,7 +17,6 @@ package org.tinymediamanager.core.tvshow.tasks;
 
 import java.io.IOException;
 import java.io.InterruptedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -108,7 +107,7 @@ public class TvShowExtraImageFetcherTask implements Runnable {
       folder = tvShow.getPathNIO().resolve("extrafanart");
       try {
         if (!folder.toFile().exists()) {
-          Files.createDirectory(folder);
+          Utils.createDirectory(folder);
         }
       }
       catch (IOException e) {
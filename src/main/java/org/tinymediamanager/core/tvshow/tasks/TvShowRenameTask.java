@@ -15,8 +15,14 @@
  */
 package org.tinymediamanager.core.tvshow.tasks;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
@@ -24,8 +30,11 @@ import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.Message;
 import org.tinymediamanager.core.Message.MessageLevel;
 import org.tinymediamanager.core.MessageManager;
+import org.tinymediamanager.core.Settings;
 import org.tinymediamanager.core.TmmResourceBundle;
+import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.threading.TmmThreadPool;
+import org.tinymediamanager.core.threading.VolumeTaskScheduler;
 import org.tinymediamanager.core.tvshow.TvShowRenamer;
 import org.tinymediamanager.core.tvshow.entities.TvShow;
 import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
@@ -35,7 +44,7 @@ import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
  * 
  * @author Manuel Laggner
  */
-public class TvShowRenameTask extends TmmThreadPool {
+public class TvShowRenameTask extends TmmThreadPool implements VolumeTaskScheduler.Listener {
   private static final Logger         LOGGER           = LoggerFactory.getLogger(TvShowRenameTask.class);
 
 
@@ -64,50 +73,67 @@ public class TvShowRenameTask extends TmmThreadPool {
   protected void doInBackground() {
     try {
       start();
-      initThreadPool(1, "rename");
+
+      VolumeTaskScheduler scheduler = new VolumeTaskScheduler("rename", Settings.getInstance().getRenamerThreadsPerVolume());
 
       // rename complete tv shows
+      List<TvShowEpisode> episodes = new ArrayList<>();
       for (TvShow tvShowToRename : tvShowsToRename) {
-        if (cancel) {
-          break;
-        }
-        for (TvShowEpisode episode : new ArrayList<>(tvShowToRename.getEpisodes())) {
-          submitTask(new RenameEpisodeTask(episode));
-        }
+        episodes.addAll(tvShowToRename.getEpisodes());
       }
       // rename single episodes
-      for (TvShowEpisode tvEpisodesToRename : episodesToRename) {
+      episodes.addAll(episodesToRename);
+
+      // episodes which would be renamed to the same file must not be touched at all
+      Set<TvShowEpisode> conflictingEpisodes = findEpisodeConflicts(episodes);
+      for (TvShowEpisode episode : episodes) {
         if (cancel) {
           break;
         }
-        submitTask(new RenameEpisodeTask(tvEpisodesToRename));
-      }
-
-      waitForCompletionOrCancel();
-      if (cancel) {
-        return;
+        if (conflictingEpisodes.contains(episode)) {
+          LOGGER.warn("not renaming episode '{}' - the destination is used by another episode", episode.getTitle());
+          MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, episode, "message.renamer.destinationconflict",
+              new String[] { episode.getTvShow().getTitle() + " - S" + episode.getSeason() + "E" + episode.getEpisode() }));
+          continue;
+        }
+        // all episodes of a show are renamed one after another (and before the show itself)
+        TvShow tvShow = episode.getTvShow();
+        scheduler.add(Paths.get(tvShow.getDataSource()), new RenameEpisodeTask(episode), getSerialKey(tvShow));
       }
 
       // rename TvShowRoot and update all MFs in DB to new path
       if (renameRoot) {
         for (TvShowEpisode anEpisodesToRename : episodesToRename) {
-          if (cancel) {
-            break;
-          }
           // fill TvShowsToRename if we just rename an episodes list
           TvShow show = anEpisodesToRename.getTvShow();
           if (!tvShowsToRename.contains(show)) {
             tvShowsToRename.add(show);
           }
         }
+
+        Set<TvShow> conflictingTvShows = findTvShowConflicts(tvShowsToRename);
         for (TvShow aTvShowsToRename : tvShowsToRename) {
           if (cancel) {
             break;
           }
-          TvShowRenamer.renameTvShow(aTvShowsToRename); // rename root and artwork and update ShowMFs
+          if (conflictingTvShows.contains(aTvShowsToRename)) {
+            LOGGER.warn("not renaming TV show '{}' - the destination is used by another TV show", aTvShowsToRename.getTitle());
+            MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, aTvShowsToRename, "message.renamer.destinationconflict",
+                new String[] { getDestinationFolder(aTvShowsToRename).toString() }));
+            continue;
+          }
+          // rename root and artwork and update ShowMFs
+          scheduler.add(Paths.get(aTvShowsToRename.getDataSource()), new RenameTvShowTask(aTvShowsToRename), getSerialKey(aTvShowsToRename),
+              getDestinationFolder(aTvShowsToRename).toString());
         }
       }
 
+      setWorkUnits(scheduler.size());
+      scheduler.run(this, () -> cancel);
+      if (cancel) {
+        return;
+      }
+
       LOGGER.info("Done renaming TV shows)");
     }
     catch (Exception e) {
@@ -116,10 +142,90 @@ public class TvShowRenameTask extends TmmThreadPool {
     }
   }
 
+  private static String getSerialKey(TvShow tvShow) {
+    return "tvshow:" + tvShow.getDbId();
+  }
+
+  /**
+   * get the destination folder of the given TV show (without renaming it)
+   *
+   * @param tvShow
+   *          the TV show
+   * @return the absolute destination folder (resolved against the data source of the TV show)
+   */
+  private static Path getDestinationFolder(TvShow tvShow) {
+    return Paths.get(tvShow.getDataSource()).resolve(TvShowRenamer.getTvShowFoldername(tvShow)).toAbsolutePath().normalize();
+  }
+
+  /**
+   * find all episodes which would be renamed to the same file as the episode of another video file (multi episode files share their destination)
+   *
+   * @param episodes
+   *          the episodes to rename
+   * @return all conflicting episodes
+   */
+  static Set<TvShowEpisode> findEpisodeConflicts(List<TvShowEpisode> episodes) {
+    Map<Path, Set<Path>> sourcesPerDestination = new HashMap<>();
+    Map<Path, List<TvShowEpisode>> episodesPerDestination = new HashMap<>();
+
+    for (TvShowEpisode episode : episodes) {
+      MediaFile videoFile = episode.getMainVideoFile();
+      if (episode.isDisc() || videoFile.getFilename().isEmpty()) {
+        continue;
+      }
+
+      List<MediaFile> newFiles;
+      try {
+        newFiles = TvShowRenamer.generateEpisodeFilenames(episode.getTvShow(), videoFile, new MediaFile(videoFile));
+      }
+      catch (Exception e) {
+        LOGGER.debug("could not generate the destination of episode '{}' - {}", episode.getTitle(), e.getMessage());
+        continue;
+      }
+      if (newFiles.isEmpty()) {
+        continue;
+      }
+
+      Path destination = newFiles.get(0).getFileAsPath().toAbsolutePath();
+      sourcesPerDestination.computeIfAbsent(destination, path -> new HashSet<>()).add(videoFile.getFileAsPath().toAbsolutePath());
+      episodesPerDestination.computeIfAbsent(destination, path -> new ArrayList<>()).add(episode);
+    }
+
+    Set<TvShowEpisode> conflicts = new HashSet<>();
+    for (Map.Entry<Path, Set<Path>> entry : sourcesPerDestination.entrySet()) {
+      if (entry.getValue().size() > 1) {
+        conflicts.addAll(episodesPerDestination.get(entry.getKey()));
+      }
+    }
+    return conflicts;
+  }
+
+  /**
+   * find all TV shows which would be renamed to the same folder
+   *
+   * @param tvShows
+   *          the TV shows to rename
+   * @return all conflicting TV shows
+   */
+  static Set<TvShow> findTvShowConflicts(List<TvShow> tvShows) {
+    Map<Path, List<TvShow>> tvShowsPerDestination = new HashMap<>();
+    for (TvShow tvShow : tvShows) {
+      tvShowsPerDestination.computeIfAbsent(getDestinationFolder(tvShow), folder -> new ArrayList<>()).add(tvShow);
+    }
+
+    Set<TvShow> conflicts = new HashSet<>();
+    for (List<TvShow> shows : tvShowsPerDestination.values()) {
+      if (shows.size() > 1) {
+        conflicts.addAll(shows);
+      }
+    }
+    return conflicts;
+  }
+
   /**
    * ThreadpoolWorker to work off ONE episode
    */
-  private class RenameEpisodeTask implements Callable<Object> {
+  private static class RenameEpisodeTask implements Callable<Object> {
 
     private TvShowEpisode episode = null;
 
@@ -134,8 +240,46 @@ public class TvShowRenameTask extends TmmThreadPool {
     }
   }
 
+  /**
+   * ThreadpoolWorker to work off ONE TV show (root folder and artwork)
+   */
+  private static class RenameTvShowTask implements Callable<Object> {
+
+    private TvShow tvShow = null;
+
+    public RenameTvShowTask(TvShow tvShow) {
+      this.tvShow = tvShow;
+    }
+
+    @Override
+    public String call() {
+      TvShowRenamer.renameTvShow(tvShow);
+      return tvShow.getTitle();
+    }
+  }
+
+  @Override
+  public synchronized void callback(Object obj) {
+    publishState((String) obj, progressDone + 1);
+  }
+
+  @Override
+  public synchronized void taskFailed(Callable<Object> task, Exception e) {
+    String title;
+    if (task instanceof RenameEpisodeTask) {
+      title = ((RenameEpisodeTask) task).episode.getTitle();
+    }
+    else {
+      title = ((RenameTvShowTask) task).tvShow.getTitle();
+    }
+    LOGGER.error("could not rename '{}' - {}", title, e.getMessage());
+    MessageManager.instance
+        .pushMessage(new Message(MessageLevel.ERROR, title, "message.renamer.failedrename", new String[] { ":", e.getLocalizedMessage() }));
+    publishState(title, progressDone + 1);
+  }
+
   @Override
-  public void callback(Object obj) {
-    publishState((String) obj, progressDone);
+  public void taskFinished(Object result) {
+    callback(result);
   }
 }
@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +58,7 @@ import org.tinymediamanager.scraper.exceptions.ScrapeException;
 import org.tinymediamanager.scraper.interfaces.ITvShowArtworkProvider;
 import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.ITvShowTrailerProvider;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 import org.tinymediamanager.thirdparty.trakttv.TvShowSyncTraktTvTask;
 
 /**
@@ -310,11 +312,18 @@ public class TvShowScrapeTask extends TmmThreadPool {
         options.setId(entry.getKey(), entry.getValue().toString());
       }
 
-      // scrape providers till one artwork has been found
-      for (MediaScraper artworkScraper : scrapeOptions.getArtworkScrapers()) {
+      // query all providers in parallel (in the shared scraper executor); the results are added in the order of the providers
+      List<MediaScraper> artworkScrapers = scrapeOptions.getArtworkScrapers();
+      List<Future<List<MediaArtwork>>> futures = new ArrayList<>();
+      for (MediaScraper artworkScraper : artworkScrapers) {
         ITvShowArtworkProvider artworkProvider = (ITvShowArtworkProvider) artworkScraper.getMediaProvider();
+        futures.add(ScraperExecutor.getInstance().submit(artworkScraper.getId(), () -> artworkProvider.getArtwork(options)));
+      }
+
+      for (int i = 0; i < futures.size(); i++) {
+        MediaScraper artworkScraper = artworkScrapers.get(i);
         try {
-          artwork.addAll(artworkProvider.getArtwork(options));
+          artwork.addAll(ScraperExecutor.getResult(futures.get(i)));
         }
         catch (MissingIdException ignored) {
           LOGGER.debug("no id avaiable for scraper {}", artworkScraper.getId());
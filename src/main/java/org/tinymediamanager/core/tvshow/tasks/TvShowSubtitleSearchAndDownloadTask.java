@@ -30,6 +30,8 @@ import org.tinymediamanager.core.Message.MessageLevel;
 import org.tinymediamanager.core.MessageManager;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.hash.FileHashService;
+import org.tinymediamanager.core.hash.StandardFileHashAlgorithm;
 import org.tinymediamanager.core.tasks.SubtitleDownloadTask;
 import org.tinymediamanager.core.threading.TmmTaskManager;
 import org.tinymediamanager.core.threading.TmmThreadPool;
@@ -107,17 +109,27 @@ public class TvShowSubtitleSearchAndDownloadTask extends TmmThreadPool {
     @Override
     public void run() {
       try {
+        MediaFile mf = episode.getMediaFiles(MediaFileType.VIDEO).get(0);
+
+        // the hash is read only once per file - it is stored in the media file
+        FileHashService hashService = FileHashService.getInstance();
+        boolean hashStored = hashService.getStoredHash(mf, StandardFileHashAlgorithm.OPENSUBTITLES) != null;
+        String hash = hashService.getHash(mf, StandardFileHashAlgorithm.OPENSUBTITLES);
+        if (!hashStored && !hash.isEmpty()) {
+          episode.saveToDb();
+        }
+
         for (MediaScraper scraper : subtitleScrapers) {
           if (!scraper.isEnabled()) {
             continue;
           }
 
           try {
-            MediaFile mf = episode.getMediaFiles(MediaFileType.VIDEO).get(0);
 
             ITvShowSubtitleProvider subtitleProvider = (ITvShowSubtitleProvider) scraper.getMediaProvider();
             SubtitleSearchAndScrapeOptions options = new SubtitleSearchAndScrapeOptions(MediaType.TV_EPISODE);
             options.setFile(mf.getFileAsPath().toFile());
+            options.setFileHash(StandardFileHashAlgorithm.OPENSUBTITLES.getId(), hash);
             options.setLanguage(language);
             options.setSeason(episode.getSeason());
             options.setEpisode(episode.getEpisode());
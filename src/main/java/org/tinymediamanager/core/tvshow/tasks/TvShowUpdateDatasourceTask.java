@@ -29,6 +29,7 @@ import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
@@ -47,6 +48,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.Globals;
 import org.tinymediamanager.core.AbstractFileVisitor;
+import org.tinymediamanager.core.DirectoryJournal;
 import org.tinymediamanager.core.MediaFileHelper;
 import org.tinymediamanager.core.MediaFileType;
 import org.tinymediamanager.core.MediaSource;
@@ -81,31 +83,33 @@ import org.tinymediamanager.thirdparty.VSMeta;
  */
 
 public class TvShowUpdateDatasourceTask extends TmmThreadPool {
-  private static final Logger       LOGGER        = LoggerFactory.getLogger(TvShowUpdateDatasourceTask.class);
+  private static final Logger       LOGGER          = LoggerFactory.getLogger(TvShowUpdateDatasourceTask.class);
 
   // constants
-  private static final String       VIDEO_TS      = "VIDEO_TS";
-  private static final String       BDMV          = "BDMV";
-  private static final String       HVDVD_TS      = "HVDVD_TS";
+  private static final String       VIDEO_TS        = "VIDEO_TS";
+  private static final String       BDMV            = "BDMV";
+  private static final String       HVDVD_TS        = "HVDVD_TS";
 
   // skip well-known, but unneeded folders (UPPERCASE)
-  private static final List<String> SKIP_FOLDERS  = Arrays.asList(".", "..", "CERTIFICATE", "$RECYCLE.BIN", "RECYCLER", "SYSTEM VOLUME INFORMATION",
+  private static final List<String> SKIP_FOLDERS    = Arrays.asList(".", "..", "CERTIFICATE", "$RECYCLE.BIN", "RECYCLER", "SYSTEM VOLUME INFORMATION",
       "@EADIR", "ADV_OBJ", "EXTRAS", "EXTRA", "EXTRATHUMB");
 
   // skip folders starting with a SINGLE "." or "._"
-  private static final String       SKIP_REGEX    = "^[.][\\w@]+.*";
+  private static final String       SKIP_REGEX      = "^[.][\\w@]+.*";
 
-  private static final Pattern      seasonNumber  = Pattern.compile("(?i)season([0-9]{1,4}).*");
+  private static final Pattern      seasonNumber    = Pattern.compile("(?i)season([0-9]{1,4}).*");
 
-  private static long               preDir        = 0;
-  private static long               postDir       = 0;
-  private static long               visFile       = 0;
+  private static long               preDir          = 0;
+  private static long               postDir         = 0;
+  private static long               visFile         = 0;
 
   private final List<String>        dataSources;
   private final List<String>        skipFolders;
-  private final List<Path>          tvShowFolders = new ArrayList<>();
+  private final List<Path>          tvShowFolders   = new ArrayList<>();
   private final TvShowList          tvShowList;
-  private final Set<Path>           filesFound    = ConcurrentHashMap.newKeySet();
+  private final Set<Path>           filesFound      = ConcurrentHashMap.newKeySet();
+
+  private boolean                   forceFullRescan = false;
 
   /**
    * Instantiates a new scrape task - to update all datasources
@@ -146,6 +150,56 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
     this.tvShowFolders.addAll(tvShowFolders);
   }
 
+  /**
+   * Instantiates a new scrape task - to update only the given (changed) directories of the data source
+   *
+   * @param datasource
+   *          the data source
+   * @param changedDirectories
+   *          the changed/created/removed directories of the data source
+   */
+  public TvShowUpdateDatasourceTask(String datasource, Collection<Path> changedDirectories) {
+    this(datasource);
+
+    // the TV show folders are the direct sub folders of the data source (or of the single letter folders; like in the update of the whole
+    // data source)
+    Path dsAsPath = Paths.get(datasource).toAbsolutePath();
+    for (Path dir : changedDirectories) {
+      Path relative = dsAsPath.relativize(dir.toAbsolutePath());
+      if (!dir.toAbsolutePath().startsWith(dsAsPath) || relative.toString().isEmpty()
+          || (relative.getName(0).toString().length() == 1 && relative.getNameCount() == 1)) {
+        // something in the root of the data source changed - update the whole data source
+        tvShowFolders.clear();
+        return;
+      }
+
+      Path showDir;
+      if (relative.getName(0).toString().length() == 1) {
+        showDir = dsAsPath.resolve(relative.subpath(0, 2));
+      }
+      else {
+        showDir = dsAsPath.resolve(relative.getName(0));
+      }
+      if (!tvShowFolders.contains(showDir)) {
+        tvShowFolders.add(showDir);
+      }
+    }
+
+    if (!tvShowFolders.isEmpty()) {
+      dataSources.clear();
+    }
+  }
+
+  /**
+   * force a full rescan of the data sources (do not skip unchanged directories)
+   *
+   * @param forceFullRescan
+   *          true/false
+   */
+  public void setForceFullRescan(boolean forceFullRescan) {
+    this.forceFullRescan = forceFullRescan;
+  }
+
   @Override
   public void doInBackground() {
     // check if there is at least one DS to update
@@ -182,7 +236,7 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
           }
 
           LOGGER.info("Start UDS on datasource: {}", ds);
-          initThreadPool(3, "update");
+          initThreadPool(Globals.settings.getUpdateThreads(), "update", Globals.settings.isAdaptiveThreads());
           setTaskName(TmmResourceBundle.getString("update.datasource") + " '" + ds + "'");
           publishState();
 
@@ -253,14 +307,33 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
             }
           }
 
+          DirectoryJournal.Scan journalScan = startJournalScan(dsAsPath);
           for (Path subdir : newTvShowDirs) {
+            if (journalScan != null) {
+              journalScan.record(subdir);
+            }
             submitTask(new FindTvShowTask(subdir, dsAsPath.toAbsolutePath()));
           }
           for (Path subdir : existingTvShowDirs) {
+            if (skipUnchangedTvShow(journalScan, subdir)) {
+              continue;
+            }
+            if (journalScan != null) {
+              journalScan.record(subdir);
+            }
             submitTask(new FindTvShowTask(subdir, dsAsPath.toAbsolutePath()));
           }
           waitForCompletionOrCancel();
 
+          if (journalScan != null) {
+            // only remember the state of the directories if the scan is complete
+            if (!cancel) {
+              journalScan.commit();
+            }
+            LOGGER.info("incremental scan of '{}' - directories visited: {}, skipped (unchanged): {}", ds, journalScan.getVisited(),
+                journalScan.getSkipped());
+          }
+
           // print stats
           LOGGER.info("FilesFound: {}", filesFound.size());
           LOGGER.info("tvShowsFound: {}", tvShowList.getTvShowCount());
@@ -283,20 +356,24 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
       else
 
       {
-        initThreadPool(3, "update");
+        initThreadPool(Globals.settings.getUpdateThreads(), "update", Globals.settings.isAdaptiveThreads());
         // update selected TV shows
         for (Path path : tvShowFolders) {
           // first of all check if the DS is available; we can take the
           // Files.exist here:
           // if the DS exists (and we have access to read it): Files.exist = true
           if (!Files.exists(path)) {
+            if (tvShowList.getTvShowByPath(path) != null) {
+              // the TV show has been removed - will be handled in the cleanup
+              continue;
+            }
             // error - continue with next datasource
             LOGGER.warn("Datasource not available/empty - {}", path.toAbsolutePath());
             MessageManager.instance.pushMessage(new Message(MessageLevel.ERROR, "update.datasource", "update.datasource.unavailable",
                 new String[] { path.toAbsolutePath().toString() }));
             continue;
           }
-          submitTask(new FindTvShowTask(path, path.getParent().toAbsolutePath()));
+          submitTask(new FindTvShowTask(path, getDatasource(path)));
         }
         waitForCompletionOrCancel();
 
@@ -316,7 +393,7 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
 
       LOGGER.info("getting Mediainfo...");
 
-      initThreadPool(1, "mediainfo");
+      initThreadPool(Globals.settings.getMediainfoThreads(), "mediainfo", Globals.settings.isAdaptiveThreads());
       setTaskName(TmmResourceBundle.getString("update.mediainfo"));
       setTaskDescription(null);
       setProgressDone(0);
@@ -390,6 +467,64 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
     }
   }
 
+  /**
+   * get the data source of the given TV show folder
+   */
+  private Path getDatasource(Path showDir) {
+    Path path = showDir.toAbsolutePath();
+    for (String ds : TvShowModuleManager.SETTINGS.getTvShowDataSource()) {
+      Path dsAsPath = Paths.get(ds).toAbsolutePath();
+      if (path.startsWith(dsAsPath) && !path.equals(dsAsPath)) {
+        return dsAsPath;
+      }
+    }
+    // not in a data source - take the parent
+    return path.getParent();
+  }
+
+  /**
+   * start the scan of the directory journal for the given data source (or null if the incremental scan is not available)
+   */
+  private DirectoryJournal.Scan startJournalScan(Path datasource) {
+    DirectoryJournal journal = TvShowModuleManager.getInstance().getDirectoryJournal();
+    if (journal == null || !Globals.settings.isIncrementalDatasourceScan()) {
+      return null;
+    }
+
+    // all settings which have an influence on the scan
+    String config = String.join("|", skipFolders) + "#" + String.join("|", Globals.settings.getVideoFileType());
+    return journal.startScan(datasource, config, forceFullRescan);
+  }
+
+  /**
+   * check if the given TV show folder is unchanged since the last scan. If so, the files of the TV show and its episodes are taken from the
+   * database rather than parsing the folder again
+   */
+  private boolean skipUnchangedTvShow(DirectoryJournal.Scan journalScan, Path showDir) {
+    if (journalScan == null || !journalScan.isUnchanged(showDir)) {
+      return false;
+    }
+
+    TvShow tvShow = tvShowList.getTvShowByPath(showDir);
+    if (tvShow == null) {
+      return false;
+    }
+
+    filesFound.add(showDir.toAbsolutePath());
+    for (MediaFile mf : tvShow.getMediaFiles()) {
+      filesFound.add(mf.getFileAsPath());
+    }
+    for (TvShowEpisode episode : tvShow.getEpisodes()) {
+      for (MediaFile mf : episode.getMediaFiles()) {
+        filesFound.add(mf.getFileAsPath());
+      }
+    }
+
+    int skipped = journalScan.skip(showDir);
+    LOGGER.trace("skipping unchanged TV show '{}' ({} directories)", showDir, skipped);
+    return true;
+  }
+
   private void cleanupDatasource(String datasource) {
     setTaskName(TmmResourceBundle.getString("update.cleanup"));
     setTaskDescription(null);
@@ -1148,9 +1283,9 @@ public class TvShowUpdateDatasourceTask extends TmmThreadPool {
 
   @Override
   public void callback(Object obj) {
-    // do not publish task description here, because with different workers the
-    // text is never right
-    publishState(progressDone);
+    // do not publish the task description of the workers here, because with different workers the
+    // text is never right - just show the amount of workers and the throughput
+    publishState(getPoolStatistics(), progressDone);
   }
 
   /**
@@ -17,6 +17,8 @@
 package org.tinymediamanager.scraper;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.tinymediamanager.scraper.entities.MediaType;
 
@@ -26,10 +28,11 @@ import org.tinymediamanager.scraper.entities.MediaType;
  * @author Manuel Laggner
  */
 public class SubtitleSearchAndScrapeOptions extends MediaSearchAndScrapeOptions {
-  private int  season  = -1;
-  private int  episode = -1;
+  private int                       season     = -1;
+  private int                       episode    = -1;
 
-  private File file;
+  private File                      file;
+  private final Map<String, String> fileHashes = new HashMap<>();
 
   public SubtitleSearchAndScrapeOptions(MediaType type) {
     super(type);
@@ -40,6 +43,7 @@ public class SubtitleSearchAndScrapeOptions extends MediaSearchAndScrapeOptions
     this.season = original.season;
     this.episode = original.episode;
     this.file = original.file;
+    this.fileHashes.putAll(original.fileHashes);
   }
 
   /**
@@ -98,4 +102,27 @@ public class SubtitleSearchAndScrapeOptions extends MediaSearchAndScrapeOptions
   public void setFile(File file) {
     this.file = file;
   }
+
+  /**
+   * Get an already known hash of the file
+   *
+   * @param algorithm
+   *          the id of the hash algorithm
+   * @return the hash or null if the hash is not known
+   */
+  public String getFileHash(String algorithm) {
+    return fileHashes.get(algorithm);
+  }
+
+  /**
+   * Set an already known hash of the file (so the subtitle scrapers do not need to read the file)
+   *
+   * @param algorithm
+   *          the id of the hash algorithm
+   * @param hash
+   *          the hash
+   */
+  public void setFileHash(String algorithm, String hash) {
+    fileHashes.put(algorithm, hash);
+  }
 }
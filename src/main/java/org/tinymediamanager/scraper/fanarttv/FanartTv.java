@@ -131,7 +131,7 @@ public class FanartTv {
       Retrofit.Builder builder = newRestAdapterBuilder();
       builder.baseUrl(API_URL);
       builder.addConverterFactory(GsonConverterFactory.create(getGsonBuilder().create()));
-      builder.client(TmmHttpClient.newBuilder().addInterceptor(new Interceptor() {
+      builder.client(TmmHttpClient.newBuilder(false, FanartTvMetadataProvider.ID).addInterceptor(new Interceptor() {
         @Override
         public Response intercept(Chain chain) throws IOException {
           Request original = chain.request();
@@ -36,12 +36,13 @@ import okhttp3.Headers;
 
 /**
  * The class InMemoryCachedUrl is used to cache some sort of Urls (e.g. when they are accessed several times in a short period)<br />
- * this cache caches HTTP responses up to 600 secs
+ * this cache caches HTTP responses up to 600 secs (max. 1000 responses / 32 MB)
  *
  * @author Manuel Laggner
  */
 public class InMemoryCachedUrl extends Url {
-  public static final CacheMap<CachedRequest, CachedResponse> CACHE = new CacheMap<>(60, 10);
+  public static final CacheMap<CachedRequest, CachedResponse> CACHE = new CacheMap<>(60, 10, 1000, 32 * 1024 * 1024,
+      response -> response.content.length);
 
   public InMemoryCachedUrl(String url) throws MalformedURLException {
     this.url = url;
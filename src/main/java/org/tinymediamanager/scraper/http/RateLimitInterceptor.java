@@ -0,0 +1,181 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * The class RateLimitInterceptor. An application interceptor which retries requests throttled by the provider (HTTP 429 or HTTP 503 with a
+ * Retry-After header). The requested wait time (Retry-After) is honoured; without it the retries are delayed with an exponential backoff with
+ * jitter.<br />
+ * The {@link NetworkInterceptor} takes the tokens from the {@link RateLimiter} of the provider and reports the throttled requests to it (which
+ * lowers the rate) - so responses from the cache are not throttled.
+ *
+ * @author Manuel Laggner
+ */
+public class RateLimitInterceptor implements Interceptor {
+  private static final Logger LOGGER                 = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+  private static final int    HTTP_TOO_MANY_REQUESTS = 429;
+  private static final int    HTTP_UNAVAILABLE       = 503;
+
+  private final RateLimiter   rateLimiter;
+  private final int           maxRetries;
+  private final long          baseDelay;
+  private final long          maxDelay;
+
+  /**
+   * create a new interceptor with the default settings (3 retries, 1s base delay, at most 60s delay)
+   *
+   * @param rateLimiter
+   *          the rate limiter of the provider
+   */
+  public RateLimitInterceptor(RateLimiter rateLimiter) {
+    this(rateLimiter, 3, 1000, 60000);
+  }
+
+  /**
+   * create a new interceptor
+   *
+   * @param rateLimiter
+   *          the rate limiter of the provider
+   * @param maxRetries
+   *          the maximum amount of retries
+   * @param baseDelay
+   *          the delay of the first retry in ms (if the provider did not send a Retry-After header); doubled for every further retry
+   * @param maxDelay
+   *          the maximum delay in ms - if the provider requests a longer delay, the throttled response is returned
+   */
+  public RateLimitInterceptor(RateLimiter rateLimiter, int maxRetries, long baseDelay, long maxDelay) {
+    this.rateLimiter = rateLimiter;
+    this.maxRetries = maxRetries;
+    this.baseDelay = baseDelay;
+    this.maxDelay = maxDelay;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    int retry = 0;
+
+    while (true) {
+      Response response = chain.proceed(chain.request());
+      if (!isThrottled(response)) {
+        return response;
+      }
+
+      long delay = getRetryAfter(response);
+      if (delay < 0) {
+        // no hint from the provider: exponential backoff with jitter (50%-100% of the delay)
+        long backoff = Math.min(maxDelay, baseDelay << Math.min(retry, 20));
+        delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+      }
+
+      if (retry >= maxRetries || delay > maxDelay) {
+        LOGGER.debug("{} still throttled after {} retries - giving up", rateLimiter.getId(), retry);
+        return response;
+      }
+
+      response.close();
+      retry++;
+      LOGGER.trace("{} throttled - retry {} in {} ms", rateLimiter.getId(), retry, delay);
+
+      // wait for the requested time (the network interceptor already lowered the rate and paused the rate limiter)
+      sleep(delay);
+    }
+  }
+
+  static boolean isThrottled(Response response) {
+    return response.code() == HTTP_TOO_MANY_REQUESTS || (response.code() == HTTP_UNAVAILABLE && response.header("Retry-After") != null);
+  }
+
+  /**
+   * parse the Retry-After header (either in seconds or as HTTP date)
+   *
+   * @param response
+   *          the response
+   * @return the time to wait in ms or -1 if there is no (valid) Retry-After header
+   */
+  static long getRetryAfter(Response response) {
+    String retryAfter = response.header("Retry-After");
+    if (StringUtils.isBlank(retryAfter)) {
+      return -1;
+    }
+
+    if (StringUtils.isNumeric(retryAfter.trim())) {
+      try {
+        return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+      }
+      catch (NumberFormatException e) {
+        return -1;
+      }
+    }
+
+    Date date = response.headers().getDate("Retry-After");
+    if (date != null) {
+      return Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+
+    return -1;
+  }
+
+  private void sleep(long millis) throws InterruptedIOException {
+    try {
+      Thread.sleep(millis);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for a retry");
+    }
+  }
+
+  /**
+   * The network interceptor which takes a token from the {@link RateLimiter} for every request going to the network and reports the result back
+   */
+  public static class NetworkInterceptor implements Interceptor {
+    private final RateLimiter rateLimiter;
+
+    public NetworkInterceptor(RateLimiter rateLimiter) {
+      this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+      rateLimiter.acquire();
+
+      long sent = System.nanoTime();
+      Response response = chain.proceed(chain.request());
+      if (isThrottled(response)) {
+        long retryAfter = getRetryAfter(response);
+        rateLimiter.onThrottled(Math.max(0, retryAfter), sent);
+      }
+      else if (response.isSuccessful()) {
+        rateLimiter.onSuccess();
+      }
+      return response;
+    }
+  }
+}
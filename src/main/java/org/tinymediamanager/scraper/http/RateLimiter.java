@@ -0,0 +1,215 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class RateLimiter. An adaptive token bucket to throttle the requests to one provider (API).<br />
+ * Every request takes a token from the bucket; the bucket is refilled with the current rate. If the provider signals a throttling (HTTP 429), the
+ * rate is halved and the bucket is paused for the requested time. Every successful request raises the rate again until the maximum rate is reached
+ * (additive increase/multiplicative decrease) - so bulk jobs level off at the rate the provider is able to sustain.
+ *
+ * @author Manuel Laggner
+ */
+public class RateLimiter {
+  private static final Logger                   LOGGER        = LoggerFactory.getLogger(RateLimiter.class);
+  private static final double                   DEFAULT_RATE  = 10;
+  private static final Map<String, Double>      DEFAULT_RATES = new HashMap<>();
+  private static final Map<String, RateLimiter> INSTANCES     = new ConcurrentHashMap<>();
+
+  static {
+    // documented/known limits of the APIs (requests per second)
+    DEFAULT_RATES.put("tmdb", 20d);
+    DEFAULT_RATES.put("tvdb", 10d);
+    DEFAULT_RATES.put("trakt", 3d); // 1000 calls per 5 minutes
+    DEFAULT_RATES.put("omdbapi", 5d);
+    DEFAULT_RATES.put("fanarttv", 10d);
+    DEFAULT_RATES.put("opensubtitles", 4d); // 40 calls per 10 seconds
+  }
+
+  private final String                          id;
+  private final double                          maxRate;
+  private final double                          minRate;
+  private final double                          capacity;
+
+  private double                                rate;
+  private double                                tokens;
+  private long                                  lastRefill;
+  private long                                  pausedUntil;
+  private long                                  lastDecrease;
+  private int                                   throttled;
+
+  /**
+   * create a new rate limiter
+   *
+   * @param id
+   *          the id of the provider (for logging)
+   * @param maxRate
+   *          the maximum amount of requests per second
+   */
+  public RateLimiter(String id, double maxRate) {
+    this.id = id;
+    this.maxRate = maxRate;
+    this.minRate = Math.min(maxRate, 0.2);
+    this.capacity = Math.max(1, maxRate);
+    this.rate = maxRate;
+    this.tokens = capacity;
+    this.lastRefill = System.nanoTime();
+    this.pausedUntil = lastRefill;
+    this.lastDecrease = lastRefill - 1;
+  }
+
+  /**
+   * get the shared rate limiter for the given provider
+   *
+   * @param providerId
+   *          the id of the provider
+   * @return the rate limiter for this provider
+   */
+  public static RateLimiter getInstance(String providerId) {
+    return INSTANCES.computeIfAbsent(providerId, id -> new RateLimiter(id, DEFAULT_RATES.getOrDefault(id, DEFAULT_RATE)));
+  }
+
+  /**
+   * take a token from the bucket; blocks until a token is available
+   *
+   * @throws InterruptedIOException
+   *           if the thread has been interrupted while waiting
+   */
+  public void acquire() throws InterruptedIOException {
+    long wait = reserve();
+    if (wait <= 0) {
+      return;
+    }
+
+    try {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for the rate limit of " + id);
+    }
+  }
+
+  /**
+   * reserve a token and return the time to wait until it can be used; the token may be borrowed from the future (this keeps the waiting requests in
+   * their order)
+   *
+   * @return the time to wait in ns
+   */
+  synchronized long reserve() {
+    long now = System.nanoTime();
+    refill(now);
+
+    tokens -= 1;
+
+    // the bucket is refilled up to lastRefill (which lies in the future while being paused)
+    long available = lastRefill;
+    if (tokens < 0) {
+      available += (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+    return Math.max(0, Math.max(available, pausedUntil) - now);
+  }
+
+  /**
+   * the provider answered successfully - raise the rate again
+   */
+  public synchronized void onSuccess() {
+    if (rate < maxRate) {
+      refill(System.nanoTime());
+      rate = Math.min(maxRate, rate + maxRate / 50);
+    }
+  }
+
+  /**
+   * the provider throttled our requests - lower the rate and pause the bucket
+   *
+   * @param pauseMillis
+   *          the time to pause all requests in ms
+   */
+  public void onThrottled(long pauseMillis) {
+    onThrottled(pauseMillis, System.nanoTime());
+  }
+
+  /**
+   * the provider throttled a request - lower the rate and pause the bucket. Throttled requests which have been sent before the rate has been lowered
+   * the last time do not lower it again (concurrent requests would bring the rate down to the minimum at once)
+   *
+   * @param pauseMillis
+   *          the time to pause all requests in ms
+   * @param requestSent
+   *          the time the throttled request has been sent (as in {@link System#nanoTime()})
+   */
+  public synchronized void onThrottled(long pauseMillis, long requestSent) {
+    long now = System.nanoTime();
+    refill(now);
+
+    throttled++;
+    if (requestSent - lastDecrease >= 0) {
+      rate = Math.max(minRate, rate / 2);
+      lastDecrease = now;
+      LOGGER.debug("{} throttled our requests - lowering the rate to {}/s", id, String.format("%.2f", rate));
+    }
+
+    if (pauseMillis > 0) {
+      tokens = Math.min(tokens, 0);
+      pausedUntil = Math.max(pausedUntil, now + TimeUnit.MILLISECONDS.toNanos(pauseMillis));
+      // no tokens for the pause
+      lastRefill = Math.max(lastRefill, pausedUntil);
+    }
+  }
+
+  private void refill(long now) {
+    if (now > lastRefill) {
+      tokens = Math.min(capacity, tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+      lastRefill = now;
+    }
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * get the current rate
+   *
+   * @return the requests per second
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  public double getMaxRate() {
+    return maxRate;
+  }
+
+  /**
+   * get the amount of throttled requests (HTTP 429)
+   *
+   * @return the amount of throttled requests
+   */
+  public synchronized int getThrottledCount() {
+    return throttled;
+  }
+}
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * The class ResponseStore. A persistent store for the responses of the scraper APIs which (unlike the HTTP cache) does not respect the caching
+ * headers of the responses, but stores every successful GET request for a time to live per provider.<br />
+ * Every response is stored in an own file (cache/responses/&lt;provider&gt;/&lt;sha256 of the key&gt;); the key is built from the provider, the
+ * normalized url (sorted query parameters, without api keys) and the request headers which influence the response (Accept, Accept-Language).
+ * The store is limited in size - the least recently used responses are removed if it gets bigger.<br />
+ * In the {@link Mode#OFFLINE} mode every request is answered from the store only (regardless of the time to live); this is useful for working
+ * without internet access and for deterministic scraper regression tests (recorded in the {@link Mode#RECORD} mode).
+ *
+ * @author Manuel Laggner
+ */
+public class ResponseStore {
+  public static final String             HEADER_STORE      = "X-Tmm-Response-Store";
+  public static final long               MAX_ENTRY_SIZE    = 5L * 1024 * 1024;
+
+  private static final Logger            LOGGER            = LoggerFactory.getLogger(ResponseStore.class);
+
+  private static final Map<String, Long> DEFAULT_TTLS      = new HashMap<>();
+  private static final long              DEFAULT_TTL       = TimeUnit.HOURS.toMillis(24);
+  private static final long              DEFAULT_MAX_SIZE  = 100L * 1024 * 1024;
+  private static final int               VERSION           = 1;
+  private static final String            TEMP_SUFFIX       = ".tmp";
+
+  private static final Set<String>       IGNORED_PARAMS    = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+  private static final List<String>      RELEVANT_HEADERS  = Arrays.asList("Accept", "Accept-Language");
+  private static final List<String>      IGNORED_HEADERS   = Arrays.asList("Content-Encoding", "Content-Length", "Transfer-Encoding", "Set-Cookie");
+
+  private static ResponseStore           instance;
+
+  static {
+    DEFAULT_TTLS.put("tmdb", TimeUnit.HOURS.toMillis(24));
+    DEFAULT_TTLS.put("tvdb", TimeUnit.HOURS.toMillis(24));
+    DEFAULT_TTLS.put("omdbapi", TimeUnit.HOURS.toMillis(24));
+    DEFAULT_TTLS.put("fanarttv", TimeUnit.HOURS.toMillis(24));
+    DEFAULT_TTLS.put("trakt", 0L); // shares the client with the (user specific) sync
+
+    // api keys do not change the response and must not be stored
+    IGNORED_PARAMS.addAll(Arrays.asList("api_key", "apikey", "client_key"));
+  }
+
+  /**
+   * the modes of the response store
+   */
+  public enum Mode {
+    /** the store is not used */
+    OFF,
+    /** responses are served from the store as long as they are not expired; new responses are stored */
+    CACHE,
+    /** every request is sent to the provider; the responses are stored */
+    RECORD,
+    /** every request is answered from the store only */
+    OFFLINE
+  }
+
+  private final Path                     folder;
+  private final Map<String, Long>        ttls              = new ConcurrentHashMap<>(DEFAULT_TTLS);
+  private final Map<Path, Entry>         entries           = new ConcurrentHashMap<>();
+  private final AtomicLong               totalSize         = new AtomicLong();
+
+  private volatile Mode                  mode;
+  private volatile long                  maxSize;
+  private volatile boolean               loaded            = false;
+
+  /**
+   * create a new response store
+   *
+   * @param folder
+   *          the folder to store the responses in
+   * @param mode
+   *          the mode of the store
+   * @param maxSize
+   *          the maximum size of the store in bytes
+   */
+  public ResponseStore(Path folder, Mode mode, long maxSize) {
+    this.folder = folder;
+    this.mode = mode;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * get the shared response store (in the cache folder). The mode can be forced with the system property tmm.responsestore.mode (off, cache, record
+   * or offline)
+   *
+   * @return the response store
+   */
+  public static synchronized ResponseStore getInstance() {
+    if (instance == null) {
+      Mode mode = Mode.CACHE;
+      String modeProperty = System.getProperty("tmm.responsestore.mode");
+      if (StringUtils.isNotBlank(modeProperty)) {
+        try {
+          mode = Mode.valueOf(modeProperty.trim().toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e) {
+          LOGGER.warn("unknown response store mode '{}'", modeProperty);
+        }
+      }
+      instance = new ResponseStore(TmmHttpClient.getCacheFolder().resolve("responses"), mode, DEFAULT_MAX_SIZE);
+    }
+    return instance;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public void setMode(Mode mode) {
+    this.mode = mode;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * set the maximum size of the store; the least recently used responses are removed if the store is bigger
+   *
+   * @param maxSize
+   *          the maximum size in bytes
+   */
+  public void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+    if (loaded && totalSize.get() > maxSize) {
+      evict();
+    }
+  }
+
+  /**
+   * get the time to live of the responses of the given provider
+   *
+   * @param providerId
+   *          the id of the provider
+   * @return the time to live in milliseconds (0 = the responses are not stored)
+   */
+  public long getTimeToLive(String providerId) {
+    return ttls.getOrDefault(providerId, DEFAULT_TTL);
+  }
+
+  /**
+   * set the time to live of the responses of the given provider
+   *
+   * @param providerId
+   *          the id of the provider
+   * @param timeToLive
+   *          the time to live in milliseconds (0 = the responses are not stored)
+   */
+  public void setTimeToLive(String providerId, long timeToLive) {
+    ttls.put(providerId, timeToLive);
+  }
+
+  /**
+   * get the stored response for the given request
+   *
+   * @param providerId
+   *          the id of the provider
+   * @param request
+   *          the request
+   * @param ignoreTimeToLive
+   *          also return expired responses
+   * @return the stored response or null if there is no (valid) response stored
+   */
+  public Response get(String providerId, Request request, boolean ignoreTimeToLive) {
+    loadIndex();
+
+    String key = createKey(providerId, request);
+    Path file = getFile(providerId, key);
+    Entry entry = entries.get(file);
+    if (entry == null) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != VERSION || !key.equals(in.readUTF())) {
+        return null;
+      }
+
+      long storedAt = in.readLong();
+      if (!ignoreTimeToLive && storedAt + getTimeToLive(providerId) < System.currentTimeMillis()) {
+        return null;
+      }
+
+      int code = in.readInt();
+      String message = in.readUTF();
+      Headers.Builder headers = new Headers.Builder();
+      int headerCount = in.readInt();
+      for (int i = 0; i < headerCount; i++) {
+        headers.add(in.readUTF(), in.readUTF());
+      }
+      byte[] body = new byte[in.readInt()];
+      in.readFully(body);
+
+      entry.lastAccess = System.currentTimeMillis();
+      touch(file, entry.lastAccess);
+
+      String contentType = headers.get("Content-Type");
+      return new Response.Builder().request(request)
+          .protocol(Protocol.HTTP_1_1)
+          .code(code)
+          .message(message)
+          .headers(headers.set(HEADER_STORE, "HIT").build())
+          .body(ResponseBody.create(body, contentType == null ? null : MediaType.parse(contentType)))
+          .sentRequestAtMillis(storedAt)
+          .receivedResponseAtMillis(storedAt)
+          .build();
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not read stored response {} - {}", file, e.getMessage());
+      remove(file);
+      return null;
+    }
+  }
+
+  /**
+   * store the given response
+   *
+   * @param providerId
+   *          the id of the provider
+   * @param request
+   *          the request
+   * @param response
+   *          the (successful) response
+   * @param body
+   *          the content of the response body
+   */
+  public void put(String providerId, Request request, Response response, byte[] body) {
+    if (body.length > MAX_ENTRY_SIZE || body.length > maxSize) {
+      return;
+    }
+
+    loadIndex();
+
+    String key = createKey(providerId, request);
+    Path file = getFile(providerId, key);
+
+    try {
+      Files.createDirectories(file.getParent());
+      Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), TEMP_SUFFIX);
+
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(VERSION);
+        out.writeUTF(key);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(response.code());
+        out.writeUTF(response.message());
+
+        List<String> headers = new ArrayList<>();
+        for (String name : response.headers().names()) {
+          if (IGNORED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+            for (String value : response.headers(name)) {
+              headers.add(name);
+              headers.add(value);
+            }
+          }
+        }
+        out.writeInt(headers.size() / 2);
+        for (String header : headers) {
+          out.writeUTF(header);
+        }
+
+        out.writeInt(body.length);
+        out.write(body);
+      }
+
+      long size = Files.size(tempFile);
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      Entry old = entries.put(file, new Entry(size, System.currentTimeMillis()));
+      totalSize.addAndGet(old == null ? size : size - old.size);
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not store response for {} - {}", request.url(), e.getMessage());
+    }
+
+    if (totalSize.get() > maxSize) {
+      evict();
+    }
+  }
+
+  /**
+   * remove all stored responses
+   */
+  public void clear() {
+    loadIndex();
+    for (Path file : new ArrayList<>(entries.keySet())) {
+      remove(file);
+    }
+  }
+
+  /**
+   * remove all stored responses of the given provider
+   *
+   * @param providerId
+   *          the id of the provider
+   */
+  public void clear(String providerId) {
+    loadIndex();
+    Path providerFolder = folder.resolve(providerId);
+    for (Path file : new ArrayList<>(entries.keySet())) {
+      if (file.startsWith(providerFolder)) {
+        remove(file);
+      }
+    }
+  }
+
+  /**
+   * get the amount of stored responses
+   *
+   * @return the amount of stored responses
+   */
+  public int size() {
+    loadIndex();
+    return entries.size();
+  }
+
+  /**
+   * get the size of all stored responses
+   *
+   * @return the size in bytes
+   */
+  public long getTotalSize() {
+    loadIndex();
+    return totalSize.get();
+  }
+
+  /**
+   * create the key for the given request: the provider, the method, the normalized url and the relevant request headers
+   *
+   * @param providerId
+   *          the id of the provider
+   * @param request
+   *          the request
+   * @return the key
+   */
+  static String createKey(String providerId, Request request) {
+    StringBuilder key = new StringBuilder(providerId).append('\n');
+    key.append(request.method()).append(' ').append(normalizeUrl(request.url()));
+
+    for (String header : RELEVANT_HEADERS) {
+      String value = request.header(header);
+      if (value != null) {
+        key.append('\n').append(header.toLowerCase(Locale.ROOT)).append(": ").append(value.trim());
+      }
+    }
+
+    return key.toString();
+  }
+
+  /**
+   * normalize the url: the query parameters are sorted, api keys and the fragment are removed (scheme and host are already lower case in the
+   * {@link HttpUrl})
+   *
+   * @param url
+   *          the url to normalize
+   * @return the normalized url
+   */
+  static String normalizeUrl(HttpUrl url) {
+    HttpUrl.Builder builder = url.newBuilder().query(null).fragment(null);
+
+    List<String[]> parameters = new ArrayList<>();
+    for (int i = 0; i < url.querySize(); i++) {
+      if (!IGNORED_PARAMS.contains(url.queryParameterName(i))) {
+        parameters.add(new String[] { url.queryParameterName(i), StringUtils.defaultString(url.queryParameterValue(i)) });
+      }
+    }
+    parameters.sort((p1, p2) -> p1[0].equals(p2[0]) ? p1[1].compareTo(p2[1]) : p1[0].compareTo(p2[0]));
+
+    for (String[] parameter : parameters) {
+      builder.addQueryParameter(parameter[0], parameter[1]);
+    }
+
+    return builder.build().toString();
+  }
+
+  private Path getFile(String providerId, String key) {
+    return folder.resolve(providerId).resolve(DigestUtils.sha256Hex(key.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * read the sizes and last accesses of all stored responses (once)
+   */
+  private void loadIndex() {
+    if (loaded) {
+      return;
+    }
+
+    synchronized (this) {
+      if (loaded) {
+        return;
+      }
+
+      if (Files.isDirectory(folder)) {
+        try (DirectoryStream<Path> providerFolders = Files.newDirectoryStream(folder, Files::isDirectory)) {
+          for (Path providerFolder : providerFolders) {
+            loadIndex(providerFolder);
+          }
+        }
+        catch (IOException e) {
+          LOGGER.warn("could not read the response store - {}", e.getMessage());
+        }
+      }
+
+      loaded = true;
+    }
+  }
+
+  private void loadIndex(Path providerFolder) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(providerFolder)) {
+      for (Path file : files) {
+        if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+          // left over from an interrupted write
+          Files.deleteIfExists(file);
+          continue;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.isRegularFile()) {
+          entries.put(file, new Entry(attributes.size(), attributes.lastModifiedTime().toMillis()));
+          totalSize.addAndGet(attributes.size());
+        }
+      }
+    }
+  }
+
+  /**
+   * remove the least recently used responses until the store uses at most 90% of its maximum size
+   */
+  private synchronized void evict() {
+    long limit = maxSize / 10 * 9;
+    if (totalSize.get() <= limit) {
+      return;
+    }
+
+    List<Map.Entry<Path, Entry>> lru = new ArrayList<>(entries.entrySet());
+    lru.sort((e1, e2) -> Long.compare(e1.getValue().lastAccess, e2.getValue().lastAccess));
+
+    int removed = 0;
+    for (Map.Entry<Path, Entry> entry : lru) {
+      if (totalSize.get() <= limit) {
+        break;
+      }
+      remove(entry.getKey());
+      removed++;
+    }
+
+    LOGGER.debug("removed {} responses from the response store", removed);
+  }
+
+  private void remove(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not remove stored response {} - {}", file, e.getMessage());
+    }
+
+    Entry entry = entries.remove(file);
+    if (entry != null) {
+      totalSize.addAndGet(-entry.size);
+    }
+  }
+
+  private void touch(Path file, long time) {
+    try {
+      // persist the last access for the LRU eviction after a restart
+      Files.setLastModifiedTime(file, FileTime.fromMillis(time));
+    }
+    catch (IOException ignored) {
+      // not critical
+    }
+  }
+
+  private static class Entry {
+    private final long    size;
+    private volatile long lastAccess;
+
+    private Entry(long size, long lastAccess) {
+      this.size = size;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
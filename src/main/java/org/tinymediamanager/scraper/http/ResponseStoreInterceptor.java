@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * The class ResponseStoreInterceptor. An application interceptor which answers the GET requests of a provider from the {@link ResponseStore} and
+ * stores the successful responses in it (depending on the mode of the store)
+ *
+ * @author Manuel Laggner
+ */
+public class ResponseStoreInterceptor implements Interceptor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResponseStoreInterceptor.class);
+
+  private final String        providerId;
+  private final ResponseStore store;
+
+  /**
+   * create a new interceptor for the shared response store
+   *
+   * @param providerId
+   *          the id of the provider
+   */
+  public ResponseStoreInterceptor(String providerId) {
+    this(providerId, ResponseStore.getInstance());
+  }
+
+  /**
+   * create a new interceptor
+   *
+   * @param providerId
+   *          the id of the provider
+   * @param store
+   *          the response store to use
+   */
+  public ResponseStoreInterceptor(String providerId, ResponseStore store) {
+    this.providerId = providerId;
+    this.store = store;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    ResponseStore.Mode mode = store.getMode();
+
+    if (mode == ResponseStore.Mode.OFF || !"GET".equals(request.method())) {
+      return chain.proceed(request);
+    }
+
+    if (mode == ResponseStore.Mode.OFFLINE) {
+      Response stored = store.get(providerId, request, true);
+      if (stored == null) {
+        LOGGER.debug("offline - no stored response for {}", request.url());
+        return createOfflineResponse(request);
+      }
+      return stored;
+    }
+
+    if (store.getTimeToLive(providerId) <= 0) {
+      return chain.proceed(request);
+    }
+
+    if (mode == ResponseStore.Mode.CACHE) {
+      Response stored = store.get(providerId, request, false);
+      if (stored != null) {
+        return stored;
+      }
+    }
+
+    Response response = chain.proceed(request);
+    ResponseBody body = response.body();
+    if (!response.isSuccessful() || body == null || body.contentLength() > ResponseStore.MAX_ENTRY_SIZE) {
+      return response;
+    }
+
+    byte[] content = body.bytes();
+    store.put(providerId, request, response, content);
+
+    return response.newBuilder().body(ResponseBody.create(content, body.contentType())).build();
+  }
+
+  /**
+   * the same response as the HTTP cache creates for an unsatisfiable only-if-cached request
+   */
+  private Response createOfflineResponse(Request request) {
+    return new Response.Builder().request(request)
+        .protocol(Protocol.HTTP_1_1)
+        .code(504)
+        .message("Unsatisfiable Request (offline)")
+        .body(ResponseBody.create(new byte[0], null))
+        .sentRequestAtMillis(-1L)
+        .receivedResponseAtMillis(System.currentTimeMillis())
+        .build();
+  }
+}
@@ -0,0 +1,678 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.scraper.exceptions.HttpException;
+import org.tinymediamanager.scraper.util.Pair;
+
+/**
+ * The class SegmentedDownload. Downloads an url into a (.part) file via NIO {@link FileChannel} positional writes with big direct buffers.<br />
+ * If the server supports byte ranges, the file is split into several segments which are downloaded over concurrent connections. The state of all
+ * segments is stored in a segment map next to the .part file, so an aborted/failed download can be resumed by the next download of the same url to
+ * the same .part file. At the end the size of the file is verified against the announced content length.
+ *
+ * @author Manuel Laggner
+ */
+public class SegmentedDownload {
+  private static final Logger              LOGGER               = LoggerFactory.getLogger(SegmentedDownload.class);
+  private static final Pattern             CONTENT_RANGE        = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+)", Pattern.CASE_INSENSITIVE);
+
+  private static final String              SEGMENT_MAP_SUFFIX   = ".segments";
+  private static final int                 BUFFER_SIZE          = 256 * 1024;
+  private static final long                MAP_SAVE_INTERVAL    = 4L * 1024 * 1024;
+  private static final int                 SEGMENT_RETRIES      = 2;
+
+  private final String                     url;
+  private final Path                       partFile;
+  private final Path                       segmentMapFile;
+  private final List<Pair<String, String>> headers              = new ArrayList<>();
+  private final AtomicLong                 bytesDone            = new AtomicLong();
+  private final Set<Url>                   openConnections      = ConcurrentHashMap.newKeySet();
+
+  private int                              maxSegments          = 4;
+  private long                             minimumSegmentSize   = 1024L * 1024;
+  private ProgressListener                 progressListener     = null;
+  private BooleanSupplier                  cancelled            = () -> false;
+
+  private long                             contentLength        = -1;
+  private String                           contentType          = "";
+  private String                           validator            = "";
+  private boolean                          resumable            = false;
+  private List<Segment>                    segments             = new ArrayList<>();
+
+  /**
+   * create a new download
+   *
+   * @param url
+   *          the url to download
+   * @param partFile
+   *          the file to download to
+   */
+  public SegmentedDownload(String url, Path partFile) {
+    this.url = url;
+    this.partFile = partFile;
+    this.segmentMapFile = partFile.resolveSibling(partFile.getFileName() + SEGMENT_MAP_SUFFIX);
+  }
+
+  /**
+   * add a header which is sent with every request
+   *
+   * @param key
+   *          the header name
+   * @param value
+   *          the header value
+   */
+  public void addHeader(String key, String value) {
+    headers.add(new Pair<>(key, value));
+  }
+
+  /**
+   * set the maximum amount of concurrent connections (segments) for servers supporting byte ranges
+   *
+   * @param maxSegments
+   *          the maximum amount of segments
+   */
+  public void setMaxSegments(int maxSegments) {
+    this.maxSegments = Math.max(1, maxSegments);
+  }
+
+  /**
+   * set the minimum size of a segment - smaller files are downloaded with fewer connections
+   *
+   * @param minimumSegmentSize
+   *          the minimum segment size in bytes
+   */
+  public void setMinimumSegmentSize(long minimumSegmentSize) {
+    this.minimumSegmentSize = Math.max(1, minimumSegmentSize);
+  }
+
+  /**
+   * set a listener to get informed about the download progress (invoked from the download threads)
+   *
+   * @param progressListener
+   *          the listener
+   */
+  public void setProgressListener(ProgressListener progressListener) {
+    this.progressListener = progressListener;
+  }
+
+  /**
+   * set a check whether the download has been cancelled
+   *
+   * @param cancelled
+   *          the cancel check
+   */
+  public void setCancelled(BooleanSupplier cancelled) {
+    this.cancelled = cancelled;
+  }
+
+  /**
+   * the content length of the download (after the download has been started) or -1 if unknown
+   *
+   * @return the content length
+   */
+  public long getContentLength() {
+    return contentLength;
+  }
+
+  /**
+   * the content type of the download (after the download has been started)
+   *
+   * @return the content type
+   */
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * is the download resumable (the server supports byte ranges and the segment map has been written)?
+   *
+   * @return true/false
+   */
+  public boolean isResumable() {
+    return resumable;
+  }
+
+  /**
+   * the amount of segments (concurrent connections) of this download
+   *
+   * @return the amount of segments
+   */
+  public int getSegmentCount() {
+    return segments.size();
+  }
+
+  /**
+   * all files this download writes to (the .part file and the segment map)
+   *
+   * @return the written files
+   */
+  public Path[] getFiles() {
+    return new Path[] { partFile, segmentMapFile, getSegmentMapTempFile() };
+  }
+
+  private Path getSegmentMapTempFile() {
+    return segmentMapFile.resolveSibling(segmentMapFile.getFileName() + ".tmp");
+  }
+
+  /**
+   * download the url into the .part file
+   *
+   * @return true if the download has been finished, false if it has been cancelled
+   * @throws HttpException
+   *           the server answered with an error status
+   * @throws IOException
+   *           any {@link IOException} occurred while downloading or if the downloaded file is incomplete
+   * @throws InterruptedException
+   *           the download has been interrupted
+   */
+  public boolean download() throws IOException, InterruptedException {
+    Properties previousMap = readSegmentMap();
+
+    // probe the server: a range request is either answered with 206 (ranges supported) or with 200 (the whole file)
+    StreamingUrl probe = createUrl();
+    probe.addHeader("Range", "bytes=0-");
+    ReadableByteChannel probeChannel = open(probe);
+
+    try {
+      contentType = probe.getContentEncoding();
+
+      long totalLength = -1;
+      Matcher matcher = CONTENT_RANGE.matcher(probe.getHeader("Content-Range"));
+      if (probe.getStatusCode() == 206 && matcher.matches()) {
+        totalLength = Long.parseLong(matcher.group(3));
+      }
+      else if (probe.getStatusCode() == 200) {
+        contentLength = probe.getContentLength();
+      }
+
+      if (totalLength < 0 && !"bytes".equalsIgnoreCase(probe.getHeader("Accept-Ranges"))) {
+        // no range support: one single connection
+        LOGGER.debug("no range support for '{}' - downloading with a single connection", url);
+        segments = new ArrayList<>();
+        return downloadSequential(probeChannel);
+      }
+
+      if (totalLength < 0) {
+        totalLength = contentLength;
+      }
+      contentLength = totalLength;
+      if (contentLength <= 0) {
+        segments = new ArrayList<>();
+        return downloadSequential(probeChannel);
+      }
+
+      // without a strong validator (ETag/Last-Modified) we cannot make sure that all segments belong to the same content - download it with the
+      // probe connection only (and start over the next time)
+      validator = getValidator(probe);
+      if (StringUtils.isBlank(validator)) {
+        LOGGER.debug("no validator for '{}' - downloading with a single connection", url);
+        segments = new ArrayList<>();
+        return downloadSequential(probeChannel);
+      }
+
+      // resume only if the segment map belongs to the same content; otherwise the .part file is truncated
+      boolean resume = false;
+      if (previousMap != null && Files.exists(partFile) && url.equals(previousMap.getProperty("url"))
+          && String.valueOf(contentLength).equals(previousMap.getProperty("length")) && validator.equals(previousMap.getProperty("validator"))) {
+        segments = parseSegments(previousMap);
+        resume = !segments.isEmpty();
+      }
+      if (!resume) {
+        segments = createSegments(contentLength);
+      }
+
+      // the probe response only delivers the first segment of a new download - otherwise it is not needed any more (a 200 reply would even stream
+      // the whole file)
+      ReadableByteChannel firstChannel = null;
+      if (!resume && probe.getStatusCode() == 206) {
+        firstChannel = probeChannel;
+      }
+      else {
+        probe.cleanup();
+      }
+      probeChannel = null;
+
+      long done = 0;
+      for (Segment segment : segments) {
+        done += segment.position - segment.start;
+      }
+      bytesDone.set(done);
+
+      LOGGER.debug("downloading '{}' ({} bytes) with {} segment(s){}", url, contentLength, segments.size(), resume ? " - resuming" : "");
+
+      Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      if (!resume) {
+        options.add(StandardOpenOption.TRUNCATE_EXISTING);
+      }
+
+      try (FileChannel fileChannel = FileChannel.open(partFile, options)) {
+        resumable = true;
+        writeSegmentMap();
+
+        downloadSegments(fileChannel, firstChannel);
+
+        if (cancelled.getAsBoolean()) {
+          return false;
+        }
+
+        // verify the download
+        for (Segment segment : segments) {
+          if (!segment.isDone()) {
+            throw new IOException("segment " + segment.start + "-" + segment.end + " of '" + url + "' is incomplete");
+          }
+        }
+        if (fileChannel.size() != contentLength) {
+          throw new IOException("content length mismatch for '" + url + "': expected " + contentLength + " bytes, got " + fileChannel.size());
+        }
+      }
+
+      Files.deleteIfExists(segmentMapFile);
+      resumable = false;
+      return true;
+    }
+    catch (IOException e) {
+      // aborting the connections on cancel breaks the running transfers
+      if (cancelled.getAsBoolean()) {
+        LOGGER.debug("download of '{}' cancelled - {}", url, e.getMessage());
+        return false;
+      }
+      throw e;
+    }
+    finally {
+      if (probeChannel != null) {
+        probe.cleanup();
+      }
+      openConnections.remove(probe);
+    }
+  }
+
+  /**
+   * remove the .part file and the segment map
+   */
+  public void discard() {
+    try {
+      Files.deleteIfExists(partFile);
+      Files.deleteIfExists(segmentMapFile);
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not delete '{}' - {}", partFile, e.getMessage());
+    }
+    resumable = false;
+  }
+
+  /**
+   * abort all open connections
+   */
+  public void abort() {
+    for (Url connection : openConnections) {
+      connection.cleanup();
+    }
+  }
+
+  private boolean downloadSequential(ReadableByteChannel channel) throws IOException, InterruptedException {
+    Files.deleteIfExists(segmentMapFile);
+
+    try (FileChannel fileChannel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      bytesDone.set(0);
+      long written = transfer(channel, fileChannel, 0, Long.MAX_VALUE, null);
+      if (cancelled.getAsBoolean()) {
+        return false;
+      }
+
+      if (contentLength >= 0 && written != contentLength) {
+        throw new IOException("content length mismatch for '" + url + "': expected " + contentLength + " bytes, got " + written);
+      }
+      contentLength = written;
+    }
+    return true;
+  }
+
+  private void downloadSegments(FileChannel fileChannel, ReadableByteChannel firstChannel) throws IOException, InterruptedException {
+    List<Segment> pending = new ArrayList<>();
+    for (Segment segment : segments) {
+      if (!segment.isDone()) {
+        pending.add(segment);
+      }
+    }
+    if (pending.isEmpty()) {
+      if (firstChannel != null) {
+        firstChannel.close();
+      }
+      return;
+    }
+
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    ExecutorService executor = new ThreadPoolExecutor(pending.size(), pending.size(), 2, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        runnable -> new Thread(runnable, "tmmpool-download-T" + threadNumber.getAndIncrement()));
+
+    IOException exception = null;
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (Segment segment : pending) {
+        ReadableByteChannel channel = segment.start == 0 ? firstChannel : null;
+        futures.add(executor.submit(() -> {
+          downloadSegment(fileChannel, segment, channel);
+          return null;
+        }));
+      }
+
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        }
+        catch (ExecutionException e) {
+          // let the other segments finish to save as much as possible for resuming
+          if (exception == null) {
+            exception = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+          }
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      abort();
+      executor.shutdownNow();
+      throw e;
+    }
+    finally {
+      executor.shutdown();
+      writeSegmentMap();
+    }
+
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private void downloadSegment(FileChannel fileChannel, Segment segment, ReadableByteChannel firstChannel) throws IOException, InterruptedException {
+    ReadableByteChannel channel = firstChannel;
+    int retries = 0;
+
+    while (!segment.isDone() && !cancelled.getAsBoolean()) {
+      StreamingUrl connection = null;
+      try {
+        if (channel == null) {
+          connection = createUrl();
+          connection.addHeader("Range", "bytes=" + segment.position + "-" + segment.end);
+          channel = open(connection);
+
+          Matcher matcher = CONTENT_RANGE.matcher(connection.getHeader("Content-Range"));
+          if (connection.getStatusCode() != 206 || !matcher.matches() || Long.parseLong(matcher.group(1)) != segment.position) {
+            throw new IOException("the server did not answer the range request for '" + url + "' properly");
+          }
+          if (StringUtils.isBlank(validator) || !validator.equals(getValidator(connection))) {
+            throw new IOException("the content of '" + url + "' has been changed while downloading");
+          }
+        }
+
+        transfer(channel, fileChannel, segment.position, segment.end + 1, segment);
+        if (!segment.isDone() && !cancelled.getAsBoolean()) {
+          throw new IOException("unexpected end of stream for segment " + segment.start + "-" + segment.end);
+        }
+      }
+      catch (HttpException e) {
+        // no retry on http errors
+        throw e;
+      }
+      catch (IOException e) {
+        if (e instanceof InterruptedIOException || retries++ >= SEGMENT_RETRIES || cancelled.getAsBoolean()) {
+          throw e;
+        }
+        LOGGER.debug("segment {}-{} of '{}' failed - retrying ({})", segment.start, segment.end, url, e.getMessage());
+      }
+      finally {
+        if (connection != null) {
+          connection.cleanup();
+          openConnections.remove(connection);
+        }
+        else if (channel != null) {
+          channel.close();
+        }
+        channel = null;
+      }
+    }
+  }
+
+  /**
+   * transfer the content of the channel into the file starting at the given position until the limit has been reached
+   */
+  private long transfer(ReadableByteChannel channel, FileChannel fileChannel, long position, long limit, Segment segment) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    long start = position;
+    long unsaved = 0;
+    boolean eof = false;
+
+    while (!eof && position < limit && !cancelled.getAsBoolean()) {
+      // fill the buffer (but never read beyond the segment)
+      buffer.clear();
+      buffer.limit((int) Math.min(BUFFER_SIZE, limit - position));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          eof = true;
+          break;
+        }
+      }
+
+      buffer.flip();
+      int count = buffer.remaining();
+      while (buffer.hasRemaining()) {
+        position += fileChannel.write(buffer, position);
+      }
+
+      if (segment != null) {
+        segment.position = position;
+        unsaved += count;
+        if (unsaved >= MAP_SAVE_INTERVAL) {
+          writeSegmentMap();
+          unsaved = 0;
+        }
+      }
+
+      long done = bytesDone.addAndGet(count);
+      if (progressListener != null) {
+        progressListener.progress(done, contentLength);
+      }
+    }
+
+    return position - start;
+  }
+
+  private StreamingUrl createUrl() throws IOException {
+    StreamingUrl connection = new StreamingUrl(url);
+    for (Pair<String, String> header : headers) {
+      connection.addHeader(header.first(), header.second());
+    }
+    return connection;
+  }
+
+  private ReadableByteChannel open(StreamingUrl connection) throws IOException, InterruptedException {
+    openConnections.add(connection);
+    InputStream is = connection.getInputStream();
+    if (is == null) {
+      openConnections.remove(connection);
+      throw new IOException("could not open '" + url + "'");
+    }
+
+    // read directly from the okio source - no intermediate byte arrays
+    if (connection.response != null && connection.response.body() != null) {
+      return connection.response.body().source();
+    }
+    return Channels.newChannel(is);
+  }
+
+  private static String getValidator(Url connection) {
+    String etag = connection.getHeader("ETag");
+    if (StringUtils.isNotBlank(etag) && !etag.startsWith("W/")) {
+      return etag;
+    }
+    return connection.getHeader("Last-Modified");
+  }
+
+  private List<Segment> createSegments(long length) {
+    int count = (int) Math.max(1, Math.min(maxSegments, length / minimumSegmentSize));
+    long segmentSize = length / count;
+
+    List<Segment> newSegments = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      long start = i * segmentSize;
+      long end = i == count - 1 ? length - 1 : start + segmentSize - 1;
+      newSegments.add(new Segment(start, end, start));
+    }
+    return newSegments;
+  }
+
+  private static List<Segment> parseSegments(Properties map) {
+    List<Segment> parsed = new ArrayList<>();
+    try {
+      int count = Integer.parseInt(map.getProperty("segments", "0"));
+      for (int i = 0; i < count; i++) {
+        String[] values = map.getProperty("segment." + i, "").split(",");
+        Segment segment = new Segment(Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2]));
+        if (segment.position < segment.start || segment.position > segment.end + 1) {
+          return new ArrayList<>();
+        }
+        parsed.add(segment);
+      }
+    }
+    catch (Exception e) {
+      LOGGER.debug("invalid segment map - {}", e.getMessage());
+      return new ArrayList<>();
+    }
+    return parsed;
+  }
+
+  private Properties readSegmentMap() {
+    if (!Files.exists(segmentMapFile)) {
+      return null;
+    }
+
+    Properties map = new Properties();
+    try (Reader reader = Files.newBufferedReader(segmentMapFile, StandardCharsets.UTF_8)) {
+      map.load(reader);
+      return map;
+    }
+    catch (Exception e) {
+      LOGGER.debug("could not read the segment map '{}' - {}", segmentMapFile, e.getMessage());
+      return null;
+    }
+  }
+
+  private synchronized void writeSegmentMap() {
+    if (!resumable) {
+      return;
+    }
+
+    Properties map = new Properties();
+    map.setProperty("url", url);
+    map.setProperty("length", String.valueOf(contentLength));
+    map.setProperty("validator", validator);
+    map.setProperty("segments", String.valueOf(segments.size()));
+    for (int i = 0; i < segments.size(); i++) {
+      Segment segment = segments.get(i);
+      map.setProperty("segment." + i, String.format(Locale.ROOT, "%d,%d,%d", segment.start, segment.end, segment.position));
+    }
+
+    // write atomically - a half written map must not be used for resuming
+    Path tempFile = getSegmentMapTempFile();
+    try (OutputStream os = Files.newOutputStream(tempFile)) {
+      map.store(os, null);
+    }
+    catch (IOException e) {
+      LOGGER.debug("could not write the segment map '{}' - {}", segmentMapFile, e.getMessage());
+      return;
+    }
+
+    try {
+      Files.move(tempFile, segmentMapFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      try {
+        Files.move(tempFile, segmentMapFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+      catch (IOException e1) {
+        LOGGER.debug("could not write the segment map '{}' - {}", segmentMapFile, e1.getMessage());
+      }
+    }
+  }
+
+  /**
+   * the listener to get informed about the download progress
+   */
+  public interface ProgressListener {
+    /**
+     * the download progressed
+     *
+     * @param bytesDone
+     *          the amount of downloaded bytes
+     * @param length
+     *          the content length or -1 if unknown
+     */
+    void progress(long bytesDone, long length);
+  }
+
+  private static class Segment {
+    private final long    start;
+    private final long    end;
+    private volatile long position;
+
+    private Segment(long start, long end, long position) {
+      this.start = start;
+      this.end = end;
+      this.position = position;
+    }
+
+    private boolean isDone() {
+      return position > end;
+    }
+  }
+}
@@ -18,6 +18,7 @@ package org.tinymediamanager.scraper.http;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.cert.X509Certificate;
 import java.util.concurrent.TimeUnit;
@@ -45,27 +46,31 @@ public class TmmHttpClient {
   private static OkHttpClient client = createHttpClient();
 
   static {
+    CACHE = new Cache(getCacheFolder().resolve("http").toFile(), 25L * 1024 * 1024);
+  }
+
+  private TmmHttpClient() {
+    // hide public constructor for utility classas
+  }
+
+  /**
+   * get the folder for the caches of the HTTP client
+   *
+   * @return the cache folder
+   */
+  static Path getCacheFolder() {
     String cacheFolder = System.getProperty("tmm.cachefolder");
     String contentFolder = System.getProperty("tmm.contentfolder");
 
-    String parent;
-
-    // cache
     if (StringUtils.isNotBlank(cacheFolder)) {
-      parent = cacheFolder;
+      return Paths.get(cacheFolder);
     }
     else if (StringUtils.isNotBlank(contentFolder)) {
-      parent = contentFolder + "/cache";
+      return Paths.get(contentFolder, "cache");
     }
     else {
-      parent = "cache";
+      return Paths.get("cache");
     }
-
-    CACHE = new Cache(Paths.get(parent, "http").toFile(), 25L * 1024 * 1024);
-  }
-
-  private TmmHttpClient() {
-    // hide public constructor for utility classas
   }
 
   /**
@@ -153,6 +158,27 @@ public class TmmHttpClient {
     return builder;
   }
 
+  /**
+   * create a new OkHttpClient.Builder along with all our settings set; the responses are stored in the {@link ResponseStore}, all requests are
+   * throttled by the {@link RateLimiter} of the given provider and throttled requests (HTTP 429) are retried
+   *
+   * @param withCache
+   *          create the builder with a cache set
+   * @param providerId
+   *          the id of the provider to throttle the requests for
+   * @return the newly created builder
+   */
+  public static OkHttpClient.Builder newBuilder(boolean withCache, String providerId) {
+    RateLimiter rateLimiter = RateLimiter.getInstance(providerId);
+
+    OkHttpClient.Builder builder = newBuilder(withCache);
+    builder.addInterceptor(new ResponseStoreInterceptor(providerId));
+    builder.addInterceptor(new RateLimitInterceptor(rateLimiter));
+    builder.addNetworkInterceptor(new RateLimitInterceptor.NetworkInterceptor(rateLimiter));
+
+    return builder;
+  }
+
   /**
    * Gets the pre-configured http client.
    * 
@@ -195,13 +221,14 @@ public class TmmHttpClient {
   }
 
   /**
-   * Closes the cache and deletes all of its stored values. This will delete all files in the cache directory including files that weren't created by
-   * the cache.
+   * Closes the cache and deletes all of its stored values (and all responses in the {@link ResponseStore}). This will delete all files in the cache
+   * directory including files that weren't created by the cache.
    * 
    * @throws IOException
    *           any {@link IOException} occurred while deleting the cache
    */
   public static void clearCache() throws IOException {
     CACHE.evictAll();
+    ResponseStore.getInstance().clear();
   }
 }
@@ -16,10 +16,10 @@
 package org.tinymediamanager.scraper.imdb;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import org.tinymediamanager.scraper.MediaProviderInfo;
 import org.tinymediamanager.scraper.interfaces.IMediaProvider;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 
 /**
  * The public ImdbMetadataProvider() {
@@ -39,7 +39,8 @@ abstract class ImdbMetadataProvider implements IMediaProvider {
 
   ImdbMetadataProvider() {
     providerInfo = createMediaProviderInfo();
-    executor = Executors.newFixedThreadPool(4);
+    // the sub requests are executed in the shared scraper executor (with the limit of the IMDB provider)
+    executor = ScraperExecutor.getInstance().forProvider(ID);
   }
 
   /**
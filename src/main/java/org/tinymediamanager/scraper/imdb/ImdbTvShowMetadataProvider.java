@@ -27,6 +27,7 @@ import static org.tinymediamanager.scraper.imdb.ImdbParser.SCRAPE_UNCREDITED_ACT
 import static org.tinymediamanager.scraper.imdb.ImdbParser.USE_TMDB_FOR_TV_SHOWS;
 
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 
 import org.tinymediamanager.core.FeatureNotEnabledException;
@@ -92,6 +93,17 @@ public class ImdbTvShowMetadataProvider extends ImdbMetadataProvider implements
     return (new ImdbTvShowParser(this, executor)).getEpisodeMetadata(options);
   }
 
+  @Override
+  public List<MediaMetadata> getEpisodeMetadata(List<TvShowEpisodeSearchAndScrapeOptions> options, Map<Integer, ScrapeException> errors)
+      throws ScrapeException {
+
+    if (!isActive()) {
+      throw new ScrapeException(new FeatureNotEnabledException(this));
+    }
+
+    return (new ImdbTvShowParser(this, executor)).getEpisodeMetadata(options, errors);
+  }
+
   @Override
   public SortedSet<MediaSearchResult> search(TvShowSearchAndScrapeOptions options) throws ScrapeException {
 
@@ -62,6 +62,7 @@ import org.tinymediamanager.scraper.util.CacheMap;
 import org.tinymediamanager.scraper.util.ListUtils;
 import org.tinymediamanager.scraper.util.MediaIdUtil;
 import org.tinymediamanager.scraper.util.MetadataUtil;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 
 /**
  * The class ImdbTvShowParser is used to parse TV show site of imdb.com
@@ -70,7 +71,7 @@ import org.tinymediamanager.scraper.util.MetadataUtil;
  */
 public class ImdbTvShowParser extends ImdbParser {
   private static final Logger                                LOGGER                 = LoggerFactory.getLogger(ImdbTvShowParser.class);
-  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(60, 10);
+  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(60, 10, 50);
 
   ImdbTvShowParser(IMediaProvider metadataProvider, ExecutorService executor) {
     super(metadataProvider, MediaType.TV_SHOW, executor);
@@ -249,13 +250,63 @@ public class ImdbTvShowParser extends ImdbParser {
   MediaMetadata getEpisodeMetadata(TvShowEpisodeSearchAndScrapeOptions options) throws ScrapeException {
     LOGGER.debug("getEpisodeMetadata(): {}", options);
 
-    MediaMetadata md = new MediaMetadata(ImdbMetadataProvider.ID);
+    checkTvShowId(options);
+
+    // first get the base episode metadata which can be gathered via getEpisodeList()
+    return getEpisodeMetadata(options, getEpisodeList(options.createTvShowSearchAndScrapeOptions()));
+  }
+
+  List<MediaMetadata> getEpisodeMetadata(List<TvShowEpisodeSearchAndScrapeOptions> options, Map<Integer, ScrapeException> errors)
+      throws ScrapeException {
+    LOGGER.debug("getEpisodeMetadata(): {} episodes", options.size());
+
+    List<MediaMetadata> result = new ArrayList<>();
+    if (options.isEmpty()) {
+      return result;
+    }
+
+    checkTvShowId(options.get(0));
+
+    // the episode list is fetched only once for all episodes; the detail pages of the episodes are fetched in parallel
+    List<MediaMetadata> episodes = getEpisodeList(options.get(0).createTvShowSearchAndScrapeOptions());
+
+    List<Future<MediaMetadata>> futures = new ArrayList<>();
+    for (TvShowEpisodeSearchAndScrapeOptions episodeOptions : options) {
+      futures.add(executor.submit(() -> getEpisodeMetadata(episodeOptions, episodes)));
+    }
+
+    for (Future<MediaMetadata> future : futures) {
+      try {
+        result.add(ScraperExecutor.getResult(future));
+      }
+      catch (NothingFoundException e) {
+        result.add(null);
+      }
+      catch (ScrapeException e) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw e;
+        }
+        // concerns only this episode (e.g. no season/episode number or a HTTP error) - the TV show itself has been found
+        LOGGER.debug("could not scrape episode - {}", e.getMessage());
+        errors.put(result.size(), e);
+        result.add(null);
+      }
+    }
+
+    return result;
+  }
+
+  private void checkTvShowId(TvShowEpisodeSearchAndScrapeOptions options) throws MissingIdException {
     String showId = "" + options.getTvShowIds().get(MediaMetadata.IMDB);
 
     if (!MetadataUtil.isValidImdbId(showId)) {
       LOGGER.warn("not possible to scrape from IMDB - no imdbId found");
       throw new MissingIdException(MediaMetadata.IMDB);
     }
+  }
+
+  private MediaMetadata getEpisodeMetadata(TvShowEpisodeSearchAndScrapeOptions options, List<MediaMetadata> episodes) throws ScrapeException {
+    MediaMetadata md = new MediaMetadata(ImdbMetadataProvider.ID);
 
     String episodeId = options.getIdAsString(MediaMetadata.IMDB);
     if (!MetadataUtil.isValidImdbId(episodeId)) {
@@ -270,9 +321,6 @@ public class ImdbTvShowParser extends ImdbParser {
       throw new MissingIdException(MediaMetadata.EPISODE_NR, MediaMetadata.SEASON_NR);
     }
 
-    // first get the base episode metadata which can be gathered via getEpisodeList()
-    List<MediaMetadata> episodes = getEpisodeList(options.createTvShowSearchAndScrapeOptions());
-
     MediaMetadata wantedEpisode = null;
     for (MediaMetadata episode : episodes) {
       if (StringUtils.isNotBlank(episodeId)) {
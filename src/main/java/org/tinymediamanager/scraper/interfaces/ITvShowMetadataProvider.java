@@ -15,13 +15,19 @@
  */
 package org.tinymediamanager.scraper.interfaces;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 
 import org.tinymediamanager.core.tvshow.TvShowEpisodeSearchAndScrapeOptions;
 import org.tinymediamanager.core.tvshow.TvShowSearchAndScrapeOptions;
 import org.tinymediamanager.scraper.MediaMetadata;
 import org.tinymediamanager.scraper.MediaSearchResult;
+import org.tinymediamanager.scraper.exceptions.MissingIdException;
+import org.tinymediamanager.scraper.exceptions.NothingFoundException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
 
 /**
@@ -54,6 +60,75 @@ public interface ITvShowMetadataProvider extends IMediaProvider {
    */
   MediaMetadata getMetadata(TvShowEpisodeSearchAndScrapeOptions options) throws ScrapeException;
 
+  /**
+   * Gets the metadata for several episodes of the same TV show at once. See {@link #getEpisodeMetadata(List, Map)}
+   *
+   * @param options
+   *          the scrape options for every episode (containing the type TV_EPISODE and the ID of the TV show/episode)
+   * @return the metadata in the order of the given options; null for every episode which could not be found/scraped
+   * @throws ScrapeException
+   *           any exception which can be thrown while scraping (a {@link MissingIdException} if the TV show could not be identified)
+   */
+  default List<MediaMetadata> getEpisodeMetadata(List<TvShowEpisodeSearchAndScrapeOptions> options) throws ScrapeException {
+    return getEpisodeMetadata(options, new HashMap<>());
+  }
+
+  /**
+   * Gets the metadata for several episodes of the same TV show at once. Providers which get the data of a whole season (or the whole show) with one
+   * request should override this method to fetch this data only once for all episodes; the default implementation scrapes one episode after another.
+   * <br />
+   * An error while scraping a single episode only concerns this episode: null is returned for it and the error is put into the given error map (with
+   * the index of the episode as key). Only if the TV show itself cannot be identified an exception is thrown for the whole batch
+   *
+   * @param options
+   *          the scrape options for every episode (containing the type TV_EPISODE and the ID of the TV show/episode)
+   * @param errors
+   *          a map to collect the errors of the single episodes (index of the episode in the options -> error)
+   * @return the metadata in the order of the given options; null for every episode which could not be found/scraped
+   * @throws ScrapeException
+   *           any exception which can be thrown while scraping (a {@link MissingIdException} if the TV show could not be identified)
+   */
+  default List<MediaMetadata> getEpisodeMetadata(List<TvShowEpisodeSearchAndScrapeOptions> options, Map<Integer, ScrapeException> errors)
+      throws ScrapeException {
+    List<MediaMetadata> episodes = new ArrayList<>();
+
+    for (TvShowEpisodeSearchAndScrapeOptions episodeOptions : options) {
+      try {
+        episodes.add(getMetadata(episodeOptions));
+      }
+      catch (NothingFoundException e) {
+        episodes.add(null);
+      }
+      catch (MissingIdException e) {
+        // a missing season/episode number concerns only this episode
+        if (!isEpisodeIdMissing(e)) {
+          throw e;
+        }
+        errors.put(episodes.size(), e);
+        episodes.add(null);
+      }
+      catch (ScrapeException e) {
+        // e.g. a HTTP error/timeout for this episode
+        errors.put(episodes.size(), e);
+        episodes.add(null);
+      }
+    }
+
+    return episodes;
+  }
+
+  /**
+   * check whether the given {@link MissingIdException} concerns a single episode (missing season/episode number) rather than the whole TV show
+   *
+   * @param e
+   *          the {@link MissingIdException}
+   * @return true if only the season/episode number is missing
+   */
+  static boolean isEpisodeIdMissing(MissingIdException e) {
+    List<String> ids = Arrays.asList(e.getIds());
+    return ids.contains(MediaMetadata.SEASON_NR) || ids.contains(MediaMetadata.EPISODE_NR);
+  }
+
   /**
    * Search for a TV show
    * 
@@ -33,7 +33,7 @@ import org.tinymediamanager.scraper.util.CacheMap;
 public class KodiMetadataProvider implements IKodiMetadataProvider {
   public static final String                      ID        = "kodi";
   // cache one hour
-  protected static final CacheMap<String, String> XML_CACHE = new CacheMap<>(60, 10);
+  protected static final CacheMap<String, String> XML_CACHE = new CacheMap<>(60, 10, 5000, 32 * 1024 * 1024, xml -> xml.length() * 2L);
 
   private final MediaProviderInfo                 providerInfo;
 
@@ -60,7 +60,7 @@ public class Controller {
    *          true or false
    */
   public Controller(boolean debug) {
-    OkHttpClient.Builder builder = TmmHttpClient.newBuilder();
+    OkHttpClient.Builder builder = TmmHttpClient.newBuilder(false, "omdbapi");
     if (debug) {
       HttpLoggingInterceptor logging = new HttpLoggingInterceptor(new HttpLoggingInterceptor.Logger() {
         @Override
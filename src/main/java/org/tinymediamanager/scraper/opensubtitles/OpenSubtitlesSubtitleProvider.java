@@ -17,14 +17,9 @@
 package org.tinymediamanager.scraper.opensubtitles;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.LongBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -35,6 +30,8 @@ import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.tinymediamanager.core.FeatureNotEnabledException;
+import org.tinymediamanager.core.hash.FileHashService;
+import org.tinymediamanager.core.hash.StandardFileHashAlgorithm;
 import org.tinymediamanager.scraper.MediaProviderInfo;
 import org.tinymediamanager.scraper.SubtitleSearchAndScrapeOptions;
 import org.tinymediamanager.scraper.SubtitleSearchResult;
@@ -53,7 +50,6 @@ abstract class OpenSubtitlesSubtitleProvider implements IMediaProvider {
   public static final String       ID              = "opensubtitles";
 
   private static final String      SERVICE         = "http://api.opensubtitles.org/xml-rpc";
-  private static final int         HASH_CHUNK_SIZE = 64 * 1024;
 
   protected static TmmXmlRpcClient client          = null;
 
@@ -134,7 +130,10 @@ abstract class OpenSubtitlesSubtitleProvider implements IMediaProvider {
       File file = options.getFile();
       if (file.exists() && file.length() > 0) {
         long fileSize = file.length();
-        String hash = computeOpenSubtitlesHash(file);
+        String hash = options.getFileHash(StandardFileHashAlgorithm.OPENSUBTITLES.getId());
+        if (StringUtils.isBlank(hash)) {
+          hash = computeOpenSubtitlesHash(file);
+        }
 
         getLogger().debug("searching subtitle for {}", file);
         getLogger().debug("moviebytesize: {}; moviehash: {}", fileSize, hash);
@@ -386,36 +385,12 @@ abstract class OpenSubtitlesSubtitleProvider implements IMediaProvider {
    * @return hash
    */
   private String computeOpenSubtitlesHash(File file) {
-    long size = file.length();
-    long chunkSizeForFile = Math.min(HASH_CHUNK_SIZE, size);
-
-    try (FileInputStream is = new FileInputStream(file); FileChannel fileChannel = is.getChannel()) {
-      // do not use FileChannel.map() here because it is not releasing resources
-      ByteBuffer buf = ByteBuffer.allocate((int) chunkSizeForFile);
-      fileChannel.read(buf);
-      long head = computeOpenSubtitlesHashForChunk(buf);
-
-      fileChannel.read(buf, Math.max(size - HASH_CHUNK_SIZE, 0));
-      long tail = computeOpenSubtitlesHashForChunk(buf);
-
-      return String.format("%016x", size + head + tail);
+    try {
+      return FileHashService.computeHash(file.toPath(), StandardFileHashAlgorithm.OPENSUBTITLES);
     }
     catch (Exception e) {
       getLogger().error("Error computing OpenSubtitles hash", e);
     }
     return "";
   }
-
-  private static long computeOpenSubtitlesHashForChunk(ByteBuffer buffer) {
-
-    buffer.rewind();
-    LongBuffer longBuffer = buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
-    long hash = 0;
-
-    while (longBuffer.hasRemaining()) {
-      hash += longBuffer.get();
-    }
-
-    return hash;
-  }
 }
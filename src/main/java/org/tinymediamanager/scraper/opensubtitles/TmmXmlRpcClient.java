@@ -128,7 +128,7 @@ class TmmXmlRpcClient {
 
         RequestBody body = RequestBody.create(callXml, XML);
         Request request = new Request.Builder().url(url).header(USER_AGENT, userAgent).addHeader("Connection", "close").post(body).build();
-        Response response = TmmHttpClient.getHttpClient().newCall(request).execute();
+        Response response = TmmHttpClient.newBuilder(false, OpenSubtitlesSubtitleProvider.ID).build().newCall(request).execute();
 
         // Try to get the status code from the connection
         int statusCode = response.code();
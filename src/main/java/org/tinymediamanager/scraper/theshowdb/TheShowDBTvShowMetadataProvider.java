@@ -54,7 +54,7 @@ import org.tinymediamanager.scraper.util.ListUtils;
  */
 public class TheShowDBTvShowMetadataProvider extends TheShowDBProvider implements ITvShowMetadataProvider {
 
-  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(60, 10);
+  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(60, 10, 50);
 
   @Override
   public MediaMetadata getMetadata(TvShowSearchAndScrapeOptions options) throws ScrapeException {
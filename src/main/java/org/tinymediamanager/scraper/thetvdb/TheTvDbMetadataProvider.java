@@ -98,7 +98,7 @@ abstract class TheTvDbMetadataProvider implements IMediaProvider {
           @Override
           protected synchronized OkHttpClient okHttpClient() {
             if (this.okHttpClient == null) {
-              OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true); // with cache
+              OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true, ID); // with cache
               this.setOkHttpClientDefaults(builder);
               this.okHttpClient = builder.build();
             }
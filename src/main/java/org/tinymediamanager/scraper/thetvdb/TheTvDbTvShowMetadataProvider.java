@@ -75,7 +75,7 @@ import retrofit2.Response;
 public class TheTvDbTvShowMetadataProvider extends TheTvDbMetadataProvider implements ITvShowMetadataProvider, ITvShowTvdbMetadataProvider {
   private static final Logger                                LOGGER                 = LoggerFactory.getLogger(TheTvDbTvShowMetadataProvider.class);
 
-  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(600, 5);
+  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(600, 5, 50);
 
   @Override
   protected MediaProviderInfo createMediaProviderInfo() {
@@ -244,16 +244,63 @@ public class TheTvDbTvShowMetadataProvider extends TheTvDbMetadataProvider imple
     // lazy initialization of the api
     initAPI();
 
-    boolean useDvdOrder = false;
+    // get the episode via the episodesList() (is cached and contains all data with 1 call per 100 eps)
+    return findEpisode(options, getEpisodeList(getTvShowOptions(options)));
+  }
 
-    // do we have an id from the options?
-    int showId = options.createTvShowSearchAndScrapeOptions().getIdAsIntOrDefault(getId(), 0);
+  @Override
+  public List<MediaMetadata> getEpisodeMetadata(List<TvShowEpisodeSearchAndScrapeOptions> options, Map<Integer, ScrapeException> errors)
+      throws ScrapeException {
+    LOGGER.debug("getEpisodeMetadata(): {} episodes", options.size());
+
+    if (options.isEmpty()) {
+      return new ArrayList<>();
+    }
 
-    if (showId == 0) {
+    // lazy initialization of the api
+    initAPI();
+
+    // the episode list contains all data - so it is fetched only once for all episodes
+    List<MediaMetadata> episodes = getEpisodeList(getTvShowOptions(options.get(0)));
+
+    List<MediaMetadata> result = new ArrayList<>();
+    for (TvShowEpisodeSearchAndScrapeOptions episodeOptions : options) {
+      try {
+        result.add(findEpisode(episodeOptions, episodes));
+      }
+      catch (NothingFoundException e) {
+        LOGGER.debug("episode not found: {}", episodeOptions);
+        result.add(null);
+      }
+      catch (ScrapeException e) {
+        // concerns only this episode (e.g. no season/episode number) - the TV show itself has been found
+        LOGGER.debug("could not scrape episode {} - {}", episodeOptions, e.getMessage());
+        errors.put(result.size(), e);
+        result.add(null);
+      }
+    }
+
+    return result;
+  }
+
+  private TvShowSearchAndScrapeOptions getTvShowOptions(TvShowEpisodeSearchAndScrapeOptions options) throws MissingIdException {
+    TvShowSearchAndScrapeOptions tvShowOptions = options.createTvShowSearchAndScrapeOptions();
+
+    // do we have an id from the options?
+    if (tvShowOptions.getIdAsIntOrDefault(getId(), 0) == 0) {
       LOGGER.warn("no id available");
       throw new MissingIdException(getId());
     }
 
+    return tvShowOptions;
+  }
+
+  /**
+   * search the episode for the given options in the episode list
+   */
+  private MediaMetadata findEpisode(TvShowEpisodeSearchAndScrapeOptions options, List<MediaMetadata> episodes) throws ScrapeException {
+    boolean useDvdOrder = false;
+
     int episodeTvdbId = options.getIdAsIntOrDefault(TVDB, 0);
 
     // get episode number and season number
@@ -278,9 +325,6 @@ public class TheTvDbTvShowMetadataProvider extends TheTvDbMetadataProvider imple
       throw new MissingIdException(MediaMetadata.EPISODE_NR, MediaMetadata.SEASON_NR);
     }
 
-    // get the episode via the episodesList() (is cached and contains all data with 1 call per 100 eps)
-    List<MediaMetadata> episodes = getEpisodeList(options.createTvShowSearchAndScrapeOptions());
-
     // now search for the right episode in this list
     MediaMetadata foundEpisode = null;
     // first run - search with EP number
@@ -301,7 +345,7 @@ public class TheTvDbTvShowMetadataProvider extends TheTvDbMetadataProvider imple
     if (foundEpisode == null && releaseDate != null) {
       // we did not find the episode via season/episode number - search via release date
       for (MediaMetadata episode : episodes) {
-        if (episode.getReleaseDate() == releaseDate) {
+        if (releaseDate.equals(episode.getReleaseDate())) {
           foundEpisode = episode;
           break;
         }
@@ -97,7 +97,7 @@ abstract class TmdbMetadataProvider implements IMediaProvider {
 
           @Override
           protected synchronized OkHttpClient okHttpClient() {
-            OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true);
+            OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true, ID);
             builder.connectTimeout(30, TimeUnit.SECONDS);
             builder.writeTimeout(30, TimeUnit.SECONDS);
             builder.readTimeout(30, TimeUnit.SECONDS);
@@ -29,8 +29,10 @@ import java.text.Format;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -90,7 +92,7 @@ import retrofit2.Response;
 public class TmdbTvShowMetadataProvider extends TmdbMetadataProvider
     implements ITvShowMetadataProvider, ITvShowTmdbMetadataProvider, ITvShowImdbMetadataProvider, ITvShowTvdbMetadataProvider {
   private static final Logger                                LOGGER                 = LoggerFactory.getLogger(TmdbTvShowMetadataProvider.class);
-  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(600, 5);
+  private static final CacheMap<String, List<MediaMetadata>> EPISODE_LIST_CACHE_MAP = new CacheMap<>(600, 5, 50);
 
   @Override
   protected MediaProviderInfo createMediaProviderInfo() {
@@ -527,6 +529,48 @@ public class TmdbTvShowMetadataProvider extends TmdbMetadataProvider
     // lazy initialization of the api
     initAPI();
 
+    return getEpisodeMetadata(options, new HashMap<>());
+  }
+
+  @Override
+  public List<MediaMetadata> getEpisodeMetadata(List<TvShowEpisodeSearchAndScrapeOptions> options, Map<Integer, ScrapeException> errors)
+      throws ScrapeException {
+    LOGGER.debug("getEpisodeMetadata(): {} episodes", options.size());
+
+    // lazy initialization of the api
+    initAPI();
+
+    // every season is fetched only once for all episodes
+    Map<String, TvSeason> seasons = new HashMap<>();
+
+    List<MediaMetadata> result = new ArrayList<>();
+    for (TvShowEpisodeSearchAndScrapeOptions episodeOptions : options) {
+      try {
+        result.add(getEpisodeMetadata(episodeOptions, seasons));
+      }
+      catch (NothingFoundException e) {
+        result.add(null);
+      }
+      catch (MissingIdException e) {
+        // the TV show could not be identified - the other episodes will fail too
+        if (!ITvShowMetadataProvider.isEpisodeIdMissing(e)) {
+          throw e;
+        }
+        errors.put(result.size(), e);
+        result.add(null);
+      }
+      catch (ScrapeException e) {
+        // e.g. a HTTP error/timeout for this episode - the other episodes are not affected
+        LOGGER.debug("could not scrape episode {} - {}", episodeOptions, e.getMessage());
+        errors.put(result.size(), e);
+        result.add(null);
+      }
+    }
+
+    return result;
+  }
+
+  private MediaMetadata getEpisodeMetadata(TvShowEpisodeSearchAndScrapeOptions options, Map<String, TvSeason> seasons) throws ScrapeException {
     MediaMetadata md = new MediaMetadata(getId());
 
     int tmdbId = 0;
@@ -634,12 +678,18 @@ public class TmdbTvShowMetadataProvider extends TmdbMetadataProvider
     synchronized (api) {
       // get episode via season listing -> improves caching performance
       try {
-        Response<TvSeason> seasonResponse = api.tvSeasonsService()
-            .season(tmdbId, seasonNr, language, new AppendToResponse(AppendToResponseItem.CREDITS)).execute();
-        if (!seasonResponse.isSuccessful()) {
-          throw new HttpException(seasonResponse.code(), seasonResponse.message());
+        fullSeason = seasons.get(tmdbId + "_" + seasonNr);
+        if (fullSeason == null) {
+          Response<TvSeason> seasonResponse = api.tvSeasonsService()
+              .season(tmdbId, seasonNr, language, new AppendToResponse(AppendToResponseItem.CREDITS))
+              .execute();
+          if (!seasonResponse.isSuccessful()) {
+            throw new HttpException(seasonResponse.code(), seasonResponse.message());
+          }
+          fullSeason = seasonResponse.body();
+          seasons.put(tmdbId + "_" + seasonNr, fullSeason);
         }
-        fullSeason = seasonResponse.body();
+
         for (TvEpisode ep : ListUtils.nullSafe(fullSeason.episodes)) {
           if (MetadataUtil.unboxInteger(ep.season_number, -1) == seasonNr && MetadataUtil.unboxInteger(ep.episode_number, -1) == episodeNr) {
             episode = ep;
@@ -669,7 +719,7 @@ public class TmdbTvShowMetadataProvider extends TmdbMetadataProvider
               .execute();
 
           if (!episodeResponse.isSuccessful()) {
-            throw new HttpException(seasonResponse.code(), seasonResponse.message());
+            throw new HttpException(episodeResponse.code(), episodeResponse.message());
           }
           episode = episodeResponse.body();
           verifyTvEpisodeTitleLanguage(episode, options);
@@ -96,7 +96,7 @@ abstract class TraktMetadataProvider implements IMediaProvider {
 
           @Override
           protected synchronized OkHttpClient okHttpClient() {
-            OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true);
+            OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true, ID);
             builder.addInterceptor(new TraktV2Interceptor(this));
             return builder.build();
           }
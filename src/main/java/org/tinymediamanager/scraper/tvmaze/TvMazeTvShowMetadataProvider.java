@@ -7,6 +7,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -24,6 +25,8 @@ import org.tinymediamanager.scraper.MediaProviderInfo;
 import org.tinymediamanager.scraper.MediaSearchResult;
 import org.tinymediamanager.scraper.entities.MediaArtwork;
 import org.tinymediamanager.scraper.entities.MediaType;
+import org.tinymediamanager.scraper.exceptions.MissingIdException;
+import org.tinymediamanager.scraper.exceptions.NothingFoundException;
 import org.tinymediamanager.scraper.exceptions.ScrapeException;
 import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
 import org.tinymediamanager.scraper.tvmaze.entities.Cast;
@@ -36,9 +39,6 @@ public class TvMazeTvShowMetadataProvider extends TvMazeMetadataProvider impleme
 
   private static final Logger LOGGER          = LoggerFactory.getLogger(TvMazeTvShowMetadataProvider.class);
   DateFormat                  premieredFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.ENGLISH);
-  List<Episode>               episodeList;
-  List<Image>                 imageList;
-  int                         tvMazeId;
 
   @Override
   public MediaProviderInfo getProviderInfo() {
@@ -56,8 +56,7 @@ public class TvMazeTvShowMetadataProvider extends TvMazeMetadataProvider impleme
 
     initAPI();
 
-    String mazeId = (String) options.getIds().get("tvmaze");
-    tvMazeId = Integer.parseInt(mazeId);
+    int tvMazeId = getTvMazeId(options);
     MediaMetadata md = new MediaMetadata(getId());
     Show show = null;
     List<Cast> castList;
@@ -140,6 +139,81 @@ public class TvMazeTvShowMetadataProvider extends TvMazeMetadataProvider impleme
 
     initAPI();
 
+    int id = getTvMazeId(options);
+    MediaMetadata md = createEpisodeMetadata(options, getEpisodes(id), getImages(id));
+    if (md == null) {
+      throw new NothingFoundException();
+    }
+    return md;
+  }
+
+  @Override
+  public List<MediaMetadata> getEpisodeMetadata(List<TvShowEpisodeSearchAndScrapeOptions> options, Map<Integer, ScrapeException> errors)
+      throws ScrapeException {
+    LOGGER.debug("getEpisodeMetadata() {} episodes", options.size());
+
+    List<MediaMetadata> result = new ArrayList<>();
+    if (options.isEmpty()) {
+      return result;
+    }
+
+    initAPI();
+
+    // all episodes and images of the TV show are fetched only once
+    int id = getTvMazeId(options.get(0));
+    List<Episode> episodes = getEpisodes(id);
+    List<Image> images = getImages(id);
+
+    for (TvShowEpisodeSearchAndScrapeOptions episodeOptions : options) {
+      result.add(createEpisodeMetadata(episodeOptions, episodes, images));
+    }
+    return result;
+  }
+
+  private int getTvMazeId(TvShowEpisodeSearchAndScrapeOptions options) throws MissingIdException {
+    return getTvMazeId(options.createTvShowSearchAndScrapeOptions());
+  }
+
+  private int getTvMazeId(TvShowSearchAndScrapeOptions options) throws MissingIdException {
+    int id = options.getIdAsInt("tvmaze");
+    if (id == 0) {
+      LOGGER.warn("no tvmaze id available");
+      throw new MissingIdException("tvmaze");
+    }
+    return id;
+  }
+
+  private List<Episode> getEpisodes(int id) throws ScrapeException {
+    // Get all Episode and Season Information for the given TvShow
+    List<Episode> episodes;
+    try {
+      episodes = controller.getEpisodes(id);
+    }
+    catch (IOException e) {
+      LOGGER.error("could not get Episode information: {}", e.getMessage());
+      throw new ScrapeException(e);
+    }
+    return episodes != null ? episodes : new ArrayList<>();
+  }
+
+  private List<Image> getImages(int id) {
+    // Get Image Information for the given TV Show - the episodes can be scraped without them
+    List<Image> images = null;
+    try {
+      images = controller.getImages(id);
+    }
+    catch (IOException e) {
+      LOGGER.trace("could not get Image information: {}", e.getMessage());
+    }
+    return images != null ? images : new ArrayList<>();
+  }
+
+  /**
+   * create the metadata for the episode from the episode list of the TV show
+   *
+   * @return the metadata or null if the episode is not in the list
+   */
+  private MediaMetadata createEpisodeMetadata(TvShowEpisodeSearchAndScrapeOptions options, List<Episode> episodes, List<Image> images) {
     MediaMetadata md = new MediaMetadata(getId());
     MediaArtwork ma;
 
@@ -147,24 +221,33 @@ public class TvMazeTvShowMetadataProvider extends TvMazeMetadataProvider impleme
     int seasonNr = options.getIdAsIntOrDefault(MediaMetadata.SEASON_NR, -1);
     int episodeNr = options.getIdAsIntOrDefault(MediaMetadata.EPISODE_NR, -1);
 
-    // Get all Episode and Season Information for the given TvShow
-    try {
-      episodeList = controller.getEpisodes(tvMazeId);
+    // get the correct information
+    Episode found = null;
+    for (Episode episode : episodes) {
+      // found the correct episode
+      if (seasonNr == episode.season && episodeNr == episode.episode) {
+        found = episode;
+        break;
+      }
     }
-    catch (IOException e) {
-      LOGGER.trace("could not get Episode information: {}", e.getMessage());
 
+    if (found == null) {
+      return null;
     }
 
-    // Get Image Information for the given TV Show
+    md.setTitle(found.name);
+    md.setPlot(Jsoup.parse(found.summary).text());
+    md.setEpisodeNumber(found.episode);
+    md.setSeasonNumber(found.season);
+    md.setRuntime(found.runtime);
     try {
-      imageList = controller.getImages(tvMazeId);
+      md.setReleaseDate(premieredFormat.parse(found.airdate));
+      md.setYear(parseYear(found.airdate));
     }
-    catch (IOException e) {
-      LOGGER.trace("could not get Image information: {}", e.getMessage());
+    catch (ParseException ignored) {
     }
 
-    for (Image image : imageList) {
+    for (Image image : images) {
       switch (image.type) {
         case "poster":
           ma = new MediaArtwork(getId(), MediaArtwork.MediaArtworkType.POSTER);
@@ -186,27 +269,6 @@ public class TvMazeTvShowMetadataProvider extends TvMazeMetadataProvider impleme
       }
     }
 
-    // get the correct information
-    for (Episode episode : episodeList) {
-
-      // found the correct episode
-      if (seasonNr == episode.season && episodeNr == episode.episode) {
-
-        md.setTitle(episode.name);
-        md.setPlot(Jsoup.parse(episode.summary).text());
-        md.setEpisodeNumber(episode.episode);
-        md.setSeasonNumber(episode.season);
-        md.setRuntime(episode.runtime);
-        try {
-          md.setReleaseDate(premieredFormat.parse(episode.airdate));
-          md.setYear(parseYear(episode.airdate));
-        }
-        catch (ParseException ignored) {
-        }
-
-        break;
-      }
-    }
     return md;
   }
 
@@ -281,7 +343,7 @@ public class TvMazeTvShowMetadataProvider extends TvMazeMetadataProvider impleme
     List<MediaMetadata> list = new ArrayList<>();
 
     // get the correct information
-    for (Episode episode : episodeList) {
+    for (Episode episode : getEpisodes(getTvMazeId(options))) {
       MediaMetadata md = new MediaMetadata(getId());
       // found the correct episode
       md.setTitle(episode.name);
@@ -28,9 +28,6 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
@@ -48,6 +45,7 @@ import org.tinymediamanager.scraper.interfaces.IMovieImdbMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.IMovieTmdbMetadataProvider;
 import org.tinymediamanager.scraper.util.MetadataUtil;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 
 /**
  * This is a metadata provider which is highly configurable and combines the results of various other providers
@@ -276,14 +274,12 @@ public class UniversalMovieMetadataProvider implements IMovieMetadataProvider {
       options.setTmdbId(tmdbId);
     }
 
-    // start the workers to get the metadata from the different providers
-    ExecutorService executorService = Executors.newFixedThreadPool(metadataProviders.size());
-    ExecutorCompletionService<MediaMetadata> completionService = new ExecutorCompletionService<>(executorService);
+    // start the workers to get the metadata from the different providers (in the shared scraper executor)
     List<Future<MediaMetadata>> futures = new ArrayList<>();
     for (IMovieMetadataProvider mp : metadataProviders) {
       // look into the cache - maybe we do not need to call it again
       if (metadataMap.get(mp.getProviderInfo().getId()) == null) {
-        futures.add(completionService.submit(new MetadataProviderWorker(mp, options)));
+        futures.add(ScraperExecutor.getInstance().submit(mp.getProviderInfo().getId(), new MetadataProviderWorker(mp, options)));
       }
     }
 
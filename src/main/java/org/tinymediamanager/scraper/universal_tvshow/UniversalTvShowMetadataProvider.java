@@ -28,9 +28,6 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
@@ -50,6 +47,7 @@ import org.tinymediamanager.scraper.interfaces.ITvShowMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.ITvShowTmdbMetadataProvider;
 import org.tinymediamanager.scraper.interfaces.ITvShowTvdbMetadataProvider;
 import org.tinymediamanager.scraper.util.MetadataUtil;
+import org.tinymediamanager.scraper.util.ScraperExecutor;
 
 /**
  * This is a metadata provider which is highly configurable and combines the results of various other providers
@@ -64,7 +62,6 @@ public class UniversalTvShowMetadataProvider implements ITvShowMetadataProvider
   private static final String                               RATINGS             = "ratings";
   private static final Logger                               LOGGER              = LoggerFactory.getLogger(UniversalTvShowMetadataProvider.class);
   private static final Map<String, ITvShowMetadataProvider> COMPATIBLE_SCRAPERS = new HashMap<>();
-  private static final ExecutorService                      EXECUTOR            = Executors.newFixedThreadPool(4);
 
   private final MediaProviderInfo                           providerInfo;
 
@@ -185,13 +182,12 @@ public class UniversalTvShowMetadataProvider implements ITvShowMetadataProvider
     // inject missing IDs
     Map<String, MediaMetadata> metadataMap = injectMissingIds(metadataProviders, options);
 
-    // start the workers to get the metadata from the different providers
-    ExecutorCompletionService<MediaMetadata> completionService = new ExecutorCompletionService<>(EXECUTOR);
+    // start the workers to get the metadata from the different providers (in the shared scraper executor)
     List<Future<MediaMetadata>> futures = new ArrayList<>();
     for (ITvShowMetadataProvider mp : metadataProviders) {
       // look into the cache - maybe we do not need to call it again
       if (metadataMap.get(mp.getProviderInfo().getId()) == null) {
-        futures.add(completionService.submit(new TvShowMetadataProviderWorker(mp, options)));
+        futures.add(ScraperExecutor.getInstance().submit(mp.getProviderInfo().getId(), new TvShowMetadataProviderWorker(mp, options)));
       }
     }
 
@@ -226,13 +222,12 @@ public class UniversalTvShowMetadataProvider implements ITvShowMetadataProvider
     // inject missing episode IDs
     Map<String, MediaMetadata> metadataMap = injectMissingIds(metadataProviders, options);
 
-    // start the workers to get the metadata from the different providers
-    ExecutorCompletionService<MediaMetadata> completionService = new ExecutorCompletionService<>(EXECUTOR);
+    // start the workers to get the metadata from the different providers (in the shared scraper executor)
     List<Future<MediaMetadata>> futures = new ArrayList<>();
     for (ITvShowMetadataProvider mp : metadataProviders) {
       // look into the cache - maybe we do not need to call it again
       if (metadataMap.get(mp.getProviderInfo().getId()) == null) {
-        futures.add(completionService.submit(new TvShowEpisodeMetadataProviderWorker(mp, options)));
+        futures.add(ScraperExecutor.getInstance().submit(mp.getProviderInfo().getId(), new TvShowEpisodeMetadataProviderWorker(mp, options)));
       }
     }
 
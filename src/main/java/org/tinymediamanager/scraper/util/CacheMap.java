@@ -15,16 +15,28 @@
  */
 package org.tinymediamanager.scraper.util;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
 
 /**
- * The class CacheMap is used to cache certain key/value pairs.
+ * The class CacheMap is used to cache certain key/value pairs. The entries are evicted after the time to live (since the last access) and - if the
+ * cache is bounded - in LRU order when the maximum amount of entries or the maximum weight is exceeded.<br />
+ * The map is split into several segments with their own lock, so that concurrent access to different keys does not block. The expired entries of
+ * all caches are cleaned up by one shared thread.
  * 
  * @param <K>
  *          the key of the map
@@ -32,24 +44,75 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  *          the value
  */
 public class CacheMap<K, T> {
-  protected long                timeToLive;
-  protected Map<K, CacheObject> cachedObjects;
-  protected ReadWriteLock       readWriteLock = new ReentrantReadWriteLock();
+  private static final int                      MAX_SEGMENTS         = 16;
+  private static final int                      MIN_SEGMENT_CAPACITY = 16;
+
+  private static final ScheduledExecutorService CLEANUP_EXECUTOR     = Executors.newSingleThreadScheduledExecutor(r -> {
+                                                                       Thread thread = new Thread(r, "cache-cleanup");
+                                                                       thread.setDaemon(true);
+                                                                       return thread;
+                                                                     });
+
+  protected final long                          timeToLive;
+  protected final ToLongFunction<T>             weigher;
+
+  private final List<Segment>                   segments;
+  private final int                             maxEntries;
+  private final long                            maxWeight;
+  private final AtomicInteger                   entryCount           = new AtomicInteger();
+  private final AtomicLong                      weight               = new AtomicLong();
+
+  private final LongAdder                       hits                 = new LongAdder();
+  private final LongAdder                       misses               = new LongAdder();
+  private final LongAdder                       evictions            = new LongAdder();
 
   /**
    * inner class for managing the cache entries
    */
   protected class CacheObject {
-    public long lastAccessed = System.currentTimeMillis();
-    public T    value;
+    public volatile long lastAccessed = System.currentTimeMillis();
+    public final T       value;
+    public final long    weight;
 
-    protected CacheObject(T value) {
+    protected CacheObject(T value, long weight) {
       this.value = value;
+      this.weight = weight;
     }
   }
 
   /**
-   * Constructs a new CacheMap
+   * one part of the map with its own lock; the entries are held in access order (LRU)
+   */
+  private class Segment {
+    private final ReentrantLock                 lock    = new ReentrantLock();
+    private final LinkedHashMap<K, CacheObject> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * remove the entry from this segment (must be called with the lock held)
+     */
+    private void remove(Iterator<CacheObject> iterator, CacheObject cacheObject) {
+      iterator.remove();
+      entryCount.decrementAndGet();
+      weight.addAndGet(-cacheObject.weight);
+    }
+
+    /**
+     * evict the least recently used entries until the cache is within its bounds again (must be called with the lock held)
+     */
+    private void evict(CacheObject keep) {
+      Iterator<CacheObject> iterator = entries.values().iterator();
+      while (isOverflowing() && iterator.hasNext()) {
+        CacheObject cacheObject = iterator.next();
+        if (cacheObject != keep) {
+          remove(iterator, cacheObject);
+          evictions.increment();
+        }
+      }
+    }
+  }
+
+  /**
+   * Constructs a new (unbounded) CacheMap
    * 
    * @param timeToLive
    *          time to live in the map (in seconds)
@@ -57,21 +120,76 @@ public class CacheMap<K, T> {
    *          cache cleaning interval (in seconds)
    */
   public CacheMap(final long timeToLive, final long cleanupInterval) {
+    this(timeToLive, cleanupInterval, 0);
+  }
+
+  /**
+   * Constructs a new CacheMap with a maximum amount of entries
+   * 
+   * @param timeToLive
+   *          time to live in the map (in seconds)
+   * @param cleanupInterval
+   *          cache cleaning interval (in seconds)
+   * @param maxEntries
+   *          the maximum amount of entries (0 = unbounded)
+   */
+  public CacheMap(final long timeToLive, final long cleanupInterval, final int maxEntries) {
+    this(timeToLive, cleanupInterval, maxEntries, 0, value -> 1);
+  }
+
+  /**
+   * Constructs a new CacheMap with a maximum amount of entries and a maximum weight (e.g. the size in bytes)
+   * 
+   * @param timeToLive
+   *          time to live in the map (in seconds)
+   * @param cleanupInterval
+   *          cache cleaning interval (in seconds)
+   * @param maxEntries
+   *          the maximum amount of entries (0 = unbounded)
+   * @param maxWeight
+   *          the maximum weight of all entries (0 = unbounded)
+   * @param weigher
+   *          calculates the weight of an entry
+   */
+  public CacheMap(final long timeToLive, final long cleanupInterval, final int maxEntries, final long maxWeight, final ToLongFunction<T> weigher) {
     this.timeToLive = timeToLive;
-    this.cachedObjects = new HashMap<>();
+    this.weigher = weigher;
+
+    this.maxEntries = maxEntries > 0 ? maxEntries : Integer.MAX_VALUE;
+    this.maxWeight = maxWeight > 0 ? maxWeight : Long.MAX_VALUE;
 
-    // the thread for cleanup
+    // small caches get fewer segments: the least recently used entries are evicted from the segment of the new entry first
+    int segmentCount = 1;
+    while (segmentCount < MAX_SEGMENTS && (maxEntries <= 0 || (long) segmentCount * 2 * MIN_SEGMENT_CAPACITY <= maxEntries)) {
+      segmentCount *= 2;
+    }
+
+    this.segments = new ArrayList<>(segmentCount);
+    for (int i = 0; i < segmentCount; i++) {
+      segments.add(new Segment());
+    }
+
+    // the cleanup is done by a shared thread
     if (timeToLive > 0 && cleanupInterval > 0) {
-      Timer timer = new Timer(true);
-      timer.schedule(new TimerTask() {
-        @Override
-        public void run() {
-          cleanup();
-        }
-      }, cleanupInterval * 1000, cleanupInterval * 1000);
+      CleanupTask task = new CleanupTask(this);
+      task.future = CLEANUP_EXECUTOR.scheduleWithFixedDelay(task, cleanupInterval, cleanupInterval, TimeUnit.SECONDS);
     }
   }
 
+  private Segment segmentFor(Object key) {
+    int hash = key == null ? 0 : key.hashCode();
+    hash ^= (hash >>> 16);
+    return segments.get(hash & (segments.size() - 1));
+  }
+
+  private boolean isOverflowing() {
+    return entryCount.get() > maxEntries || weight.get() > maxWeight;
+  }
+
+  private boolean isExpired(CacheObject cacheObject, long now) {
+    return timeToLive > 0 && now > timeToLive * 1000 + cacheObject.lastAccessed;
+  }
+
   /**
    * Put a new object to the map
    * 
@@ -81,9 +199,44 @@ public class CacheMap<K, T> {
    *          the value of the entry
    */
   public void put(K key, T value) {
-    readWriteLock.writeLock().lock();
-    cachedObjects.put(key, new CacheObject(value));
-    readWriteLock.writeLock().unlock();
+    CacheObject cacheObject = new CacheObject(value, weigher.applyAsLong(value));
+    if (cacheObject.weight > maxWeight) {
+      // too heavy for this cache
+      remove(key);
+      evictions.increment();
+      return;
+    }
+
+    Segment segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+      CacheObject old = segment.entries.put(key, cacheObject);
+      if (old != null) {
+        entryCount.decrementAndGet();
+        weight.addAndGet(-old.weight);
+      }
+      entryCount.incrementAndGet();
+      weight.addAndGet(cacheObject.weight);
+
+      segment.evict(cacheObject);
+    }
+    finally {
+      segment.lock.unlock();
+    }
+
+    // still too big? evict from the other segments too
+    for (Segment other : segments) {
+      if (!isOverflowing()) {
+        break;
+      }
+      other.lock.lock();
+      try {
+        other.evict(cacheObject);
+      }
+      finally {
+        other.lock.unlock();
+      }
+    }
   }
 
   /**
@@ -94,21 +247,51 @@ public class CacheMap<K, T> {
    * @return the entry (if found) or null
    */
   public T get(K key) {
-    readWriteLock.readLock().lock();
-    CacheObject c = cachedObjects.get(key);
-    readWriteLock.readLock().unlock();
+    Segment segment = segmentFor(key);
+    CacheObject c;
+
+    segment.lock.lock();
+    try {
+      c = segment.entries.get(key);
+      if (c != null && isExpired(c, System.currentTimeMillis())) {
+        segment.entries.remove(key);
+        entryCount.decrementAndGet();
+        weight.addAndGet(-c.weight);
+        c = null;
+      }
+    }
+    finally {
+      segment.lock.unlock();
+    }
 
     if (c == null) {
+      misses.increment();
       return null;
     }
     else {
+      hits.increment();
       c.lastAccessed = System.currentTimeMillis();
       return c.value;
     }
   }
 
+  /**
+   * Get a snapshot of all keys in the map
+   * 
+   * @return a set of all keys
+   */
   public Set<K> keySet() {
-    return cachedObjects.keySet();
+    Set<K> keys = new HashSet<>();
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        keys.addAll(segment.entries.keySet());
+      }
+      finally {
+        segment.lock.unlock();
+      }
+    }
+    return keys;
   }
 
   /**
@@ -118,9 +301,19 @@ public class CacheMap<K, T> {
    *          the key of the entry
    */
   public void remove(K key) {
-    readWriteLock.writeLock().lock();
-    cachedObjects.remove(key);
-    readWriteLock.writeLock().unlock();
+    Segment segment = segmentFor(key);
+
+    segment.lock.lock();
+    try {
+      CacheObject old = segment.entries.remove(key);
+      if (old != null) {
+        entryCount.decrementAndGet();
+        weight.addAndGet(-old.weight);
+      }
+    }
+    finally {
+      segment.lock.unlock();
+    }
   }
 
   /**
@@ -129,10 +322,43 @@ public class CacheMap<K, T> {
    * @return the actual size of the map
    */
   public int size() {
-    readWriteLock.readLock().lock();
-    int size = cachedObjects.size();
-    readWriteLock.readLock().unlock();
-    return size;
+    return entryCount.get();
+  }
+
+  /**
+   * Get the actual weight of all entries in the map
+   * 
+   * @return the actual weight of the map
+   */
+  public long getWeight() {
+    return weight.get();
+  }
+
+  /**
+   * Get the amount of successful lookups
+   * 
+   * @return the amount of hits
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Get the amount of failed lookups (no or an expired entry)
+   * 
+   * @return the amount of misses
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Get the amount of entries which have been evicted because the cache was full
+   * 
+   * @return the amount of evictions
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
   }
 
   /**
@@ -151,8 +377,49 @@ public class CacheMap<K, T> {
   public void cleanup(boolean force) {
     long now = System.currentTimeMillis();
 
-    readWriteLock.writeLock().lock();
-    cachedObjects.entrySet().removeIf(entry -> (now > (timeToLive * 1000 + entry.getValue().lastAccessed)) || force);
-    readWriteLock.writeLock().unlock();
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        Iterator<CacheObject> iterator = segment.entries.values().iterator();
+        while (iterator.hasNext()) {
+          CacheObject cacheObject = iterator.next();
+          if (force || isExpired(cacheObject, now)) {
+            segment.remove(iterator, cacheObject);
+          }
+        }
+      }
+      finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "size: " + size() + ", weight: " + getWeight() + ", hits: " + getHitCount() + ", misses: " + getMissCount() + ", evictions: "
+        + getEvictionCount();
+  }
+
+  /**
+   * the cleanup task only holds a weak reference to the cache; it is cancelled when the cache is gone
+   */
+  private static class CleanupTask implements Runnable {
+    private final WeakReference<CacheMap<?, ?>> cache;
+    private volatile ScheduledFuture<?>         future;
+
+    private CleanupTask(CacheMap<?, ?> cache) {
+      this.cache = new WeakReference<>(cache);
+    }
+
+    @Override
+    public void run() {
+      CacheMap<?, ?> cacheMap = cache.get();
+      if (cacheMap != null) {
+        cacheMap.cleanup();
+      }
+      else if (future != null) {
+        future.cancel(false);
+      }
+    }
   }
 }
@@ -0,0 +1,558 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.scraper.exceptions.ScrapeException;
+
+/**
+ * The class ScraperExecutor. One shared execution service for all scraper calls which run in parallel (the fan out in the universal scrapers, the
+ * sub requests of the IMDB parsers, the artwork lookups, ...).<br />
+ * The executor limits the amount of concurrently running tasks globally and per provider (to not hammer a single site); tasks exceeding the limits
+ * are queued in the order they have been submitted. If the JVM offers virtual threads, they are used rather than a pool of platform threads.<br />
+ * <br />
+ * Scraper tasks are allowed to submit tasks themselves and to wait for them: waiting inside a scraper task for a task which has not been started yet
+ * executes it in the waiting thread - so nested fan outs cannot dead lock the bounded executor.
+ *
+ * @author Manuel Laggner
+ */
+public class ScraperExecutor {
+  private static final Logger               LOGGER                 = LoggerFactory.getLogger(ScraperExecutor.class);
+  private static final int                  MAX_THREADS            = 16;
+  private static final int                  DEFAULT_PROVIDER_LIMIT = 4;
+  private static final ThreadLocal<Boolean> SCRAPER_THREAD         = new ThreadLocal<>();
+
+  private static ScraperExecutor            instance;
+
+  private final int                         maxThreads;
+  private final int                         defaultProviderLimit;
+  private final ExecutorService             executor;
+  private final boolean                     virtualThreads;
+
+  private final Object                      lock                   = new Object();
+  private final Deque<PendingTask>          pending                = new ArrayDeque<>();
+  private final Map<String, ProviderState>  providers              = new TreeMap<>();
+  private int                               running                = 0;
+
+  ScraperExecutor(int maxThreads, int defaultProviderLimit, boolean useVirtualThreads) {
+    this.maxThreads = Math.max(1, maxThreads);
+    this.defaultProviderLimit = Math.max(1, defaultProviderLimit);
+
+    ExecutorService virtualThreadExecutor = useVirtualThreads ? createVirtualThreadExecutor() : null;
+    if (virtualThreadExecutor != null) {
+      this.executor = virtualThreadExecutor;
+      this.virtualThreads = true;
+    }
+    else {
+      AtomicInteger threadNumber = new AtomicInteger(1);
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(this.maxThreads, this.maxThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+          runnable -> {
+            Thread thread = new Thread(runnable, "tmmpool-scraper-T" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          });
+      pool.allowCoreThreadTimeOut(true);
+      this.executor = pool;
+      this.virtualThreads = false;
+    }
+  }
+
+  /**
+   * get the shared scraper executor
+   *
+   * @return the shared instance
+   */
+  public static synchronized ScraperExecutor getInstance() {
+    if (instance == null) {
+      boolean useVirtualThreads = Boolean.parseBoolean(System.getProperty("tmm.scraper.virtualthreads", "true"));
+      instance = new ScraperExecutor(MAX_THREADS, DEFAULT_PROVIDER_LIMIT, useVirtualThreads);
+      LOGGER.debug("scraper executor started (virtual threads: {})", instance.virtualThreads);
+    }
+    return instance;
+  }
+
+  /**
+   * try to create an executor with one virtual thread per task. Virtual threads are available since Java 21 - since we are compiled against an older
+   * release, all calls are done via reflection
+   *
+   * @return the executor or null if virtual threads are not available
+   */
+  private static ExecutorService createVirtualThreadExecutor() {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "tmmpool-scraper-V", 1L);
+      ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+    }
+    catch (Exception | LinkageError e) {
+      // not available (older Java or preview feature not enabled)
+      return null;
+    }
+  }
+
+  /**
+   * get an {@link ExecutorService} view on the shared executor for the given provider. All tasks submitted to this view count against the limit of
+   * the provider. The view cannot be shut down
+   *
+   * @param providerId
+   *          the id of the provider
+   * @return the {@link ExecutorService} for the given provider
+   */
+  public ExecutorService forProvider(String providerId) {
+    return new ProviderExecutorService(providerId);
+  }
+
+  /**
+   * submit a task for the given provider
+   *
+   * @param providerId
+   *          the id of the provider
+   * @param task
+   *          the task to execute
+   * @param <T>
+   *          the result type
+   * @return the {@link FutureTask} for the result
+   */
+  public <T> FutureTask<T> submit(String providerId, Callable<T> task) {
+    ScraperTask<T> future = new ScraperTask<>(providerId, task);
+    execute(providerId, future);
+    return future;
+  }
+
+  /**
+   * set the amount of concurrently running tasks for the given provider
+   *
+   * @param providerId
+   *          the id of the provider
+   * @param limit
+   *          the maximum amount of concurrently running tasks
+   */
+  public void setProviderLimit(String providerId, int limit) {
+    synchronized (lock) {
+      getProviderState(providerId).limit = Math.max(1, limit);
+    }
+    dispatch();
+  }
+
+  /**
+   * get the amount of tasks waiting for a free slot
+   *
+   * @return the queue depth
+   */
+  public int getQueueDepth() {
+    synchronized (lock) {
+      return pending.size();
+    }
+  }
+
+  /**
+   * get the amount of currently running tasks
+   *
+   * @return the amount of running tasks
+   */
+  public int getRunningTasks() {
+    synchronized (lock) {
+      return running;
+    }
+  }
+
+  /**
+   * is this executor backed by virtual threads?
+   *
+   * @return true if virtual threads are used
+   */
+  public boolean isUsingVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * get a snapshot of the statistics for every provider which has used this executor
+   *
+   * @return a list of the statistics (sorted by the provider id)
+   */
+  public List<ProviderStatistics> getProviderStatistics() {
+    List<ProviderStatistics> statistics = new ArrayList<>();
+    synchronized (lock) {
+      for (ProviderState state : providers.values()) {
+        statistics.add(new ProviderStatistics(state));
+      }
+    }
+    return statistics;
+  }
+
+  /**
+   * shut down the executor; running tasks will be finished, but no new tasks are accepted
+   */
+  public void shutdown() {
+    for (ProviderStatistics statistics : getProviderStatistics()) {
+      LOGGER.debug("scraper statistics: {}", statistics);
+    }
+    executor.shutdown();
+  }
+
+  /**
+   * shut down the shared instance (if it has been created)
+   */
+  public static synchronized void shutdownInstance() {
+    if (instance != null) {
+      instance.shutdown();
+      instance = null;
+    }
+  }
+
+  /**
+   * wait for the result of a scraper task and unwrap the {@link ScrapeException} thrown by the scraper
+   *
+   * @param future
+   *          the future to wait for
+   * @param <T>
+   *          the result type
+   * @return the result of the task
+   * @throws ScrapeException
+   *           the exception thrown by the scraper or any problem while waiting for the result
+   */
+  public static <T> T getResult(Future<T> future) throws ScrapeException {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ScrapeException(e);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ScrapeException) {
+        throw (ScrapeException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ScrapeException(cause);
+    }
+  }
+
+  private ProviderState getProviderState(String providerId) {
+    return providers.computeIfAbsent(providerId, id -> new ProviderState(id, defaultProviderLimit));
+  }
+
+  private void execute(String providerId, Runnable runnable) {
+    if (executor.isShutdown()) {
+      throw new RejectedExecutionException("scraper executor has been shut down");
+    }
+
+    synchronized (lock) {
+      ProviderState state = getProviderState(providerId);
+      state.pending++;
+      pending.add(new PendingTask(state, runnable));
+    }
+    dispatch();
+  }
+
+  /**
+   * start as many pending tasks as the limits allow; tasks of a provider which reached its limit do not block tasks of other providers
+   */
+  private void dispatch() {
+    List<PendingTask> toStart = new ArrayList<>();
+
+    synchronized (lock) {
+      Iterator<PendingTask> iterator = pending.iterator();
+      while (running < maxThreads && iterator.hasNext()) {
+        PendingTask task = iterator.next();
+        if (task.state.running < task.state.limit) {
+          iterator.remove();
+          task.state.pending--;
+          task.state.running++;
+          running++;
+          toStart.add(task);
+        }
+      }
+    }
+
+    for (PendingTask task : toStart) {
+      try {
+        executor.execute(task);
+      }
+      catch (RejectedExecutionException e) {
+        // shut down in the meantime - run the task here to not leave any waiting thread behind
+        task.run();
+      }
+    }
+  }
+
+  private void finished(PendingTask task) {
+    synchronized (lock) {
+      task.state.running--;
+      running--;
+    }
+    dispatch();
+  }
+
+  private void record(String providerId, long queueTime, long latency) {
+    synchronized (lock) {
+      ProviderState state = getProviderState(providerId);
+      state.completed++;
+      state.totalQueueTime += queueTime;
+      state.totalLatency += latency;
+      state.maxLatency = Math.max(state.maxLatency, latency);
+    }
+  }
+
+  /**
+   * a task waiting for a free slot
+   */
+  private class PendingTask implements Runnable {
+    private final ProviderState state;
+    private final Runnable      runnable;
+
+    private PendingTask(ProviderState state, Runnable runnable) {
+      this.state = state;
+      this.runnable = runnable;
+    }
+
+    @Override
+    public void run() {
+      Boolean previous = SCRAPER_THREAD.get();
+      SCRAPER_THREAD.set(Boolean.TRUE);
+      try {
+        runnable.run();
+      }
+      catch (Exception e) {
+        LOGGER.warn("uncaught exception in scraper task - {}", e.getMessage());
+      }
+      finally {
+        SCRAPER_THREAD.set(previous);
+        finished(this);
+      }
+    }
+  }
+
+  /**
+   * the future of a scraper task. Waiting for the result from inside another scraper task executes the task directly if it has not been started yet
+   */
+  private class ScraperTask<T> extends FutureTask<T> {
+    private final String        providerId;
+    private final long          created = System.nanoTime();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private ScraperTask(String providerId, Callable<T> callable) {
+      super(callable);
+      this.providerId = providerId;
+    }
+
+    @Override
+    public void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+
+      if (isCancelled()) {
+        return;
+      }
+
+      long start = System.nanoTime();
+      try {
+        super.run();
+      }
+      finally {
+        record(providerId, start - created, System.nanoTime() - start);
+      }
+    }
+
+    private void helpIfNecessary() {
+      if (!isDone() && SCRAPER_THREAD.get() == Boolean.TRUE) {
+        run();
+      }
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+      helpIfNecessary();
+      return super.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      helpIfNecessary();
+      return super.get(timeout, unit);
+    }
+  }
+
+  /**
+   * the {@link ExecutorService} view for one provider
+   */
+  private class ProviderExecutorService extends AbstractExecutorService {
+    private final String providerId;
+
+    private ProviderExecutorService(String providerId) {
+      this.providerId = providerId;
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+      return new ScraperTask<>(providerId, callable);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+      return new ScraperTask<>(providerId, Executors.callable(runnable, value));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      ScraperExecutor.this.execute(providerId, command);
+    }
+
+    @Override
+    public void shutdown() {
+      // the shared executor is not shut down by a single provider
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return executor.awaitTermination(timeout, unit);
+    }
+  }
+
+  /**
+   * the mutable state of one provider; guarded by the lock
+   */
+  private static class ProviderState {
+    private final String id;
+    private int          limit;
+    private int          running        = 0;
+    private int          pending        = 0;
+    private long         completed      = 0;
+    private long         totalQueueTime = 0;
+    private long         totalLatency   = 0;
+    private long         maxLatency     = 0;
+
+    private ProviderState(String id, int limit) {
+      this.id = id;
+      this.limit = limit;
+    }
+  }
+
+  /**
+   * a snapshot of the statistics of one provider
+   */
+  public static class ProviderStatistics {
+    private final String providerId;
+    private final int    running;
+    private final int    pending;
+    private final long   completed;
+    private final long   averageQueueTime;
+    private final long   averageLatency;
+    private final long   maxLatency;
+
+    private ProviderStatistics(ProviderState state) {
+      this.providerId = state.id;
+      this.running = state.running;
+      this.pending = state.pending;
+      this.completed = state.completed;
+      this.averageQueueTime = state.completed > 0 ? TimeUnit.NANOSECONDS.toMillis(state.totalQueueTime / state.completed) : 0;
+      this.averageLatency = state.completed > 0 ? TimeUnit.NANOSECONDS.toMillis(state.totalLatency / state.completed) : 0;
+      this.maxLatency = TimeUnit.NANOSECONDS.toMillis(state.maxLatency);
+    }
+
+    public String getProviderId() {
+      return providerId;
+    }
+
+    public int getRunning() {
+      return running;
+    }
+
+    public int getPending() {
+      return pending;
+    }
+
+    public long getCompleted() {
+      return completed;
+    }
+
+    /**
+     * the average time in ms a task waited for a free slot
+     */
+    public long getAverageQueueTime() {
+      return averageQueueTime;
+    }
+
+    /**
+     * the average execution time in ms
+     */
+    public long getAverageLatency() {
+      return averageLatency;
+    }
+
+    /**
+     * the maximum execution time in ms
+     */
+    public long getMaxLatency() {
+      return maxLatency;
+    }
+
+    @Override
+    public String toString() {
+      return providerId + ": completed " + completed + ", running " + running + ", pending " + pending + ", avg queue " + averageQueueTime
+          + " ms, avg latency " + averageLatency + " ms, max latency " + maxLatency + " ms";
+    }
+  }
+}
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +67,7 @@ import org.tinymediamanager.jsonrpc.notification.AbstractEvent;
 
 public class KodiRPC {
   private static final Logger          LOGGER                   = LoggerFactory.getLogger(KodiRPC.class);
+  private static final int             PAGE_SIZE                = 500;
   private static KodiRPC               instance;
   private static JavaConnectionManager cm                       = new JavaConnectionManager();
 
@@ -190,16 +192,49 @@ public class KodiRPC {
     return "";
   }
 
+  /**
+   * get all results of the given call page by page (huge libraries would exceed the timeouts in a single call)
+   *
+   * @param callFactory
+   *          creates the call for the given limits
+   * @return all results or null if the first call failed
+   */
+  private <T> List<T> getPaged(Function<ListModel.Limits, AbstractCall<T>> callFactory) {
+    List<T> results = null;
+    int start = 0;
+
+    while (true) {
+      AbstractCall<T> call = callFactory.apply(new ListModel.Limits(start + PAGE_SIZE, start));
+      send(call);
+      if (call.getResults() == null) {
+        break;
+      }
+
+      if (results == null) {
+        results = new ArrayList<>();
+      }
+      results.addAll(call.getResults());
+
+      if (call.getResults().size() < PAGE_SIZE) {
+        break;
+      }
+      start += PAGE_SIZE;
+    }
+
+    return results;
+  }
+
   /**
    * builds the moviemappings: DBid -> Kodi ID
    */
   protected void getAndSetMovieMappings() {
-    final VideoLibrary.GetMovies call = new VideoLibrary.GetMovies(MovieFields.FILE);
-    send(call);
-    if (call.getResults() != null && !call.getResults().isEmpty()) {
+    long start = java.lang.System.currentTimeMillis();
+
+    List<MovieDetail> kodiMovies = getPaged(limits -> new VideoLibrary.GetMovies(limits, MovieFields.FILE));
+    if (kodiMovies != null && !kodiMovies.isEmpty()) {
 
-      // cache our video files/paths as SplitUris
-      Map<SplitUri, UUID> tmmFiles = new HashMap<>();
+      // index our video files/paths as SplitUris
+      SplitUriIndex<UUID> tmmFiles = new SplitUriIndex<>();
       for (Movie movie : MovieList.getInstance().getMovies()) {
         MediaFile main = movie.getMainVideoFile();
         if (movie.isDisc()) {
@@ -217,7 +252,9 @@ public class KodiRPC {
       LOGGER.debug("TMM {} items", tmmFiles.size());
 
       // iterate over all Kodi resources
-      for (MovieDetail res : call.getResults()) {
+      int unmatched = 0;
+      for (MovieDetail res : kodiMovies) {
+        boolean matched = false;
         if (res.file.startsWith("stack")) {
           String[] files = res.file.split(" , ");
           for (String s : files) {
@@ -225,13 +262,10 @@ public class KodiRPC {
             String ds = detectDatasource(s);
             SplitUri sp = new SplitUri(ds, s, res.label, cm.getHostConfig().getAddress()); // generate clean object
 
-            for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-              SplitUri tmmsp = entry.getKey();
-              UUID uuid = entry.getValue();
-              if (sp.equals(tmmsp)) {
-                moviemappings.put(uuid, res.movieid);
-                break;
-              }
+            UUID uuid = tmmFiles.find(sp);
+            if (uuid != null) {
+              moviemappings.put(uuid, res.movieid);
+              matched = true;
             }
           }
         }
@@ -239,25 +273,23 @@ public class KodiRPC {
           String ds = detectDatasource(res.file);
           SplitUri kodi = new SplitUri(ds, res.file, res.label, cm.getHostConfig().getAddress()); // generate clean object
 
-          for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-            SplitUri tmm = entry.getKey();
-            UUID uuid = entry.getValue();
-            if (kodi.equals(tmm)) {
-              moviemappings.put(uuid, res.movieid);
-              break;
-            }
+          UUID uuid = tmmFiles.find(kodi);
+          if (uuid != null) {
+            moviemappings.put(uuid, res.movieid);
+            matched = true;
           }
         }
+
+        if (!matched) {
+          unmatched++;
+        }
       }
       LOGGER.debug("mapped {} items", moviemappings.size());
 
       // intersect
-      for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-        if (!moviemappings.containsKey(entry.getValue())) {
-          LOGGER.warn("could not map: {}", entry.getKey());
-        }
-      }
-      tmmFiles.clear();
+      logUnmapped(tmmFiles, moviemappings);
+      LOGGER.info("Kodi movie mapping: {} of {} Kodi movies mapped ({} unmatched, {} ambiguous files) in {} ms", kodiMovies.size() - unmatched,
+          kodiMovies.size(), unmatched, tmmFiles.getCollisions(), java.lang.System.currentTimeMillis() - start);
     }
   }
 
@@ -265,12 +297,13 @@ public class KodiRPC {
    * builds the show/episode mappings: DBid -> Kodi ID
    */
   protected void getAndSetTvShowMappings() {
-    final VideoLibrary.GetTVShows call = new VideoLibrary.GetTVShows(TVShowFields.FILE);
-    send(call);
-    if (call.getResults() != null && !call.getResults().isEmpty()) {
+    long start = java.lang.System.currentTimeMillis();
 
-      // cache our video files/paths as SplitUris
-      Map<SplitUri, UUID> tmmFiles = new HashMap<>();
+    List<TVShowDetail> kodiShows = getPaged(limits -> new VideoLibrary.GetTVShows(limits, TVShowFields.FILE));
+    if (kodiShows != null && !kodiShows.isEmpty()) {
+
+      // index our video files/paths as SplitUris
+      SplitUriIndex<UUID> tmmFiles = new SplitUriIndex<>();
       for (TvShow show : TvShowList.getInstance().getTvShows()) {
         tmmFiles.put(new SplitUri(show.getDataSource(), show.getPathNIO().toString()), show.getDbId()); // folder
 
@@ -291,34 +324,27 @@ public class KodiRPC {
       LOGGER.debug("TMM {} items", tmmFiles.size());
 
       // iterate over all Kodi shows
-      for (TVShowDetail show : call.getResults()) {
+      int kodiEpisodes = 0;
+      for (TVShowDetail show : kodiShows) {
         String ds = detectDatasource(show.file);
         SplitUri sp = new SplitUri(ds, show.file, show.label, cm.getHostConfig().getAddress()); // generate clean object
 
-        for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-          SplitUri tmmsp = entry.getKey();
-          UUID uuid = entry.getValue();
-          if (sp.equals(tmmsp)) {
-            tvshowmappings.put(uuid, show.tvshowid);
-            break;
-          }
+        UUID uuid = tmmFiles.find(sp);
+        if (uuid != null) {
+          tvshowmappings.put(uuid, show.tvshowid);
         }
 
         // inner call to get all episodes
-        final VideoLibrary.GetEpisodes epCall = new VideoLibrary.GetEpisodes(show.tvshowid, EpisodeFields.FILE);
-        send(epCall);
-        if (epCall.getResults() != null && !epCall.getResults().isEmpty()) {
+        List<EpisodeDetail> episodes = getPaged(limits -> new VideoLibrary.GetEpisodes(show.tvshowid, -1, limits, EpisodeFields.FILE));
+        if (episodes != null) {
+          kodiEpisodes += episodes.size();
 
-          for (EpisodeDetail ep : epCall.getResults()) {
+          for (EpisodeDetail ep : episodes) {
             SplitUri spEp = new SplitUri(ds, ep.file, ep.label, cm.getHostConfig().getAddress()); // generate clean object
 
-            for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-              SplitUri tmmsp = entry.getKey();
-              UUID uuid = entry.getValue();
-              if (spEp.equals(tmmsp)) {
-                tvshowmappings.put(uuid, ep.episodeid);
-                break;
-              }
+            uuid = tmmFiles.find(spEp);
+            if (uuid != null) {
+              tvshowmappings.put(uuid, ep.episodeid);
             }
           }
         }
@@ -327,12 +353,23 @@ public class KodiRPC {
       LOGGER.debug("mapped {} items", tvshowmappings.size());
 
       // intersect
-      for (Map.Entry<SplitUri, UUID> entry : tmmFiles.entrySet()) {
-        if (!tvshowmappings.containsKey(entry.getValue())) {
-          LOGGER.warn("could not map: {}", entry.getKey());
-        }
+      logUnmapped(tmmFiles, tvshowmappings);
+      LOGGER.info("Kodi TV show mapping: {} of {} Kodi TV shows/episodes mapped ({} unmatched, {} ambiguous files) in {} ms", tmmFiles.getMatches(),
+          kodiShows.size() + kodiEpisodes, tmmFiles.getLookups() - tmmFiles.getMatches(), tmmFiles.getCollisions(),
+          java.lang.System.currentTimeMillis() - start);
+    }
+  }
+
+  private void logUnmapped(SplitUriIndex<UUID> tmmFiles, Map<UUID, Integer> mappings) {
+    int unmapped = 0;
+    for (Map.Entry<SplitUri, UUID> entry : tmmFiles.getEntries()) {
+      if (!mappings.containsKey(entry.getValue())) {
+        LOGGER.warn("could not map: {}", entry.getKey());
+        unmapped++;
       }
-      tmmFiles.clear();
+    }
+    if (unmapped > 0) {
+      LOGGER.info("{} of {} TMM items could not be mapped to the Kodi library", unmapped, tmmFiles.size());
     }
   }
 
@@ -27,6 +27,7 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.mediainfo.MediaInfoException;
+import org.tinymediamanager.core.mediainfo.MediaInfoSnapshot;
 
 import com.sun.jna.Pointer;
 import com.sun.jna.WString;
@@ -404,9 +405,9 @@ public class MediaInfo implements Closeable {
   /**
    * Snapshot.
    * 
-   * @return the map
+   * @return the immutable snapshot of all streams
    */
-  public Map<StreamKind, List<Map<String, String>>> snapshot() {
+  public MediaInfoSnapshot snapshot() {
     Map<StreamKind, List<Map<String, String>>> mediaInfo = new EnumMap<>(StreamKind.class);
 
     for (StreamKind streamKind : StreamKind.values()) {
@@ -423,7 +424,7 @@ public class MediaInfo implements Closeable {
       }
     }
 
-    return mediaInfo;
+    return MediaInfoSnapshot.of(mediaInfo);
   }
 
   /**
@@ -617,11 +618,11 @@ public class MediaInfo implements Closeable {
    * 
    * @param file
    *          the file
-   * @return the map
+   * @return the immutable snapshot of all streams
    * @throws IOException
    *           Signals that an I/O exception has occurred.
    */
-  public static Map<StreamKind, List<Map<String, String>>> snapshot(Path file) throws IOException {
+  public static MediaInfoSnapshot snapshot(Path file) throws IOException {
     try (MediaInfo mi = new MediaInfo()) {
       if (mi.open(file)) {
         return mi.snapshot();
@@ -20,12 +20,13 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLDecoder;
+import java.net.UnknownHostException;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -50,16 +51,16 @@ import org.tinymediamanager.thirdparty.upnp.Upnp;
  *
  */
 public class SplitUri {
-  private static final Logger LOGGER     = LoggerFactory.getLogger(SplitUri.class);
+  private static final Logger                   LOGGER     = LoggerFactory.getLogger(SplitUri.class);
+  // name lookups are cached for all instances (the Kodi library sync creates one instance per file)
+  private static final Map<String, InetAddress> LOOKUP     = new ConcurrentHashMap<>();
 
-  public String               file       = "";
-  public String               datasource = "";
-  public String               label      = "";
-  public String               type       = "";
-  public String               ip         = "";
-  public String               hostname   = "";
-
-  private Map<String, String> lookup     = new HashMap<>();
+  public String                                 file       = "";
+  public String                                 datasource = "";
+  public String                                 label      = "";
+  public String                                 type       = "";
+  public String                                 ip         = "";
+  public String                                 hostname   = "";
 
   @SuppressWarnings("unused")
   private SplitUri() {
@@ -120,14 +121,7 @@ public class SplitUri {
         this.type = u.getScheme().toUpperCase(Locale.ROOT);
         this.hostname = u.getHost();
         try {
-          String ip = lookup.get(u.getHost());
-          // cache
-          if (ip == null) {
-            InetAddress i = InetAddress.getByName(u.getHost());
-            ip = i.getHostAddress();
-            lookup.put(u.getHost(), ip);
-          }
-          this.ip = ip;
+          this.ip = lookup(u.getHost()).getHostAddress();
         }
         catch (Exception e) {
           LOGGER.warn("Could not lookup IP for {}: {}", u.getHost(), e.getMessage());
@@ -142,14 +136,9 @@ public class SplitUri {
       }
       else {
         try {
-          String tmp = lookup.get(ipForLocal);
-          if (tmp == null) {
-            InetAddress i = InetAddress.getByName(ipForLocal);
-            this.ip = i.getHostAddress();
-            this.hostname = i.getHostName();
-            lookup.put(ipForLocal, ip);
-            lookup.put(hostname, ip);
-          }
+          InetAddress i = lookup(ipForLocal);
+          this.ip = i.getHostAddress();
+          this.hostname = i.getHostName();
         }
         catch (Exception e) {
           LOGGER.warn("Could not lookup hostname for {}: {}", ipForLocal, e.getMessage());
@@ -162,6 +151,26 @@ public class SplitUri {
     this.file = clean(this.file);
   }
 
+  /**
+   * resolve the given host name/IP (cached)
+   *
+   * @param host
+   *          the host name or IP
+   * @return the resolved address
+   * @throws UnknownHostException
+   *           if the host could not be resolved
+   */
+  private static InetAddress lookup(String host) throws UnknownHostException {
+    InetAddress address = LOOKUP.get(host);
+    if (address == null) {
+      address = InetAddress.getByName(host);
+      // also resolve the host name now, so that it is cached in the address
+      address.getHostName();
+      LOOKUP.put(host, address);
+    }
+    return address;
+  }
+
   /**
    * trim leading & trailing slashes; and change backslashes to forward slashes
    * 
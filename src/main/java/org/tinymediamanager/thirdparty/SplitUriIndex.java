@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class SplitUriIndex. An index of {@link SplitUri}s for matching files of two libraries (e.g. tmm and Kodi). Two {@link SplitUri}s can only be
+ * equal if their (normalized and datasource relative) file is equal - so the file is used as key and the (more expensive) comparison of the
+ * datasource/host is only done for the few entries with the same file.
+ *
+ * @param <T>
+ *          the type of the indexed values
+ * @author Manuel Laggner
+ */
+class SplitUriIndex<T> {
+  private final Map<String, List<Map.Entry<SplitUri, T>>> index      = new HashMap<>();
+  private final List<Map.Entry<SplitUri, T>>              entries    = new ArrayList<>();
+
+  private int                                             lookups    = 0;
+  private int                                             matches    = 0;
+  private int                                             collisions = 0;
+
+  /**
+   * add an entry to the index
+   *
+   * @param uri
+   *          the {@link SplitUri} to index
+   * @param value
+   *          the value for this {@link SplitUri}
+   */
+  void put(SplitUri uri, T value) {
+    Map.Entry<SplitUri, T> entry = new AbstractMap.SimpleImmutableEntry<>(uri, value);
+    entries.add(entry);
+    index.computeIfAbsent(uri.file, file -> new ArrayList<>(1)).add(entry);
+  }
+
+  /**
+   * find the value for the given {@link SplitUri}
+   *
+   * @param uri
+   *          the {@link SplitUri} to search for
+   * @return the value or null if there is no matching entry
+   */
+  T find(SplitUri uri) {
+    lookups++;
+
+    List<Map.Entry<SplitUri, T>> candidates = index.get(uri.file);
+    if (candidates == null) {
+      return null;
+    }
+    if (candidates.size() > 1) {
+      collisions++;
+    }
+
+    for (Map.Entry<SplitUri, T> candidate : candidates) {
+      if (uri.equals(candidate.getKey())) {
+        matches++;
+        return candidate.getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * get all indexed entries (in the order they have been added)
+   *
+   * @return all entries
+   */
+  List<Map.Entry<SplitUri, T>> getEntries() {
+    return entries;
+  }
+
+  /**
+   * get the amount of indexed entries
+   *
+   * @return the amount of entries
+   */
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * get the amount of lookups
+   *
+   * @return the amount of lookups
+   */
+  int getLookups() {
+    return lookups;
+  }
+
+  /**
+   * get the amount of successful lookups
+   *
+   * @return the amount of matches
+   */
+  int getMatches() {
+    return matches;
+  }
+
+  /**
+   * get the amount of lookups where more than one entry had to be compared
+   *
+   * @return the amount of collisions
+   */
+  int getCollisions() {
+    return collisions;
+  }
+}
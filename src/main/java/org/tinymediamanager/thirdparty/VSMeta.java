@@ -47,6 +47,7 @@ import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.Constants;
 import org.tinymediamanager.core.MediaCertification;
 import org.tinymediamanager.core.MediaFileType;
+import org.tinymediamanager.core.Utils;
 import org.tinymediamanager.core.entities.MediaEntity;
 import org.tinymediamanager.core.entities.MediaFile;
 import org.tinymediamanager.core.entities.MediaGenres;
@@ -170,7 +171,7 @@ public class VSMeta {
   private void writeImage(Path file, byte[] bytes) {
     try {
       LOGGER.debug("SYNO: write image to filesystem: {}", file);
-      Files.write(file, bytes);
+      Utils.writeBytesToFile(file, bytes);
     }
     catch (IOException e) {
       LOGGER.warn("Could not write image {}", file, e);
@@ -74,7 +74,8 @@ public class TraktTv implements TmmFeature {
 
           @Override
           protected synchronized OkHttpClient okHttpClient() {
-            OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true);
+            // share the rate limit with the trakt.tv scraper
+            OkHttpClient.Builder builder = TmmHttpClient.newBuilder(true, "trakt");
             builder.addInterceptor(new TraktV2Interceptor(this));
             return builder.build();
           }
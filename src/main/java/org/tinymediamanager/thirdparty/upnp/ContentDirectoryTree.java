@@ -0,0 +1,388 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty.upnp;
+
+import static org.tinymediamanager.core.Constants.GENRE;
+import static org.tinymediamanager.core.Constants.TV_SHOWS;
+
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import org.apache.commons.lang3.StringUtils;
+import org.fourthline.cling.support.model.DIDLObject;
+import org.fourthline.cling.support.model.container.Container;
+import org.fourthline.cling.support.model.container.GenreContainer;
+import org.fourthline.cling.support.model.container.StorageFolder;
+import org.fourthline.cling.support.model.item.Item;
+import org.tinymediamanager.core.TmmResourceBundle;
+import org.tinymediamanager.core.entities.MediaGenres;
+import org.tinymediamanager.core.movie.MovieList;
+import org.tinymediamanager.core.movie.entities.Movie;
+import org.tinymediamanager.core.tvshow.TvShowList;
+import org.tinymediamanager.core.tvshow.entities.TvShow;
+import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
+import org.tinymediamanager.core.tvshow.entities.TvShowSeason;
+
+/**
+ * The class ContentDirectoryTree. The structure of the UPnP content directory:
+ *
+ * <pre>
+ * 0                      root
+ * 1/t/&lt;uuid&gt;             movie by title
+ * 1/g/&lt;genre&gt;/&lt;uuid&gt;     movie by genre
+ * 2/&lt;uuid&gt;/&lt;s&gt;/&lt;e&gt;       episode
+ * </pre>
+ *
+ * Only the requested object is resolved and only the requested page of its children is materialized. The lists which are needed for that (all
+ * movies, the movies per genre and all TV shows) are cached and invalidated by the events of the movie/TV show list.
+ *
+ * @author Manuel Laggner
+ */
+class ContentDirectoryTree {
+  private static final String           ID_TITLES   = Upnp.ID_MOVIES + "/t";
+  private static final String           ID_GENRES   = Upnp.ID_MOVIES + "/g";
+
+  private final PropertyChangeListener  movieListListener;
+  private final PropertyChangeListener  movieListener;
+  private final PropertyChangeListener  tvShowListListener;
+
+  private boolean                       listening   = false;
+  private List<Movie>                   movies      = null;
+  private Map<MediaGenres, List<Movie>> movieGenres = null;
+  private List<TvShow>                  tvShows     = null;
+
+  ContentDirectoryTree() {
+    movieListListener = evt -> {
+      if ("movies".equals(evt.getPropertyName())) {
+        invalidateMovies();
+      }
+      else if (GENRE.equals(evt.getPropertyName())) {
+        invalidateMovieGenres();
+      }
+    };
+    movieListener = evt -> invalidateMovieGenres();
+    tvShowListListener = evt -> invalidateTvShows();
+  }
+
+  /**
+   * resolve the given object id
+   *
+   * @param objectId
+   *          the object id / path
+   * @param full
+   *          resolve the item with full details, or when false just the mandatory for a directory listing
+   * @return the node or null if there is no such object
+   */
+  Node resolve(String objectId, boolean full) {
+    String[] path = StringUtils.split(objectId, '/');
+    if (path == null || path.length == 0) {
+      return null;
+    }
+
+    switch (path[0]) {
+      case Upnp.ID_ROOT:
+        return path.length == 1 ? resolveRoot() : null;
+
+      case Upnp.ID_MOVIES:
+        return resolveMovies(path, full);
+
+      case Upnp.ID_TVSHOWS:
+        return resolveTvShows(path, full);
+
+      default:
+        return null;
+    }
+  }
+
+  private Node resolveRoot() {
+    StorageFolder root = new StorageFolder(Upnp.ID_ROOT, "-1", "All", "", 2, 0L);
+    return new Node(root, 2, i -> i == 0 ? createMoviesFolder() : createTvShowsFolder());
+  }
+
+  /*****************************************************************************************
+   * movies
+   ****************************************************************************************/
+  private Node resolveMovies(String[] path, boolean full) {
+    if (path.length == 1) {
+      return new Node(createMoviesFolder(), 2, i -> i == 0 ? createTitlesFolder() : createGenresFolder());
+    }
+
+    if ("t".equals(path[1])) {
+      if (path.length == 2) {
+        List<Movie> allMovies = getMovies();
+        return new Node(createTitlesFolder(), allMovies.size(), i -> createMovieItem(allMovies.get(i), ID_TITLES, false));
+      }
+
+      Movie movie = lookupMovie(path[2]);
+      if (path.length == 3 && movie != null) {
+        return new Node(createMovieItem(movie, ID_TITLES, full));
+      }
+    }
+    else if ("g".equals(path[1])) {
+      Map<MediaGenres, List<Movie>> genres = getMovieGenres();
+      if (path.length == 2) {
+        List<MediaGenres> usedGenres = new ArrayList<>(genres.keySet());
+        return new Node(createGenresFolder(), usedGenres.size(), i -> createGenreFolder(usedGenres.get(i), genres.get(usedGenres.get(i)).size()));
+      }
+
+      MediaGenres genre = genres.keySet().stream().filter(g -> g.getLocalizedName().equalsIgnoreCase(path[2])).findFirst().orElse(null);
+      if (genre == null) {
+        return null;
+      }
+
+      String genreId = ID_GENRES + "/" + genre.getLocalizedName();
+      List<Movie> moviesInGenre = genres.get(genre);
+      if (path.length == 3) {
+        return new Node(createGenreFolder(genre, moviesInGenre.size()), moviesInGenre.size(),
+            i -> createMovieItem(moviesInGenre.get(i), genreId, false));
+      }
+
+      Movie movie = lookupMovie(path[3]);
+      if (path.length == 4 && movie != null && movie.getGenres().contains(genre)) {
+        return new Node(createMovieItem(movie, genreId, full));
+      }
+    }
+
+    return null;
+  }
+
+  private Container createMoviesFolder() {
+    return new StorageFolder(Upnp.ID_MOVIES, Upnp.ID_ROOT, TmmResourceBundle.getString("tmm.movies"), "", 2, 0L);
+  }
+
+  private Container createTitlesFolder() {
+    return new StorageFolder(ID_TITLES, Upnp.ID_MOVIES, TmmResourceBundle.getString("metatag.title"), "", getMovies().size(), 0L);
+  }
+
+  private Container createGenresFolder() {
+    return new GenreContainer(ID_GENRES, Upnp.ID_MOVIES, TmmResourceBundle.getString("metatag.genre"), "", getMovieGenres().size());
+  }
+
+  private Container createGenreFolder(MediaGenres genre, int movieCount) {
+    return new GenreContainer(ID_GENRES + "/" + genre.getLocalizedName(), ID_GENRES, genre.getLocalizedName(), "", movieCount);
+  }
+
+  private Item createMovieItem(Movie movie, String parentId, boolean full) {
+    Item item = Metadata.getUpnpMovie(movie, full);
+    item.setId(parentId + "/" + item.getId()); // only get ID - prepend path
+    item.setParentID(parentId);
+    return item;
+  }
+
+  private Movie lookupMovie(String id) {
+    UUID uuid = parseUUID(id);
+    return uuid == null ? null : MovieList.getInstance().lookupMovie(uuid);
+  }
+
+  /*****************************************************************************************
+   * TV shows
+   ****************************************************************************************/
+  private Node resolveTvShows(String[] path, boolean full) {
+    if (path.length == 1) {
+      List<TvShow> allTvShows = getTvShows();
+      return new Node(createTvShowsFolder(), allTvShows.size(), i -> createTvShowFolder(allTvShows.get(i)));
+    }
+
+    UUID uuid = parseUUID(path[1]);
+    TvShow tvShow = uuid == null ? null : TvShowList.getInstance().lookupTvShow(uuid);
+    if (tvShow == null) {
+      return null;
+    }
+
+    if (path.length == 2) {
+      List<TvShowSeason> seasons = new ArrayList<>(tvShow.getSeasons());
+      return new Node(createTvShowFolder(tvShow), seasons.size(), i -> createSeasonFolder(tvShow, seasons.get(i)));
+    }
+
+    TvShowSeason season = tvShow.getSeason(parseInt(path[2]));
+    if (season == null) {
+      return null;
+    }
+
+    if (path.length == 3) {
+      List<TvShowEpisode> episodes = new ArrayList<>(season.getEpisodes());
+      return new Node(createSeasonFolder(tvShow, season), episodes.size(), i -> Metadata.getUpnpTvShowEpisode(tvShow, episodes.get(i), false));
+    }
+
+    if (path.length == 4) {
+      TvShowEpisode episode = tvShow.getEpisode(season.getSeason(), parseInt(path[3])).stream().findFirst().orElse(null);
+      if (episode != null) {
+        return new Node(Metadata.getUpnpTvShowEpisode(tvShow, episode, full));
+      }
+    }
+
+    return null;
+  }
+
+  private Container createTvShowsFolder() {
+    return new StorageFolder(Upnp.ID_TVSHOWS, Upnp.ID_ROOT, TmmResourceBundle.getString("tmm.tvshows"), "", getTvShows().size(), 0L);
+  }
+
+  private Container createTvShowFolder(TvShow tvShow) {
+    return new StorageFolder(Upnp.ID_TVSHOWS + "/" + tvShow.getDbId(), Upnp.ID_TVSHOWS, tvShow.getTitle(), "", tvShow.getSeasons().size(), 0L);
+  }
+
+  private Container createSeasonFolder(TvShow tvShow, TvShowSeason season) {
+    String tvShowId = Upnp.ID_TVSHOWS + "/" + tvShow.getDbId();
+    return new StorageFolder(tvShowId + "/" + season.getSeason(), tvShowId, "Season " + season.getSeason(), "", season.getEpisodes().size(), 0L);
+  }
+
+  /*****************************************************************************************
+   * caches
+   ****************************************************************************************/
+  private synchronized void startListening() {
+    if (!listening) {
+      MovieList.getInstance().addPropertyChangeListener(movieListListener);
+      TvShowList.getInstance().addPropertyChangeListener(TV_SHOWS, tvShowListListener);
+      listening = true;
+    }
+  }
+
+  private synchronized List<Movie> getMovies() {
+    if (movies == null) {
+      startListening();
+      List<Movie> allMovies = new ArrayList<>(MovieList.getInstance().getMovies());
+
+      // a changed genre of a single movie is not announced by the movie list
+      for (Movie movie : allMovies) {
+        movie.addPropertyChangeListener(GENRE, movieListener);
+      }
+      movies = Collections.unmodifiableList(allMovies);
+    }
+    return movies;
+  }
+
+  private synchronized Map<MediaGenres, List<Movie>> getMovieGenres() {
+    if (movieGenres == null) {
+      Map<MediaGenres, List<Movie>> genres = new LinkedHashMap<>();
+      for (MediaGenres genre : MovieList.getInstance().getUsedGenres()) {
+        genres.put(genre, new ArrayList<>());
+      }
+      for (Movie movie : getMovies()) {
+        for (MediaGenres genre : movie.getGenres()) {
+          genres.computeIfAbsent(genre, g -> new ArrayList<>()).add(movie);
+        }
+      }
+      movieGenres = genres;
+    }
+    return movieGenres;
+  }
+
+  private synchronized List<TvShow> getTvShows() {
+    if (tvShows == null) {
+      startListening();
+      tvShows = Collections.unmodifiableList(new ArrayList<>(TvShowList.getInstance().getTvShows()));
+    }
+    return tvShows;
+  }
+
+  private synchronized void invalidateMovies() {
+    // the listener is added again to every movie of the next snapshot (and removed movies must not keep a reference to this tree)
+    if (movies != null) {
+      for (Movie movie : movies) {
+        movie.removePropertyChangeListener(GENRE, movieListener);
+      }
+    }
+    movies = null;
+    movieGenres = null;
+  }
+
+  private synchronized void invalidateMovieGenres() {
+    movieGenres = null;
+  }
+
+  private synchronized void invalidateTvShows() {
+    tvShows = null;
+  }
+
+  private static UUID parseUUID(String id) {
+    try {
+      return UUID.fromString(id);
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static int parseInt(String value) {
+    try {
+      return Integer.parseInt(value);
+    }
+    catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /*****************************************************************************************
+   * helper classes
+   ****************************************************************************************/
+  /**
+   * a resolved object of the content directory; its children are only created on demand
+   */
+  static class Node {
+    private final DIDLObject              object;
+    private final int                     childCount;
+    private final IntFunction<DIDLObject> childFactory;
+
+    private Node(DIDLObject object) {
+      this(object, 0, null);
+    }
+
+    private Node(DIDLObject object, int childCount, IntFunction<DIDLObject> childFactory) {
+      this.object = object;
+      this.childCount = childCount;
+      this.childFactory = childFactory;
+    }
+
+    DIDLObject getObject() {
+      return object;
+    }
+
+    int getChildCount() {
+      return childCount;
+    }
+
+    /**
+     * create the requested page of children
+     *
+     * @param firstResult
+     *          the index of the first child
+     * @param maxResults
+     *          the max amount of children (0 = all)
+     * @return a list of all created children
+     */
+    List<DIDLObject> getChildren(long firstResult, long maxResults) {
+      if (childFactory == null || firstResult >= childCount) {
+        return Collections.emptyList();
+      }
+
+      int from = (int) Math.max(0, firstResult);
+      int to = maxResults > 0 ? (int) Math.min(childCount, from + maxResults) : childCount;
+
+      List<DIDLObject> children = new ArrayList<>(to - from);
+      for (int i = from; i < to; i++) {
+        children.add(childFactory.apply(i));
+      }
+      return children;
+    }
+  }
+}
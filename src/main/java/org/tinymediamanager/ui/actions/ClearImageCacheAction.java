@@ -16,14 +16,11 @@
 package org.tinymediamanager.ui.actions;
 
 import java.awt.event.ActionEvent;
-import java.nio.file.Files;
-import java.nio.file.Path;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.tinymediamanager.core.ImageCache;
 import org.tinymediamanager.core.TmmResourceBundle;
-import org.tinymediamanager.core.Utils;
 
 /**
  * The ClearImageCacheAction to clear all cached images
@@ -42,15 +39,11 @@ public class ClearImageCacheAction extends TmmAction {
 
   @Override
   protected void processAction(ActionEvent arg0) {
-    Path cache = ImageCache.getCacheDir();
-    if (Files.exists(cache)) {
-      try {
-        Utils.deleteDirectoryRecursive(cache);
-        ImageCache.createSubdirs();
-      }
-      catch (Exception e) {
-        LOGGER.warn(e.getMessage());
-      }
+    try {
+      ImageCache.clearImageCache();
+    }
+    catch (Exception e) {
+      LOGGER.warn(e.getMessage());
     }
   }
 }
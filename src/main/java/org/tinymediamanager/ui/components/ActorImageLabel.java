@@ -48,7 +48,7 @@ public class ActorImageLabel extends ImageLabel {
       }
       this.actor = actor;
       actorWorker = new ActorImageLoader(actor, mediaEntity);
-      actorWorker.execute();
+      execute(actorWorker);
     }
   }
 
@@ -61,12 +61,12 @@ public class ActorImageLabel extends ImageLabel {
           worker.cancel(true);
         }
         worker = new ImageLoader(this.imagePath, this.getSize());
-        worker.execute();
+        execute(worker);
         return;
       }
       else if (StringUtils.isNotBlank(imageUrl)) {
         worker = new ImageFetcher(this.getSize());
-        worker.execute();
+        execute(worker);
         return;
       }
     }
@@ -115,6 +115,11 @@ public class ActorImageLabel extends ImageLabel {
           file = ImageCache.getCachedFile(Paths.get(mediaEntity.getPath(), Person.ACTOR_DIR, actorImageFilename));
         }
 
+        // the cached file has been removed outside of tmm - drop it from the image cache and cache it again
+        if (file != null && !Files.exists(file) && ImageCache.invalidateCachedFile(file)) {
+          file = ImageCache.getCachedFile(Paths.get(mediaEntity.getPath(), Person.ACTOR_DIR, actorImageFilename));
+        }
+
         if (file != null && Files.exists(file)) {
           imagePath = file;
           return null;
@@ -19,6 +19,7 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.Point;
@@ -32,8 +33,16 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.ImageIcon;
 import javax.swing.JComponent;
@@ -46,6 +55,7 @@ import org.tinymediamanager.core.ImageCache;
 import org.tinymediamanager.core.ImageUtils;
 import org.tinymediamanager.scraper.http.InMemoryCachedUrl;
 import org.tinymediamanager.scraper.http.Url;
+import org.tinymediamanager.scraper.util.CacheMap;
 import org.tinymediamanager.ui.IconManager;
 import org.tinymediamanager.ui.MainWindow;
 import org.tinymediamanager.ui.images.TmmSvgIcon;
@@ -98,6 +108,14 @@ public class ImageLabel extends JComponent {
   protected SwingWorker<Void, Void> worker                 = null;
   protected MouseListener           lightboxListener       = null;
 
+  private static final int                           LOADER_THREADS   = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static final int                           MAX_QUEUED_LOADS = 50;
+  private static final ExecutorService               LOADER_POOL      = createLoaderPool();
+
+  // the decoded and scaled images of all labels (max. 1/16 of the heap)
+  private static final CacheMap<String, ScaledImage> SCALED_IMAGES    = new CacheMap<>(0, 0, 0, Runtime.getRuntime().maxMemory() / 16,
+      ScaledImage::getWeight);
+
   private static TmmSvgIcon createNoImageIcon() {
 
     try {
@@ -111,6 +129,50 @@ public class ImageLabel extends JComponent {
     }
   }
 
+  private static ExecutorService createLoaderPool() {
+    // the newest request first (this is the image which should be displayed now); prefetches after all other requests
+    LinkedBlockingDeque<Runnable> queue = new LinkedBlockingDeque<Runnable>(MAX_QUEUED_LOADS) {
+      private static final long serialVersionUID = 5096428391763725413L;
+
+      @Override
+      public boolean offer(Runnable runnable) {
+        return runnable instanceof PrefetchTask ? offerLast(runnable) : offerFirst(runnable);
+      }
+    };
+
+    AtomicInteger threadNumber = new AtomicInteger(1);
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(LOADER_THREADS, LOADER_THREADS, 10, TimeUnit.SECONDS, queue, runnable -> {
+      Thread thread = new Thread(runnable, "image-loader-" + threadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }, (runnable, executor) -> {
+      // too many waiting requests (e.g. fast scrolling): drop the oldest one
+      cancel(queue.pollLast());
+      if (!queue.offer(runnable)) {
+        cancel(runnable);
+      }
+    });
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  private static void cancel(Runnable runnable) {
+    if (runnable instanceof Future) {
+      // a cancelled SwingWorker still calls done() to clean up
+      ((Future<?>) runnable).cancel(false);
+    }
+  }
+
+  /**
+   * execute the worker in the bounded pool of the image loaders (instead of the shared pool of all {@link SwingWorker}s)
+   *
+   * @param worker
+   *          the worker to execute
+   */
+  protected static void execute(SwingWorker<?, ?> worker) {
+    LOADER_POOL.execute(worker);
+  }
+
   public ImageLabel() {
     this(true, false);
   }
@@ -160,18 +222,154 @@ public class ImageLabel extends JComponent {
       // this is just a normal pic
       BufferedImage originalImage = ImageUtils.createImage(originalImageBytes);
       originalImageSize = new Dimension(originalImage.getWidth(), originalImage.getHeight());
+      scaledImage = scale(originalImage, width, height);
+      originalImage.flush();
+      animatedGif = null;
+    }
+  }
+
+  private static BufferedImage scale(BufferedImage originalImage, int width, int height) {
+    if (width < 1000 || height < 1000) {
+      // scale fast
+      return Scalr.resize(originalImage, Scalr.Method.AUTOMATIC, Scalr.Mode.AUTOMATIC, width, height, Scalr.OP_ANTIALIAS);
+    }
+    else {
+      // scale good
+      return Scalr.resize(originalImage, Scalr.Method.BALANCED, Scalr.Mode.AUTOMATIC, width, height, Scalr.OP_ANTIALIAS);
+    }
+  }
+
+  private static boolean isAnimatedGif(byte[] bytes) {
+    GifDecoder decoder = new GifDecoder();
+    return decoder.read(new ByteArrayInputStream(bytes)) == GifDecoder.STATUS_OK && decoder.getFrameCount() > 1;
+  }
+
+  /**
+   * get the image scaled to the size it will be painted with - from the shared cache or decoded from the original bytes
+   *
+   * @param source
+   *          the source of the image (url or path incl. its size and modification time)
+   * @param size
+   *          the size of this label
+   * @param loader
+   *          loads the original bytes if the image is not in the cache
+   * @return the {@link ScaledImage} (without the scaled image for animated gifs or if the size of the label is not known yet)
+   * @throws Exception
+   *           any exception while loading/decoding the image
+   */
+  protected ScaledImage getScaledImage(String source, Dimension size, ImageBytesLoader loader) throws Exception {
+    GraphicsConfiguration gc = getGraphicsConfiguration();
+    double scale = gc != null ? gc.getDefaultTransform().getScaleX() : 1;
+
+    String key = source + "@" + size.width + "x" + size.height + "@" + scale + "@" + getPaintStyle();
+    ScaledImage cached = SCALED_IMAGES.get(key);
+    if (cached != null) {
+      return cached;
+    }
 
-      if (width < 1000 || height < 1000) {
-        // scale fast
-        scaledImage = Scalr.resize(originalImage, Scalr.Method.AUTOMATIC, Scalr.Mode.AUTOMATIC, width, height, Scalr.OP_ANTIALIAS);
+    byte[] bytes = loader.load();
+    if (size.width < 1 || size.height < 1 || isAnimatedGif(bytes)) {
+      return new ScaledImage(bytes, null, null);
+    }
+
+    BufferedImage originalImage = ImageUtils.createImage(bytes);
+    Dimension originalSize = new Dimension(originalImage.getWidth(), originalImage.getHeight());
+
+    Point paintSize = calculateImageSize(originalSize, size.width, size.height);
+    int width = Math.max(1, (int) Math.round(paintSize.x * scale));
+    int height = Math.max(1, (int) Math.round(paintSize.y * scale));
+    BufferedImage image = scale(originalImage, width, height);
+    originalImage.flush();
+
+    ScaledImage scaledImage = new ScaledImage(bytes, originalSize, image);
+    SCALED_IMAGES.put(key, scaledImage);
+    return scaledImage;
+  }
+
+  /**
+   * set the loaded image (called from the workers)
+   */
+  protected void setScaledImage(ScaledImage image, Dimension newSize) {
+    clearImageData();
+    setImageBytes(image.originalBytes);
+
+    if (image.image != null) {
+      originalImageSize = image.originalSize;
+      scaledImage = image.image;
+    }
+    else {
+      recreateScaledImageIfNeeded(0, 0, newSize.width, newSize.height);
+    }
+  }
+
+  private int getPaintStyle() {
+    return (drawBorder ? 1 : 0) | (drawFullWidth ? 2 : 0) | (drawShadow ? 4 : 0) | (scaleUpIfTooSmall ? 8 : 0);
+  }
+
+  /**
+   * the source of a local image for the cache: a changed file must not be taken from the cache
+   */
+  private static String getSource(Path file, BasicFileAttributes attrs) {
+    return file.toString() + ":" + attrs.size() + ":" + attrs.lastModifiedTime().toMillis();
+  }
+
+  /**
+   * load the given image in the background into the shared cache (e.g. the artwork of the next/previous entry in the list), so that it can be
+   * displayed instantly. Prefetches are only processed if there is no other image waiting to be loaded
+   *
+   * @param path
+   *          the path to the image
+   */
+  public void prefetchImagePath(String path) {
+    Dimension size = getSize();
+    if (StringUtils.isBlank(path) || size.width < 1 || size.height < 1) {
+      return;
+    }
+
+    LOADER_POOL.execute(new PrefetchTask(() -> {
+      try {
+        Path file = resolveFile(path);
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        getScaledImage(getSource(file, attrs), size, () -> Files.readAllBytes(file));
       }
-      else {
-        // scale good
-        scaledImage = Scalr.resize(originalImage, Scalr.Method.BALANCED, Scalr.Mode.AUTOMATIC, width, height, Scalr.OP_ANTIALIAS);
+      catch (NoSuchFileException e) {
+        // the cached image may have been removed outside of tmm - it will be cached again when it should be displayed
+        if (e.getFile() != null) {
+          ImageCache.invalidateCachedFile(Paths.get(e.getFile()));
+        }
+      }
+      catch (Exception ignored) {
+        // just a prefetch - the image will be loaded again when it should be displayed
+      }
+    }));
+  }
+
+  /**
+   * get the file to load for the given path (the cached image or the original)
+   */
+  private Path resolveFile(String imagePath) {
+    Path file = null;
+
+    // we prefer reading it from the cache
+    if (preferCache) {
+      file = ImageCache.getCachedFile(Paths.get(imagePath));
+    }
+
+    // not in the cache - read it from the path
+    if (file == null) {
+      file = Paths.get(imagePath);
+    }
+
+    // not available in the path and not preferred from the cache..
+    // well just try to read it from the cache
+    if (!Files.exists(file) && !preferCache) {
+      Path cachedFile = ImageCache.getCachedFile(Paths.get(imagePath));
+      if (cachedFile != null) {
+        file = cachedFile;
       }
-      originalImage.flush();
-      animatedGif = null;
     }
+
+    return file;
   }
 
   public String getImagePath() {
@@ -202,7 +400,7 @@ public class ImageLabel extends JComponent {
 
     // load image in separate worker -> performance
     worker = new ImageLoader(this.imagePath, this.getSize());
-    worker.execute();
+    execute(worker);
     this.repaint();
   }
 
@@ -249,7 +447,7 @@ public class ImageLabel extends JComponent {
 
     // fetch image in separate worker -> performance
     worker = new ImageFetcher(this.getSize());
-    worker.execute();
+    execute(worker);
     this.repaint();
   }
 
@@ -357,7 +555,7 @@ public class ImageLabel extends JComponent {
         Rectangle rectangle = new Rectangle();
 
         if (drawBorder && !drawFullWidth && !drawShadow) {
-          Point size = ImageUtils.calculateSize(getMaxWidth() - 8, getMaxHeight() - 8, originalImageSize.width, originalImageSize.height, true);
+          Point size = calculateImageSize(originalImageSize, getWidth(), getHeight());
 
           // calculate offsets
           if (position == Position.TOP_RIGHT || position == Position.BOTTOM_RIGHT) {
@@ -394,8 +592,7 @@ public class ImageLabel extends JComponent {
           // g.drawImage(scaledImage, offsetX + 4, offsetY + 4, newWidth, newHeight, this);
         }
         else if (drawShadow && !drawFullWidth) {
-          Point size = ImageUtils.calculateSize(this.getMaxWidth() - SHADOW_SIZE, this.getMaxHeight() - SHADOW_SIZE, originalImageSize.width,
-              originalImageSize.height, true);
+          Point size = calculateImageSize(originalImageSize, getWidth(), getHeight());
 
           rectangle.width = size.x;
           rectangle.height = size.y;
@@ -423,14 +620,7 @@ public class ImageLabel extends JComponent {
           drawImageAtScale1x(scaledImage, g2d, hiDpi);
         }
         else {
-          Point size = null;
-
-          if (drawFullWidth) {
-            size = new Point(this.getMaxWidth(), this.getMaxWidth() * originalImageSize.height / originalImageSize.width);
-          }
-          else {
-            size = ImageUtils.calculateSize(this.getMaxWidth(), this.getMaxHeight(), originalImageSize.width, originalImageSize.height, true);
-          }
+          Point size = calculateImageSize(originalImageSize, getWidth(), getHeight());
 
           // calculate offsets
           if (position == Position.TOP_RIGHT || position == Position.BOTTOM_RIGHT) {
@@ -521,6 +711,27 @@ public class ImageLabel extends JComponent {
     }
   }
 
+  /**
+   * calculate the size of the image how it will be painted in a label of the given size (without HiDPI scaling)
+   */
+  private Point calculateImageSize(Dimension originalSize, int width, int height) {
+    int maxWidth = scaleUpIfTooSmall ? width : Math.min(width, originalSize.width);
+    int maxHeight = scaleUpIfTooSmall ? height : Math.min(height, originalSize.height);
+
+    if (drawBorder && !drawFullWidth && !drawShadow) {
+      return ImageUtils.calculateSize(maxWidth - 8, maxHeight - 8, originalSize.width, originalSize.height, true);
+    }
+    else if (drawShadow && !drawFullWidth) {
+      return ImageUtils.calculateSize(maxWidth - SHADOW_SIZE, maxHeight - SHADOW_SIZE, originalSize.width, originalSize.height, true);
+    }
+    else if (drawFullWidth) {
+      return new Point(maxWidth, maxWidth * originalSize.height / originalSize.width);
+    }
+    else {
+      return ImageUtils.calculateSize(maxWidth, maxHeight, originalSize.width, originalSize.height, true);
+    }
+  }
+
   private int getMaxWidth() {
 
     if (!scaleUpIfTooSmall && originalImageSize != null) {
@@ -667,15 +878,16 @@ public class ImageLabel extends JComponent {
         if (preferCache) {
           Path cachedFile = ImageCache.getCachedFile(imageUrl);
 
-          if (cachedFile != null && Files.exists(cachedFile)) {
+          if (cachedFile != null) {
 
             try {
-              byte[] bytes = Files.readAllBytes(cachedFile);
-              clearImageData();
-              setImageBytes(bytes);
-              recreateScaledImageIfNeeded(0, 0, newSize.width, newSize.height);
+              setScaledImage(getScaledImage(imageUrl, newSize, () -> Files.readAllBytes(cachedFile)), newSize);
               return null;
             }
+            catch (NoSuchFileException e) {
+              // the cached image has been removed outside of tmm - drop it from the image cache and fetch it directly
+              ImageCache.invalidateCachedFile(cachedFile);
+            }
             catch (Exception e) {
               // okay, we got an exception here - set the image path to empty to avoid an endless try-to-reload
               ImageLabel.this.imagePath = "";
@@ -693,10 +905,7 @@ public class ImageLabel extends JComponent {
         else {
           url = new Url(imageUrl);
         }
-        byte[] bytes = url.getBytesWithRetry(2);
-        clearImageData();
-        setImageBytes(bytes);
-        recreateScaledImageIfNeeded(0, 0, newSize.width, newSize.height);
+        setScaledImage(getScaledImage(imageUrl, newSize, () -> url.getBytesWithRetry(2)), newSize);
       }
       catch (Exception e) {
         imageUrl = "";
@@ -738,37 +947,31 @@ public class ImageLabel extends JComponent {
 
     @Override
     protected Void doInBackground() {
-      Path file = null;
-
-      // we prefer reading it from the cache
-      if (preferCache) {
-        file = ImageCache.getCachedFile(Paths.get(imagePath));
-      }
-
-      // not in the cache - read it from the path
-      if (file == null) {
-        file = Paths.get(imagePath);
-      }
-
-      // not available in the path and not preferred from the cache..
-      // well just try to read it from the cache
-      if ((file == null || !Files.exists(file)) && !preferCache) {
-        file = ImageCache.getCachedFile(Paths.get(imagePath));
-      }
-
-      if (file != null && Files.exists(file)) {
-
+      try {
+        Path file = resolveFile(imagePath);
+        BasicFileAttributes attrs;
         try {
-          byte[] bytes = Files.readAllBytes(file);
-          clearImageData();
-          setImageBytes(bytes);
-          recreateScaledImageIfNeeded(0, 0, newSize.width, newSize.height);
+          attrs = Files.readAttributes(file, BasicFileAttributes.class);
         }
-        catch (Exception e) {
-          // okay, we got an exception here - set the image path to empty to avoid an endless try-to-reload
-          ImageLabel.this.imagePath = "";
-          clearImageData();
+        catch (NoSuchFileException e) {
+          // the cached image may have been removed outside of tmm - drop it from the image cache and resolve (cache) the image again
+          if (!ImageCache.invalidateCachedFile(file)) {
+            throw e;
+          }
+          file = resolveFile(imagePath);
+          attrs = Files.readAttributes(file, BasicFileAttributes.class);
         }
+
+        Path imageFile = file;
+        setScaledImage(getScaledImage(getSource(imageFile, attrs), newSize, () -> Files.readAllBytes(imageFile)), newSize);
+      }
+      catch (NoSuchFileException ignored) {
+        // nothing to load
+      }
+      catch (Exception e) {
+        // okay, we got an exception here - set the image path to empty to avoid an endless try-to-reload
+        ImageLabel.this.imagePath = "";
+        clearImageData();
       }
 
       return null;
@@ -792,6 +995,53 @@ public class ImageLabel extends JComponent {
     }
   }
 
+  /**
+   * loads the original bytes of an image
+   */
+  @FunctionalInterface
+  protected interface ImageBytesLoader {
+    byte[] load() throws Exception;
+  }
+
+  /**
+   * a decoded image scaled to the size it is painted with; shared between all labels
+   */
+  protected static class ScaledImage {
+    private final byte[]        originalBytes;
+    private final Dimension     originalSize;
+    private final BufferedImage image;
+
+    private ScaledImage(byte[] originalBytes, Dimension originalSize, BufferedImage image) {
+      this.originalBytes = originalBytes;
+      this.originalSize = originalSize;
+      this.image = image;
+    }
+
+    private long getWeight() {
+      long weight = originalBytes.length;
+      if (image != null) {
+        weight += 4L * image.getWidth() * image.getHeight();
+      }
+      return weight;
+    }
+  }
+
+  /*
+   * a prefetch is only processed if no other image is waiting to be loaded
+   */
+  private static class PrefetchTask implements Runnable {
+    private final Runnable task;
+
+    private PrefetchTask(Runnable task) {
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      task.run();
+    }
+  }
+
   /*
    * click listener for creating a lightbox effect
    */
@@ -24,6 +24,7 @@ import javax.swing.JProgressBar;
 import javax.swing.JSeparator;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringEscapeUtils;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.threading.TmmTaskHandle;
 import org.tinymediamanager.core.threading.TmmTaskHandle.TaskState;
@@ -101,7 +102,11 @@ public class TaskListComponent extends JPanel {
     switch (taskHandle.getState()) {
       case CREATED:
       case STARTED:
-        if (StringUtils.isNotBlank(taskHandle.getTaskDescription())) {
+        if (StringUtils.contains(taskHandle.getTaskDescription(), '\n')) {
+          // descriptions with several lines (e.g. the statistics of a pipeline) are shown line by line
+          dynaLabel.setText("<html>" + StringEscapeUtils.escapeHtml4(taskHandle.getTaskDescription()).replace("\n", "<br>") + "</html>");
+        }
+        else if (StringUtils.isNotBlank(taskHandle.getTaskDescription())) {
           dynaLabel.setText(taskHandle.getTaskDescription());
         }
         else {
@@ -16,6 +16,7 @@
 package org.tinymediamanager.ui.movies;
 
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -49,6 +50,7 @@ public class MovieSelectionModel extends AbstractModelObject implements ListSele
   private DefaultEventSelectionModel<Movie> selectionModel;
   private MovieMatcherEditor                matcherEditor;
   private SortedList<Movie>                 sortedList;
+  private EventList<Movie>                  movies;
   private PropertyChangeListener            propertyChangeListener;
 
   /**
@@ -65,6 +67,7 @@ public class MovieSelectionModel extends AbstractModelObject implements ListSele
     constructInitialMovie();
 
     this.sortedList = sortedList;
+    this.movies = source;
     this.selectionModel = new DefaultEventSelectionModel<>(source);
     this.selectionModel.addListSelectionListener(this);
     this.matcherEditor = matcher;
@@ -201,6 +204,37 @@ public class MovieSelectionModel extends AbstractModelObject implements ListSele
     return selectedMovies;
   }
 
+  /**
+   * get the movies before and after the selected movie in the table (e.g. to prefetch their artwork)
+   *
+   * @return the next and the previous movie (if available)
+   */
+  public List<Movie> getAdjacentMovies() {
+    List<Movie> adjacentMovies = new ArrayList<>(2);
+    if (selectionModel == null) {
+      return adjacentMovies;
+    }
+
+    movies.getReadWriteLock().readLock().lock();
+    try {
+      int index = selectionModel.getLeadSelectionIndex();
+      if (index < 0 || index >= movies.size()) {
+        return adjacentMovies;
+      }
+      if (index + 1 < movies.size()) {
+        adjacentMovies.add(movies.get(index + 1));
+      }
+      if (index > 0) {
+        adjacentMovies.add(movies.get(index - 1));
+      }
+    }
+    finally {
+      movies.getReadWriteLock().readLock().unlock();
+    }
+
+    return adjacentMovies;
+  }
+
   /**
    * Sets the selected movies.
    * 
@@ -50,6 +50,7 @@ import org.tinymediamanager.ui.movies.actions.MovieEditAction;
 import org.tinymediamanager.ui.movies.actions.MovieExportAction;
 import org.tinymediamanager.ui.movies.actions.MovieFetchImdbRating;
 import org.tinymediamanager.ui.movies.actions.MovieFindMissingAction;
+import org.tinymediamanager.ui.movies.actions.MovieHashFilesAction;
 import org.tinymediamanager.ui.movies.actions.MovieMediaInformationAction;
 import org.tinymediamanager.ui.movies.actions.MovieReadNfoAction;
 import org.tinymediamanager.ui.movies.actions.MovieRebuildImageCacheAction;
@@ -233,6 +234,7 @@ public class MovieUIModule extends AbstractTmmUIModule {
     popupMenu.add(createAndRegisterAction(MovieCleanUpFilesAction.class));
     popupMenu.add(createAndRegisterAction(MovieClearImageCacheAction.class));
     popupMenu.add(createAndRegisterAction(MovieRebuildImageCacheAction.class));
+    popupMenu.add(createAndRegisterAction(MovieHashFilesAction.class));
     popupMenu.add(createAndRegisterAction(MovieRemoveAction.class));
     popupMenu.add(createAndRegisterAction(MovieDeleteAction.class));
 
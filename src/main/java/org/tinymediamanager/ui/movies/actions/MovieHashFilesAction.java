@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.ui.movies.actions;
+
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JOptionPane;
+
+import org.tinymediamanager.core.TmmResourceBundle;
+import org.tinymediamanager.core.movie.entities.Movie;
+import org.tinymediamanager.core.tasks.FileHashTask;
+import org.tinymediamanager.core.threading.TmmTaskManager;
+import org.tinymediamanager.ui.MainWindow;
+import org.tinymediamanager.ui.actions.TmmAction;
+import org.tinymediamanager.ui.movies.MovieUIModule;
+
+/**
+ * MovieHashFilesAction - compute the file hashes of the selected movie(s)
+ * 
+ * @author Manuel Laggner
+ */
+public class MovieHashFilesAction extends TmmAction {
+  private static final long serialVersionUID = 4913618420557364532L;
+
+  public MovieHashFilesAction() {
+    putValue(NAME, TmmResourceBundle.getString("movie.hashfiles"));
+    putValue(SHORT_DESCRIPTION, TmmResourceBundle.getString("movie.hashfiles.desc"));
+  }
+
+  @Override
+  protected void processAction(ActionEvent e) {
+    List<Movie> selectedMovies = new ArrayList<>(MovieUIModule.getInstance().getSelectionModel().getSelectedMovies());
+
+    if (selectedMovies.isEmpty()) {
+      JOptionPane.showMessageDialog(MainWindow.getInstance(), TmmResourceBundle.getString("tmm.nothingselected"));
+      return;
+    }
+
+    TmmTaskManager.getInstance().addUnnamedTask(new FileHashTask(selectedMovies));
+  }
+}
@@ -29,8 +29,8 @@ import org.tinymediamanager.core.movie.MovieScraperMetadataConfig;
 import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
 import org.tinymediamanager.core.movie.entities.Movie;
 import org.tinymediamanager.core.movie.tasks.MovieScrapeTask;
+import org.tinymediamanager.core.threading.TmmTask;
 import org.tinymediamanager.core.threading.TmmTaskManager;
-import org.tinymediamanager.core.threading.TmmThreadPool;
 import org.tinymediamanager.ui.IconManager;
 import org.tinymediamanager.ui.MainWindow;
 import org.tinymediamanager.ui.actions.TmmAction;
@@ -74,7 +74,7 @@ public class MovieSelectedScrapeAction extends TmmAction {
     // do we want to scrape?
     if (dialog.shouldStartScrape()) {
       // scrape
-      TmmThreadPool scrapeTask = new MovieScrapeTask(selectedMovies, true, options, config);
+      TmmTask scrapeTask = new MovieScrapeTask(selectedMovies, true, options, config);
       TmmTaskManager.getInstance().addMainTask(scrapeTask);
     }
   }
@@ -215,6 +215,12 @@ public class MovieInformationPanel extends JPanel {
 
       if ("selectedMovie".equals(property)) {
         SwingUtilities.invokeLater(() -> scrollPane.getVerticalScrollBar().setValue(0));
+
+        // load the artwork of the next/previous movie in the background
+        for (Movie adjacentMovie : selectionModel.getAdjacentMovies()) {
+          lblMoviePoster.prefetchImagePath(adjacentMovie.getArtworkFilename(MediaFileType.POSTER));
+          lblMovieFanart.prefetchImagePath(adjacentMovie.getArtworkFilename(MediaFileType.FANART));
+        }
       }
 
       if ("selectedMovie".equals(property) || RATING.equals(property)) {
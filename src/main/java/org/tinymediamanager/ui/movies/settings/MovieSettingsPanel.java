@@ -39,6 +39,7 @@ import org.jdesktop.beansbinding.Bindings;
 import org.jdesktop.beansbinding.Property;
 import org.jdesktop.swingbinding.JListBinding;
 import org.jdesktop.swingbinding.SwingBindings;
+import org.tinymediamanager.core.Constants;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.movie.MovieModuleManager;
 import org.tinymediamanager.core.movie.MovieSettings;
@@ -71,6 +72,7 @@ public class MovieSettingsPanel extends JPanel {
   private JCheckBox                    chckbxTraktSync;
   private JCheckBox                    chckbxRenameAfterScrape;
   private JCheckBox                    chckbxAutoUpdateOnStart;
+  private JCheckBox                    chckbxWatchDatasources;
   private JCheckBox                    chckbxBuildImageCache;
   private JCheckBox                    chckbxExtractArtworkFromVsmeta;
   private JCheckBox                    chckbxRuntimeFromMi;
@@ -396,6 +398,13 @@ public class MovieSettingsPanel extends JPanel {
         lblAutomaticUpdateHint.setToolTipText(TmmResourceBundle.getString("Settings.movie.automaticupdate.desc"));
         panelAutomaticTasks.add(lblAutomaticUpdateHint, "cell 1 2 2 1");
 
+        chckbxWatchDatasources = new JCheckBox(TmmResourceBundle.getString("Settings.movie.watchdatasources"));
+        panelAutomaticTasks.add(chckbxWatchDatasources, "cell 1 3 2 1");
+
+        JLabel lblWatchDatasourcesHint = new JLabel(IconManager.HINT);
+        lblWatchDatasourcesHint.setToolTipText(TmmResourceBundle.getString("Settings.movie.watchdatasources.desc"));
+        panelAutomaticTasks.add(lblWatchDatasourcesHint, "cell 1 3 2 1");
+
       }
     }
     {
@@ -570,5 +579,10 @@ public class MovieSettingsPanel extends JPanel {
     AutoBinding autoBinding_5 = Bindings.createAutoBinding(UpdateStrategy.READ_WRITE, settings, movieSettingsBeanProperty_6,
         chckbxUseMediainfoMetadata, jCheckBoxBeanProperty);
     autoBinding_5.bind();
+    //
+    Property movieSettingsBeanProperty_18 = BeanProperty.create(Constants.WATCH_DATASOURCES);
+    AutoBinding autoBinding_18 = Bindings.createAutoBinding(UpdateStrategy.READ_WRITE, settings, movieSettingsBeanProperty_18, chckbxWatchDatasources,
+        jCheckBoxBeanProperty);
+    autoBinding_18.bind();
   }
 }
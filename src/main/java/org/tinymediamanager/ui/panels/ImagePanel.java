@@ -22,6 +22,7 @@ import java.awt.event.HierarchyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -154,6 +155,13 @@ public class ImagePanel extends JPanel implements HierarchyListener {
             if (file == null) {
               file = mediaFile.getFileAsPath();
             }
+            else if (!Files.exists(file) && ImageCache.invalidateCachedFile(file)) {
+              // the cached file has been removed outside of tmm - cache it again (or take the original)
+              file = ImageCache.getCachedFile(mediaFile);
+              if (file == null) {
+                file = mediaFile.getFileAsPath();
+              }
+            }
             BufferedImage bufferedImage = ImageUtils.createImage(file);
             Point size = ImageUtils.calculateSize(maxWidth, maxHeight, bufferedImage.getWidth(), bufferedImage.getHeight(), true);
             BufferedImage img = Scalr.resize(bufferedImage, Scalr.Method.QUALITY, Scalr.Mode.AUTOMATIC, size.x, size.y, Scalr.OP_ANTIALIAS);
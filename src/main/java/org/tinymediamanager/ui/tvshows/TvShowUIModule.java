@@ -56,6 +56,7 @@ import org.tinymediamanager.ui.tvshows.actions.TvShowDownloadThemeAction;
 import org.tinymediamanager.ui.tvshows.actions.TvShowEditAction;
 import org.tinymediamanager.ui.tvshows.actions.TvShowExportAction;
 import org.tinymediamanager.ui.tvshows.actions.TvShowFetchImdbRating;
+import org.tinymediamanager.ui.tvshows.actions.TvShowHashFilesAction;
 import org.tinymediamanager.ui.tvshows.actions.TvShowMediaInformationAction;
 import org.tinymediamanager.ui.tvshows.actions.TvShowMissingEpisodeListAction;
 import org.tinymediamanager.ui.tvshows.actions.TvShowReadEpisodeNfoAction;
@@ -314,6 +315,7 @@ public class TvShowUIModule extends AbstractTmmUIModule {
     popupMenu.add(createAndRegisterAction(TvShowCleanUpFilesAction.class));
     popupMenu.add(createAndRegisterAction(TvShowClearImageCacheAction.class));
     popupMenu.add(createAndRegisterAction(TvShowRebuildImageCacheAction.class));
+    popupMenu.add(createAndRegisterAction(TvShowHashFilesAction.class));
     popupMenu.add(createAndRegisterAction(TvShowRemoveAction.class));
     popupMenu.add(createAndRegisterAction(TvShowDeleteAction.class));
 
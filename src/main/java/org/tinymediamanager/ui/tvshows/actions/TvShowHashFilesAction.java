@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.ui.tvshows.actions;
+
+import java.awt.event.ActionEvent;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.swing.JOptionPane;
+
+import org.tinymediamanager.core.TmmResourceBundle;
+import org.tinymediamanager.core.tasks.FileHashTask;
+import org.tinymediamanager.core.threading.TmmTaskManager;
+import org.tinymediamanager.core.tvshow.entities.TvShow;
+import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
+import org.tinymediamanager.ui.MainWindow;
+import org.tinymediamanager.ui.actions.TmmAction;
+import org.tinymediamanager.ui.tvshows.TvShowUIModule;
+
+/**
+ * The class TvShowHashFilesAction. To compute the file hashes of the selected TV shows/episodes
+ * 
+ * @author Manuel Laggner
+ */
+public class TvShowHashFilesAction extends TmmAction {
+  private static final long serialVersionUID = -2167294837365512045L;
+
+  public TvShowHashFilesAction() {
+    putValue(NAME, TmmResourceBundle.getString("tvshow.hashfiles"));
+    putValue(SHORT_DESCRIPTION, TmmResourceBundle.getString("tvshow.hashfiles.desc"));
+  }
+
+  @Override
+  protected void processAction(ActionEvent e) {
+    Set<TvShowEpisode> episodes = new LinkedHashSet<>();
+
+    for (TvShow tvShow : TvShowUIModule.getInstance().getSelectionModel().getSelectedTvShows()) {
+      episodes.addAll(tvShow.getEpisodes());
+    }
+    for (Object obj : TvShowUIModule.getInstance().getSelectionModel().getSelectedObjects()) {
+      if (obj instanceof TvShowEpisode) {
+        episodes.add((TvShowEpisode) obj);
+      }
+    }
+
+    if (episodes.isEmpty()) {
+      JOptionPane.showMessageDialog(MainWindow.getInstance(), TmmResourceBundle.getString("tmm.nothingselected"));
+      return;
+    }
+
+    TmmTaskManager.getInstance().addUnnamedTask(new FileHashTask(episodes));
+  }
+}
@@ -31,6 +31,7 @@ import org.jdesktop.beansbinding.AutoBinding.UpdateStrategy;
 import org.jdesktop.beansbinding.BeanProperty;
 import org.jdesktop.beansbinding.Bindings;
 import org.jdesktop.beansbinding.Property;
+import org.tinymediamanager.core.Constants;
 import org.tinymediamanager.core.TmmResourceBundle;
 import org.tinymediamanager.core.threading.TmmTask;
 import org.tinymediamanager.core.threading.TmmTaskManager;
@@ -72,6 +73,7 @@ class TvShowSettingsPanel extends JPanel {
   private AutocompleteComboBox<String> cbRating;
   private JCheckBox                    chckbxRenameAfterScrape;
   private JCheckBox                    chckbxAutoUpdateOnStart;
+  private JCheckBox                    chckbxWatchDatasources;
   private JCheckBox                    chckbxShowMissingSpecials;
   private JCheckBox                    chckbxTvShowTableTooltips;
 
@@ -330,6 +332,13 @@ class TvShowSettingsPanel extends JPanel {
         JLabel lblAutomaticUpdateHint = new JLabel(IconManager.HINT);
         lblAutomaticUpdateHint.setToolTipText(TmmResourceBundle.getString("Settings.tvshow.automaticupdate.desc"));
         panelAutomaticTasks.add(lblAutomaticUpdateHint, "cell 1 2 2 1");
+
+        chckbxWatchDatasources = new JCheckBox(TmmResourceBundle.getString("Settings.tvshow.watchdatasources"));
+        panelAutomaticTasks.add(chckbxWatchDatasources, "cell 1 3 2 1");
+
+        JLabel lblWatchDatasourcesHint = new JLabel(IconManager.HINT);
+        lblWatchDatasourcesHint.setToolTipText(TmmResourceBundle.getString("Settings.tvshow.watchdatasources.desc"));
+        panelAutomaticTasks.add(lblWatchDatasourcesHint, "cell 1 3 2 1");
       }
     }
     {
@@ -506,5 +515,10 @@ class TvShowSettingsPanel extends JPanel {
     AutoBinding autoBinding_12 = Bindings.createAutoBinding(UpdateStrategy.READ_WRITE, settings, tvShowSettingsBeanProperty_9,
         chckbxMetadataFromMediainfo, jCheckBoxBeanProperty);
     autoBinding_12.bind();
+    //
+    Property tvShowSettingsBeanProperty_12 = BeanProperty.create(Constants.WATCH_DATASOURCES);
+    AutoBinding autoBinding_13 = Bindings.createAutoBinding(UpdateStrategy.READ_WRITE, settings, tvShowSettingsBeanProperty_12,
+        chckbxWatchDatasources, jCheckBoxBeanProperty);
+    autoBinding_13.bind();
   }
 }
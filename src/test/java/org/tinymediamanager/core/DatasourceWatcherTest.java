@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+
+public class DatasourceWatcherTest extends BasicTest {
+
+  private Path            datasource;
+  private List<Set<Path>> updates;
+
+  @Before
+  public void setup() throws Exception {
+    deleteSettingsFolder();
+    datasource = Paths.get(getSettingsFolder(), "ds").toAbsolutePath();
+    Files.createDirectories(datasource.resolve("Breaking Bad"));
+
+    updates = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  public void testWatchService() throws Exception {
+    DatasourceWatcher watcher = new DatasourceWatcher("test", (ds, dirs) -> {
+      updates.add(dirs);
+      return null;
+    }, null, 500, 60000, false);
+    watcher.setDatasources(Collections.singletonList(datasource.toString()));
+    watcher.start();
+    Thread.sleep(500); // registration
+
+    // copy a whole season
+    Path season = datasource.resolve("Breaking Bad").resolve("Season 1");
+    Files.createDirectories(season);
+    for (int i = 1; i <= 100; i++) {
+      Files.createFile(season.resolve("Breaking Bad - S01E" + i + ".mkv"));
+    }
+
+    waitForUpdates(1);
+    Thread.sleep(1000);
+    watcher.stop();
+
+    // one update for the whole burst
+    assertThat(updates).hasSize(1);
+    assertThat(updates.get(0)).contains(season);
+    assertThat(updates.get(0)).doesNotContain(datasource);
+  }
+
+  @Test
+  public void testPolling() throws Exception {
+    DatasourceWatcher watcher = new DatasourceWatcher("test", (ds, dirs) -> {
+      updates.add(dirs);
+      return null;
+    }, null, 200, 300, true);
+    watcher.setDatasources(Collections.singletonList(datasource.toString()));
+    watcher.start();
+    Thread.sleep(500); // snapshot
+
+    Path show = datasource.resolve("Breaking Bad");
+    Files.createFile(show.resolve("tvshow.nfo"));
+
+    waitForUpdates(1);
+    watcher.stop();
+
+    assertThat(updates).hasSize(1);
+    assertThat(updates.get(0)).containsExactly(show);
+  }
+
+  @Test
+  public void testOwnChangesIgnored() throws Exception {
+    DatasourceWatcher watcher = new DatasourceWatcher("test", (ds, dirs) -> {
+      updates.add(dirs);
+      return null;
+    }, null, 200, 300, true);
+    Path show = datasource.resolve("Better Call Saul");
+    Files.createDirectories(show);
+    watcher.setDatasources(Collections.singletonList(datasource.toString()));
+    watcher.start();
+    Thread.sleep(500); // snapshot
+
+    // written by tmm itself
+    Path nfo = show.resolve("tvshow.nfo");
+    DatasourceWatcher.ignoreChanges(nfo);
+    Files.createFile(nfo);
+
+    Thread.sleep(1500);
+    assertThat(updates).isEmpty();
+
+    // written by someone else
+    Files.createFile(show.resolve("Better Call Saul - S01E01.mkv"));
+
+    waitForUpdates(1);
+    watcher.stop();
+
+    assertThat(updates).hasSize(1);
+    assertThat(updates.get(0)).containsExactly(show);
+  }
+
+  @Test
+  public void testOwnChangesPerPath() throws Exception {
+    DatasourceWatcher watcher = new DatasourceWatcher("test", (ds, dirs) -> {
+      updates.add(dirs);
+      return null;
+    }, null, 500, 60000, false);
+    Path show = datasource.resolve("Breaking Bad");
+    watcher.setDatasources(Collections.singletonList(datasource.toString()));
+    watcher.start();
+    Thread.sleep(500); // registration
+
+    // written by tmm itself (including the temporary file of a download)
+    Path nfo = show.resolve("tvshow.nfo");
+    DatasourceWatcher.ignoreChanges(nfo);
+    Files.createFile(nfo);
+    Files.createFile(show.resolve("trailer.mkv.part"));
+
+    Thread.sleep(1500);
+    assertThat(updates).isEmpty();
+
+    // written by someone else right after tmm wrote to the same directory
+    Files.createFile(show.resolve("Breaking Bad - S01E01.mkv"));
+
+    waitForUpdates(1);
+    watcher.stop();
+
+    assertThat(updates).hasSize(1);
+    assertThat(updates.get(0)).containsExactly(show);
+  }
+
+  private void waitForUpdates(int count) throws Exception {
+    for (int i = 0; i < 100 && updates.size() < count; i++) {
+      Thread.sleep(100);
+    }
+  }
+}
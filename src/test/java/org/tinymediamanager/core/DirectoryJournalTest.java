@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.h2.mvstore.MVStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+
+public class DirectoryJournalTest extends BasicTest {
+
+  private Path datasource;
+  private Path movie1;
+  private Path movie2;
+
+  @Before
+  public void setup() throws Exception {
+    deleteSettingsFolder();
+    datasource = Paths.get(getSettingsFolder(), "ds").toAbsolutePath();
+
+    movie1 = datasource.resolve("Aladdin (1992)");
+    Files.createDirectories(movie1);
+    Files.createFile(movie1.resolve("Aladdin.avi"));
+
+    movie2 = datasource.resolve("Bambi (1942)");
+    Files.createDirectories(movie2.resolve("VIDEO_TS"));
+    Files.createFile(movie2.resolve("VIDEO_TS").resolve("VIDEO_TS.IFO"));
+  }
+
+  @Test
+  public void testUnchangedDirectories() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    DirectoryJournal journal = new DirectoryJournal(mvStore, "directoryJournal");
+
+    // nothing recorded yet
+    DirectoryJournal.Scan scan = journal.startScan(datasource, "config", false);
+    assertThat(scan.isUnchanged(movie1)).isFalse();
+    scan.record(movie1);
+    scan.record(movie2);
+    scan.commit();
+    assertThat(scan.getVisited()).isEqualTo(3);
+    assertThat(journal.size()).isEqualTo(3);
+
+    // nothing changed
+    scan = journal.startScan(datasource, "config", false);
+    assertThat(scan.isUnchanged(movie1)).isTrue();
+    assertThat(scan.isUnchanged(movie2)).isTrue();
+
+    // a forced scan never skips anything
+    assertThat(journal.startScan(datasource, "config", true).isUnchanged(movie1)).isFalse();
+
+    // a new file deep in the tree marks the whole tree as changed
+    Files.createFile(movie2.resolve("VIDEO_TS").resolve("VTS_01_1.VOB"));
+    scan = journal.startScan(datasource, "config", false);
+    assertThat(scan.isUnchanged(movie1)).isTrue();
+    assertThat(scan.isUnchanged(movie2)).isFalse();
+
+    assertThat(scan.skip(movie1)).isEqualTo(1);
+    scan.record(movie2);
+    scan.commit();
+    assertThat(scan.getSkipped()).isEqualTo(1);
+    assertThat(scan.getVisited()).isEqualTo(2);
+
+    scan = journal.startScan(datasource, "config", false);
+    assertThat(scan.isUnchanged(movie2)).isTrue();
+
+    // changed settings invalidate the whole journal
+    scan = journal.startScan(datasource, "other config", false);
+    assertThat(scan.isUnchanged(movie1)).isFalse();
+    assertThat(journal.size()).isZero();
+
+    mvStore.close();
+  }
+
+  @Test
+  public void testRemoveVanishedDirectories() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    DirectoryJournal journal = new DirectoryJournal(mvStore, "directoryJournal");
+
+    // a directory of another data source with the same prefix
+    Path otherDatasource = Paths.get(datasource.toString() + "2");
+    Files.createDirectories(otherDatasource.resolve("Cars (2006)"));
+    DirectoryJournal.Scan scan = journal.startScan(otherDatasource, "config", false);
+    scan.record(otherDatasource.resolve("Cars (2006)"));
+    scan.commit();
+
+    scan = journal.startScan(datasource, "config", false);
+    scan.record(movie1);
+    scan.record(movie2);
+    scan.commit();
+    assertThat(journal.size()).isEqualTo(4);
+
+    // movie2 has been removed from the data source
+    scan = journal.startScan(datasource, "config", false);
+    assertThat(scan.skip(movie1)).isEqualTo(1);
+    scan.commit();
+
+    assertThat(journal.size()).isEqualTo(2);
+    scan = journal.startScan(otherDatasource, "config", false);
+    assertThat(scan.isUnchanged(otherDatasource.resolve("Cars (2006)"))).isTrue();
+
+    mvStore.close();
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.h2.mvstore.MVStore;
+import org.junit.Before;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.entities.MediaFileAudioStream;
+import org.tinymediamanager.core.entities.MediaFileSubtitle;
+import org.tinymediamanager.core.entities.MediaGenres;
+import org.tinymediamanager.core.entities.MediaRating;
+import org.tinymediamanager.core.entities.Person;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+/**
+ * compare the database codecs on a synthetic database with 50k movies (size, encode and decode times)
+ *
+ * @author Manuel Laggner
+ */
+public class ITDatabaseCodecBenchmarkTest extends BasicTest {
+  private static final int MOVIE_COUNT = 50000;
+
+  private final List<Movie> movies      = new ArrayList<>();
+
+  @Before
+  public void setup() throws Exception {
+    deleteSettingsFolder();
+    Files.createDirectories(Paths.get(getSettingsFolder()));
+
+    Random random = new Random(42);
+    for (int i = 0; i < MOVIE_COUNT; i++) {
+      movies.add(createMovie(random, i));
+    }
+  }
+
+  @Test
+  public void benchmarkCodecs() throws Exception {
+    for (DatabaseCodec codec : DatabaseCodec.values()) {
+      Path databaseFile = Paths.get(getSettingsFolder(), "movies-" + codec.name().toLowerCase() + ".db");
+
+      // write
+      MVStore mvStore = new MVStore.Builder().fileName(databaseFile.toString()).compressHigh().open();
+      MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, codec.createObjectMapper());
+
+      long start = System.currentTimeMillis();
+      for (Movie movie : movies) {
+        movieMap.persist(movie);
+      }
+      mvStore.commit();
+      long encode = System.currentTimeMillis() - start;
+
+      // persist again without changes
+      start = System.currentTimeMillis();
+      for (Movie movie : movies) {
+        movieMap.persist(movie);
+      }
+      long unchanged = System.currentTimeMillis() - start;
+
+      mvStore.compactMoveChunks();
+      mvStore.close();
+
+      // read
+      mvStore = new MVStore.Builder().fileName(databaseFile.toString()).compressHigh().open();
+      movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, codec.createObjectMapper());
+      DatabaseLoader<Movie> loader = new DatabaseLoader<>("movie", movieMap);
+      List<Movie> loadedMovies = loader.load();
+      mvStore.close();
+
+      assertThat(loadedMovies).hasSize(MOVIE_COUNT);
+
+      System.out.println(String.format("%-6s size: %6d kB, encode: %5d ms, unchanged save: %5d ms, load: %5d ms (read: %5d ms, decode: %5d ms)",
+          codec, Files.size(databaseFile) / 1024, encode, unchanged, loader.getWallTime(), loader.getReadTime(), loader.getDecodeTime()));
+    }
+  }
+
+  private Movie createMovie(Random random, int i) {
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Movie " + i);
+    movie.setOriginalTitle("Original Movie " + i);
+    movie.setPath("/media/movies/Movie " + i);
+    movie.setDataSource("/media/movies");
+    movie.setYear(1950 + random.nextInt(70));
+    movie.setPlot("Lorem ipsum dolor sit amet, consectetur adipiscing elit. Praesent vel lacus libero. Ut vel lacus erat " + i);
+    movie.setRating(new MediaRating(MediaRating.NFO, random.nextFloat() * 10, random.nextInt(10000), 10));
+    movie.setImdbId(String.format("tt%07d", i));
+    movie.setTmdbId(i);
+    movie.setRuntime(80 + random.nextInt(60));
+    movie.setCertification(MediaCertification.US_PG13);
+    movie.addToGenres(Arrays.asList(MediaGenres.values()[random.nextInt(MediaGenres.values().length)],
+        MediaGenres.values()[random.nextInt(MediaGenres.values().length)]));
+    movie.addToActors(Arrays.asList(new Person(Person.Type.ACTOR, "Actor " + random.nextInt(1000), "Role 1"),
+        new Person(Person.Type.ACTOR, "Actor " + random.nextInt(1000), "Role 2")));
+    movie.addToDirectors(Collections.singletonList(new Person(Person.Type.DIRECTOR, "Director " + random.nextInt(100), "Director")));
+    movie.addToTags(Arrays.asList("tag" + random.nextInt(20), "tag" + random.nextInt(20)));
+
+    MediaFile mf = new MediaFile();
+    mf.setType(MediaFileType.VIDEO);
+    mf.setPath(movie.getPath());
+    mf.setFilename("Movie " + i + ".mkv");
+    mf.setFilesize(1_000_000_000L + random.nextInt(1_000_000_000));
+    mf.setVideoCodec("h264");
+    mf.setContainerFormat("Matroska");
+    mf.setVideoWidth(1920);
+    mf.setVideoHeight(1080);
+    mf.setDuration(6000);
+
+    MediaFileAudioStream audio = new MediaFileAudioStream();
+    audio.setCodec("AC3");
+    audio.setLanguage("eng");
+    audio.setAudioChannels(6);
+    mf.setAudioStreams(Collections.singletonList(audio));
+
+    MediaFileSubtitle subtitle = new MediaFileSubtitle();
+    subtitle.setLanguage("ger");
+    mf.addSubtitle(subtitle);
+    movie.addToMediaFiles(mf);
+
+    MediaFile poster = new MediaFile();
+    poster.setType(MediaFileType.POSTER);
+    poster.setPath(movie.getPath());
+    poster.setFilename("poster.jpg");
+    movie.addToMediaFiles(poster);
+
+    return movie;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.h2.mvstore.MVStore;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+
+public class ImageCacheIndexTest extends BasicTest {
+
+  @Test
+  public void testEntries() {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    ImageCacheIndex index = new ImageCacheIndex(mvStore, "imageCache");
+
+    index.put("a.jpg", new ImageCacheIndex.Entry("/movies/a/poster.jpg", 1000, 5000, 100, 0));
+    index.put("b.jpg", new ImageCacheIndex.Entry("/movies/b/poster.jpg", 2000, 6000, 200, 0));
+    assertThat(index.size()).isEqualTo(2);
+    assertThat(index.getTotalSize()).isEqualTo(300);
+
+    ImageCacheIndex.Entry entry = index.get("a.jpg");
+    assertThat(entry.getOriginal()).isEqualTo("/movies/a/poster.jpg");
+    assertThat(entry.isOriginal(1000, 5000)).isTrue();
+    // replaced original
+    assertThat(entry.isOriginal(1001, 5000)).isFalse();
+    assertThat(entry.isOriginal(1000, 5001)).isFalse();
+    // the lookup has been recorded
+    assertThat(entry.getLastAccess()).isGreaterThan(0);
+
+    assertThat(index.get("c.jpg")).isNull();
+
+    // replace an entry
+    index.put("a.jpg", new ImageCacheIndex.Entry("/movies/a/poster.jpg", 1001, 5000, 150, 0));
+    assertThat(index.getTotalSize()).isEqualTo(350);
+
+    index.remove("b.jpg");
+    assertThat(index.size()).isEqualTo(1);
+    assertThat(index.getTotalSize()).isEqualTo(150);
+
+    // reopen: the size is calculated from the stored entries
+    index = new ImageCacheIndex(mvStore, "imageCache");
+    assertThat(index.getTotalSize()).isEqualTo(150);
+  }
+
+  @Test
+  public void testEvict() {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    ImageCacheIndex index = new ImageCacheIndex(mvStore, "imageCache");
+
+    for (int i = 0; i < 10; i++) {
+      index.put(i + ".jpg", new ImageCacheIndex.Entry("/movies/" + i + ".jpg", 1000, 5000, 100, i * 1000L));
+    }
+    // touch the oldest entry
+    index.get("0.jpg");
+
+    assertThat(index.evict(2000)).isEmpty();
+
+    List<String> evicted = index.evict(500);
+    // down to 90% of the quota; least recently used first
+    assertThat(evicted).containsExactly("1.jpg", "2.jpg", "3.jpg", "4.jpg", "5.jpg", "6.jpg");
+    assertThat(index.getTotalSize()).isEqualTo(400);
+    assertThat(index.get("0.jpg")).isNotNull();
+  }
+
+  @Test
+  public void testImportFiles() throws Exception {
+    deleteSettingsFolder();
+    Path cacheDir = Paths.get(getSettingsFolder(), "image");
+    Files.createDirectories(cacheDir.resolve("A"));
+    Files.write(cacheDir.resolve("A").resolve("ABCDEF.jpg"), new byte[123]);
+
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    ImageCacheIndex index = new ImageCacheIndex(mvStore, "imageCache");
+    assertThat(index.importFiles(cacheDir)).isEqualTo(1);
+    assertThat(index.importFiles(cacheDir)).isZero();
+
+    ImageCacheIndex.Entry entry = index.get(Paths.get("A", "ABCDEF.jpg").toString());
+    assertThat(entry).isNotNull();
+    assertThat(entry.getCachedSize()).isEqualTo(123);
+    // the original is unknown
+    assertThat(entry.getOriginal()).isNull();
+    assertThat(entry.isOriginal(-1, -1)).isFalse();
+    assertThat(index.isVerificationDue("unknown.jpg")).isTrue();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+
+public class ImageMemoryBudgetTest extends BasicTest {
+
+  @Test
+  public void testReserve() throws Exception {
+    ImageMemoryBudget budget = new ImageMemoryBudget(10 * 1024 * 1024);
+    assertThat(budget.getAvailableBytes()).isEqualTo(10 * 1024 * 1024);
+
+    ImageMemoryBudget.Reservation reservation = budget.reserve(ImageMemoryBudget.estimate(1000, 1500));
+    assertThat(budget.getAvailableBytes()).isLessThan(5 * 1024 * 1024);
+
+    // closing twice must not release twice
+    reservation.close();
+    reservation.close();
+    assertThat(budget.getAvailableBytes()).isEqualTo(10 * 1024 * 1024);
+  }
+
+  @Test
+  public void testWaitForMemory() throws Exception {
+    ImageMemoryBudget budget = new ImageMemoryBudget(10 * 1024 * 1024);
+
+    // more than the whole budget is capped to the budget
+    ImageMemoryBudget.Reservation big = budget.reserve(100 * 1024 * 1024);
+    assertThat(budget.getAvailableBytes()).isZero();
+
+    CountDownLatch reserved = new CountDownLatch(1);
+    AtomicBoolean released = new AtomicBoolean(false);
+    Thread thread = new Thread(() -> {
+      try (ImageMemoryBudget.Reservation small = budget.reserve(1024)) {
+        // the big reservation must have been released before
+        assertThat(released.get()).isTrue();
+        reserved.countDown();
+      }
+      catch (InterruptedException ignored) {
+        // test failed
+      }
+    });
+    thread.start();
+
+    assertThat(reserved.await(200, TimeUnit.MILLISECONDS)).isFalse();
+    released.set(true);
+    big.close();
+    assertThat(reserved.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testSubsampledImage() throws Exception {
+    deleteSettingsFolder();
+    Path folder = Paths.get(getSettingsFolder());
+    Files.createDirectories(folder);
+
+    Path file = folder.resolve("poster.png");
+    ImageIO.write(new BufferedImage(2000, 3000, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+
+    Dimension size = ImageUtils.readImageSize(file);
+    assertThat(size).isEqualTo(new Dimension(2000, 3000));
+
+    BufferedImage image = ImageUtils.createImage(file, 4);
+    assertThat(image.getWidth()).isEqualTo(500);
+    assertThat(image.getHeight()).isEqualTo(750);
+
+    // no image at all
+    Path text = folder.resolve("poster.txt");
+    Files.write(text, "no image".getBytes());
+    assertThat(ImageUtils.readImageSize(text)).isNull();
+  }
+
+  @Test
+  public void testScaledImageInBands() throws Exception {
+    deleteSettingsFolder();
+    Path folder = Paths.get(getSettingsFolder());
+    Files.createDirectories(folder);
+
+    // a very long banner: red on top, blue at the bottom
+    BufferedImage banner = new BufferedImage(200, 3000, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2 = banner.createGraphics();
+    g2.setColor(Color.RED);
+    g2.fillRect(0, 0, 200, 1500);
+    g2.setColor(Color.BLUE);
+    g2.fillRect(0, 1500, 200, 1500);
+    g2.dispose();
+
+    Path file = folder.resolve("banner.png");
+    ImageIO.write(banner, "png", file.toFile());
+
+    BufferedImage image = ImageUtils.createScaledImageInBands(file, 2, 20, 300, 101);
+    assertThat(image.getWidth()).isEqualTo(20);
+    assertThat(image.getHeight()).isEqualTo(300);
+
+    // no gaps between the bands
+    for (int y = 0; y < image.getHeight(); y++) {
+      assertThat(image.getRGB(10, y) >>> 24).isEqualTo(0xff);
+    }
+    assertThat(image.getRGB(10, 10)).isEqualTo(Color.RED.getRGB());
+    assertThat(image.getRGB(10, 290)).isEqualTo(Color.BLUE.getRGB());
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.movie.entities.Movie;
+import org.tinymediamanager.core.tvshow.entities.TvShowEpisode;
+
+public class MediaEntityIndexTest extends BasicTest {
+
+  @Test
+  public void testMovieIndex() throws Exception {
+    MediaEntityIndex<Movie> index = new MediaEntityIndex<>(movie -> Collections.singletonList(movie.getPathNIO()));
+
+    Movie movie1 = createMovie("/media/movies/Aladdin (1992)");
+    Movie movie2 = createMovie("/media/movies/Alien (1979)");
+    Movie movie3 = createMovie("/media/movies/Alien (1979)"); // multi movie folder
+
+    index.addAll(Arrays.asList(movie1, movie2, movie3));
+    assertThat(index.checkConsistency(Arrays.asList(movie1, movie2, movie3))).isEmpty();
+
+    assertThat(index.get(movie1.getDbId())).isSameAs(movie1);
+    assertThat(index.get(UUID.randomUUID())).isNull();
+    assertThat(index.getByPath(Paths.get("/media/movies/Aladdin (1992)"))).isSameAs(movie1);
+    assertThat(index.getByPath(Paths.get("/media/movies/../movies/Aladdin (1992)"))).isSameAs(movie1);
+    assertThat(index.getAllByPath(Paths.get("/media/movies/Alien (1979)"))).containsExactlyInAnyOrder(movie2, movie3);
+
+    // rename (the index is updated by the property change event)
+    movie1.setPath(Paths.get("/media/movies/Aladdin").toAbsolutePath().toString());
+    waitForEvents();
+    assertThat(index.getByPath(Paths.get("/media/movies/Aladdin (1992)"))).isNull();
+    assertThat(index.getByPath(Paths.get("/media/movies/Aladdin"))).isSameAs(movie1);
+
+    // remove
+    index.remove(movie2);
+    assertThat(index.get(movie2.getDbId())).isNull();
+    assertThat(index.getAllByPath(Paths.get("/media/movies/Alien (1979)"))).containsExactly(movie3);
+    assertThat(index.checkConsistency(Arrays.asList(movie1, movie3))).isEmpty();
+
+    // removed entities are not tracked any more
+    movie2.setPath(Paths.get("/media/movies/Alien").toAbsolutePath().toString());
+    waitForEvents();
+    assertThat(index.getByPath(Paths.get("/media/movies/Alien"))).isNull();
+
+    // the self check finds missing and stale entries
+    assertThat(index.checkConsistency(Arrays.asList(movie1, movie2, movie3))).hasSize(1);
+    assertThat(index.checkConsistency(Collections.singletonList(movie1))).isNotEmpty();
+  }
+
+  @Test
+  public void testEpisodeIndex() {
+    MediaEntityIndex<TvShowEpisode> index = new MediaEntityIndex<>(
+        episode -> episode.getMediaFiles(MediaFileType.VIDEO).stream().map(MediaFile::getFileAsPath).collect(Collectors.toList()));
+
+    Path showDir = Paths.get("/media/tvshows/Futurama").toAbsolutePath();
+
+    TvShowEpisode episode = new TvShowEpisode();
+    episode.setDbId(UUID.randomUUID());
+    episode.setPath(showDir.resolve("Season 1").toString());
+    episode.addToMediaFiles(new MediaFile(showDir.resolve("Season 1/Futurama S01E01.mkv")));
+    episode.addToMediaFiles(new MediaFile(showDir.resolve("Season 1/Futurama S01E01.nfo")));
+
+    index.add(episode);
+    assertThat(index.getByPath(showDir.resolve("Season 1/Futurama S01E01.mkv"))).isSameAs(episode);
+    assertThat(index.getByPath(showDir.resolve("Season 1/Futurama S01E01.nfo"))).isNull();
+
+    // rename of the show folder (the media files do not fire any event - the index is updated when saving the episode)
+    Path newShowDir = Paths.get("/media/tvshows/Futurama (1999)").toAbsolutePath();
+    episode.replacePathForRenamedFolder(showDir, newShowDir);
+    episode.updateMediaFilePath(showDir, newShowDir);
+    index.reindex(episode);
+
+    assertThat(index.getByPath(showDir.resolve("Season 1/Futurama S01E01.mkv"))).isNull();
+    assertThat(index.getByPath(newShowDir.resolve("Season 1/Futurama S01E01.mkv"))).isSameAs(episode);
+    assertThat(index.checkConsistency(Collections.singletonList(episode))).isEmpty();
+  }
+
+  private void waitForEvents() throws Exception {
+    // property change events are delivered on the EDT
+    SwingUtilities.invokeAndWait(() -> {
+    });
+  }
+
+  private Movie createMovie(String path) {
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setPath(Paths.get(path).toAbsolutePath().toString());
+    return movie;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+public class MediaEntityMapTest extends BasicTest {
+
+  @Test
+  public void testMigrateLegacyLayout() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+
+    // legacy layout: JSON strings
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Aladdin");
+    movie.setYear(1992);
+
+    MVMap<UUID, String> legacyMap = mvStore.openMap("movies");
+    legacyMap.put(movie.getDbId(), DatabaseCodec.JSON.createObjectMapper().writerFor(Movie.class).writeValueAsString(movie));
+    UUID corruptId = UUID.randomUUID();
+    legacyMap.put(corruptId, "{ this is not valid JSON");
+
+    MediaEntityMap.migrate(mvStore, DatabaseCodec.SMILE, "movies");
+
+    MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+    DatabaseLoader<Movie> loader = new DatabaseLoader<>("movie", movieMap);
+    List<Movie> movies = loader.load();
+
+    // the corrupt entry has been kept while migrating
+    assertThat(movies).hasSize(1);
+    assertThat(loader.getCorruptEntries()).containsExactly(corruptId);
+    assertThat(movies.get(0).getDbId()).isEqualTo(movie.getDbId());
+    assertThat(movies.get(0).getTitle()).isEqualTo("Aladdin");
+    assertThat(movies.get(0).getYear()).isEqualTo(1992);
+
+    // a second migration must not touch anything
+    byte[] value = movieMap.getValue(movie.getDbId());
+    MediaEntityMap.migrate(mvStore, DatabaseCodec.SMILE, "movies");
+    assertThat(movieMap.getValue(movie.getDbId())).isSameAs(value);
+
+    // and back to JSON - in the legacy layout, so older versions can read it again
+    MediaEntityMap.migrate(mvStore, DatabaseCodec.JSON, "movies");
+    movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.JSON.createObjectMapper());
+    assertThat(movieMap.readTree(movie.getDbId()).get("title").asText()).isEqualTo("Aladdin");
+    assertThat(legacyMap.get(movie.getDbId())).isInstanceOf(String.class);
+
+    // JSON is written in the legacy layout too
+    movie.setTitle("Aladdin 2");
+    assertThat(movieMap.persist(movie)).isTrue();
+    assertThat(legacyMap.get(movie.getDbId())).contains("Aladdin 2");
+
+    mvStore.close();
+  }
+
+  @Test
+  public void testResumeInterruptedMigration() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+
+    Movie jsonMovie = new Movie();
+    jsonMovie.setDbId(UUID.randomUUID());
+    jsonMovie.setTitle("Aladdin");
+
+    Movie smileMovie = new Movie();
+    smileMovie.setDbId(UUID.randomUUID());
+    smileMovie.setTitle("Bambi");
+
+    // half migrated: one entry already in Smile, one still JSON and the stored codec still says JSON
+    MVMap<UUID, byte[]> map = mvStore.openMap("movies");
+    map.put(jsonMovie.getDbId(), DatabaseCodec.JSON.createObjectMapper().writerFor(Movie.class).writeValueAsBytes(jsonMovie));
+    map.put(smileMovie.getDbId(), DatabaseCodec.SMILE.createObjectMapper().writerFor(Movie.class).writeValueAsBytes(smileMovie));
+    MVMap<String, String> meta = mvStore.openMap("meta");
+    meta.put("codec", DatabaseCodec.JSON.name());
+
+    // even without migration both entries can be read
+    MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.JSON.createObjectMapper());
+    DatabaseLoader<Movie> loader = new DatabaseLoader<>("movie", movieMap);
+    assertThat(loader.load()).extracting(Movie::getTitle).containsExactlyInAnyOrder("Aladdin", "Bambi");
+    assertThat(loader.getCorruptEntries()).isEmpty();
+
+    // resume the migration
+    byte[] smileValue = map.get(smileMovie.getDbId());
+    MediaEntityMap.migrate(mvStore, DatabaseCodec.SMILE, "movies");
+    assertThat(map.get(smileMovie.getDbId())).isSameAs(smileValue);
+    assertThat(DatabaseCodec.detect(map.get(jsonMovie.getDbId()))).isEqualTo(DatabaseCodec.SMILE);
+
+    movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+    loader = new DatabaseLoader<>("movie", movieMap);
+    assertThat(loader.load()).extracting(Movie::getTitle).containsExactlyInAnyOrder("Aladdin", "Bambi");
+    assertThat(loader.getCorruptEntries()).isEmpty();
+
+    mvStore.close();
+  }
+
+  @Test
+  public void testPersistOnlyChanges() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Aladdin");
+
+    assertThat(movieMap.persist(movie)).isTrue();
+    assertThat(movieMap.persist(movie)).isFalse();
+
+    movie.setTitle("Aladdin 2");
+    assertThat(movieMap.persist(movie)).isTrue();
+
+    // freshly loaded entities do not need to be written either
+    movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+    Movie loaded = new DatabaseLoader<>("movie", movieMap).load().get(0);
+    assertThat(loaded.getTitle()).isEqualTo("Aladdin 2");
+    assertThat(movieMap.persist(loaded)).isFalse();
+
+    mvStore.close();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.h2.mvstore.MVStore;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+public class PersistenceServiceTest extends BasicTest {
+
+  @Test
+  public void testCoalescing() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+    PersistenceService persistenceService = new PersistenceService("movie", mvStore);
+
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+
+    // many saves of the same entity within the write window
+    for (int i = 0; i < 100; i++) {
+      movie.setTitle("Aladdin " + i);
+      persistenceService.persist(movieMap, movie);
+    }
+
+    // nothing written yet
+    assertThat(movieMap.getValue(movie.getDbId())).isNull();
+
+    persistenceService.flush();
+
+    assertThat(movieMap.readTree(movie.getDbId()).get("title").asText()).isEqualTo("Aladdin 99");
+    assertThat(persistenceService.getSavesRequested()).isEqualTo(100);
+    assertThat(persistenceService.getSavesWritten()).isEqualTo(1);
+
+    // unchanged entities are not written again
+    persistenceService.persist(movieMap, movie);
+    persistenceService.flush();
+    assertThat(persistenceService.getSavesRequested()).isEqualTo(101);
+    assertThat(persistenceService.getSavesWritten()).isEqualTo(1);
+
+    persistenceService.shutdown();
+    mvStore.close();
+  }
+
+  @Test
+  public void testSnapshotOnSave() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+    PersistenceService persistenceService = new PersistenceService("movie", mvStore);
+
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Aladdin");
+
+    // the entity is serialized when saving - later (unsaved) changes must not be written by the background writer
+    persistenceService.persist(movieMap, movie);
+    movie.setTitle("Aladdin 2");
+    persistenceService.flush();
+    assertThat(movieMap.readTree(movie.getDbId()).get("title").asText()).isEqualTo("Aladdin");
+
+    persistenceService.shutdown();
+    mvStore.close();
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+    PersistenceService persistenceService = new PersistenceService("movie", mvStore);
+
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Aladdin");
+
+    persistenceService.persist(movieMap, movie);
+    persistenceService.flush();
+    assertThat(movieMap.getValue(movie.getDbId())).isNotNull();
+
+    // a pending write must not resurrect a removed entity
+    movie.setTitle("Aladdin 2");
+    persistenceService.persist(movieMap, movie);
+    persistenceService.remove(movieMap, movie.getDbId());
+    persistenceService.flush();
+    assertThat(movieMap.getValue(movie.getDbId())).isNull();
+
+    // after the shutdown the saves are written directly
+    persistenceService.shutdown();
+    persistenceService.persist(movieMap, movie);
+    assertThat(movieMap.getValue(movie.getDbId())).isNotNull();
+
+    mvStore.close();
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.hash;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tinymediamanager.core.MediaFileType;
+import org.tinymediamanager.core.entities.MediaFile;
+
+public class FileHashServiceTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testXxHash64() {
+    assertThat(XxHash64.hash(ByteBuffer.allocate(0), 0)).isEqualTo(0xEF46DB3751D8E999L);
+    assertThat(XxHash64.hash(ByteBuffer.wrap("a".getBytes(StandardCharsets.US_ASCII)), 0)).isEqualTo(0xD24EC4F1A98C6E5BL);
+    assertThat(XxHash64.hash(ByteBuffer.wrap("abc".getBytes(StandardCharsets.US_ASCII)), 0)).isEqualTo(0x44BC2CF5AD770999L);
+    assertThat(XxHash64.hash(ByteBuffer.wrap("Nobody inspects the spammish repetition".getBytes(StandardCharsets.US_ASCII)), 0))
+        .isEqualTo(0xFBCEA83C8A378BF1L);
+  }
+
+  @Test
+  public void testAlgorithms() throws Exception {
+    byte[] content = createContent(300 * 1024 + 5);
+    Path file = folder.getRoot().toPath().resolve("movie.mkv");
+    Files.write(file, content);
+
+    // OpenSubtitles: size + sum of the first 64 KiB + sum of the last 64 KiB
+    ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+    long hash = content.length;
+    for (int i = 0; i < 64 * 1024; i += 8) {
+      hash += buffer.getLong(i);
+      hash += buffer.getLong(content.length - 64 * 1024 + i);
+    }
+    assertThat(FileHashService.computeHash(file, StandardFileHashAlgorithm.OPENSUBTITLES)).isEqualTo(String.format(Locale.ROOT, "%016x", hash));
+
+    // xxHash64 of head and tail
+    ByteBuffer headTail = ByteBuffer.allocate(128 * 1024);
+    headTail.put(content, 0, 64 * 1024).put(content, content.length - 64 * 1024, 64 * 1024).flip();
+    assertThat(FileHashService.computeHash(file, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL))
+        .isEqualTo(String.format(Locale.ROOT, "%016x", XxHash64.hash(headTail, content.length)));
+
+    // full SHA-256
+    assertThat(FileHashService.computeHash(file, StandardFileHashAlgorithm.SHA256))
+        .isEqualTo(Hex.encodeHexString(MessageDigest.getInstance("SHA-256").digest(content)));
+
+    // small files
+    Files.write(file, Arrays.copyOf(content, 100));
+    assertThat(FileHashService.computeHash(file, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL))
+        .isEqualTo(String.format(Locale.ROOT, "%016x", XxHash64.hash(ByteBuffer.wrap(content, 0, 100), 100)));
+  }
+
+  @Test
+  public void testStoredHash() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("movie.mkv");
+    Files.write(file, createContent(200 * 1024));
+    FileTime modified = Files.getLastModifiedTime(file);
+
+    MediaFile mediaFile = new MediaFile(file, MediaFileType.VIDEO);
+    FileHashService service = FileHashService.getInstance();
+
+    assertThat(service.getStoredHash(mediaFile, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL)).isNull();
+    String hash = service.getHash(mediaFile, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL);
+    assertThat(hash).isNotEmpty();
+    assertThat(service.getStoredHash(mediaFile, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL)).isEqualTo(hash);
+
+    // the stored hash survives cloning (e.g. in the renamer)
+    assertThat(service.getStoredHash(new MediaFile(mediaFile), StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL)).isEqualTo(hash);
+
+    // same size and modification time: the file is not read again
+    Files.write(file, createContent(200 * 1024, 7));
+    Files.setLastModifiedTime(file, modified);
+    assertThat(service.getHash(mediaFile, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL)).isEqualTo(hash);
+
+    // a changed modification time invalidates the stored hashes
+    Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 10_000));
+    assertThat(service.getStoredHash(mediaFile, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL)).isNull();
+    assertThat(service.getHash(mediaFile, StandardFileHashAlgorithm.XXHASH64_HEAD_TAIL)).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void testHashAll() throws Exception {
+    List<MediaFile> mediaFiles = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Path file = folder.getRoot().toPath().resolve("movie" + i + ".mkv");
+      Files.write(file, createContent(1024 + i, i));
+      mediaFiles.add(new MediaFile(file, MediaFileType.VIDEO));
+    }
+
+    List<StandardFileHashAlgorithm> algorithms = Collections.singletonList(StandardFileHashAlgorithm.OPENSUBTITLES);
+    AtomicInteger processed = new AtomicInteger();
+
+    assertThat(FileHashService.getInstance().hashAll(mediaFiles, algorithms, (mediaFile, changed) -> processed.incrementAndGet(), () -> false))
+        .isEqualTo(10);
+    assertThat(processed).hasValue(10);
+    for (MediaFile mediaFile : mediaFiles) {
+      assertThat(FileHashService.getInstance().getStoredHash(mediaFile, StandardFileHashAlgorithm.OPENSUBTITLES)).isNotEmpty();
+    }
+
+    // everything is hashed already
+    assertThat(FileHashService.getInstance().hashAll(mediaFiles, algorithms, (mediaFile, changed) -> assertThat(changed).isFalse(), () -> false))
+        .isZero();
+  }
+
+  private static byte[] createContent(int size) {
+    return createContent(size, 42);
+  }
+
+  private static byte[] createContent(int size, long seed) {
+    byte[] content = new byte[size];
+    new Random(seed).nextBytes(content);
+    return content;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.jmte;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.floreysoft.jmte.Engine;
+
+public class WriterOutputAppenderTest {
+  private static final String TEMPLATE = "${title}: ${foreach items item , }${item}${end} ${unknown.property}${if missing}x${else}-${end}";
+
+  @Test
+  public void testStreamedOutput() throws Exception {
+    Map<String, Object> model = new HashMap<>();
+    model.put("title", "Movies");
+    model.put("items", Arrays.asList("A", "B", "C"));
+
+    // the output of the default appender
+    String expected = new Engine().transform(TEMPLATE, model);
+
+    Engine engine = new Engine();
+    WriterOutputAppender appender = new WriterOutputAppender();
+    engine.setOutputAppender(appender);
+
+    StringWriter writer = new StringWriter();
+    appender.transform(engine, engine.getTemplate(TEMPLATE), model, writer);
+    assertThat(writer.toString()).isEqualTo(expected).isEqualTo("Movies: A, B, C -");
+
+    // without a writer the output is collected as usual
+    assertThat(engine.transform(TEMPLATE, model)).isEqualTo(expected);
+  }
+}
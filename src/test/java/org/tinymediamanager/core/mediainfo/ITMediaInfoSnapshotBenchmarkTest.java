@@ -0,0 +1,155 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.mediainfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.tinymediamanager.core.MediaFileHelper;
+import org.tinymediamanager.core.Settings;
+import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
+
+/**
+ * compare the mediainfo lookups on raw snapshots (normalizing the stream on every lookup) with the lookups on the pre-normalized
+ * {@link MediaInfoSnapshot} - for all sample XMLs in src/test/resources/mediainfo
+ *
+ * @author Manuel Laggner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ITMediaInfoSnapshotBenchmarkTest {
+  // the lookups of the gatherMediaInformation() per stream kind
+  private static final Map<StreamKind, String[][]> LOOKUPS = new EnumMap<>(StreamKind.class);
+
+  static {
+    LOOKUPS.put(StreamKind.General, new String[][] { { "Duration" }, { "FileSize" }, { "VideoCount" }, { "AudioCount" }, { "TextCount" },
+        { "Title", "Movie" }, { "OverallBitRate" } });
+    LOOKUPS.put(StreamKind.Video, new String[][] { { "Width" }, { "Height" }, { "Format" }, { "CodecID/Hint", "CodecID" }, { "FrameRate" },
+        { "BitRate", "BitRate_Maximum" }, { "BitDepth" }, { "HDR_Format", "HDR_Format_Compatibility" }, { "MultiView_Count" },
+        { "PixelAspectRatio" }, { "DisplayAspectRatio" }, { "ScanType" } });
+    LOOKUPS.put(StreamKind.Audio, new String[][] { { "Format" }, { "Format_AdditionalFeatures" }, { "Format_Profile" }, { "CodecID" },
+        { "Format_Commercial", "Format_Commercial_IfAny" }, { "StreamKindPos" }, { "Channel(s)" }, { "Channel(s)_Original" },
+        { "BitRate", "BitRate_Maximum", "BitRate_Minimum", "BitRate_Nominal" }, { "Language/String", "Language" }, { "Default" }, { "Title" } });
+    LOOKUPS.put(StreamKind.Text, new String[][] { { "StreamKindPos" }, { "CodecID/Hint", "Format" }, { "Language/String", "Language" },
+        { "Forced" }, { "Default" } });
+  }
+
+  private final List<Map<StreamKind, List<Map<String, String>>>> raw       = new ArrayList<>();
+  private final List<MediaInfoSnapshot>                          snapshots = new ArrayList<>();
+
+  @Setup
+  public void setup() throws Exception {
+    Settings.getInstance("target/testdata/" + ITMediaInfoSnapshotBenchmarkTest.class.getName());
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get("src/test/resources/mediainfo"), "*.xml")) {
+      for (Path xml : stream) {
+        for (MediaInfoFile file : new MediaInfoXMLParser(xml).parseXML()) {
+          // a mutable copy of the snapshot - to measure the lookups on a raw map
+          Map<StreamKind, List<Map<String, String>>> copy = new EnumMap<>(StreamKind.class);
+          for (Map.Entry<StreamKind, List<Map<String, String>>> entry : file.getSnapshot().entrySet()) {
+            List<Map<String, String>> streams = new ArrayList<>();
+            entry.getValue().forEach(info -> streams.add(new HashMap<>(info)));
+            copy.put(entry.getKey(), streams);
+          }
+          raw.add(copy);
+          snapshots.add(file.getSnapshot());
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void rawLookups(Blackhole blackhole) {
+    for (Map<StreamKind, List<Map<String, String>>> snapshot : raw) {
+      lookup(snapshot, blackhole);
+    }
+  }
+
+  @Benchmark
+  public void snapshotLookups(Blackhole blackhole) {
+    for (MediaInfoSnapshot snapshot : snapshots) {
+      lookup(snapshot, blackhole);
+    }
+  }
+
+  @Benchmark
+  public void createSnapshots(Blackhole blackhole) {
+    for (Map<StreamKind, List<Map<String, String>>> snapshot : raw) {
+      blackhole.consume(MediaInfoSnapshot.of(snapshot));
+    }
+  }
+
+  private void lookup(Map<StreamKind, List<Map<String, String>>> snapshot, Blackhole blackhole) {
+    for (Map.Entry<StreamKind, String[][]> entry : LOOKUPS.entrySet()) {
+      List<Map<String, String>> streams = snapshot.get(entry.getKey());
+      int count = streams != null ? streams.size() : 0;
+
+      for (int i = 0; i < count; i++) {
+        for (String[] keys : entry.getValue()) {
+          blackhole.consume(MediaFileHelper.getMediaInfo(snapshot, entry.getKey(), i, keys));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void benchmarkLookups() throws Exception {
+    Options options = new OptionsBuilder().include(ITMediaInfoSnapshotBenchmarkTest.class.getName() + ".*")
+        .forks(1)
+        .warmupIterations(3)
+        .warmupTime(TimeValue.seconds(1))
+        .measurementIterations(5)
+        .measurementTime(TimeValue.seconds(1))
+        .build();
+
+    Collection<RunResult> results = new Runner(options).run();
+
+    Map<String, Double> scores = new HashMap<>();
+    for (RunResult result : results) {
+      String benchmark = result.getParams().getBenchmark();
+      scores.put(benchmark.substring(benchmark.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+    }
+
+    assertThat(scores).containsKeys("rawLookups", "snapshotLookups");
+    assertThat(scores.get("snapshotLookups")).isLessThan(scores.get("rawLookups"));
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.mediainfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.h2.mvstore.MVStore;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.Settings;
+import org.tinymediamanager.core.Utils;
+import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
+
+public class MediaInfoCacheTest extends BasicTest {
+
+  @Test
+  public void testCache() throws Exception {
+    Settings.getInstance(getSettingsFolder());
+
+    List<MediaInfoFile> files = new MediaInfoXMLParser(Paths.get("src/test/resources/mediainfo/hdr10-mediainfo.xml")).parseXML();
+    assertThat(files).isNotEmpty();
+
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    MediaInfoCache cache = new MediaInfoCache(mvStore, "mediainfo");
+    assertThat(cache.get("1-2-3")).isNull();
+
+    cache.put("1-2-3", files);
+    assertThat(cache.size()).isEqualTo(1);
+
+    // reopen: the results are read from the store
+    cache = new MediaInfoCache(mvStore, "mediainfo");
+    List<MediaInfoFile> cached = cache.get("1-2-3");
+    assertThat(cached).hasSize(files.size());
+    assertThat(cached.get(0).getFilename()).isEqualTo(files.get(0).getFilename());
+    assertThat(cached.get(0).getPath()).isEqualTo(files.get(0).getPath());
+    assertThat(cached.get(0).getFilesize()).isEqualTo(files.get(0).getFilesize());
+    assertThat(cached.get(0).getDuration()).isEqualTo(files.get(0).getDuration());
+    assertThat(cached.get(0).getSnapshot()).isEqualTo(files.get(0).getSnapshot());
+    assertThat(cached.get(0).getSnapshot().get(StreamKind.Video, 0, "Width")).isNotEmpty();
+
+    // a new libmediainfo version clears the cache
+    cache.checkVersion("MediaInfoLib - v20.09");
+    assertThat(cache.size()).isZero();
+    cache.put("1-2-3", files);
+    cache.checkVersion("MediaInfoLib - v20.09");
+    assertThat(cache.size()).isEqualTo(1);
+    // no libmediainfo loaded: keep the results
+    cache.checkVersion("");
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testEvict() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    MediaInfoCache cache = new MediaInfoCache(mvStore, "mediainfo");
+    cache.checkVersion("MediaInfoLib - v20.09");
+
+    for (int i = 0; i < 10; i++) {
+      cache.put("key" + i, Collections.emptyList());
+      Thread.sleep(2);
+    }
+
+    assertThat(cache.evict(20)).isZero();
+    assertThat(cache.evict(4)).isEqualTo(6);
+    assertThat(cache.size()).isEqualTo(4);
+    // the oldest entries have been removed
+    assertThat(cache.get("key5")).isNull();
+    assertThat(cache.get("key6")).isNotNull();
+  }
+
+  @Test
+  public void testIdentity() throws Exception {
+    Path folder = Paths.get(getSettingsFolder());
+    Utils.deleteDirectoryRecursive(folder);
+    Files.createDirectories(folder);
+
+    byte[] content = new byte[3 * MediaInfoCache.HASH_BLOCK_SIZE];
+    new Random(42).nextBytes(content);
+    FileTime modified = FileTime.fromMillis(1_600_000_000_000L);
+
+    Path file = folder.resolve("movie.mkv");
+    Files.write(file, content);
+    Files.setLastModifiedTime(file, modified);
+
+    // the same file at another location (moved/renamed)
+    Path moved = folder.resolve("moved.mkv");
+    Files.write(moved, content);
+    Files.setLastModifiedTime(moved, modified);
+    assertThat(MediaInfoCache.createIdentity(moved)).isEqualTo(MediaInfoCache.createIdentity(file));
+
+    // changed content at the end
+    content[content.length - 1]++;
+    Path changed = folder.resolve("changed.mkv");
+    Files.write(changed, content);
+    Files.setLastModifiedTime(changed, modified);
+    assertThat(MediaInfoCache.createIdentity(changed)).isNotEqualTo(MediaInfoCache.createIdentity(file));
+
+    // changed modification time
+    Files.setLastModifiedTime(moved, FileTime.fromMillis(1_600_000_001_000L));
+    assertThat(MediaInfoCache.createIdentity(moved)).isNotEqualTo(MediaInfoCache.createIdentity(file));
+
+    // small files
+    Path small = folder.resolve("small.mkv");
+    Files.write(small, new byte[] { 1, 2, 3 });
+    assertThat(MediaInfoCache.createIdentity(small)).startsWith("3-");
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.mediainfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.MediaFileHelper;
+import org.tinymediamanager.core.Settings;
+import org.tinymediamanager.thirdparty.MediaInfo.StreamKind;
+
+public class MediaInfoSnapshotTest extends BasicTest {
+
+  @Test
+  public void testLookup() {
+    Map<StreamKind, List<Map<String, String>>> raw = createRawSnapshot();
+    MediaInfoSnapshot snapshot = MediaInfoSnapshot.of(raw);
+
+    assertThat(snapshot.get(StreamKind.Audio, 0, "Channel(s)")).isEqualTo("6");
+    assertThat(snapshot.get(StreamKind.Audio, 1, "Channel(s)")).isEqualTo("2");
+    assertThat(snapshot.get(StreamKind.Audio, 0, "Language/String")).isEqualTo("English");
+    // the first non blank value
+    assertThat(snapshot.get(StreamKind.Audio, 1, "Title", "Language/String", "Language")).isEqualTo("de");
+    // missing streams/keys
+    assertThat(snapshot.get(StreamKind.Audio, 2, "Format")).isEmpty();
+    assertThat(snapshot.get(StreamKind.Text, 0, "Format")).isEmpty();
+    assertThat(snapshot.get(StreamKind.General, 0, "Foo")).isEmpty();
+    assertThat(snapshot.getStreamCount(StreamKind.Audio)).isEqualTo(2);
+    assertThat(snapshot.getStreamCount(StreamKind.Text)).isZero();
+
+    // same results as on the raw map
+    for (String key : Arrays.asList("Duration", "FileSize", "Channel(s)", "Language/String", "Title")) {
+      for (StreamKind kind : Arrays.asList(StreamKind.General, StreamKind.Audio)) {
+        assertThat(MediaFileHelper.getMediaInfo(snapshot, kind, 0, key)).isEqualTo(MediaFileHelper.getMediaInfo(raw, kind, 0, key));
+        assertThat(MediaFileHelper.getMediaInfoContains(snapshot, kind, 0, "en", key))
+            .isEqualTo(MediaFileHelper.getMediaInfoContains(raw, kind, 0, "en", key));
+      }
+    }
+  }
+
+  @Test
+  public void testMapView() {
+    Map<StreamKind, List<Map<String, String>>> raw = createRawSnapshot();
+    MediaInfoSnapshot snapshot = MediaInfoSnapshot.of(raw);
+
+    assertThat(MediaInfoSnapshot.of(snapshot)).isSameAs(snapshot);
+    assertThat(snapshot).isEqualTo(raw);
+    assertThat(snapshot.keySet()).containsExactly(StreamKind.General, StreamKind.Audio);
+    // the original keys are preserved (in their order)
+    assertThat(snapshot.get(StreamKind.Audio).get(0).keySet()).containsExactly("Format", "Channel(s)", "Language/String");
+
+    // changes of the raw data do not affect the snapshot
+    raw.get(StreamKind.Audio).get(0).put("Format", "DTS");
+    assertThat(snapshot.get(StreamKind.Audio, 0, "Format")).isEqualTo("AC-3");
+
+    // immutable
+    assertThatThrownBy(() -> snapshot.put(StreamKind.Text, raw.get(StreamKind.Audio))).isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> snapshot.get(StreamKind.Audio).get(0).put("Format", "DTS")).isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  public void testXmlParser() throws Exception {
+    Settings.getInstance(getSettingsFolder());
+
+    List<MediaInfoFile> files = new MediaInfoXMLParser(Paths.get("src/test/resources/mediainfo/hdr10-mediainfo.xml")).parseXML();
+    assertThat(files).isNotEmpty();
+
+    MediaInfoSnapshot snapshot = files.get(0).getSnapshot();
+    assertThat(snapshot.get(StreamKind.General, 0, "VideoCount")).isEqualTo("1");
+    assertThat(snapshot.get(StreamKind.Video, 0, "Width")).isNotEmpty();
+  }
+
+  private Map<StreamKind, List<Map<String, String>>> createRawSnapshot() {
+    Map<String, String> general = new LinkedHashMap<>();
+    general.put("Duration", "5400000");
+    general.put("FileSize", "1234567");
+
+    Map<String, String> audio1 = new LinkedHashMap<>();
+    audio1.put("Format", "AC-3");
+    audio1.put("Channel(s)", "6");
+    audio1.put("Language/String", "English");
+
+    Map<String, String> audio2 = new LinkedHashMap<>();
+    audio2.put("Format", "AAC");
+    audio2.put("Channel(s)", "2");
+    audio2.put("Title", " ");
+    audio2.put("Language", "de");
+
+    Map<StreamKind, List<Map<String, String>>> raw = new EnumMap<>(StreamKind.class);
+    raw.put(StreamKind.General, Arrays.asList(general));
+    raw.put(StreamKind.Audio, Arrays.asList(audio1, audio2));
+    return raw;
+  }
+}
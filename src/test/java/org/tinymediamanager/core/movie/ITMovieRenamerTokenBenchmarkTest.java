@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.movie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.tinymediamanager.core.MediaFileType;
+import org.tinymediamanager.core.Settings;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.entities.MediaGenres;
+import org.tinymediamanager.core.jmte.JmteUtils;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+import com.floreysoft.jmte.Engine;
+
+/**
+ * measure the evaluated renamer tokens per second: a new {@link Engine} and a newly morphed template for every token (as before) compared to the
+ * shared template engine of the {@link MovieRenamer}
+ *
+ * @author Manuel Laggner
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ITMovieRenamerTokenBenchmarkTest {
+  // the tokens of the default patterns and the renamer preview
+  private static final String[] TOKENS = { "${title} ${- ,edition,} (${year})", "${title[0]}/${title} (${year})", "${title}", "${year}",
+      "${videoResolution}", "${videoFormat}", "${audioCodec}", "${audioChannels}", "${- ,edition,}", "${if movieSet}${movieSet.title}${end}" };
+
+  private Movie                 movie;
+
+  @Setup
+  public void setup() {
+    Settings.getInstance("target/testdata/" + ITMovieRenamerTokenBenchmarkTest.class.getName());
+
+    movie = new Movie();
+    movie.setDataSource("/media/movies");
+    movie.setPath("/media/movies/Aladdin (1992)");
+    movie.setTitle("Aladdin");
+    movie.setYear(1992);
+    movie.setGenres(Arrays.asList(MediaGenres.ADVENTURE, MediaGenres.ANIMATION));
+
+    MediaFile mf = new MediaFile();
+    mf.setType(MediaFileType.VIDEO);
+    mf.setFilename("Aladdin.mkv");
+    mf.setVideoCodec("h264");
+    mf.setVideoHeight(720);
+    mf.setVideoWidth(1280);
+    movie.addToMediaFiles(mf);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(10)
+  public void newEnginePerToken(Blackhole blackhole) {
+    for (String token : TOKENS) {
+      Engine engine = MovieRenamer.createEngine();
+      engine.setModelAdaptor(new MovieRenamer.MovieRenamerModelAdaptor());
+      Map<String, Object> root = new HashMap<>();
+      root.put("movie", movie);
+      blackhole.consume(engine.transform(JmteUtils.morphTemplate(token, MovieRenamer.getTokenMap()), root));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(10)
+  public void sharedTemplateEngine(Blackhole blackhole) {
+    for (String token : TOKENS) {
+      blackhole.consume(MovieRenamer.getTokenValue(movie, token));
+    }
+  }
+
+  @Test
+  public void benchmarkTokens() throws Exception {
+    Options options = new OptionsBuilder().include(ITMovieRenamerTokenBenchmarkTest.class.getName() + ".*")
+        .forks(1)
+        .warmupIterations(3)
+        .warmupTime(TimeValue.seconds(1))
+        .measurementIterations(5)
+        .measurementTime(TimeValue.seconds(1))
+        .build();
+
+    Collection<RunResult> results = new Runner(options).run();
+
+    Map<String, Double> tokensPerSecond = new HashMap<>();
+    for (RunResult result : results) {
+      String benchmark = result.getParams().getBenchmark();
+      tokensPerSecond.put(benchmark.substring(benchmark.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+    }
+
+    assertThat(tokensPerSecond).containsKeys("newEnginePerToken", "sharedTemplateEngine");
+    assertThat(tokensPerSecond.get("sharedTemplateEngine")).isGreaterThan(tokensPerSecond.get("newEnginePerToken"));
+  }
+}
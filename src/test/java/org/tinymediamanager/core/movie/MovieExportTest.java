@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.movie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import org.h2.mvstore.MVStore;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.DatabaseCodec;
+import org.tinymediamanager.core.MediaEntityMap;
+import org.tinymediamanager.core.PersistenceService;
+import org.tinymediamanager.core.Settings;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+public class MovieExportTest extends BasicTest {
+
+  @BeforeClass
+  public static void init() throws Exception {
+    deleteSettingsFolder();
+    Settings.getInstance(getSettingsFolder());
+  }
+
+  @Test
+  public void testUnchangedMovieExportedOnce() throws Exception {
+    MVStore mvStore = new MVStore.Builder().open(); // in memory
+    MediaEntityMap<Movie> movieMap = new MediaEntityMap<>(mvStore, "movies", Movie.class, DatabaseCodec.SMILE.createObjectMapper());
+    PersistenceService persistenceService = new PersistenceService("movie", mvStore);
+    Path exportDir = Paths.get(getSettingsFolder(), "DetailExampleHtml");
+
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Aladdin");
+    movie.setYear(1992);
+
+    persistenceService.persist(movieMap, movie);
+    persistenceService.flush();
+    Date lastModified = movie.getLastModified();
+    assertThat(lastModified).isNotNull();
+
+    // the export only covers entities modified before it started
+    Thread.sleep(10);
+    new MovieExporter(Paths.get("templates", "DetailExampleHtml")).export(Collections.singletonList(movie), exportDir);
+    Path detailFile = getDetailFile(exportDir);
+    Files.write(detailFile, "exported".getBytes(StandardCharsets.UTF_8));
+
+    // saving the unchanged movie again neither writes it nor touches its modification time
+    persistenceService.persist(movieMap, movie);
+    persistenceService.flush();
+    assertThat(persistenceService.getSavesWritten()).isEqualTo(1);
+    assertThat(movie.getLastModified()).isEqualTo(lastModified);
+
+    // so the detail page is not exported again
+    new MovieExporter(Paths.get("templates", "DetailExampleHtml")).export(Collections.singletonList(movie), exportDir);
+    assertThat(new String(Files.readAllBytes(detailFile), StandardCharsets.UTF_8)).isEqualTo("exported");
+
+    // a real change is written and exported
+    movie.setPlot("A street urchin vies for the love of a beautiful princess.");
+    persistenceService.persist(movieMap, movie);
+    persistenceService.flush();
+    assertThat(persistenceService.getSavesWritten()).isEqualTo(2);
+
+    new MovieExporter(Paths.get("templates", "DetailExampleHtml")).export(Collections.singletonList(movie), exportDir);
+    assertThat(new String(Files.readAllBytes(detailFile), StandardCharsets.UTF_8)).isNotEqualTo("exported");
+
+    persistenceService.shutdown();
+    mvStore.close();
+  }
+
+  private Path getDetailFile(Path exportDir) throws Exception {
+    try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(exportDir.resolve("movies"))) {
+      for (Path path : directoryStream) {
+        return path;
+      }
+    }
+    throw new AssertionError("no detail page exported");
+  }
+}
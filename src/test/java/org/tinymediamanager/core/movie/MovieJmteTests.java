@@ -142,6 +142,19 @@ public class MovieJmteTests {
     }
   }
 
+  @Test
+  public void testSharedTemplateEngine() throws Exception {
+    Movie movie = createMovie();
+
+    // evaluate the (cached) templates twice - the result must not change
+    for (int i = 0; i < 2; i++) {
+      assertThat(MovieRenamer.getTokenValue(movie, "${title} (${year})")).isEqualTo("Aladdin (1992)");
+      assertThat(MovieRenamer.getTokenValue(movie, "${titleSortable[0]}/${title} (${year})")).isEqualTo("A/Aladdin (1992)");
+      assertThat(MovieRenamer.getTokenValue(movie, "${audioLanguageList[1];upper}")).isEqualTo("DE");
+      assertThat(MovieRenamer.getTokenValue(movie, "${- ,edition,}")).isEqualTo("- Director's Cut");
+    }
+  }
+
   private void compare(String template, String expectedValue) {
     String actualValue = engine.transform(JmteUtils.morphTemplate(template, MovieRenamer.getTokenMap()), root);
     assertThat(actualValue).isEqualTo(expectedValue);
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.movie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.movie.entities.Movie;
+
+public class MovieListTest extends BasicTest {
+
+  @Test
+  public void testLookupIndex() {
+    MovieList movieList = MovieList.getInstance();
+
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Aladdin");
+    movie.setPath(Paths.get("target/test-classes/testmovies/Aladdin").toAbsolutePath().toString());
+
+    movieList.addMovie(movie);
+    assertThat(movieList.lookupMovie(movie.getDbId())).isSameAs(movie);
+    assertThat(movieList.getMovieByPath(Paths.get("target/test-classes/testmovies/Aladdin"))).isSameAs(movie);
+    assertThat(movieList.checkIndexConsistency()).isEmpty();
+
+    // rename - the index is updated when saving
+    movie.setPath(Paths.get("target/test-classes/testmovies/Aladdin (1992)").toAbsolutePath().toString());
+    movieList.persistMovie(movie);
+    assertThat(movieList.getMovieByPath(Paths.get("target/test-classes/testmovies/Aladdin"))).isNull();
+    assertThat(movieList.getMovieByPath(Paths.get("target/test-classes/testmovies/Aladdin (1992)"))).isSameAs(movie);
+    assertThat(movieList.checkIndexConsistency()).isEmpty();
+
+    movieList.removeMovies(Collections.singletonList(movie));
+    assertThat(movieList.lookupMovie(movie.getDbId())).isNull();
+    assertThat(movieList.getMoviesByPath(Paths.get("target/test-classes/testmovies/Aladdin (1992)"))).isEmpty();
+    assertThat(movieList.checkIndexConsistency()).isEmpty();
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.Test;
+
+public class AdaptiveConcurrencyTest {
+
+  @Test
+  public void testGrowWithConstantLatency() {
+    // fast storage: the latency per task does not change with more workers
+    AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 1, 8, 0);
+    long time = 0;
+    for (int i = 0; i < 1000; i++) {
+      time += 10_000_000 / concurrency.getConcurrency();
+      concurrency.taskFinished(time);
+    }
+    // the controller probes with one worker less from time to time
+    assertThat(concurrency.getConcurrency()).isGreaterThanOrEqualTo(7);
+  }
+
+  @Test
+  public void testShrinkWithRisingLatency() {
+    // slow storage: the latency rises faster than the amount of workers (less throughput with more workers)
+    AdaptiveConcurrency concurrency = new AdaptiveConcurrency(4, 1, 8, 0);
+    long time = 0;
+    for (int i = 0; i < 1000; i++) {
+      time += 10_000_000L * concurrency.getConcurrency();
+      concurrency.taskFinished(time);
+    }
+    assertThat(concurrency.getConcurrency()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void testNoGrowthWithoutLoad() {
+    // the tasks are submitted slower than they are processed: more workers do not finish more tasks
+    AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 1, 8, 0);
+    long time = 0;
+    for (int i = 0; i < 1000; i++) {
+      time += 10_000_000;
+      concurrency.taskFinished(time);
+    }
+    assertThat(concurrency.getConcurrency()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  public void testFixedSize() {
+    AdaptiveConcurrency concurrency = new AdaptiveConcurrency(3, 3, 3, 0);
+    for (int i = 1; i <= 100; i++) {
+      concurrency.taskFinished(10_000_000L * i);
+    }
+    assertThat(concurrency.getConcurrency()).isEqualTo(3);
+    // 100 tasks in 1 second
+    assertThat(concurrency.getThroughput()).isEqualTo(100, within(0.1));
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class StagedPipelineTest {
+
+  @Test
+  public void testStages() throws Exception {
+    List<String> passed = Collections.synchronizedList(new ArrayList<>());
+
+    StagedPipeline<Item> pipeline = new StagedPipeline<Item>("test").addStage("first", 2, item -> {
+      item.stages.add("first");
+      // drop the odd items
+      return item.id % 2 == 0;
+    }).addStage("second", 2, item -> {
+      if (item.id == 4) {
+        throw new IllegalStateException("failing item");
+      }
+      item.stages.add("second");
+      return true;
+    }).addStage("third", 1, item -> {
+      item.stages.add("third");
+      passed.add(String.join(",", item.stages));
+      return true;
+    });
+
+    for (int i = 0; i < 10; i++) {
+      pipeline.submit(new Item(i));
+    }
+
+    assertThat(pipeline.awaitCompletion(10, TimeUnit.SECONDS)).isTrue();
+    pipeline.shutdown();
+
+    assertThat(pipeline.getFinishedCount()).isEqualTo(10);
+    // 0, 2, 6, 8 passed all stages; 4 failed in the second stage
+    assertThat(passed).hasSize(4).containsOnly("first,second,third");
+
+    List<StagedPipeline.StageStatistics> statistics = pipeline.getStatistics();
+    assertThat(statistics).extracting(StagedPipeline.StageStatistics::getName).containsExactly("first", "second", "third");
+    assertThat(statistics).extracting(StagedPipeline.StageStatistics::getCompleted).containsExactly(10, 4, 4);
+    assertThat(statistics.get(1).getFailed()).isEqualTo(1);
+    assertThat(statistics.get(0).getThroughput()).isPositive();
+  }
+
+  @Test
+  public void testStagesOverlap() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    AtomicInteger runningSecond = new AtomicInteger();
+    AtomicInteger maxRunningSecond = new AtomicInteger();
+
+    StagedPipeline<Item> pipeline = new StagedPipeline<Item>("test").addStage("first", 2, item -> {
+      work(running, maxRunning);
+      return true;
+    }).addStage("second", 3, item -> {
+      work(runningSecond, maxRunningSecond);
+      work(running, maxRunning);
+      return true;
+    });
+
+    for (int i = 0; i < 12; i++) {
+      pipeline.submit(new Item(i));
+    }
+    assertThat(pipeline.awaitCompletion(10, TimeUnit.SECONDS)).isTrue();
+    pipeline.shutdown();
+
+    // every stage respects its own limit, but items in both stages run at the same time
+    assertThat(maxRunningSecond.get()).isLessThanOrEqualTo(3);
+    assertThat(maxRunning.get()).isGreaterThan(2).isLessThanOrEqualTo(5);
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger secondStage = new AtomicInteger();
+
+    StagedPipeline<Item> pipeline = new StagedPipeline<Item>("test").addStage("first", 1, item -> {
+      started.countDown();
+      Thread.sleep(10000);
+      return true;
+    }).addStage("second", 1, item -> {
+      secondStage.incrementAndGet();
+      return true;
+    });
+
+    for (int i = 0; i < 5; i++) {
+      pipeline.submit(new Item(i));
+    }
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(pipeline.getStatistics().get(0).getQueued()).isEqualTo(4);
+    assertThat(pipeline.getStatistics().get(0).getActive()).isEqualTo(1);
+
+    pipeline.cancel();
+
+    // the running item is interrupted, the waiting ones are dropped
+    assertThat(pipeline.awaitCompletion(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(pipeline.isCancelled()).isTrue();
+    assertThat(pipeline.getFinishedCount()).isEqualTo(5);
+    assertThat(pipeline.getStatistics().get(0).getQueued()).isZero();
+    assertThat(secondStage.get()).isZero();
+  }
+
+  private static void work(AtomicInteger running, AtomicInteger maxRunning) throws InterruptedException {
+    int current = running.incrementAndGet();
+    maxRunning.accumulateAndGet(current, Math::max);
+    Thread.sleep(50);
+    running.decrementAndGet();
+  }
+
+  private static class Item {
+    private final int          id;
+    private final List<String> stages = new ArrayList<>();
+
+    private Item(int id) {
+      this.id = id;
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.core.threading;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class VolumeTaskSchedulerTest {
+
+  @Test
+  public void testSerialGroups() {
+    VolumeTaskScheduler scheduler = new VolumeTaskScheduler("test", 4);
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    // folder a and b are merged by the task moving from a to b
+    scheduler.add("volume", record(order, "a1"), "a");
+    scheduler.add("volume", record(order, "b1"), "b");
+    scheduler.add("volume", record(order, "a2"), "a", "b");
+    scheduler.add("volume", record(order, "b2"), "b");
+    scheduler.add("volume", record(order, "c1"), "c");
+
+    Recorder listener = new Recorder();
+    scheduler.run(listener, () -> false);
+
+    assertThat(listener.finished).hasValue(5);
+    assertThat(order).containsExactlyInAnyOrder("a1", "b1", "a2", "b2", "c1");
+    // the serial group keeps the order of the tasks
+    List<String> group = new ArrayList<>(order);
+    group.remove("c1");
+    assertThat(group).containsExactly("a1", "b1", "a2", "b2");
+  }
+
+  @Test
+  public void testConcurrencyPerVolume() {
+    VolumeTaskScheduler scheduler = new VolumeTaskScheduler("test", 1);
+    Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+    Map<String, Integer> maxRunning = new ConcurrentHashMap<>();
+    AtomicBoolean notParallel = new AtomicBoolean(false);
+    // the first task of each volume waits for the first task of the other volume
+    CountDownLatch bothVolumesRunning = new CountDownLatch(2);
+
+    for (int i = 0; i < 20; i++) {
+      String volume = "volume" + (i % 2);
+      scheduler.add(volume, () -> {
+        int current = running.computeIfAbsent(volume, v -> new AtomicInteger()).incrementAndGet();
+        maxRunning.merge(volume, current, Math::max);
+        bothVolumesRunning.countDown();
+        if (!bothVolumesRunning.await(10, TimeUnit.SECONDS)) {
+          notParallel.set(true);
+        }
+        running.get(volume).decrementAndGet();
+        return volume;
+      }, "folder" + i);
+    }
+
+    Recorder listener = new Recorder();
+    scheduler.run(listener, () -> false);
+
+    assertThat(listener.finished).hasValue(20);
+    // one task per volume - but both volumes in parallel
+    assertThat(maxRunning).containsEntry("volume0", 1).containsEntry("volume1", 1);
+    assertThat(notParallel).isFalse();
+  }
+
+  @Test
+  public void testFailuresAndCancel() {
+    VolumeTaskScheduler scheduler = new VolumeTaskScheduler("test", 1);
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    scheduler.add(Paths.get("."), record(order, "1"), "a");
+    scheduler.add(Paths.get("."), () -> {
+      throw new IllegalStateException("failed");
+    }, "a");
+    scheduler.add(Paths.get("."), record(order, "3"), "a");
+    assertThat(scheduler.size()).isEqualTo(3);
+
+    Recorder listener = new Recorder();
+    scheduler.run(listener, () -> false);
+
+    // the failure does not stop the remaining tasks
+    assertThat(order).containsExactly("1", "3");
+    assertThat(listener.finished).hasValue(2);
+    assertThat(listener.failed).hasValue(1);
+
+    // cancelled before the first task
+    order.clear();
+    scheduler.run(listener, () -> true);
+    assertThat(order).isEmpty();
+  }
+
+  private static Callable<Object> record(List<String> order, String name) {
+    return () -> {
+      order.add(name);
+      Thread.sleep(5);
+      return name;
+    };
+  }
+
+  private static class Recorder implements VolumeTaskScheduler.Listener {
+    private final AtomicInteger finished = new AtomicInteger();
+    private final AtomicInteger failed   = new AtomicInteger();
+
+    @Override
+    public void taskFinished(Object result) {
+      finished.incrementAndGet();
+    }
+
+    @Override
+    public void taskFailed(Callable<Object> task, Exception e) {
+      failed.incrementAndGet();
+    }
+  }
+}
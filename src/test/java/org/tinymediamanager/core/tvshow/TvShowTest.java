@@ -117,6 +117,38 @@ public class TvShowTest extends BasicTest {
     TmmModuleManager.getInstance().shutDown();
   }
 
+  @Test
+  public void testEpisodeIndex() throws Exception {
+    TmmModuleManager.getInstance().startUp();
+    TvShowModuleManager.getInstance().startUp();
+
+    TvShow show = new TvShow();
+    show.setPath("target/test-classes/");
+    show.setTitle("indexed show");
+    TvShowList.getInstance().addTvShow(show);
+
+    TvShowEpisode ep = new TvShowEpisode();
+    ep.setTitle("indexed episode");
+    ep.setSeason(1);
+    ep.setEpisode(1);
+    ep.addToMediaFiles(new MediaFile(Paths.get("target/test-classes/indexed/S01E01.avi")));
+    ep.setTvShow(show);
+    show.addEpisode(ep);
+
+    // the index must be up to date right after adding the episode (without waiting for any event)
+    assertThat(TvShowList.getInstance().lookupEpisode(ep.getDbId())).isSameAs(ep);
+    assertThat(TvShowList.getInstance().getEpisodesByVideoFile(Paths.get("target/test-classes/indexed/S01E01.avi"))).containsExactly(ep);
+
+    show.removeEpisode(ep);
+    assertThat(TvShowList.getInstance().lookupEpisode(ep.getDbId())).isNull();
+    assertThat(TvShowList.getInstance().getEpisodesByVideoFile(Paths.get("target/test-classes/indexed/S01E01.avi"))).isEmpty();
+
+    TvShowList.getInstance().removeTvShow(show);
+
+    TvShowModuleManager.getInstance().shutDown();
+    TmmModuleManager.getInstance().shutDown();
+  }
+
   /**
    * Test episode matching.
    */
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tinymediamanager.scraper.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class RateLimitInterceptorTest {
+  private final MockWebServer server = new MockWebServer();
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+  }
+
+  @After
+  public void shutDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void testRetryAfter() throws Exception {
+    RateLimiter rateLimiter = new RateLimiter("test", 10);
+    OkHttpClient client = createClient(rateLimiter, 3, 10);
+
+    server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+    server.enqueue(text("ok"));
+
+    long start = System.nanoTime();
+    try (Response response = client.newCall(request()).execute()) {
+      assertThat(response.code()).isEqualTo(200);
+      assertThat(response.body().string()).isEqualTo("ok");
+    }
+
+    // the requested second has been waited for
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(950);
+    assertThat(server.getRequestCount()).isEqualTo(2);
+
+    // the rate has been lowered
+    assertThat(rateLimiter.getThrottledCount()).isEqualTo(1);
+    assertThat(rateLimiter.getRate()).isLessThan(10);
+  }
+
+  @Test
+  public void testBackoff() throws Exception {
+    RateLimiter rateLimiter = new RateLimiter("test", 100);
+    OkHttpClient client = createClient(rateLimiter, 3, 20);
+
+    server.enqueue(new MockResponse().setResponseCode(429));
+    server.enqueue(new MockResponse().setResponseCode(429));
+    server.enqueue(text("ok"));
+
+    try (Response response = client.newCall(request()).execute()) {
+      assertThat(response.code()).isEqualTo(200);
+    }
+    assertThat(server.getRequestCount()).isEqualTo(3);
+    assertThat(rateLimiter.getThrottledCount()).isEqualTo(2);
+    // two halvings, raised again by the successful request
+    assertThat(rateLimiter.getRate()).isEqualTo(27);
+  }
+
+  @Test
+  public void testGiveUp() throws Exception {
+    OkHttpClient client = createClient(new RateLimiter("test", 100), 2, 10);
+
+    for (int i = 0; i < 5; i++) {
+      server.enqueue(new MockResponse().setResponseCode(429));
+    }
+
+    try (Response response = client.newCall(request()).execute()) {
+      assertThat(response.code()).isEqualTo(429);
+    }
+    // the first request + 2 retries
+    assertThat(server.getRequestCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void testServiceUnavailable() throws Exception {
+    OkHttpClient client = createClient(new RateLimiter("test", 100), 2, 10);
+
+    // a 503 without Retry-After is no throttling
+    server.enqueue(new MockResponse().setResponseCode(503));
+    try (Response response = client.newCall(request()).execute()) {
+      assertThat(response.code()).isEqualTo(503);
+    }
+
+    server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "0"));
+    server.enqueue(text("ok"));
+    try (Response response = client.newCall(request()).execute()) {
+      assertThat(response.code()).isEqualTo(200);
+    }
+    assertThat(server.getRequestCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void testTokenBucket() throws Exception {
+    // 20 requests per second - the first 20 requests are served from the full bucket
+    RateLimiter rateLimiter = new RateLimiter("test", 20);
+    OkHttpClient client = createClient(rateLimiter, 3, 10);
+
+    for (int i = 0; i < 30; i++) {
+      server.enqueue(text("ok"));
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 30; i++) {
+      try (Response response = client.newCall(request()).execute()) {
+        assertThat(response.code()).isEqualTo(200);
+      }
+    }
+
+    // the last 10 requests had to wait for new tokens
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(450);
+  }
+
+  @Test
+  public void testConcurrentThrottling() throws Exception {
+    // a server allowing only every second request - the rate levels off and all requests succeed
+    RateLimiter rateLimiter = new RateLimiter("test", 200);
+    OkHttpClient client = createClient(rateLimiter, 5, 10);
+
+    for (int i = 0; i < 20; i++) {
+      server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "0"));
+      server.enqueue(text("ok"));
+    }
+
+    List<Thread> threads = new ArrayList<>();
+    List<Integer> codes = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread thread = new Thread(() -> {
+        for (int j = 0; j < 5; j++) {
+          try (Response response = client.newCall(request()).execute()) {
+            synchronized (codes) {
+              codes.add(response.code());
+            }
+          }
+          catch (Exception e) {
+            synchronized (codes) {
+              codes.add(-1);
+            }
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join(20000);
+    }
+
+    assertThat(codes).hasSize(20).containsOnly(200);
+    assertThat(rateLimiter.getRate()).isLessThan(200);
+  }
+
+  @Test
+  public void testRecovery() {
+    RateLimiter rateLimiter = new RateLimiter("test", 10);
+    rateLimiter.onThrottled(0);
+    assertThat(rateLimiter.getRate()).isEqualTo(5);
+
+    for (int i = 0; i < 100; i++) {
+      rateLimiter.onSuccess();
+    }
+    assertThat(rateLimiter.getRate()).isEqualTo(10);
+  }
+
+  @Test
+  public void testRetryAfterDate() {
+    Response response = new Response.Builder().request(request())
+        .protocol(Protocol.HTTP_1_1)
+        .code(429)
+        .message("Too Many Requests")
+        .header("Retry-After", "Wed, 21 Oct 2015 07:28:00 GMT")
+        .build();
+    // a date in the past: retry immediately
+    assertThat(RateLimitInterceptor.getRetryAfter(response)).isZero();
+  }
+
+  private OkHttpClient createClient(RateLimiter rateLimiter, int maxRetries, long baseDelay) {
+    return new OkHttpClient.Builder().addInterceptor(new RateLimitInterceptor(rateLimiter, maxRetries, baseDelay, 5000))
+        .addNetworkInterceptor(new RateLimitInterceptor.NetworkInterceptor(rateLimiter))
+        .build();
+  }
+
+  private Request request() {
+    return new Request.Builder().url(server.url("/api")).build();
+  }
+
+  private MockResponse text(String body) {
+    return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/plain").setBody(body);
+  }
+}
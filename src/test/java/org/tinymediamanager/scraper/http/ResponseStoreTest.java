@@ -0,0 +1,202 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+public class ResponseStoreTest {
+  @Rule
+  public TemporaryFolder      folder = new TemporaryFolder();
+
+  private final MockWebServer server = new MockWebServer();
+  private ResponseStore       store;
+
+  @Before
+  public void setUp() throws Exception {
+    server.start();
+    store = new ResponseStore(folder.getRoot().toPath(), ResponseStore.Mode.CACHE, 1024 * 1024);
+  }
+
+  @After
+  public void shutDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void testStoreIgnoresCachingHeaders() throws Exception {
+    OkHttpClient client = createClient("test");
+    server.enqueue(json("{\"id\":1}"));
+
+    assertThat(get(client, "/movie/1?api_key=abc&language=de")).isEqualTo("{\"id\":1}");
+    // same request with another api key and another order of the parameters
+    assertThat(get(client, "/movie/1?language=de&api_key=xyz")).isEqualTo("{\"id\":1}");
+
+    assertThat(server.getRequestCount()).isEqualTo(1);
+    assertThat(store.size()).isEqualTo(1);
+
+    // the stored response is marked
+    try (Response response = client.newCall(request("/movie/1?language=de")).execute()) {
+      assertThat(response.header(ResponseStore.HEADER_STORE)).isEqualTo("HIT");
+      assertThat(response.body().contentType().toString()).startsWith("application/json");
+    }
+  }
+
+  @Test
+  public void testRelevantHeaders() throws Exception {
+    OkHttpClient client = createClient("test");
+    server.enqueue(json("english"));
+    server.enqueue(json("german"));
+
+    Request en = new Request.Builder().url(server.url("/episodes")).header("Accept-Language", "en").build();
+    Request de = new Request.Builder().url(server.url("/episodes")).header("Accept-Language", "de").build();
+
+    assertThat(execute(client, en)).isEqualTo("english");
+    assertThat(execute(client, de)).isEqualTo("german");
+    assertThat(execute(client, en)).isEqualTo("english");
+    assertThat(execute(client, de)).isEqualTo("german");
+
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testTimeToLive() throws Exception {
+    store.setTimeToLive("test", 1);
+    OkHttpClient client = createClient("test");
+    server.enqueue(json("first"));
+    server.enqueue(json("second"));
+
+    assertThat(get(client, "/movie/1")).isEqualTo("first");
+    Thread.sleep(10);
+    assertThat(get(client, "/movie/1")).isEqualTo("second");
+    assertThat(server.getRequestCount()).isEqualTo(2);
+
+    // not stored at all
+    store.setTimeToLive("test", 0);
+    server.enqueue(json("third"));
+    assertThat(get(client, "/movie/2")).isEqualTo("third");
+    assertThat(store.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testErrorsAreNotStored() throws Exception {
+    OkHttpClient client = createClient("test");
+    server.enqueue(new MockResponse().setResponseCode(500));
+    server.enqueue(json("ok"));
+
+    try (Response response = client.newCall(request("/movie/1")).execute()) {
+      assertThat(response.code()).isEqualTo(500);
+    }
+    assertThat(get(client, "/movie/1")).isEqualTo("ok");
+    assertThat(server.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testOfflineReplay() throws Exception {
+    // record (with an expired TTL - the offline mode ignores it)
+    store.setMode(ResponseStore.Mode.RECORD);
+    store.setTimeToLive("test", 1);
+    OkHttpClient client = createClient("test");
+    server.enqueue(json("recorded"));
+    assertThat(get(client, "/movie/1")).isEqualTo("recorded");
+    Thread.sleep(10);
+
+    // replay with a new store instance (as after a restart)
+    ResponseStore replay = new ResponseStore(folder.getRoot().toPath(), ResponseStore.Mode.OFFLINE, 1024 * 1024);
+    client = new OkHttpClient.Builder().addInterceptor(new ResponseStoreInterceptor("test", replay)).build();
+
+    assertThat(get(client, "/movie/1")).isEqualTo("recorded");
+    try (Response response = client.newCall(request("/movie/2")).execute()) {
+      assertThat(response.code()).isEqualTo(504);
+    }
+
+    // no request has been sent
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testLruEviction() throws Exception {
+    store.setMaxSize(10 * 1024);
+    OkHttpClient client = createClient("test");
+    String body = new String(new char[3000]).replace('\0', 'x');
+
+    for (int i = 1; i <= 3; i++) {
+      server.enqueue(json(body));
+      get(client, "/movie/" + i);
+      Thread.sleep(10);
+    }
+    // access the first one to make the second one the least recently used
+    get(client, "/movie/1");
+    Thread.sleep(10);
+
+    server.enqueue(json(body));
+    get(client, "/movie/4");
+
+    assertThat(store.getTotalSize()).isLessThanOrEqualTo(9 * 1024);
+    assertThat(server.getRequestCount()).isEqualTo(4);
+
+    // 1 is still stored, 2 has been removed
+    get(client, "/movie/1");
+    assertThat(server.getRequestCount()).isEqualTo(4);
+    server.enqueue(json(body));
+    get(client, "/movie/2");
+    assertThat(server.getRequestCount()).isEqualTo(5);
+  }
+
+  @Test
+  public void testNormalizeUrl() {
+    assertThat(ResponseStore.normalizeUrl(HttpUrl.get("HTTPS://API.Example.com:443/3/tv/1?b=2&api_key=123&a=1#top")))
+        .isEqualTo("https://api.example.com/3/tv/1?a=1&b=2");
+  }
+
+  private OkHttpClient createClient(String providerId) {
+    return new OkHttpClient.Builder().addInterceptor(new ResponseStoreInterceptor(providerId, store))
+        .connectTimeout(5, TimeUnit.SECONDS)
+        .build();
+  }
+
+  private Request request(String path) {
+    return new Request.Builder().url(server.url(path)).build();
+  }
+
+  private String get(OkHttpClient client, String path) throws Exception {
+    return execute(client, request(path));
+  }
+
+  private String execute(OkHttpClient client, Request request) throws Exception {
+    try (Response response = client.newCall(request).execute()) {
+      return response.body().string();
+    }
+  }
+
+  private MockResponse json(String body) {
+    return new MockResponse().setHeader("Content-Type", "application/json").setHeader("Cache-Control", "no-cache").setBody(body);
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tinymediamanager.scraper.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.tinymediamanager.scraper.exceptions.HttpException;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+
+public class SegmentedDownloadTest {
+  private static final Pattern RANGE   = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+  @Rule
+  public TemporaryFolder       folder  = new TemporaryFolder();
+
+  private final MockWebServer  server  = new MockWebServer();
+  private final byte[]         content = new byte[1024 * 1024 + 123];
+
+  @Before
+  public void setUp() throws Exception {
+    new Random(42).nextBytes(content);
+    server.start();
+  }
+
+  @After
+  public void shutDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void testSegmentedDownload() throws Exception {
+    RangeDispatcher dispatcher = new RangeDispatcher(true);
+    server.setDispatcher(dispatcher);
+
+    Path partFile = folder.getRoot().toPath().resolve("file.part");
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMaxSegments(4);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    assertThat(download.download()).isTrue();
+    assertThat(download.getSegmentCount()).isEqualTo(4);
+    assertThat(download.getContentLength()).isEqualTo(content.length);
+    assertThat(Files.readAllBytes(partFile)).isEqualTo(content);
+
+    // the probe delivers the first segment; every other segment has its own range request
+    assertThat(dispatcher.ranges).hasSize(4);
+    assertThat(dispatcher.ranges.get(0)).isEqualTo("bytes=0-");
+    assertThat(download.isResumable()).isFalse();
+    assertThat(partFile.resolveSibling("file.part.segments")).doesNotExist();
+  }
+
+  @Test
+  public void testNoRangeSupport() throws Exception {
+    RangeDispatcher dispatcher = new RangeDispatcher(false);
+    server.setDispatcher(dispatcher);
+
+    Path partFile = folder.getRoot().toPath().resolve("file.part");
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    assertThat(download.download()).isTrue();
+    assertThat(download.getSegmentCount()).isZero();
+    assertThat(Files.readAllBytes(partFile)).isEqualTo(content);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    RangeDispatcher dispatcher = new RangeDispatcher(true);
+    // the third segment fails permanently
+    int segmentSize = content.length / 4;
+    dispatcher.failingStart = segmentSize * 2;
+    server.setDispatcher(dispatcher);
+
+    Path partFile = folder.getRoot().toPath().resolve("file.part");
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMaxSegments(4);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    try {
+      download.download();
+      Assert.fail();
+    }
+    catch (IOException e) {
+      assertThat(download.isResumable()).isTrue();
+      assertThat(partFile.resolveSibling("file.part.segments")).exists();
+    }
+
+    // the next try only downloads the missing segment
+    dispatcher.failingStart = -1;
+    dispatcher.ranges.clear();
+
+    download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMaxSegments(4);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    assertThat(download.download()).isTrue();
+    assertThat(Files.readAllBytes(partFile)).isEqualTo(content);
+    assertThat(dispatcher.ranges).containsExactly("bytes=0-", "bytes=" + segmentSize * 2 + "-" + (segmentSize * 3 - 1));
+  }
+
+  @Test
+  public void testResumeChangedContent() throws Exception {
+    RangeDispatcher dispatcher = new RangeDispatcher(true);
+    int segmentSize = content.length / 4;
+    dispatcher.failingStart = segmentSize * 2;
+    server.setDispatcher(dispatcher);
+
+    Path partFile = folder.getRoot().toPath().resolve("file.part");
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMaxSegments(4);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    try {
+      download.download();
+      Assert.fail();
+    }
+    catch (IOException e) {
+      assertThat(download.isResumable()).isTrue();
+    }
+
+    // the content has been changed on the server - the download starts over
+    dispatcher.failingStart = -1;
+    dispatcher.etag = "\"tmm2\"";
+    dispatcher.ranges.clear();
+
+    download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMaxSegments(4);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    assertThat(download.download()).isTrue();
+    assertThat(Files.readAllBytes(partFile)).isEqualTo(content);
+    assertThat(dispatcher.ranges).hasSize(4);
+  }
+
+  @Test
+  public void testNoValidator() throws Exception {
+    RangeDispatcher dispatcher = new RangeDispatcher(true);
+    dispatcher.etag = null;
+    server.setDispatcher(dispatcher);
+
+    Path partFile = folder.getRoot().toPath().resolve("file.part");
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMaxSegments(4);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    // the segments cannot be verified to belong to the same content - one single connection
+    assertThat(download.download()).isTrue();
+    assertThat(download.getSegmentCount()).isZero();
+    assertThat(Files.readAllBytes(partFile)).isEqualTo(content);
+    assertThat(dispatcher.ranges).containsExactly("bytes=0-");
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    RangeDispatcher dispatcher = new RangeDispatcher(true);
+    dispatcher.throttled = true;
+    server.setDispatcher(dispatcher);
+
+    Path partFile = folder.getRoot().toPath().resolve("file.part");
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), partFile);
+    download.setMaxSegments(4);
+    download.setMinimumSegmentSize(64 * 1024);
+
+    // cancel like the DownloadTask does: set the flag and abort all connections
+    AtomicBoolean cancelled = new AtomicBoolean(false);
+    download.setCancelled(cancelled::get);
+    download.setProgressListener((bytesDone, length) -> {
+      if (bytesDone > 64 * 1024 && cancelled.compareAndSet(false, true)) {
+        download.abort();
+      }
+    });
+
+    // a cancelled download is no error
+    assertThat(download.download()).isFalse();
+    assertThat(cancelled.get()).isTrue();
+    assertThat(download.isResumable()).isTrue();
+    assertThat(partFile.resolveSibling("file.part.segments")).exists();
+  }
+
+  @Test
+  public void testContentLengthMismatch() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        return new MockResponse().setResponseCode(200)
+            .setHeader("Content-Type", "video/mp4")
+            .setBody(new Buffer().write(content))
+            .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+      }
+    });
+
+    Path partFile = folder.getRoot().toPath().resolve("file.part");
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), partFile);
+    try {
+      download.download();
+      Assert.fail();
+    }
+    catch (IOException e) {
+      assertThat(download.isResumable()).isFalse();
+    }
+  }
+
+  @Test
+  public void testHttpError() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(404));
+
+    SegmentedDownload download = new SegmentedDownload(server.url("file").toString(), folder.getRoot().toPath().resolve("file.part"));
+    try {
+      download.download();
+      Assert.fail();
+    }
+    catch (HttpException e) {
+      assertThat(e.getStatusCode()).isEqualTo(404);
+    }
+  }
+
+  /**
+   * a dispatcher which answers range requests like a real web server
+   */
+  private class RangeDispatcher extends Dispatcher {
+    private final boolean      rangeSupport;
+    private final List<String> ranges       = new CopyOnWriteArrayList<>();
+    private volatile int       failingStart = -1;
+    private volatile boolean   throttled    = false;
+    private volatile String    etag         = "\"tmm\"";
+
+    private RangeDispatcher(boolean rangeSupport) {
+      this.rangeSupport = rangeSupport;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      String range = request.getHeader("Range");
+      Matcher matcher = range != null ? RANGE.matcher(range) : null;
+
+      if (!rangeSupport || matcher == null || !matcher.matches()) {
+        return new MockResponse().setResponseCode(200).setHeader("Content-Type", "video/mp4").setBody(new Buffer().write(content));
+      }
+
+      ranges.add(range);
+
+      int start = Integer.parseInt(matcher.group(1));
+      int end = matcher.group(2).isEmpty() ? content.length - 1 : Integer.parseInt(matcher.group(2));
+      if (start == failingStart) {
+        return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+      }
+
+      byte[] body = new byte[end - start + 1];
+      System.arraycopy(content, start, body, 0, body.length);
+      MockResponse response = new MockResponse().setResponseCode(206)
+          .setHeader("Content-Type", "video/mp4")
+          .setHeader("Accept-Ranges", "bytes")
+          .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + content.length)
+          .setBody(new Buffer().write(body));
+      if (etag != null) {
+        response.setHeader("ETag", etag);
+      }
+      if (throttled) {
+        response.throttleBody(16 * 1024, 100, TimeUnit.MILLISECONDS);
+      }
+      return response;
+    }
+  }
+}
@@ -207,4 +207,27 @@ public class ITTmdbTvShowMetadataProviderTest extends BasicTest {
 
   }
 
+  @Test
+  public void testScrapeTvEpisodesInBatch() throws Exception {
+    ITvShowMetadataProvider mp = new TmdbTvShowMetadataProvider();
+
+    List<TvShowEpisodeSearchAndScrapeOptions> options = new ArrayList<>();
+    for (String[] episode : new String[][] { { "2", "12" }, { "2", "13" }, { "2", "999" } }) {
+      TvShowEpisodeSearchAndScrapeOptions episodeOptions = new TvShowEpisodeSearchAndScrapeOptions();
+      episodeOptions.setLanguage(MediaLanguages.en);
+      episodeOptions.getTvShowIds().put(MediaMetadata.TMDB, 456);
+      episodeOptions.setId(MediaMetadata.SEASON_NR, episode[0]);
+      episodeOptions.setId(MediaMetadata.EPISODE_NR, episode[1]);
+      options.add(episodeOptions);
+    }
+
+    List<MediaMetadata> episodes = mp.getEpisodeMetadata(options);
+
+    assertThat(episodes).hasSize(3);
+    assertThat(episodes.get(0).getSeasonNumber()).isEqualTo(2);
+    assertThat(episodes.get(0).getEpisodeNumber()).isEqualTo(12);
+    assertThat(episodes.get(1).getSeasonNumber()).isEqualTo(2);
+    assertThat(episodes.get(1).getEpisodeNumber()).isEqualTo(13);
+    assertThat(episodes.get(2)).isNull();
+  }
 }
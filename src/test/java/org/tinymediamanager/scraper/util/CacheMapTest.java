@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.scraper.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CacheMapTest {
+
+  @Test
+  public void testMaxEntries() {
+    CacheMap<String, String> cache = new CacheMap<>(60, 0, 10);
+    for (int i = 0; i < 10; i++) {
+      cache.put("key" + i, "value" + i);
+    }
+    assertThat(cache.size()).isEqualTo(10);
+
+    // access the first entry - it must not be evicted
+    assertThat(cache.get("key0")).isEqualTo("value0");
+
+    cache.put("key10", "value10");
+    assertThat(cache.size()).isEqualTo(10);
+    assertThat(cache.get("key0")).isEqualTo("value0");
+    assertThat(cache.get("key1")).isNull();
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.getHitCount()).isEqualTo(2);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void testMaxWeight() {
+    CacheMap<String, byte[]> cache = new CacheMap<>(60, 0, 0, 1000, value -> value.length);
+    for (int i = 0; i < 20; i++) {
+      cache.put("key" + i, new byte[100]);
+      assertThat(cache.getWeight()).isLessThanOrEqualTo(1000);
+    }
+    assertThat(cache.getEvictionCount()).isGreaterThan(0);
+    assertThat(cache.get("key19")).isNotNull();
+
+    // too heavy - not cached at all
+    cache.put("huge", new byte[2000]);
+    assertThat(cache.get("huge")).isNull();
+
+    // replacing an entry replaces its weight
+    long weight = cache.getWeight();
+    cache.put("key19", new byte[50]);
+    assertThat(cache.getWeight()).isEqualTo(weight - 50);
+
+    cache.cleanup(true);
+    assertThat(cache.size()).isZero();
+    assertThat(cache.getWeight()).isZero();
+  }
+
+  @Test
+  public void testTimeToLive() throws Exception {
+    CacheMap<String, String> cache = new CacheMap<>(1, 1);
+    cache.put("key", "value");
+    assertThat(cache.get("key")).isEqualTo("value");
+
+    Thread.sleep(1100);
+    // expired entries are not returned any more (even if the cleanup did not run yet)
+    assertThat(cache.get("key")).isNull();
+
+    cache.put("key", "value");
+    Thread.sleep(2500);
+    // removed by the shared cleanup thread
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    CacheMap<Integer, Integer> cache = new CacheMap<>(60, 0, 1000);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int offset = t * 10000;
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          cache.put(offset + i, i);
+          cache.get(offset + i / 2);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(cache.size()).isLessThanOrEqualTo(1000);
+    assertThat(cache.getHitCount() + cache.getMissCount()).isEqualTo(40000);
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.tinymediamanager.scraper.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tinymediamanager.scraper.exceptions.MissingIdException;
+import org.tinymediamanager.scraper.exceptions.ScrapeException;
+
+public class ScraperExecutorTest {
+  private ScraperExecutor executor;
+
+  @After
+  public void tearDown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testProviderLimit() throws Exception {
+    executor = new ScraperExecutor(8, 2, false);
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      int value = i;
+      futures.add(executor.submit("provider", () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        release.await(10, TimeUnit.SECONDS);
+        running.decrementAndGet();
+        return value;
+      }));
+    }
+
+    // two tasks running, the others are waiting for a free slot
+    waitFor(() -> running.get() == 2);
+    assertThat(executor.getRunningTasks()).isEqualTo(2);
+    assertThat(executor.getQueueDepth()).isEqualTo(4);
+
+    // another provider is not blocked by the first one
+    assertThat(executor.submit("other", () -> "other").get(10, TimeUnit.SECONDS)).isEqualTo("other");
+
+    release.countDown();
+    for (int i = 0; i < futures.size(); i++) {
+      assertThat(futures.get(i).get(10, TimeUnit.SECONDS)).isEqualTo(i);
+    }
+
+    assertThat(maxRunning.get()).isEqualTo(2);
+    assertThat(executor.getQueueDepth()).isZero();
+
+    // the statistics are recorded after the result has been published
+    waitFor(() -> getStatistics("provider").getCompleted() == 6);
+    assertThat(getStatistics("provider").getPending()).isZero();
+  }
+
+  @Test
+  public void testGlobalLimit() throws Exception {
+    executor = new ScraperExecutor(3, 10, false);
+    executor.setProviderLimit("limited", 1);
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    List<Future<Object>> futures = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      futures.add(executor.submit(i % 2 == 0 ? "limited" : "unlimited", () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(20);
+        running.decrementAndGet();
+        return null;
+      }));
+    }
+
+    for (Future<Object> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+
+    assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+  }
+
+  @Test
+  public void testNestedFanOut() throws Exception {
+    // every slot is occupied by a task which waits for its own sub tasks - they have to be executed by the waiting threads
+    executor = new ScraperExecutor(2, 2, false);
+    ExecutorService providerExecutor = executor.forProvider("imdb");
+
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(providerExecutor.submit(() -> {
+        ExecutorCompletionService<Integer> completionService = new ExecutorCompletionService<>(providerExecutor);
+        List<Future<Integer>> subTasks = new ArrayList<>();
+        for (int j = 0; j < 3; j++) {
+          subTasks.add(completionService.submit(() -> 1));
+        }
+
+        int sum = 0;
+        for (Future<Integer> subTask : subTasks) {
+          sum += subTask.get();
+        }
+        return sum;
+      }));
+    }
+
+    for (Future<Integer> future : futures) {
+      assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo(3);
+    }
+  }
+
+  @Test
+  public void testExceptions() throws Exception {
+    executor = new ScraperExecutor(2, 2, false);
+
+    try {
+      ScraperExecutor.getResult(executor.submit("provider", () -> {
+        throw new MissingIdException("imdb");
+      }));
+      Assert.fail();
+    }
+    catch (MissingIdException e) {
+      // expected
+    }
+
+    try {
+      ScraperExecutor.getResult(executor.submit("provider", () -> {
+        throw new Exception("test");
+      }));
+      Assert.fail();
+    }
+    catch (ScrapeException e) {
+      assertThat(e.getCause()).hasMessage("test");
+    }
+  }
+
+  @Test
+  public void testVirtualThreads() throws Exception {
+    // falls back to platform threads on JVMs without virtual threads
+    executor = new ScraperExecutor(2, 2, true);
+    assertThat(executor.submit("provider", () -> "result").get(10, TimeUnit.SECONDS)).isEqualTo("result");
+  }
+
+  private ScraperExecutor.ProviderStatistics getStatistics(String providerId) {
+    return executor.getProviderStatistics()
+        .stream()
+        .filter(statistics -> providerId.equals(statistics.getProviderId()))
+        .findFirst()
+        .orElseThrow(AssertionError::new);
+  }
+
+  private void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long end = System.currentTimeMillis() + 10000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+}
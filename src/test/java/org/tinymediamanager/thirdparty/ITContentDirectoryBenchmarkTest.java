@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.swing.SwingUtilities;
+
+import org.fourthline.cling.support.model.BrowseFlag;
+import org.fourthline.cling.support.model.BrowseResult;
+import org.fourthline.cling.support.model.SortCriterion;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.tinymediamanager.BasicTest;
+import org.tinymediamanager.core.MediaFileType;
+import org.tinymediamanager.core.Settings;
+import org.tinymediamanager.core.TmmModuleManager;
+import org.tinymediamanager.core.entities.MediaFile;
+import org.tinymediamanager.core.entities.MediaGenres;
+import org.tinymediamanager.core.movie.MovieList;
+import org.tinymediamanager.core.movie.MovieModuleManager;
+import org.tinymediamanager.core.movie.entities.Movie;
+import org.tinymediamanager.core.tvshow.TvShowModuleManager;
+import org.tinymediamanager.thirdparty.upnp.ContentDirectoryService;
+
+/**
+ * measure the browse latency of the UPnP content directory with 50k movies
+ *
+ * @author Manuel Laggner
+ */
+public class ITContentDirectoryBenchmarkTest extends BasicTest {
+  private static final int                     MOVIE_COUNT = 50000;
+  private static final int                     PAGE_SIZE   = 100;
+  private static final int                     ITERATIONS  = 200;
+
+  private static final ContentDirectoryService CDS         = new ContentDirectoryService();
+
+  @BeforeClass
+  public static void init() throws Exception {
+    deleteSettingsFolder();
+    Settings.getInstance(getSettingsFolder());
+
+    TmmModuleManager.getInstance().startUp();
+    MovieModuleManager.getInstance().startUp();
+    TvShowModuleManager.getInstance().startUp();
+
+    Random random = new Random(42);
+    for (int i = 0; i < MOVIE_COUNT; i++) {
+      MovieList.getInstance().addMovie(createMovie(random, i));
+    }
+    flushEvents();
+  }
+
+  @AfterClass
+  public static void shutdown() throws Exception {
+    TvShowModuleManager.getInstance().shutDown();
+    MovieModuleManager.getInstance().shutDown();
+    TmmModuleManager.getInstance().shutDown();
+  }
+
+  @Test
+  public void benchmarkBrowse() throws Exception {
+    int movieCount = MovieList.getInstance().getMovieCount();
+
+    // first browse (builds the cached lists)
+    long start = System.nanoTime();
+    BrowseResult result = browse("1/t", 0);
+    System.out.println(String.format("%-20s %8.3f ms", "first page:", (System.nanoTime() - start) / 1_000_000d));
+    assertThat(result.getCountLong()).isEqualTo(PAGE_SIZE);
+    assertThat(result.getTotalMatchesLong()).isEqualTo(movieCount);
+
+    Random random = new Random(42);
+    measure("page of titles", () -> browse("1/t", random.nextInt(movieCount / PAGE_SIZE) * PAGE_SIZE));
+    measure("last page of titles", () -> browse("1/t", movieCount - PAGE_SIZE));
+    measure("genres", () -> browse("1/g", 0));
+    measure("page of a genre", () -> browse("1/g/" + MediaGenres.ACTION.getLocalizedName(), PAGE_SIZE));
+
+    String movieId = "1/t/" + MovieList.getInstance().getMovies().get(movieCount / 2).getDbId();
+    measure("metadata of a movie", () -> CDS.browse(movieId, BrowseFlag.METADATA, "*", 0, 0, SortCriterion.valueOf("")));
+
+    // a new movie invalidates the cached lists
+    Movie movie = createMovie(random, MOVIE_COUNT);
+    movie.setGenres(Arrays.asList(MediaGenres.ACTION));
+    MovieList.getInstance().addMovie(movie);
+    flushEvents();
+
+    start = System.nanoTime();
+    result = browse("1/t", movieCount);
+    System.out.println(String.format("%-20s %8.3f ms", "page after a change:", (System.nanoTime() - start) / 1_000_000d));
+    assertThat(result.getCountLong()).isEqualTo(1);
+    assertThat(result.getTotalMatchesLong()).isEqualTo(movieCount + 1);
+    assertThat(result.getResult()).contains(movie.getDbId().toString());
+  }
+
+  private BrowseResult browse(String objectId, long firstResult) throws Exception {
+    return CDS.browse(objectId, BrowseFlag.DIRECT_CHILDREN, "*", firstResult, PAGE_SIZE, SortCriterion.valueOf(""));
+  }
+
+  private void measure(String name, BrowseCall call) throws Exception {
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      assertThat(call.browse().getCountLong()).isGreaterThan(0);
+    }
+    System.out.println(String.format("%-20s %8.3f ms", name + ":", (System.nanoTime() - start) / 1_000_000d / ITERATIONS));
+  }
+
+  /**
+   * the property change events are delivered in the EDT
+   */
+  private static void flushEvents() throws Exception {
+    SwingUtilities.invokeAndWait(() -> {
+    });
+  }
+
+  private static Movie createMovie(Random random, int i) {
+    Movie movie = new Movie();
+    movie.setDbId(UUID.randomUUID());
+    movie.setTitle("Movie " + i);
+    movie.setPath("/media/movies/Movie " + i);
+    movie.setDataSource("/media/movies");
+    movie.setYear(1950 + random.nextInt(70));
+    movie.addToGenres(Arrays.asList(MediaGenres.values()[random.nextInt(MediaGenres.values().length)],
+        MediaGenres.values()[random.nextInt(MediaGenres.values().length)]));
+
+    MediaFile mf = new MediaFile();
+    mf.setType(MediaFileType.VIDEO);
+    mf.setPath(movie.getPath());
+    mf.setFilename("Movie " + i + ".mkv");
+    mf.setFilesize(1_000_000_000L + random.nextInt(1_000_000_000));
+    movie.addToMediaFiles(mf);
+
+    MediaFile poster = new MediaFile();
+    poster.setType(MediaFileType.POSTER);
+    poster.setPath(movie.getPath());
+    poster.setFilename("poster.jpg");
+    movie.addToMediaFiles(poster);
+
+    return movie;
+  }
+
+  @FunctionalInterface
+  private interface BrowseCall {
+    BrowseResult browse() throws Exception;
+  }
+}
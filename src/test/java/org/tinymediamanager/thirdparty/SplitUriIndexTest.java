@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012 - 2021 Manuel Laggner
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.tinymediamanager.thirdparty;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class SplitUriIndexTest {
+
+  @Test
+  public void testFind() {
+    SplitUriIndex<String> index = new SplitUriIndex<>();
+    index.put(new SplitUri("/media/movies", "/media/movies/Aladdin (1992)/Aladdin.avi"), "aladdin");
+    index.put(new SplitUri("/media/movies", "/media/movies/Bambi (1942)/Bambi.avi"), "bambi");
+    index.put(new SplitUri("/media/films", "/media/films/Aladdin (1992)/Aladdin.avi"), "aladdin2");
+    assertThat(index.size()).isEqualTo(3);
+
+    // same file, datasource matched by its last folder
+    assertThat(index.find(new SplitUri("smb://127.0.0.2/movies", "smb://127.0.0.2/movies/Bambi (1942)/Bambi.avi"))).isEqualTo("bambi");
+    assertThat(index.find(new SplitUri("smb://127.0.0.2/films", "smb://127.0.0.2/films/Aladdin (1992)/Aladdin.avi"))).isEqualTo("aladdin2");
+
+    // unknown file
+    assertThat(index.find(new SplitUri("smb://127.0.0.2/movies", "smb://127.0.0.2/movies/Cars (2006)/Cars.avi"))).isNull();
+
+    // known file in an unknown datasource
+    assertThat(index.find(new SplitUri("smb://127.0.0.2/other", "smb://127.0.0.2/other/Bambi (1942)/Bambi.avi"))).isNull();
+
+    assertThat(index.getLookups()).isEqualTo(4);
+    assertThat(index.getMatches()).isEqualTo(2);
+    assertThat(index.getCollisions()).isEqualTo(1);
+  }
+}